@@ -0,0 +1,86 @@
+package com.github.samyadaleh.cltoolbox.chartparsing;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+
+/**
+ * Enumerates the possible antecedences of a rule application one after
+ * another. Each list starts with the trigger item followed by itemsNeeded
+ * items from the candidates. All items appear only once per list, no list is
+ * the permutation of another one and items equal to the trigger are not
+ * picked. Only the candidates present at creation are considered. The same
+ * list object is refilled on each call of next, so it must not be kept.
+ */
+class AntecedenceIterator implements Iterator<List<ChartItemInterface>> {
+
+  private final List<ChartItemInterface> candidates;
+  private final int size;
+  private final ChartItemInterface trigger;
+  /** Positions in the candidates of the current combination. */
+  private final int[] positions;
+  private final List<ChartItemInterface> antecedences;
+  private boolean hasNext;
+
+  AntecedenceIterator(ChartItemInterface trigger,
+    List<ChartItemInterface> candidates, int itemsNeeded) {
+    this.candidates = candidates;
+    this.size = candidates.size();
+    this.trigger = trigger;
+    this.positions = new int[itemsNeeded];
+    this.antecedences = new ArrayList<>(itemsNeeded + 1);
+    antecedences.add(trigger);
+    for (int i = 0; i < itemsNeeded; i++) {
+      antecedences.add(null);
+    }
+    this.hasNext = fill(0, 0);
+  }
+
+  @Override public boolean hasNext() {
+    return hasNext;
+  }
+
+  @Override public List<ChartItemInterface> next() {
+    if (!hasNext) {
+      throw new NoSuchElementException();
+    }
+    for (int i = 0; i < positions.length; i++) {
+      antecedences.set(i + 1, candidates.get(positions[i]));
+    }
+    int last = positions.length - 1;
+    hasNext = last >= 0 && fill(last, positions[last] + 1);
+    return antecedences;
+  }
+
+  /**
+   * Sets the positions from level on to the next valid combination where the
+   * position of level is at least from. Returns false if there is none left.
+   */
+  private boolean fill(int level, int from) {
+    while (level < positions.length) {
+      int j = nextNonTrigger(from);
+      if (j > size - (positions.length - level)) {
+        if (level == 0) {
+          return false;
+        }
+        level--;
+        from = positions[level] + 1;
+        continue;
+      }
+      positions[level] = j;
+      level++;
+      from = j + 1;
+    }
+    return true;
+  }
+
+  private int nextNonTrigger(int from) {
+    while (from < size && candidates.get(from).equals(trigger)) {
+      from++;
+    }
+    return from;
+  }
+}
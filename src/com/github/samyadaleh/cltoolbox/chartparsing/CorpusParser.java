@@ -0,0 +1,67 @@
+package com.github.samyadaleh.cltoolbox.chartparsing;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.CompiledGrammarInterface;
+import com.github.samyadaleh.cltoolbox.common.tag.Tree;
+
+/**
+ * Parses many sentences with a grammar that was converted once. Each sentence
+ * gets its own schema from the compiled grammar and its own Deduction, so
+ * parse may be called by several threads at once.
+ */
+public class CorpusParser {
+  private final CompiledGrammarInterface grammar;
+  /** Creates the configured Deduction for each sentence. */
+  private final Supplier<Deduction> deductions;
+  /** Number of best trees kept per sentence. */
+  private int maxTrees = 1;
+
+  public CorpusParser(CompiledGrammarInterface grammar) {
+    this(grammar, Deduction::new);
+  }
+
+  public CorpusParser(CompiledGrammarInterface grammar,
+    Supplier<Deduction> deductions) {
+    if (grammar == null) {
+      throw new IllegalArgumentException("Grammar must not be null.");
+    }
+    this.grammar = grammar;
+    this.deductions = deductions;
+  }
+
+  /** Parses one sentence, w is split at spaces like for the converters. */
+  public ParseResult parse(String w) throws ParseException {
+    long start = System.nanoTime();
+    Deduction deduction = deductions.get();
+    boolean recognized = deduction.doParse(grammar.instantiate(w), false);
+    List<Tree> trees = recognized && maxTrees > 0
+      ? deduction.getKBestTrees(maxTrees) : Collections.emptyList();
+    int itemCount = deduction.getChart().size();
+    return new ParseResult(w, recognized, trees, itemCount,
+      System.nanoTime() - start);
+  }
+
+  /** Parses all sentences one after another, results in input order. */
+  public List<ParseResult> parseAll(Iterable<String> sentences)
+    throws ParseException {
+    List<ParseResult> results = new ArrayList<>();
+    for (String w : sentences) {
+      results.add(parse(w));
+    }
+    return results;
+  }
+
+  /** Sets how many of the best trees each result keeps, default is 1. */
+  public void setMaxTrees(int maxTrees) {
+    if (maxTrees < 0) {
+      throw new IllegalArgumentException(
+        "Number of trees must not be negative, got " + maxTrees);
+    }
+    this.maxTrees = maxTrees;
+  }
+}
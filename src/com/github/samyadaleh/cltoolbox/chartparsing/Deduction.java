@@ -2,12 +2,33 @@ package com.github.samyadaleh.cltoolbox.chartparsing;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+import com.github.samyadaleh.cltoolbox.chartparsing.agenda.AgendaInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.agenda.FifoAgenda;
+import com.github.samyadaleh.cltoolbox.chartparsing.agenda.PriorityAgenda;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.ConsequenceSinkInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.DynamicDeductionRuleInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.IndexedDynamicDeductionRuleInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.forest.Derivation;
+import com.github.samyadaleh.cltoolbox.chartparsing.forest.KBestExtractor;
+import com.github.samyadaleh.cltoolbox.chartparsing.forest.ParseForest;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ProbabilisticChartItemInterface;
+import com.github.samyadaleh.cltoolbox.common.ArrayUtils;
 import com.github.samyadaleh.cltoolbox.common.tag.Tree;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -21,8 +42,24 @@ import org.apache.logging.log4j.Logger;
 public class Deduction {
   /** All items derived in the process. */
   private List<ChartItemInterface> chart;
+  /**
+   * Maps each item in the chart to its index in chart, so that looking up
+   * whether an item has already been derived and where does not require a
+   * scan over the whole chart.
+   */
+  private Map<ChartItemInterface, Integer> chartIndex;
+  /**
+   * Rules of the current schema that declare under which keys their possible
+   * antecedences are found.
+   */
+  private List<IndexedDynamicDeductionRuleInterface> indexedRules;
+  /**
+   * Maps the keys declared by the indexed rules to the indexes of the chart
+   * items stored under them in ascending order.
+   */
+  private Map<String, List<Integer>> signatureIndex;
   /** Items waiting to be used for further derivation. */
-  private List<ChartItemInterface> agenda;
+  private AgendaInterface agenda;
   /**
    * List of the same length of chart, elements at same indexes belong to each
    * other. Contains lists of lists of backpointers. One item can be derived in
@@ -34,6 +71,12 @@ public class Deduction {
    * of the rules that were applied to retrieve new items.
    */
   private ArrayList<ArrayList<String>> appliedRule;
+  /**
+   * Indexes correspond to entries of chart. For each derivation of an item the
+   * rule object and the antecedences in the order they were passed to the
+   * rule, used to rebuild trees on demand.
+   */
+  private ArrayList<ArrayList<DeductionStep>> deductionSteps;
   /** When true print only items that lead to a goal. */
   private boolean successfulTrace = false;
   /** Markers if items lead to goal */
@@ -56,40 +99,160 @@ public class Deduction {
    * best one, store probability or weight here.
    */
   private Double pGoal;
+  /**
+   * When true only decide whether a goal item can be derived. No trees,
+   * backpointers or applied rules are stored and parsing stops as soon as a
+   * goal item is added to the chart.
+   */
+  private boolean recognizeOnly = false;
+  /** Goal items of the current schema. */
+  private List<ChartItemInterface> goals;
+  /** Set in recognizer mode when a goal item was added to the chart. */
+  private volatile boolean goalReached;
+  /** Shared empty backpointers for all items in recognizer mode. */
+  private static final ArrayList<ArrayList<Integer>> NO_BACKPOINTERS =
+    new ArrayList<>();
+  /** Shared empty rule list for all items in recognizer mode. */
+  private static final ArrayList<String> NO_RULES = new ArrayList<>();
+  /** Shared empty step list for all items in recognizer mode. */
+  private static final ArrayList<DeductionStep> NO_STEPS = new ArrayList<>();
+  /**
+   * When true rules don't build trees during parsing, the trees of the goal
+   * items are reconstructed from the deduction steps when they are requested.
+   */
+  private boolean lazyTrees = false;
+  /** Indexes of the goal items whose trees are the result of the parse. */
+  private List<Integer> goalIds;
+  /** True if items are replaced by items with better values. */
+  private boolean weighted;
+  /**
+   * When true and items are replaced by better ones, all derivations of the
+   * items are kept in alternativeSteps besides the best one. Parsing then goes
+   * on until the agenda is empty instead of stopping at the first goal item.
+   */
+  private boolean keepAlternatives = false;
+  /**
+   * Indexes correspond to entries of chart. All derivations of an item in a
+   * weighted deduction if alternatives are kept, otherwise null.
+   */
+  private ArrayList<ArrayList<DeductionStep>> alternativeSteps;
+  /** Rule names belonging to the entries of alternativeSteps. */
+  private ArrayList<ArrayList<String>> alternativeRules;
+  /**
+   * Number of threads that apply rules. If greater than 1 and items are not
+   * replaced by better ones, the items are processed in parallel rounds.
+   */
+  private int parallelism = 1;
+  /**
+   * When true the results of a parallel round are added to the chart in the
+   * order of the items they were derived from, so the numbering of the items
+   * doesn't depend on the scheduling of the threads.
+   */
+  private boolean deterministicTrace = true;
+  /**
+   * While a parallel round is running new items are collected here and only
+   * added to the chart at the end of the round, the chart read by the threads
+   * doesn't change during a round. Null when parsing sequentially.
+   */
+  private List<ChartItemInterface> pendingItems;
+  /**
+   * Indexes of chart items that got further trees during a parallel round and
+   * the trees, added to the items at the end of the round.
+   */
+  private List<Integer> pendingTreeIds;
+  private List<List<Tree>> pendingTrees;
+  /** Passes the consequences of sequential rule applications to the chart. */
+  private final ChartSink chartSink = new ChartSink();
   private static final Logger log = LogManager.getLogger();
 
   /**
    * Takes a parsing schema, generates items from axiom rules and applies rules
    * to the items until all items were used. Returns true if a goal item was
-   * derived.
+   * derived. If items are replaced by better ones and the schema doesn't
+   * specify an agenda, items are explored best first and parsing stops as soon
+   * as a goal item is taken from the agenda. Items that were improved after
+   * they had been added to the agenda are explored again.
    */
   public boolean doParse(ParsingSchema schema, boolean success)
     throws ParseException {
     successfulTrace = success;
     chart = new ArrayList<>();
-    agenda = new ArrayList<>();
+    chartIndex = new HashMap<>();
+    agenda = new FifoAgenda();
     deductedFrom = new ArrayList<>();
     appliedRule = new ArrayList<>();
+    deductionSteps = new ArrayList<>();
+    goalIds = new ArrayList<>();
+    derivedTrees = new ArrayList<>();
+    indexedRules = new ArrayList<>();
+    signatureIndex = new HashMap<>();
+    pGoal = null;
+    goalReached = false;
+    pendingItems = null;
     if (schema == null)
       return false;
+    goals = schema.getGoals();
+    weighted = replace == 'h' || replace == 'l';
+    if (weighted && keepAlternatives && !recognizeOnly) {
+      alternativeSteps = new ArrayList<>();
+      alternativeRules = new ArrayList<>();
+    } else {
+      alternativeSteps = null;
+      alternativeRules = null;
+    }
+    if (schema.getAgenda() != null) {
+      agenda = schema.getAgenda();
+      agenda.clear();
+    } else if (weighted) {
+      agenda = new PriorityAgenda(replace == 'l');
+    }
+    boolean bestFirst = weighted && agenda instanceof PriorityAgenda
+      && alternativeSteps == null;
+    for (DynamicDeductionRuleInterface rule : schema.getRules()) {
+      rule.setBuildTrees(!recognizeOnly && !lazyTrees);
+      rule.setRecordNames(!recognizeOnly);
+      if (rule instanceof IndexedDynamicDeductionRuleInterface) {
+        indexedRules.add((IndexedDynamicDeductionRuleInterface) rule);
+      }
+    }
     for (StaticDeductionRule rule : schema.getAxioms()) {
       applyAxiomRule(rule);
     }
-    while (!agenda.isEmpty()) {
-      ChartItemInterface item = agenda.get(0);
-      agenda.remove(0);
+    if (parallelism > 1 && !weighted) {
+      exploreInParallel(new ArrayList<>(schema.getRules()));
+    }
+    while (!agenda.isEmpty() && !goalReached) {
+      ChartItemInterface item = agenda.poll();
+      if (weighted && chart.get(chartIndex.get(item)) != item) {
+        continue;
+      }
+      if (bestFirst && isGoal(item)) {
+        break;
+      }
       for (DynamicDeductionRuleInterface rule : schema.getRules()) {
         applyRule(item, rule);
+        if (goalReached) {
+          break;
+        }
       }
     }
     boolean goalfound = false;
     usefulItem = new boolean[chart.size()];
-    derivedTrees = new ArrayList<>();
+    if (recognizeOnly) {
+      return goalReached;
+    }
     for (ChartItemInterface goal : schema.getGoals()) {
       if (checkForGoal(goal) >= 0) {
         goalfound = true;
       }
     }
+    if (lazyTrees) {
+      derivedTrees = null;
+    } else {
+      for (int goalId : goalIds) {
+        derivedTrees.addAll(chart.get(goalId).getTrees());
+      }
+    }
     return goalfound;
   }
 
@@ -175,11 +338,13 @@ public class Deduction {
 
   /**
    * Takes a goal item and compares it with all items in the chart. Returns its
-   * index if one was found.
+   * index if one was found. Remembers the goal items whose trees are the
+   * result, for probabilistic parses only the best one. Goals may contain '?'
+   * that matches everything.
    */
   private int checkForGoal(ChartItemInterface goal) {
     for (int i = 0; i < chart.size(); i++) {
-      if (chart.get(i).equals(goal)) {
+      if (matchesGoal(chart.get(i), goal)) {
         usefulItem[i] = true;
         List<Tree> trees = chart.get(i).getTrees();
         if (trees != null) {
@@ -187,29 +352,29 @@ public class Deduction {
           case 'h':
             if (pGoal == null) {
               pGoal = ((ProbabilisticChartItemInterface) chart.get(i)).getProbability();
-              derivedTrees = trees;
+              goalIds.add(i);
             } else {
               Double newP = ((ProbabilisticChartItemInterface) chart.get(i)).getProbability();
               if (newP > pGoal) {
                 pGoal = newP;
-                derivedTrees = trees;
+                goalIds.set(0, i);
               }
             }
             break;
           case 'l':
             if (pGoal == null) {
               pGoal = ((ProbabilisticChartItemInterface) chart.get(i)).getProbability();
-              derivedTrees = trees;
+              goalIds.add(i);
             } else {
               Double newP = ((ProbabilisticChartItemInterface) chart.get(i)).getProbability();
               if (newP < pGoal) {
                 pGoal = newP;
-                derivedTrees = trees;
+                goalIds.set(0, i);
               }
             }
             break;
           default:
-            derivedTrees.addAll(trees);
+            goalIds.add(i);
           }
         }
         return i;
@@ -225,11 +390,22 @@ public class Deduction {
   @SuppressWarnings("serial") private void
     applyAxiomRule(StaticDeductionRule rule) {
     for (ChartItemInterface item : rule.consequences) {
-      if (chart.contains(item)) {
+      if (chartIndex.containsKey(item)) {
         continue;
       }
-      chart.add(item);
+      addToChart(item);
       agenda.add(item);
+      if (recognizeOnly) {
+        deductedFrom.add(NO_BACKPOINTERS);
+        appliedRule.add(NO_RULES);
+        deductionSteps.add(NO_STEPS);
+        continue;
+      }
+      DeductionStep step = new DeductionStep(rule, new int[0],
+        weighted ? getValue(item) : 0);
+      deductionSteps.add(new ArrayList<>());
+      deductionSteps.get(deductionSteps.size() - 1).add(step);
+      addAlternative(chart.size() - 1, step, rule.getName());
       deductedFrom.add(new ArrayList<ArrayList<Integer>>() {
         {
           add(new ArrayList<>());
@@ -247,101 +423,355 @@ public class Deduction {
    * Tries to apply a deduction rule by using the passed item as one of the
    * antecendence items. Looks through the chart to find the other needed items
    * and adds new consequence items to chart and agenda if all antecedences were
-   * found.
+   * found. If the rule is indexed only the items stored under its partner keys
+   * are looked at.
    */
   private void applyRule(ChartItemInterface item, DynamicDeductionRuleInterface rule)
     throws ParseException {
-    int itemsNeeded = rule.getAntecedencesNeeded();
-    if (chart.size() < itemsNeeded) {
-      return;
+    Iterator<List<ChartItemInterface>> tryAntecedences =
+      new AntecedenceIterator(item, getCandidates(item, rule),
+        rule.getAntecedencesNeeded() - 1);
+    chartSink.rule = rule;
+    while (tryAntecedences.hasNext() && !goalReached) {
+      chartSink.antecedences = tryAntecedences.next();
+      rule.apply(chartSink.antecedences, chartSink);
+    }
+  }
+
+  /**
+   * Returns the chart items that may be further antecedences of a rule
+   * together with item.
+   */
+  private List<ChartItemInterface> getCandidates(ChartItemInterface item,
+    DynamicDeductionRuleInterface rule) {
+    if (rule.getAntecedencesNeeded() > 1
+      && rule instanceof IndexedDynamicDeductionRuleInterface) {
+      return getPartners(item, (IndexedDynamicDeductionRuleInterface) rule);
     }
-    List<List<ChartItemInterface>> startList = new ArrayList<>();
-    startList.add(new ArrayList<>());
-    startList.get(0).add(item);
-    for (List<ChartItemInterface> tryAntecedences : antecedenceListGenerator(startList, 0,
-      itemsNeeded - 1)) {
-      rule.clearItems();
-      rule.setAntecedences(tryAntecedences);
-      List<ChartItemInterface> newItems = rule.getConsequences();
-      if (newItems.size() > 0) {
-        processNewItems(newItems, rule);
+    return chart;
+  }
+
+  /**
+   * Processes the chart in rounds until no new items are derived. In each
+   * round the items added in the round before are combined with the chart on a
+   * fork-join pool, each thread applying its own copies of the rules that are
+   * not stateless. This thread adds the results to the chart while the others
+   * are still working. Items derived in a round take part from the next round
+   * on.
+   */
+  private void exploreInParallel(List<DynamicDeductionRuleInterface> rules)
+    throws ParseException {
+    agenda.clear();
+    ThreadLocal<List<DynamicDeductionRuleInterface>> localRules =
+      ThreadLocal.withInitial(() -> {
+        List<DynamicDeductionRuleInterface> copies = new ArrayList<>();
+        for (DynamicDeductionRuleInterface rule : rules) {
+          copies.add(rule.isStateless() ? rule : rule.copy());
+        }
+        return copies;
+      });
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    pendingItems = new ArrayList<>();
+    pendingTreeIds = new ArrayList<>();
+    pendingTrees = new ArrayList<>();
+    try {
+      int from = 0;
+      while (from < chart.size() && !goalReached) {
+        int to = chart.size();
+        CompletionService<List<RuleApplication>> completed =
+          new ExecutorCompletionService<>(pool);
+        List<Future<List<RuleApplication>>> results = new ArrayList<>();
+        for (int id = from; id < to; id++) {
+          ChartItemInterface item = chart.get(id);
+          results.add(completed.submit(
+            () -> collectApplications(item, rules, localRules.get())));
+        }
+        for (int i = 0; i < results.size() && !goalReached; i++) {
+          Future<List<RuleApplication>> result =
+            deterministicTrace ? results.get(i) : completed.take();
+          for (RuleApplication application : result.get()) {
+            processNewItem(application.getConsequence(),
+              application.getRule(), application.getRuleName(),
+              application.getAntecedences());
+          }
+        }
+        endRound();
+        from = to;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof ParseException) {
+        throw (ParseException) e.getCause();
       }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pool.shutdownNow();
+      pendingItems = null;
     }
   }
 
   /**
-   * Returns itemsNeeded items from the chart. All items appear only once per
-   * list, no list is the permutation of another one.
+   * Applies the copies of the rules with item as one of the antecedences and
+   * returns one application per derived consequence. Only reads the chart.
    */
-  private List<List<ChartItemInterface>> antecedenceListGenerator(List<List<ChartItemInterface>> oldList,
-    int i, int itemsNeeded) {
-    if (itemsNeeded == 0) {
-      return oldList;
+  private List<RuleApplication> collectApplications(ChartItemInterface item,
+    List<DynamicDeductionRuleInterface> rules,
+    List<DynamicDeductionRuleInterface> copies) throws ParseException {
+    ApplicationCollector collector = new ApplicationCollector();
+    for (int i = 0; i < copies.size() && !goalReached; i++) {
+      DynamicDeductionRuleInterface rule = copies.get(i);
+      Iterator<List<ChartItemInterface>> tryAntecedences =
+        new AntecedenceIterator(item, getCandidates(item, rule),
+          rule.getAntecedencesNeeded() - 1);
+      collector.rule = rules.get(i);
+      while (tryAntecedences.hasNext() && !goalReached) {
+        collector.antecedences = tryAntecedences.next();
+        rule.apply(collector.antecedences, collector);
+      }
+    }
+    return collector.applications;
+  }
+
+  /** Moves the items and trees collected in a parallel round to the chart. */
+  private void endRound() {
+    for (int i = 0; i < pendingTreeIds.size(); i++) {
+      chart.get(pendingTreeIds.get(i)).getTrees().addAll(pendingTrees.get(i));
     }
-    List<List<ChartItemInterface>> finalList = new ArrayList<>();
-    for (int j = i; j <= chart.size() - itemsNeeded; j++) {
-      if (!chart.get(j).equals(oldList.get(0).get(0))) {
-        List<List<ChartItemInterface>> newList = new ArrayList<>();
-        for (List<ChartItemInterface> subList : oldList) {
-          newList.add(new ArrayList<>());
-          newList.get(newList.size() - 1).addAll(subList);
-          newList.get(newList.size() - 1).add(chart.get(j));
+    pendingTreeIds.clear();
+    pendingTrees.clear();
+    for (ChartItemInterface item : pendingItems) {
+      int id = chart.size();
+      chart.add(item);
+      indexItem(item, id);
+    }
+    pendingItems.clear();
+  }
+
+  /**
+   * Returns the chart items stored under the partner keys the rule declares for
+   * item, ordered by their index in the chart.
+   */
+  private List<ChartItemInterface> getPartners(ChartItemInterface item,
+    IndexedDynamicDeductionRuleInterface rule) {
+    List<String> partnerKeys = rule.getPartnerKeys(item);
+    List<ChartItemInterface> partners = new ArrayList<>();
+    if (partnerKeys.size() == 1) {
+      List<Integer> ids = signatureIndex.get(partnerKeys.get(0));
+      if (ids != null) {
+        for (int id : ids) {
+          partners.add(chart.get(id));
         }
-        finalList
-          .addAll(antecedenceListGenerator(newList, j + 1, itemsNeeded - 1));
       }
+      return partners;
     }
-    return finalList;
+    Set<Integer> ids = new TreeSet<>();
+    for (String key : partnerKeys) {
+      List<Integer> idsForKey = signatureIndex.get(key);
+      if (idsForKey != null) {
+        ids.addAll(idsForKey);
+      }
+    }
+    for (int id : ids) {
+      partners.add(chart.get(id));
+    }
+    return partners;
   }
 
-  /** Adds new items to chart and agenda if they are not in the chart yet. */
-  private void processNewItems(List<ChartItemInterface> newItems, DynamicDeductionRuleInterface rule) {
+  /**
+   * Adds a new item that the rule with the given name derived from the
+   * antecedences to chart and agenda if it is not in the chart yet.
+   */
+  private void processNewItem(ChartItemInterface newItem,
+    DynamicDeductionRuleInterface rule, String ruleName,
+    List<ChartItemInterface> antecedences) {
+    if (recognizeOnly) {
+      if (!chartIndex.containsKey(newItem)) {
+        addToChart(newItem);
+        addToAgenda(newItem);
+        deductedFrom.add(NO_BACKPOINTERS);
+        appliedRule.add(NO_RULES);
+        deductionSteps.add(NO_STEPS);
+      }
+      return;
+    }
     ArrayList<Integer> newItemsDeductedFrom = new ArrayList<>();
-    for (ChartItemInterface itemToCheck : rule.getAntecedences()) {
-      newItemsDeductedFrom.add(chart.indexOf(itemToCheck));
+    int[] antecedenceIds = new int[antecedences.size()];
+    for (ChartItemInterface itemToCheck : antecedences) {
+      int antecedenceId = chartIndex.get(itemToCheck);
+      antecedenceIds[newItemsDeductedFrom.size()] = antecedenceId;
+      newItemsDeductedFrom.add(antecedenceId);
     }
     Collections.sort(newItemsDeductedFrom);
-    for (ChartItemInterface newItem : newItems) {
-      if (chart.contains(newItem)) {
-        int oldId = chart.indexOf(newItem);
-        switch (replace) {
-        case '-':
-          if (!deductedFrom.get(oldId).contains(newItemsDeductedFrom)) {
-            appliedRule.get(oldId).add(rule.getName());
-            deductedFrom.get(oldId).add(newItemsDeductedFrom);
-            chart.get(oldId).getTrees().addAll(newItem.getTrees());
-          }
-          break;
-        case 'h':
-          Double oldValue = ((ProbabilisticChartItemInterface) chart.get(oldId)).getProbability();
-          Double newValue = ((ProbabilisticChartItemInterface) newItem).getProbability();
-          if (newValue > oldValue) {
-            chart.set(oldId, newItem);
-            appliedRule.get(oldId).set(0, rule.getName());
-            deductedFrom.get(oldId).set(0, newItemsDeductedFrom);
-          }
-          break;
-        case 'l':
-          oldValue = ((ProbabilisticChartItemInterface) chart.get(oldId)).getProbability();
-          newValue = ((ProbabilisticChartItemInterface) newItem).getProbability();
-          if (newValue < oldValue) {
-            chart.set(oldId, newItem);
-            appliedRule.get(oldId).set(0, rule.getName());
-            deductedFrom.get(oldId).set(0, newItemsDeductedFrom);
+    double antecedenceValue = 0;
+    if (weighted) {
+      for (ChartItemInterface antecedence : antecedences) {
+        antecedenceValue += getValue(antecedence);
+      }
+    }
+    DeductionStep step = new DeductionStep(rule, antecedenceIds,
+      weighted ? getValue(newItem) - antecedenceValue : 0);
+    Integer oldId = chartIndex.get(newItem);
+    if (oldId != null) {
+      addAlternative(oldId, step, ruleName);
+      switch (replace) {
+      case '-':
+        if (!deductedFrom.get(oldId).contains(newItemsDeductedFrom)) {
+          appliedRule.get(oldId).add(ruleName);
+          deductedFrom.get(oldId).add(newItemsDeductedFrom);
+          deductionSteps.get(oldId).add(step);
+          if (!lazyTrees) {
+            addTrees(oldId, newItem.getTrees());
           }
-          break;
-        default:
-          log.info(
-            "Unknown replace parameter " + replace + ", doing nothing.");
         }
-      } else {
-        chart.add(newItem);
-        agenda.add(newItem);
-        appliedRule.add(new ArrayList<>());
-        appliedRule.get(appliedRule.size() - 1).add(rule.getName());
-        deductedFrom.add(new ArrayList<>());
-        deductedFrom.get(deductedFrom.size() - 1).add(newItemsDeductedFrom);
+        break;
+      case 'h':
+        Double oldValue = ((ProbabilisticChartItemInterface) chart.get(oldId)).getProbability();
+        Double newValue = ((ProbabilisticChartItemInterface) newItem).getProbability();
+        if (newValue > oldValue) {
+          chart.set(oldId, newItem);
+          appliedRule.get(oldId).set(0, ruleName);
+          deductedFrom.get(oldId).set(0, newItemsDeductedFrom);
+          deductionSteps.get(oldId).set(0, step);
+          agenda.add(newItem);
+        }
+        break;
+      case 'l':
+        oldValue = ((ProbabilisticChartItemInterface) chart.get(oldId)).getProbability();
+        newValue = ((ProbabilisticChartItemInterface) newItem).getProbability();
+        if (newValue < oldValue) {
+          chart.set(oldId, newItem);
+          appliedRule.get(oldId).set(0, ruleName);
+          deductedFrom.get(oldId).set(0, newItemsDeductedFrom);
+          deductionSteps.get(oldId).set(0, step);
+          agenda.add(newItem);
+        }
+        break;
+      default:
+        log.info(
+          "Unknown replace parameter " + replace + ", doing nothing.");
       }
+    } else {
+      addToChart(newItem);
+      addToAgenda(newItem);
+      appliedRule.add(new ArrayList<>());
+      appliedRule.get(appliedRule.size() - 1).add(ruleName);
+      deductedFrom.add(new ArrayList<>());
+      deductedFrom.get(deductedFrom.size() - 1).add(newItemsDeductedFrom);
+      deductionSteps.add(new ArrayList<>());
+      deductionSteps.get(deductionSteps.size() - 1).add(step);
+      addAlternative(deductionSteps.size() - 1, step, ruleName);
+    }
+  }
+
+  /** Adds the item to the agenda unless the chart is processed in rounds. */
+  private void addToAgenda(ChartItemInterface item) {
+    if (pendingItems == null) {
+      agenda.add(item);
+    }
+  }
+
+  /**
+   * Adds trees to the item at index id. Items the threads of a parallel round
+   * may read get them at the end of the round.
+   */
+  private void addTrees(int id, List<Tree> trees) {
+    if (pendingItems == null) {
+      chart.get(id).getTrees().addAll(trees);
+    } else if (id < chart.size()) {
+      pendingTreeIds.add(id);
+      pendingTrees.add(trees);
+    } else {
+      pendingItems.get(id - chart.size()).getTrees().addAll(trees);
+    }
+  }
+
+  private static double getValue(ChartItemInterface item) {
+    return ((ProbabilisticChartItemInterface) item).getProbability();
+  }
+
+  /**
+   * Records the step as derivation of the item at index id if alternatives
+   * are kept and the same rule didn't derive it from the same items before.
+   */
+  private void addAlternative(int id, DeductionStep step, String ruleName) {
+    if (alternativeSteps == null) {
+      return;
+    }
+    if (id == alternativeSteps.size()) {
+      alternativeSteps.add(new ArrayList<>());
+      alternativeRules.add(new ArrayList<>());
+    }
+    int[] antecedences = step.getAntecedences().clone();
+    Arrays.sort(antecedences);
+    for (DeductionStep known : alternativeSteps.get(id)) {
+      int[] knownAntecedences = known.getAntecedences().clone();
+      Arrays.sort(knownAntecedences);
+      if (known.getRule() == step.getRule()
+        && Arrays.equals(knownAntecedences, antecedences)) {
+        return;
+      }
+    }
+    alternativeSteps.get(id).add(step);
+    alternativeRules.get(id).add(ruleName);
+  }
+
+  /** Returns true if the item matches one of the goals of the schema. */
+  private boolean isGoal(ChartItemInterface item) {
+    for (ChartItemInterface goal : goals) {
+      if (matchesGoal(item, goal)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if the item equals the goal. Only if the goal contains '?'
+   * the item forms are matched with the wildcard.
+   */
+  private static boolean matchesGoal(ChartItemInterface item,
+      ChartItemInterface goal) {
+    if (item.equals(goal)) {
+      return true;
+    }
+    String[] goalForm = goal.getItemForm();
+    return Arrays.asList(goalForm).contains("?") && ArrayUtils
+        .match(item.getItemForm(), goalForm);
+  }
+
+  /**
+   * Appends the item to the chart and registers its index, also under all keys
+   * the indexed rules declare for it.
+   */
+  private void addToChart(ChartItemInterface item) {
+    int id = chart.size();
+    if (pendingItems != null) {
+      id += pendingItems.size();
+      pendingItems.add(item);
+    }
+    chartIndex.put(item, id);
+    if (recognizeOnly && isGoal(item)) {
+      goalReached = true;
+    }
+    if (pendingItems == null) {
+      chart.add(item);
+      indexItem(item, id);
+    }
+  }
+
+  /** Stores the chart index id under all keys the indexed rules declare. */
+  private void indexItem(ChartItemInterface item, int id) {
+    if (indexedRules.isEmpty()) {
+      return;
+    }
+    Set<String> keys = new HashSet<>();
+    for (IndexedDynamicDeductionRuleInterface rule : indexedRules) {
+      keys.addAll(rule.getIndexKeys(item));
+    }
+    for (String key : keys) {
+      signatureIndex.computeIfAbsent(key, k -> new ArrayList<>()).add(id);
     }
   }
 
@@ -424,11 +854,155 @@ public class Deduction {
     return this.appliedRule;
   }
 
+  public ArrayList<ArrayList<DeductionStep>> getDeductionSteps() {
+    return this.deductionSteps;
+  }
+
+  /** Returns a walker that rebuilds trees of chart items on demand. */
+  public DerivationWalker getDerivationWalker() {
+    return new DerivationWalker(chart, deductionSteps);
+  }
+
+  /**
+   * Returns the packed forest of all derivations of the goal items found by
+   * the last call of doParse. Empty in recognizer mode.
+   */
+  public ParseForest getParseForest() {
+    if (alternativeSteps != null) {
+      return new ParseForest(chart, alternativeRules, alternativeSteps,
+        goalIds);
+    }
+    return new ParseForest(chart, appliedRule, deductionSteps, goalIds);
+  }
+
   public void setReplace(char replace) {
     this.replace = replace;
   }
 
+  /**
+   * If set, doParse only answers whether the input can be derived and stops at
+   * the first goal item. Trace and derived trees stay empty.
+   */
+  public void setRecognizeOnly(boolean recognizeOnly) {
+    this.recognizeOnly = recognizeOnly;
+  }
+
+  /**
+   * If set, rules don't build trees during parsing. The trees of the goal
+   * items are built when getDerivedTrees is called, trees of other items can
+   * be retrieved with the derivation walker.
+   */
+  public void setLazyTrees(boolean lazyTrees) {
+    this.lazyTrees = lazyTrees;
+  }
+
+  /**
+   * If set and items are replaced by better ones, all derivations of each item
+   * are kept in the parse forest so getKBestTrees can return more than the
+   * best tree. Parsing continues until the agenda is empty.
+   */
+  public void setKeepAlternatives(boolean keepAlternatives) {
+    this.keepAlternatives = keepAlternatives;
+  }
+
+  /**
+   * Sets the number of threads that apply rules, default is 1. With more
+   * threads and items that are not replaced by better ones the chart is
+   * processed in rounds on a fork-join pool instead of item by item from the
+   * agenda. The chart contains the same items, in another order.
+   */
+  public void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException(
+        "Parallelism must be at least 1, got " + parallelism);
+    }
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * If false, the results of a parallel round are added to the chart in the
+   * order the threads finish, which may be faster but numbers the items
+   * differently in each run. Default is true.
+   */
+  public void setDeterministicTrace(boolean deterministicTrace) {
+    this.deterministicTrace = deterministicTrace;
+  }
+
   public List<Tree> getDerivedTrees() {
+    if (this.derivedTrees == null) {
+      this.derivedTrees = new ArrayList<>();
+      DerivationWalker walker = getDerivationWalker();
+      try {
+        for (int goalId : goalIds) {
+          this.derivedTrees.addAll(walker.getTrees(goalId));
+        }
+      } catch (ParseException e) {
+        log.error(e.getMessage(), e);
+      }
+    }
     return this.derivedTrees;
   }
+
+  /**
+   * Returns the trees of the k best derivations of the goal items, best first.
+   * Derivations are ranked by the sum of the weights of their steps, which
+   * assumes the value of an item is the value of its antecedences plus a
+   * weight of the rule. Without setKeepAlternatives only the best derivation
+   * is known. For unweighted deductions the first k derived trees are
+   * returned, with lazy trees only those are built.
+   */
+  public List<Tree> getKBestTrees(int k) {
+    if (!weighted && derivedTrees != null) {
+      return new ArrayList<>(
+        derivedTrees.subList(0, Math.min(k, derivedTrees.size())));
+    }
+    List<Tree> trees = new ArrayList<>();
+    DerivationWalker walker = getDerivationWalker();
+    try {
+      if (!weighted) {
+        for (int goalId : goalIds) {
+          if (trees.size() >= k) {
+            break;
+          }
+          trees.addAll(walker.getTrees(goalId, k - trees.size()));
+        }
+        return trees;
+      }
+      for (Derivation derivation : new KBestExtractor(getParseForest(),
+        replace == 'l').getKBest(k)) {
+        trees.addAll(walker.getTrees(derivation));
+      }
+    } catch (ParseException e) {
+      log.error(e.getMessage(), e);
+    }
+    return trees;
+  }
+
+  /**
+   * Adds each consequence of the rule applied to the antecedences set here to
+   * the chart, so no list of consequences is built per application.
+   */
+  private class ChartSink implements ConsequenceSinkInterface {
+    private DynamicDeductionRuleInterface rule;
+    private List<ChartItemInterface> antecedences;
+
+    @Override public void add(ChartItemInterface consequence,
+      String ruleName) {
+      processNewItem(consequence, rule, ruleName, antecedences);
+    }
+  }
+
+  /** Collects the consequences a thread derives in a parallel round. */
+  private static class ApplicationCollector
+    implements ConsequenceSinkInterface {
+    private final List<RuleApplication> applications = new ArrayList<>();
+    private DynamicDeductionRuleInterface rule;
+    private List<ChartItemInterface> antecedences;
+
+    @Override public void add(ChartItemInterface consequence,
+      String ruleName) {
+      applications
+        .add(new RuleApplication(rule, ruleName, antecedences, consequence));
+    }
+  }
 }
@@ -0,0 +1,36 @@
+package com.github.samyadaleh.cltoolbox.chartparsing;
+
+/**
+ * One way an item in the chart was derived: the rule that generated it and the
+ * indexes of the antecedence items in the order they were passed to the rule.
+ * Axioms have no antecedences. In weighted deductions the weight is what the
+ * step added to the values of its antecedences, otherwise it is 0.
+ */
+public class DeductionStep {
+  private final DeductionRuleInterface rule;
+  private final int[] antecedences;
+  private final double weight;
+
+  DeductionStep(DeductionRuleInterface rule, int[] antecedences) {
+    this(rule, antecedences, 0);
+  }
+
+  DeductionStep(DeductionRuleInterface rule, int[] antecedences,
+    double weight) {
+    this.rule = rule;
+    this.antecedences = antecedences;
+    this.weight = weight;
+  }
+
+  public DeductionRuleInterface getRule() {
+    return this.rule;
+  }
+
+  public int[] getAntecedences() {
+    return this.antecedences;
+  }
+
+  public double getWeight() {
+    return this.weight;
+  }
+}
@@ -0,0 +1,202 @@
+package com.github.samyadaleh.cltoolbox.chartparsing;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.DynamicDeductionRuleInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.forest.Derivation;
+import com.github.samyadaleh.cltoolbox.chartparsing.forest.Hyperedge;
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+import com.github.samyadaleh.cltoolbox.common.tag.Tree;
+
+/**
+ * Reconstructs the trees of chart items on demand from the recorded deduction
+ * steps. For each step the rule is applied again to the antecedence items,
+ * each of them temporarily holding the trees of one of its own derivations, so
+ * only the trees asked for are built. Derivations that run through an item
+ * that is already being reconstructed are skipped, which keeps cyclic
+ * derivations finite.
+ */
+public class DerivationWalker {
+  private final List<ChartItemInterface> chart;
+  private final List<? extends List<DeductionStep>> steps;
+  /** Results of items whose derivations were not cut by a cycle. */
+  private Map<Integer, List<List<Tree>>> memo;
+  private boolean[] onPath;
+  private boolean cycleCut;
+
+  public DerivationWalker(List<ChartItemInterface> chart,
+    List<? extends List<DeductionStep>> steps) {
+    this.chart = chart;
+    this.steps = steps;
+  }
+
+  /** Returns all trees of the item at index id in the chart. */
+  public List<Tree> getTrees(int id) throws ParseException {
+    return getTrees(id, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns at most limit trees of the item at index id in the chart, at most
+   * limit derivations of every item involved are looked at.
+   */
+  public List<Tree> getTrees(int id, int limit) throws ParseException {
+    memo = new HashMap<>();
+    onPath = new boolean[chart.size()];
+    cycleCut = false;
+    List<Tree> trees = new ArrayList<>();
+    for (List<Tree> treesOfDerivation : getDerivedTreeLists(id, limit)) {
+      for (Tree tree : treesOfDerivation) {
+        if (trees.size() >= limit) {
+          return trees;
+        }
+        trees.add(tree);
+      }
+    }
+    return trees;
+  }
+
+  /**
+   * Returns for each derivation of the item the tree list the rule would have
+   * assigned to it if every antecedence had only one derivation.
+   */
+  private List<List<Tree>> getDerivedTreeLists(int id, int limit)
+    throws ParseException {
+    List<List<Tree>> result = memo.get(id);
+    if (result != null) {
+      return result;
+    }
+    boolean cutOutside = cycleCut;
+    cycleCut = false;
+    onPath[id] = true;
+    result = new ArrayList<>();
+    for (DeductionStep step : steps.get(id)) {
+      if (result.size() >= limit) {
+        break;
+      }
+      int[] antecedences = step.getAntecedences();
+      if (antecedences.length == 0) {
+        List<Tree> trees = getConsequenceTrees(step.getRule(), id);
+        if (trees != null) {
+          result.add(trees);
+        }
+        continue;
+      }
+      List<List<List<Tree>>> antecedenceTrees = new ArrayList<>();
+      for (int antecedence : antecedences) {
+        if (onPath[antecedence]) {
+          cycleCut = true;
+          break;
+        }
+        List<List<Tree>> treeLists = getDerivedTreeLists(antecedence, limit);
+        if (treeLists.isEmpty()) {
+          break;
+        }
+        antecedenceTrees.add(treeLists);
+      }
+      if (antecedenceTrees.size() < antecedences.length) {
+        continue;
+      }
+      int[] positions = new int[antecedences.length];
+      do {
+        List<List<Tree>> selectedTrees = new ArrayList<>();
+        for (int i = 0; i < antecedences.length; i++) {
+          selectedTrees.add(antecedenceTrees.get(i).get(positions[i]));
+        }
+        List<Tree> trees =
+          replay((DynamicDeductionRuleInterface) step.getRule(), id,
+            antecedences, selectedTrees);
+        if (trees != null) {
+          result.add(trees);
+        }
+      } while (result.size() < limit && advance(positions, antecedenceTrees));
+    }
+    onPath[id] = false;
+    if (!cycleCut) {
+      memo.put(id, result);
+    }
+    cycleCut = cycleCut || cutOutside;
+    return result;
+  }
+
+  /** Returns the trees of one derivation taken from the parse forest. */
+  public List<Tree> getTrees(Derivation derivation) throws ParseException {
+    Hyperedge edge = derivation.getEdge();
+    List<Tree> trees;
+    if (edge.getTails().length == 0) {
+      trees = getConsequenceTrees(edge.getRule(), derivation.getNode());
+    } else {
+      List<List<Tree>> antecedenceTrees = new ArrayList<>();
+      for (Derivation child : derivation.getChildren()) {
+        antecedenceTrees.add(getTrees(child));
+      }
+      trees = replay((DynamicDeductionRuleInterface) edge.getRule(),
+        derivation.getNode(), edge.getTails(), antecedenceTrees);
+    }
+    return trees == null ? new ArrayList<>() : trees;
+  }
+
+  /**
+   * Applies the rule to the antecedences, each holding the given tree list,
+   * and returns the trees of the consequence that equals the item at index id.
+   */
+  private List<Tree> replay(DynamicDeductionRuleInterface rule, int id,
+    int[] antecedences, List<List<Tree>> antecedenceTrees)
+    throws ParseException {
+    List<ChartItemInterface> antecedenceItems = new ArrayList<>();
+    List<List<Tree>> savedTrees = new ArrayList<>();
+    for (int i = 0; i < antecedences.length; i++) {
+      ChartItemInterface item = chart.get(antecedences[i]);
+      savedTrees.add(item.getTrees());
+      item.setTrees(new ArrayList<>(antecedenceTrees.get(i)));
+      antecedenceItems.add(item);
+    }
+    boolean buildTrees = rule.isBuildTrees();
+    try {
+      rule.setBuildTrees(true);
+      rule.clearItems();
+      rule.setAntecedences(antecedenceItems);
+      for (ChartItemInterface consequence : rule.getConsequences()) {
+        if (consequence.equals(chart.get(id))) {
+          return consequence.getTrees();
+        }
+      }
+      return null;
+    } finally {
+      rule.setBuildTrees(buildTrees);
+      for (int i = 0; i < antecedences.length; i++) {
+        chart.get(antecedences[i]).setTrees(savedTrees.get(i));
+      }
+    }
+  }
+
+  /** Returns the trees of the axiom consequence that equals the item. */
+  private List<Tree> getConsequenceTrees(DeductionRuleInterface rule, int id)
+    throws ParseException {
+    for (ChartItemInterface consequence : rule.getConsequences()) {
+      if (consequence.equals(chart.get(id))) {
+        return new ArrayList<>(consequence.getTrees());
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Moves to the next combination of tree lists of the antecedences. Returns
+   * false if all combinations were visited.
+   */
+  private static boolean advance(int[] positions,
+    List<List<List<Tree>>> antecedenceTrees) {
+    for (int i = positions.length - 1; i >= 0; i--) {
+      positions[i]++;
+      if (positions[i] < antecedenceTrees.get(i).size()) {
+        return true;
+      }
+      positions[i] = 0;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,49 @@
+package com.github.samyadaleh.cltoolbox.chartparsing;
+
+import java.util.List;
+
+import com.github.samyadaleh.cltoolbox.common.tag.Tree;
+
+/**
+ * Outcome of parsing one sentence of a corpus: whether it was recognized, the
+ * best derived trees, the number of chart items and the time it took. Doesn't
+ * keep the chart, so results of many sentences can be held at once.
+ */
+public class ParseResult {
+  private final String sentence;
+  private final boolean recognized;
+  private final List<Tree> trees;
+  private final int itemCount;
+  private final long nanos;
+
+  ParseResult(String sentence, boolean recognized, List<Tree> trees,
+    int itemCount, long nanos) {
+    this.sentence = sentence;
+    this.recognized = recognized;
+    this.trees = trees;
+    this.itemCount = itemCount;
+    this.nanos = nanos;
+  }
+
+  public String getSentence() {
+    return this.sentence;
+  }
+
+  public boolean isRecognized() {
+    return this.recognized;
+  }
+
+  /** Returns the best trees, at most as many as the parser was told to keep. */
+  public List<Tree> getTrees() {
+    return this.trees;
+  }
+
+  public int getItemCount() {
+    return this.itemCount;
+  }
+
+  /** Returns the time for instantiating the schema and parsing. */
+  public long getNanos() {
+    return this.nanos;
+  }
+}
@@ -1,5 +1,6 @@
 package com.github.samyadaleh.cltoolbox.chartparsing;
 
+import com.github.samyadaleh.cltoolbox.chartparsing.agenda.AgendaInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.DynamicDeductionRuleInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
 
@@ -15,6 +16,8 @@ public class ParsingSchema {
   private final Set<StaticDeductionRule> axioms = new HashSet<>();
   private final Set<DynamicDeductionRuleInterface> rules = new HashSet<>();
   private final List<ChartItemInterface> goal = new ArrayList<>();
+  /** Order in which items are explored, first in first out if not set. */
+  private AgendaInterface agenda = null;
   
   public void addAxiom(StaticDeductionRule rule) {
     axioms.add(rule);
@@ -39,4 +42,12 @@ public class ParsingSchema {
   public List<ChartItemInterface> getGoals() {
     return this.goal;
   }
+
+  public AgendaInterface getAgenda() {
+    return this.agenda;
+  }
+
+  public void setAgenda(AgendaInterface agenda) {
+    this.agenda = agenda;
+  }
 }
@@ -0,0 +1,44 @@
+package com.github.samyadaleh.cltoolbox.chartparsing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.DynamicDeductionRuleInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+
+/**
+ * A consequence derived in a parallel round together with the rule and the
+ * antecedences it was derived from, the antecedences copied because the
+ * iterator that provides them reuses its list. The rule is the one of the
+ * schema, not the copy that was applied.
+ */
+class RuleApplication {
+  private final DynamicDeductionRuleInterface rule;
+  private final String ruleName;
+  private final List<ChartItemInterface> antecedences;
+  private final ChartItemInterface consequence;
+
+  RuleApplication(DynamicDeductionRuleInterface rule, String ruleName,
+    List<ChartItemInterface> antecedences, ChartItemInterface consequence) {
+    this.rule = rule;
+    this.ruleName = ruleName;
+    this.antecedences = new ArrayList<>(antecedences);
+    this.consequence = consequence;
+  }
+
+  DynamicDeductionRuleInterface getRule() {
+    return this.rule;
+  }
+
+  String getRuleName() {
+    return this.ruleName;
+  }
+
+  List<ChartItemInterface> getAntecedences() {
+    return this.antecedences;
+  }
+
+  ChartItemInterface getConsequence() {
+    return this.consequence;
+  }
+}
@@ -0,0 +1,24 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.agenda;
+
+/** Creates agendas by the names used on the command line. */
+public class AgendaFactory {
+
+  /**
+   * Returns a new agenda for the strategy, one of fifo, lifo or priority. The
+   * priority agenda prefers low values if lowestFirst is set.
+   */
+  public static AgendaInterface createAgenda(String strategy,
+    boolean lowestFirst) {
+    switch (strategy) {
+    case "fifo":
+      return new FifoAgenda();
+    case "lifo":
+      return new LifoAgenda();
+    case "priority":
+      return new PriorityAgenda(lowestFirst);
+    default:
+      throw new IllegalArgumentException(
+        "Unknown agenda strategy " + strategy + ", use fifo, lifo or priority.");
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.agenda;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+
+/**
+ * Holds the items that still have to be used for further derivation. The
+ * implementation decides in which order the deduction system explores them.
+ */
+public interface AgendaInterface {
+
+  void add(ChartItemInterface item);
+
+  /** Removes and returns the next item to process. */
+  ChartItemInterface poll();
+
+  boolean isEmpty();
+
+  int size();
+
+  void clear();
+}
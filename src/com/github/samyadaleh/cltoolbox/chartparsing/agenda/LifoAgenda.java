@@ -0,0 +1,31 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.agenda;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+
+/** Processes the most recently added item first, depth-first. */
+public class LifoAgenda implements AgendaInterface {
+  private final Deque<ChartItemInterface> items = new ArrayDeque<>();
+
+  @Override public void add(ChartItemInterface item) {
+    items.addFirst(item);
+  }
+
+  @Override public ChartItemInterface poll() {
+    return items.pollFirst();
+  }
+
+  @Override public boolean isEmpty() {
+    return items.isEmpty();
+  }
+
+  @Override public int size() {
+    return items.size();
+  }
+
+  @Override public void clear() {
+    items.clear();
+  }
+}
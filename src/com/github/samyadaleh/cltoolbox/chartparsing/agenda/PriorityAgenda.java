@@ -0,0 +1,72 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.agenda;
+
+import java.util.PriorityQueue;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ProbabilisticChartItemInterface;
+
+/**
+ * Processes items ordered by their probability or weight. Items with equal
+ * value and items without a value are processed in the order they were added,
+ * the latter after all items with a value.
+ */
+public class PriorityAgenda implements AgendaInterface {
+  private final PriorityQueue<Entry> items = new PriorityQueue<>();
+  private final boolean lowestFirst;
+  private long counter = 0;
+
+  /**
+   * If lowestFirst is true, items with the lowest value are processed first
+   * like for weights, otherwise items with the highest value like for
+   * probabilities.
+   */
+  public PriorityAgenda(boolean lowestFirst) {
+    this.lowestFirst = lowestFirst;
+  }
+
+  @Override public void add(ChartItemInterface item) {
+    double priority = Double.POSITIVE_INFINITY;
+    if (item instanceof ProbabilisticChartItemInterface) {
+      Double value = ((ProbabilisticChartItemInterface) item).getProbability();
+      if (value != null) {
+        priority = lowestFirst ? value : -value;
+      }
+    }
+    items.add(new Entry(item, priority, counter++));
+  }
+
+  @Override public ChartItemInterface poll() {
+    Entry entry = items.poll();
+    return entry == null ? null : entry.item;
+  }
+
+  @Override public boolean isEmpty() {
+    return items.isEmpty();
+  }
+
+  @Override public int size() {
+    return items.size();
+  }
+
+  @Override public void clear() {
+    items.clear();
+    counter = 0;
+  }
+
+  private static class Entry implements Comparable<Entry> {
+    private final ChartItemInterface item;
+    private final double priority;
+    private final long sequence;
+
+    private Entry(ChartItemInterface item, double priority, long sequence) {
+      this.item = item;
+      this.priority = priority;
+      this.sequence = sequence;
+    }
+
+    @Override public int compareTo(Entry o) {
+      int cmp = Double.compare(priority, o.priority);
+      return cmp != 0 ? cmp : Long.compare(sequence, o.sequence);
+    }
+  }
+}
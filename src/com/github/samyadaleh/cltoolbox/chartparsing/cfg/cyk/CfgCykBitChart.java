@@ -0,0 +1,86 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
+
+/**
+ * Chart of the bit-parallel CYK recognizer, one set of nonterminals per span
+ * from i to j stored as long words. Items are given out in the form of
+ * CfgCykItems [A,i,l].
+ */
+public class CfgCykBitChart {
+  private final SymbolTable nonterminals;
+  private final int startSymbol;
+  private final int n;
+  /** Cell of span i to j at index i * (n + 1) + j, null while empty. */
+  private final long[][] cells;
+
+  CfgCykBitChart(SymbolTable nonterminals, int startSymbol, int n) {
+    this.nonterminals = nonterminals;
+    this.startSymbol = startSymbol;
+    this.n = n;
+    this.cells = new long[(n + 1) * (n + 1)][];
+  }
+
+  long[] getCell(int i, int j) {
+    return cells[i * (n + 1) + j];
+  }
+
+  void setCell(int i, int j, long[] cell) {
+    cells[i * (n + 1) + j] = cell;
+  }
+
+  /** Returns true if the start symbol spans the whole input. */
+  public boolean isRecognized() {
+    long[] goal = getCell(0, n);
+    return goal != null && (goal[startSymbol >>> 6] & 1L << startSymbol) != 0;
+  }
+
+  /** Returns whether item [nt,i,length] was derived. */
+  public boolean contains(String nt, int i, int length) {
+    int id = nonterminals.getId(nt);
+    if (id < 0 || i < 0 || length < 1 || i + length > n) {
+      return false;
+    }
+    long[] cell = getCell(i, i + length);
+    return cell != null && (cell[id >>> 6] & 1L << id) != 0;
+  }
+
+  /** Returns the number of items, like the chart size of the deduction. */
+  public int getItemCount() {
+    int count = 0;
+    for (long[] cell : cells) {
+      if (cell != null) {
+        for (long word : cell) {
+          count += Long.bitCount(word);
+        }
+      }
+    }
+    return count;
+  }
+
+  /** Returns the forms [A,i,l] of all items, ordered by span. */
+  public List<String[]> getItemForms() {
+    List<String[]> itemForms = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      for (int j = i + 1; j <= n; j++) {
+        long[] cell = getCell(i, j);
+        if (cell == null) {
+          continue;
+        }
+        for (int w = 0; w < cell.length; w++) {
+          long word = cell[w];
+          while (word != 0) {
+            int nt = (w << 6) + Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            itemForms.add(new String[] {nonterminals.getSymbol(nt),
+                String.valueOf(i), String.valueOf(j - i)});
+          }
+        }
+      }
+    }
+    return itemForms;
+  }
+}
@@ -0,0 +1,284 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
+
+/**
+ * CYK recognizer for grammars in Chomsky Normal Form with many nonterminals.
+ * Each chart cell is a bit set of nonterminals stored as long words. For every
+ * nonterminal B a mask holds the nonterminals C of the rules A -> B C, so the
+ * rules that apply to two cells are found by and-ing words of the right cell
+ * with the masks of the nonterminals of the left cell. The lhs nonterminals of
+ * the rules with one rhs pair are or-ed into the cell word by word. Spans of
+ * the same length only depend on shorter ones, with parallelism above 1 they
+ * are filled by several threads of a pool the parser keeps until it is
+ * closed. Keeps no backpointers, CfgCykDenseParser builds trees.
+ */
+public class CfgCykBitParser implements AutoCloseable {
+  /** Shortest input whose spans are filled in parallel. */
+  private static final int MIN_PARALLEL_LENGTH = 8;
+  private final SymbolTable nonterminals = new SymbolTable();
+  /** Number of long words per cell. */
+  private final int words;
+  private final int startSymbol;
+  /** Lhs nonterminals of the rules A -> t by terminal t. */
+  private final Map<String, long[]> terminalRules = new HashMap<>();
+  /** Per nonterminal B the mask of all C of rules A -> B C, null if none. */
+  private final long[][] partnerMasks;
+  /** Per B the first and last word of its mask that is not 0. */
+  private final int[] firstPartnerWord;
+  private final int[] lastPartnerWord;
+  /** Per B the ids of its partners C in increasing order. */
+  private final int[][] partners;
+  /**
+   * Per B and partner index the lhs set of the rules A -> B C as indices of
+   * the words that are not 0 and those words.
+   */
+  private final int[][][] lhsWordIndices;
+  private final long[][][] lhsWords;
+  /** Threads for parallelism above 1, null if closed or not needed. */
+  private volatile ForkJoinPool pool = null;
+
+  public CfgCykBitParser(Cfg cfg) {
+    if (!cfg.isInChomskyNormalForm()) {
+      throw new IllegalArgumentException(
+          "Grammar has to be in Chomsky Normal Form.");
+    }
+    startSymbol = nonterminals.intern(cfg.getStartSymbol());
+    for (String nt : cfg.getNonterminals()) {
+      nonterminals.intern(nt);
+    }
+    for (CfgProductionRule rule : cfg.getProductionRules()) {
+      nonterminals.intern(rule.getLhs());
+      if (rule.getRhs().length == 2) {
+        nonterminals.intern(rule.getRhs()[0]);
+        nonterminals.intern(rule.getRhs()[1]);
+      }
+    }
+    int size = nonterminals.size();
+    words = (size + 63) >>> 6;
+    List<Map<Integer, long[]>> lhsSets = new ArrayList<>();
+    for (int b = 0; b < size; b++) {
+      lhsSets.add(null);
+    }
+    for (CfgProductionRule rule : cfg.getProductionRules()) {
+      int lhs = nonterminals.getId(rule.getLhs());
+      if (rule.getRhs().length == 1) {
+        setBit(terminalRules
+            .computeIfAbsent(rule.getRhs()[0], t -> new long[words]), lhs);
+      } else {
+        int b = nonterminals.getId(rule.getRhs()[0]);
+        int c = nonterminals.getId(rule.getRhs()[1]);
+        if (lhsSets.get(b) == null) {
+          lhsSets.set(b, new TreeMap<>());
+        }
+        setBit(lhsSets.get(b).computeIfAbsent(c, k -> new long[words]), lhs);
+      }
+    }
+    partnerMasks = new long[size][];
+    firstPartnerWord = new int[size];
+    lastPartnerWord = new int[size];
+    partners = new int[size][];
+    lhsWordIndices = new int[size][][];
+    lhsWords = new long[size][][];
+    for (int b = 0; b < size; b++) {
+      Map<Integer, long[]> byPartner = lhsSets.get(b);
+      if (byPartner == null) {
+        continue;
+      }
+      partnerMasks[b] = new long[words];
+      partners[b] = new int[byPartner.size()];
+      lhsWordIndices[b] = new int[byPartner.size()][];
+      lhsWords[b] = new long[byPartner.size()][];
+      int p = 0;
+      for (Map.Entry<Integer, long[]> entry : byPartner.entrySet()) {
+        setBit(partnerMasks[b], entry.getKey());
+        partners[b][p] = entry.getKey();
+        compress(entry.getValue(), b, p);
+        p++;
+      }
+      firstPartnerWord[b] = partners[b][0] >>> 6;
+      lastPartnerWord[b] = partners[b][partners[b].length - 1] >>> 6;
+    }
+  }
+
+  /** Stores the words of the lhs set that are not 0. */
+  private void compress(long[] lhsSet, int b, int p) {
+    int count = 0;
+    for (long word : lhsSet) {
+      if (word != 0) {
+        count++;
+      }
+    }
+    lhsWordIndices[b][p] = new int[count];
+    lhsWords[b][p] = new long[count];
+    int index = 0;
+    for (int w = 0; w < lhsSet.length; w++) {
+      if (lhsSet[w] != 0) {
+        lhsWordIndices[b][p][index] = w;
+        lhsWords[b][p][index] = lhsSet[w];
+        index++;
+      }
+    }
+  }
+
+  /** Returns whether w is in the language. */
+  public boolean recognize(String w) {
+    return parse(w).isRecognized();
+  }
+
+  /** Fills the chart for w, tokens separated by spaces like for the rules. */
+  public CfgCykBitChart parse(String w) {
+    String[] wSplit = w.split(" ");
+    int n = wSplit.length;
+    CfgCykBitChart chart = new CfgCykBitChart(nonterminals, startSymbol, n);
+    for (int i = 0; i < n; i++) {
+      long[] lhs = terminalRules.get(wSplit[i]);
+      if (lhs != null) {
+        chart.setCell(i, i + 1, lhs.clone());
+      }
+    }
+    ForkJoinPool parsePool = pool;
+    if (parsePool != null && n >= MIN_PARALLEL_LENGTH) {
+      fillInParallel(parsePool, chart, n);
+    } else {
+      for (int length = 2; length <= n; length++) {
+        fillSpans(chart, length, 0, n - length + 1);
+      }
+    }
+    return chart;
+  }
+
+  /**
+   * Fills the spans of each length in chunks on a fork-join pool, one length
+   * after the other.
+   */
+  private void fillInParallel(ForkJoinPool pool, CfgCykBitChart chart,
+      int n) {
+    try {
+      for (int length = 2; length <= n; length++) {
+        int spans = n - length + 1;
+        int chunks = Math.min(pool.getParallelism(), spans);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int chunk = 0; chunk < chunks; chunk++) {
+          int from = spans * chunk / chunks;
+          int to = spans * (chunk + 1) / chunks;
+          int spanLength = length;
+          tasks.add(() -> {
+            fillSpans(chart, spanLength, from, to);
+            return null;
+          });
+        }
+        for (Future<Void> done : pool.invokeAll(tasks)) {
+          done.get();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /** Fills the spans of the length that start at from to to - 1. */
+  private void fillSpans(CfgCykBitChart chart, int length, int from, int to) {
+    for (int i = from; i < to; i++) {
+      int j = i + length;
+      long[] cell = null;
+      for (int k = i + 1; k < j; k++) {
+        long[] left = chart.getCell(i, k);
+        long[] right = chart.getCell(k, j);
+        if (left == null || right == null) {
+          continue;
+        }
+        for (int wb = 0; wb < words; wb++) {
+          long leftWord = left[wb];
+          while (leftWord != 0) {
+            int b = (wb << 6) + Long.numberOfTrailingZeros(leftWord);
+            leftWord &= leftWord - 1;
+            if (partnerMasks[b] != null) {
+              if (cell == null) {
+                cell = new long[words];
+              }
+              combine(b, right, cell);
+            }
+          }
+        }
+      }
+      if (cell != null && !isEmpty(cell)) {
+        chart.setCell(i, j, cell);
+      }
+    }
+  }
+
+  /** Ors the lhs sets of the rules A -> B C with C in right into cell. */
+  private void combine(int b, long[] right, long[] cell) {
+    long[] mask = partnerMasks[b];
+    int[] bPartners = partners[b];
+    int p = 0;
+    for (int wc = firstPartnerWord[b]; wc <= lastPartnerWord[b]; wc++) {
+      long matches = right[wc] & mask[wc];
+      while (matches != 0) {
+        int c = (wc << 6) + Long.numberOfTrailingZeros(matches);
+        matches &= matches - 1;
+        while (bPartners[p] < c) {
+          p++;
+        }
+        int[] indices = lhsWordIndices[b][p];
+        long[] lhs = lhsWords[b][p];
+        for (int x = 0; x < indices.length; x++) {
+          cell[indices[x]] |= lhs[x];
+        }
+      }
+    }
+  }
+
+  private static boolean isEmpty(long[] set) {
+    for (long word : set) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void setBit(long[] set, int bit) {
+    set[bit >>> 6] |= 1L << bit;
+  }
+
+  /**
+   * Sets the number of threads that fill the spans of one length, default is
+   * 1. Only inputs of at least 8 tokens are parsed in parallel. Call close
+   * when the parser is not needed anymore to stop the threads.
+   */
+  public synchronized void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException(
+          "Parallelism must be at least 1, got " + parallelism);
+    }
+    close();
+    if (parallelism > 1) {
+      pool = new ForkJoinPool(parallelism);
+    }
+  }
+
+  /** Stops the threads, later parses run in the calling thread. */
+  @Override public synchronized void close() {
+    if (pool != null) {
+      pool.shutdown();
+      pool = null;
+    }
+  }
+}
@@ -1,28 +1,96 @@
 package com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk;
 
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.List;
 
-import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.AbstractDynamicDecutionRuleTwoAntecedences;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.AbstractDynamicDeductionRule;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.ConsequenceSinkInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.IndexedDynamicDeductionRuleInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.DeductionChartItem;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
 import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
 import com.github.samyadaleh.cltoolbox.common.tag.Tree;
 
 /**
  * If two items match the rhs of a rule, get a new item that represents the lhs.
+ * Works on items given as strings as well as on CfgCykItems, for the latter
+ * the symbols of the rule are looked up once in their symbol table. Keeps no
+ * state per application.
  */
-public class CfgCykComplete extends AbstractDynamicDecutionRuleTwoAntecedences {
+public class CfgCykComplete extends AbstractDynamicDeductionRule
+    implements IndexedDynamicDeductionRuleInterface {
 
   private final CfgProductionRule rule;
+  private final String ruleName;
+  /** Ids of the rule symbols in the symbol table last seen. */
+  private volatile RuleSymbols ruleSymbols;
 
   public CfgCykComplete(CfgProductionRule rule) {
     this.rule = rule;
-    this.name = "complete " + rule.toString();
+    this.ruleName = "complete " + rule.toString();
+    this.name = ruleName;
     this.antNeeded = 2;
   }
 
-  protected void calculateConsequences(String[] itemForm1, String[] itemForm2)
+  @Override public boolean isStateless() {
+    return true;
+  }
+
+  @Override public List<ChartItemInterface> getConsequences()
+      throws ParseException {
+    return applyToAntecedences();
+  }
+
+  @Override public void apply(List<ChartItemInterface> antecedences,
+      ConsequenceSinkInterface sink) throws ParseException {
+    if (antecedences.size() != antNeeded) {
+      return;
+    }
+    ChartItemInterface antecedence1 = antecedences.get(0);
+    ChartItemInterface antecedence2 = antecedences.get(1);
+    if (antecedence1 instanceof CfgCykItem) {
+      CfgCykItem item1 = (CfgCykItem) antecedence1;
+      CfgCykItem item2 = (CfgCykItem) antecedence2;
+      RuleSymbols ids = lookUpSymbols(item1.getSymbols());
+      calculateConsequences(item1, item2, ids, antecedences, sink);
+      calculateConsequences(item2, item1, ids, antecedences, sink);
+    } else {
+      String[] itemForm1 = antecedence1.getItemForm();
+      String[] itemForm2 = antecedence2.getItemForm();
+      calculateConsequences(itemForm1, itemForm2, antecedences, sink);
+      calculateConsequences(itemForm2, itemForm1, antecedences, sink);
+    }
+  }
+
+  private RuleSymbols lookUpSymbols(SymbolTable symbols) {
+    RuleSymbols ids = ruleSymbols;
+    if (ids == null || ids.symbols != symbols) {
+      ids = new RuleSymbols(symbols, rule);
+      ruleSymbols = ids;
+    }
+    return ids;
+  }
+
+  private void calculateConsequences(CfgCykItem item1, CfgCykItem item2,
+      RuleSymbols ids, List<ChartItemInterface> antecedences,
+      ConsequenceSinkInterface sink) throws ParseException {
+    if (item1.getNt() == ids.rhs1 && item2.getNt() == ids.rhs2
+        && item1.getI() + item1.getLength() == item2.getI()) {
+      ChartItemInterface consequence = new CfgCykItem(ids.symbols, ids.lhs,
+          item1.getI(), item1.getLength() + item2.getLength());
+      if (buildTrees) {
+        consequence.setTrees(CfgCykUtils
+            .generateDerivedTrees(item1.getTrees(), item2.getTrees(), rule));
+      }
+      logItemGeneration(consequence, antecedences, ruleName);
+      sink.add(consequence, ruleName);
+    }
+  }
+
+  private void calculateConsequences(String[] itemForm1, String[] itemForm2,
+      List<ChartItemInterface> antecedences, ConsequenceSinkInterface sink)
       throws ParseException {
     String nt1 = itemForm1[0];
     String i1 = itemForm1[1];
@@ -39,16 +107,97 @@ public class CfgCykComplete extends AbstractDynamicDecutionRuleTwoAntecedences {
       ChartItemInterface consequence =
           new DeductionChartItem(rule.getLhs(), String.valueOf(i1int),
               String.valueOf(j1int + j2int));
-      List<Tree> derivedTrees =
-          CfgCykUtils.generateDerivedTrees(i1, antecedences, rule);
-      consequence.setTrees(derivedTrees);
-      logItemGeneration(consequence);
-      consequences.add(consequence);
+      if (buildTrees) {
+        List<Tree> derivedTrees =
+            CfgCykUtils.generateDerivedTrees(i1, antecedences, rule);
+        consequence.setTrees(derivedTrees);
+      }
+      logItemGeneration(consequence, antecedences, ruleName);
+      sink.add(consequence, ruleName);
     }
   }
 
+  /**
+   * Items of the first rhs symbol are stored under the position they end at,
+   * items of the second rhs symbol under the position they start at.
+   */
+  @Override public List<String> getIndexKeys(ChartItemInterface item) {
+    if (item instanceof CfgCykItem) {
+      CfgCykItem cykItem = (CfgCykItem) item;
+      RuleSymbols ids = lookUpSymbols(cykItem.getSymbols());
+      List<String> keys = new ArrayList<>();
+      if (cykItem.getNt() == ids.rhs1) {
+        keys.add(getEndKey(rule.getRhs()[0],
+            cykItem.getI() + cykItem.getLength()));
+      }
+      if (cykItem.getNt() == ids.rhs2) {
+        keys.add(getStartKey(rule.getRhs()[1], cykItem.getI()));
+      }
+      return keys;
+    }
+    String[] itemForm = item.getItemForm();
+    List<String> keys = new ArrayList<>();
+    if (itemForm[0].equals(rule.getRhs()[0])) {
+      keys.add(getEndKey(itemForm[0], Integer.parseInt(itemForm[1]) + Integer
+          .parseInt(itemForm[2])));
+    }
+    if (itemForm[0].equals(rule.getRhs()[1])) {
+      keys.add(getStartKey(itemForm[0], Integer.parseInt(itemForm[1])));
+    }
+    return keys;
+  }
+
+  @Override public List<String> getPartnerKeys(ChartItemInterface item) {
+    if (item instanceof CfgCykItem) {
+      CfgCykItem cykItem = (CfgCykItem) item;
+      RuleSymbols ids = lookUpSymbols(cykItem.getSymbols());
+      List<String> keys = new ArrayList<>();
+      if (cykItem.getNt() == ids.rhs1) {
+        keys.add(getStartKey(rule.getRhs()[1],
+            cykItem.getI() + cykItem.getLength()));
+      }
+      if (cykItem.getNt() == ids.rhs2) {
+        keys.add(getEndKey(rule.getRhs()[0], cykItem.getI()));
+      }
+      return keys;
+    }
+    String[] itemForm = item.getItemForm();
+    List<String> keys = new ArrayList<>();
+    if (itemForm[0].equals(rule.getRhs()[0])) {
+      keys.add(getStartKey(rule.getRhs()[1],
+          Integer.parseInt(itemForm[1]) + Integer.parseInt(itemForm[2])));
+    }
+    if (itemForm[0].equals(rule.getRhs()[1])) {
+      keys.add(getEndKey(rule.getRhs()[0], Integer.parseInt(itemForm[1])));
+    }
+    return keys;
+  }
+
+  private static String getStartKey(String nt, int i) {
+    return "cyk [" + nt + "," + i + ",?]";
+  }
+
+  private static String getEndKey(String nt, int j) {
+    return "cyk [" + nt + ",?," + j + "]";
+  }
+
   @Override public String toString() {
     return "[" + rule.getRhs()[0] + ",i,l1], [" + rule.getRhs()[1] + ",i+l1,l2]"
         + "\n______ \n" + "[" + rule.getLhs() + ",i,l1+l2]";
   }
+
+  /** Ids of the lhs and rhs symbols of the rule in a symbol table. */
+  private static class RuleSymbols {
+    private final SymbolTable symbols;
+    private final int lhs;
+    private final int rhs1;
+    private final int rhs2;
+
+    private RuleSymbols(SymbolTable symbols, CfgProductionRule rule) {
+      this.symbols = symbols;
+      this.lhs = symbols.intern(rule.getLhs());
+      this.rhs1 = symbols.intern(rule.getRhs()[0]);
+      this.rhs2 = symbols.intern(rule.getRhs()[1]);
+    }
+  }
 }
@@ -39,7 +39,9 @@ public class CfgCykCompleteGeneral extends AbstractDynamicDeductionRule {
       }
       int lSum = 0;
       List<Tree> derivedTrees = new ArrayList<>();
-      derivedTrees.add(new Tree(rule));
+      if (buildTrees) {
+        derivedTrees.add(new Tree(rule));
+      }
       for (int j = 0; j < rule.getRhs().length; j++) {
         boolean found = false;
         for (ChartItemInterface mayRhsItem : antecedences) {
@@ -47,7 +49,7 @@ public class CfgCykCompleteGeneral extends AbstractDynamicDeductionRule {
           if (i == prevItemStart && mayRhsItem.getItemForm()[0]
               .equals(rule.getRhs()[j])) {
             found = true;
-            if (mayRhsItem.getTrees() != null) {
+            if (buildTrees && mayRhsItem.getTrees() != null) {
               List<Tree> derivedTreesNew = new ArrayList<>();
               for (Tree tree1 : mayRhsItem.getTrees()) {
                 for (Tree tree2 : derivedTrees) {
@@ -5,29 +5,61 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.AbstractDynamicDeductionRule;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.ConsequenceSinkInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.DeductionChartItem;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
 import com.github.samyadaleh.cltoolbox.common.TreeUtils;
 import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
 import com.github.samyadaleh.cltoolbox.common.tag.Tree;
 
 /**
  * If the item matches the rhs of a chain rule, get a new item that represents
- * the lhs.
+ * the lhs. Works on items given as strings as well as on CfgCykItems. Keeps no
+ * state per application.
  */
 public class CfgCykCompleteUnary extends AbstractDynamicDeductionRule {
 
   private final CfgProductionRule rule;
+  private final String ruleName;
+  /** Ids of the rule symbols in the symbol table last seen. */
+  private volatile RuleSymbols ruleSymbols;
 
   public CfgCykCompleteUnary(CfgProductionRule rule) {
     this.rule = rule;
-    this.name = "complete " + rule.toString();
+    this.ruleName = "complete " + rule.toString();
+    this.name = ruleName;
     this.antNeeded = 1;
   }
 
+  @Override public boolean isStateless() {
+    return true;
+  }
+
   @Override public List<ChartItemInterface> getConsequences() throws ParseException {
-    if (antecedences.size() == antNeeded) {
-      String[] itemForm1 = antecedences.get(0).getItemForm();
+    return applyToAntecedences();
+  }
+
+  @Override public void apply(List<ChartItemInterface> antecedences,
+    ConsequenceSinkInterface sink) throws ParseException {
+    if (antecedences.size() != antNeeded) {
+      return;
+    }
+    ChartItemInterface antecedence = antecedences.get(0);
+    if (antecedence instanceof CfgCykItem) {
+      CfgCykItem item = (CfgCykItem) antecedence;
+      RuleSymbols ids = ruleSymbols;
+      if (ids == null || ids.symbols != item.getSymbols()) {
+        ids = new RuleSymbols(item.getSymbols(), rule);
+        ruleSymbols = ids;
+      }
+      if (item.getNt() == ids.rhs) {
+        addConsequence(
+          new CfgCykItem(ids.symbols, ids.lhs, item.getI(), item.getLength()),
+          antecedences, sink);
+      }
+    } else {
+      String[] itemForm1 = antecedence.getItemForm();
       String nt1 = itemForm1[0];
       String i1 = itemForm1[1];
       int i1int = Integer.parseInt(i1);
@@ -35,24 +67,43 @@ public class CfgCykCompleteUnary extends AbstractDynamicDeductionRule {
       int j1int = Integer.parseInt(j1);
 
       if (nt1.equals(rule.getRhs()[0])) {
-        ChartItemInterface consequence = new DeductionChartItem(rule.getLhs(),
-          String.valueOf(i1int), String.valueOf(j1int));
-        Tree derivedTreeBase = new Tree(rule);
-        List<Tree> derivedTrees = new ArrayList<>();
-        for (Tree tree : antecedences.get(0).getTrees()) {
-          derivedTrees
-            .add(TreeUtils.performLeftmostSubstitution(derivedTreeBase, tree));
-        }
-        consequence.setTrees(derivedTrees);
-        logItemGeneration(consequence);
-        consequences.add(consequence);
+        addConsequence(new DeductionChartItem(rule.getLhs(),
+          String.valueOf(i1int), String.valueOf(j1int)), antecedences, sink);
       }
     }
-    return this.consequences;
+  }
+
+  private void addConsequence(ChartItemInterface consequence,
+    List<ChartItemInterface> antecedences, ConsequenceSinkInterface sink)
+    throws ParseException {
+    if (buildTrees) {
+      Tree derivedTreeBase = new Tree(rule);
+      List<Tree> derivedTrees = new ArrayList<>();
+      for (Tree tree : antecedences.get(0).getTrees()) {
+        derivedTrees
+          .add(TreeUtils.performLeftmostSubstitution(derivedTreeBase, tree));
+      }
+      consequence.setTrees(derivedTrees);
+    }
+    logItemGeneration(consequence, antecedences, ruleName);
+    sink.add(consequence, ruleName);
   }
 
   @Override public String toString() {
     return "[" + rule.getRhs()[0] + ",i,j]]" + "\n______ \n" + "["
       + rule.getLhs() + ",i,j]";
   }
+
+  /** Ids of the lhs and rhs symbol of the rule in a symbol table. */
+  private static class RuleSymbols {
+    private final SymbolTable symbols;
+    private final int lhs;
+    private final int rhs;
+
+    private RuleSymbols(SymbolTable symbols, CfgProductionRule rule) {
+      this.symbols = symbols;
+      this.lhs = symbols.intern(rule.getLhs());
+      this.rhs = symbols.intern(rule.getRhs()[0]);
+    }
+  }
 }
@@ -0,0 +1,229 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
+import com.github.samyadaleh.cltoolbox.common.tag.Tree;
+
+/**
+ * Chart of the dense CYK parser, one bit set of nonterminals per span from i
+ * to j. Each nonterminal of a span keeps its backpointers as pairs of rule
+ * index and split position, -1 for scans. Items and backpointers are given
+ * out in the form of CfgCykItems [A,i,l].
+ */
+public class CfgCykDenseChart {
+  private static final Logger log = LogManager.getLogger();
+  private final CfgCykDenseParser parser;
+  private final String[] tokens;
+  private final int n;
+  /** Number of nonterminals. */
+  private final int size;
+  /** Cell of span i to j at index i * (n + 1) + j, null while empty. */
+  private final BitSet[] cells;
+  /**
+   * Per cell and nonterminal the number of used entries followed by pairs of
+   * rule index and split, null if backpointers are not kept.
+   */
+  private final int[][][] backpointers;
+  private int itemCount = 0;
+  private List<Tree> derivedTrees = null;
+
+  CfgCykDenseChart(CfgCykDenseParser parser, String[] tokens,
+      boolean keepBackpointers) {
+    this.parser = parser;
+    this.tokens = tokens;
+    this.n = tokens.length;
+    this.size = parser.getNonterminals().size();
+    this.cells = new BitSet[(n + 1) * (n + 1)];
+    this.backpointers = keepBackpointers ? new int[cells.length][][] : null;
+  }
+
+  /** Adds nonterminal nt to the span i to j, derived by rule r split at k. */
+  void add(int nt, int i, int j, int r, int k) {
+    int cellIndex = i * (n + 1) + j;
+    BitSet cell = cells[cellIndex];
+    if (cell == null) {
+      cell = new BitSet(size);
+      cells[cellIndex] = cell;
+    }
+    if (!cell.get(nt)) {
+      cell.set(nt);
+      itemCount++;
+    }
+    if (backpointers == null) {
+      return;
+    }
+    int[][] cellPointers = backpointers[cellIndex];
+    if (cellPointers == null) {
+      cellPointers = new int[size][];
+      backpointers[cellIndex] = cellPointers;
+    }
+    int[] pointers = cellPointers[nt];
+    if (pointers == null) {
+      pointers = new int[5];
+      cellPointers[nt] = pointers;
+    } else if (pointers[0] + 3 > pointers.length) {
+      int[] extended = new int[pointers.length * 2 + 1];
+      System.arraycopy(pointers, 0, extended, 0, pointers.length);
+      pointers = extended;
+      cellPointers[nt] = pointers;
+    }
+    pointers[pointers[0] + 1] = r;
+    pointers[pointers[0] + 2] = k;
+    pointers[0] += 2;
+  }
+
+  /** Returns the nonterminals of span i to j, null if there are none. */
+  BitSet getCell(int i, int j) {
+    return cells[i * (n + 1) + j];
+  }
+
+  String[] getTokens() {
+    return this.tokens;
+  }
+
+  /** Returns true if the start symbol spans the whole input. */
+  public boolean isRecognized() {
+    BitSet goal = getCell(0, n);
+    return goal != null && goal.get(parser.getStartSymbol());
+  }
+
+  /** Returns whether item [nt,i,length] was derived. */
+  public boolean contains(String nt, int i, int length) {
+    int id = parser.getNonterminals().getId(nt);
+    if (id < 0 || i < 0 || length < 1 || i + length > n) {
+      return false;
+    }
+    BitSet cell = getCell(i, i + length);
+    return cell != null && cell.get(id);
+  }
+
+  /** Returns the number of items, like the chart size of the deduction. */
+  public int getItemCount() {
+    return this.itemCount;
+  }
+
+  /** Returns the forms [A,i,l] of all items, ordered by span. */
+  public List<String[]> getItemForms() {
+    SymbolTable symbols = parser.getNonterminals();
+    List<String[]> itemForms = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      for (int j = i + 1; j <= n; j++) {
+        BitSet cell = getCell(i, j);
+        if (cell == null) {
+          continue;
+        }
+        for (int nt = cell.nextSetBit(0); nt >= 0;
+             nt = cell.nextSetBit(nt + 1)) {
+          itemForms.add(new String[] {symbols.getSymbol(nt), String.valueOf(i),
+              String.valueOf(j - i)});
+        }
+      }
+    }
+    return itemForms;
+  }
+
+  /**
+   * Returns for each way item [nt,i,length] was derived the forms of its
+   * antecedences, none for scans.
+   */
+  public List<String[][]> getBackpointers(String nt, int i, int length) {
+    List<String[][]> result = new ArrayList<>();
+    int[] pointers = getPointers(nt, i, length);
+    SymbolTable symbols = parser.getNonterminals();
+    for (int p = 1; p < pointers[0]; p += 2) {
+      int r = pointers[p];
+      int k = pointers[p + 1];
+      if (k < 0) {
+        result.add(new String[0][]);
+      } else {
+        result.add(new String[][] {
+            {symbols.getSymbol(parser.getRhs1(r)), String.valueOf(i),
+                String.valueOf(k - i)},
+            {symbols.getSymbol(parser.getRhs2(r)), String.valueOf(k),
+                String.valueOf(i + length - k)}});
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the names of the rules that derived item [nt,i,length], in the
+   * order of the backpointers and named like the deduction rules.
+   */
+  public List<String> getAppliedRules(String nt, int i, int length) {
+    List<String> result = new ArrayList<>();
+    int[] pointers = getPointers(nt, i, length);
+    for (int p = 1; p < pointers[0]; p += 2) {
+      String rule = parser.getRule(pointers[p]).toString();
+      result.add(pointers[p + 1] < 0 ? "scan " + rule : "complete " + rule);
+    }
+    return result;
+  }
+
+  private int[] getPointers(String nt, int i, int length) {
+    checkBackpointers();
+    if (!contains(nt, i, length)) {
+      return new int[1];
+    }
+    int id = parser.getNonterminals().getId(nt);
+    return backpointers[i * (n + 1) + i + length][id];
+  }
+
+  /** Returns the trees of all derivations of the goal item. */
+  public List<Tree> getDerivedTrees() {
+    checkBackpointers();
+    if (derivedTrees == null) {
+      derivedTrees = new ArrayList<>();
+      if (isRecognized()) {
+        try {
+          derivedTrees.addAll(
+              getTrees(parser.getStartSymbol(), 0, n, new HashMap<>()));
+        } catch (ParseException e) {
+          log.error(e.getMessage(), e);
+        }
+      }
+    }
+    return derivedTrees;
+  }
+
+  private void checkBackpointers() {
+    if (backpointers == null) {
+      throw new IllegalStateException(
+          "Backpointers are only kept by parse, not by recognize.");
+    }
+  }
+
+  /** Returns the trees of item [nt,i,j-i], each item's trees built once. */
+  private List<Tree> getTrees(int nt, int i, int j, Map<Long, List<Tree>> memo)
+      throws ParseException {
+    long key = ((long) (i * (n + 1) + j)) * size + nt;
+    List<Tree> trees = memo.get(key);
+    if (trees != null) {
+      return trees;
+    }
+    trees = new ArrayList<>();
+    int[] pointers = backpointers[i * (n + 1) + j][nt];
+    for (int p = 1; p < pointers[0]; p += 2) {
+      int r = pointers[p];
+      int k = pointers[p + 1];
+      if (k < 0) {
+        trees.add(new Tree(parser.getRule(r)));
+      } else {
+        trees.addAll(CfgCykUtils.generateDerivedTrees(
+            getTrees(parser.getRhs1(r), i, k, memo),
+            getTrees(parser.getRhs2(r), k, j, memo), parser.getRule(r)));
+      }
+    }
+    memo.put(key, trees);
+    return trees;
+  }
+}
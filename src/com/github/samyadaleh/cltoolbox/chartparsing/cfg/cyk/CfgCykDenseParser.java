@@ -0,0 +1,170 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
+
+/**
+ * CYK parser for grammars in Chomsky Normal Form that works on arrays instead
+ * of chart items. The chart holds a bit set of nonterminals per span and the
+ * binary rules are looked up by the pair of their rhs symbols. Finds the same
+ * items, backpointers and trees as the deduction with the cfg-cyk rules. The
+ * tables are built once per grammar, an instance can be used by several
+ * threads at once.
+ */
+public class CfgCykDenseParser {
+  private final SymbolTable nonterminals = new SymbolTable();
+  private final CfgProductionRule[] rules;
+  /** Lhs and rhs nonterminal ids per rule, rhs -1 for terminal rules. */
+  private final int[] lhs;
+  private final int[] rhs1;
+  private final int[] rhs2;
+  /** Rules A -> t by terminal t. */
+  private final Map<String, int[]> terminalRules = new HashMap<>();
+  /** Rules A -> B C at index B * size + C, null if there is none. */
+  private final int[][] binaryRules;
+  /** True for nonterminals that are the first rhs symbol of a rule. */
+  private final boolean[] leftSymbol;
+  private final int startSymbol;
+
+  public CfgCykDenseParser(Cfg cfg) {
+    if (!cfg.isInChomskyNormalForm()) {
+      throw new IllegalArgumentException(
+          "Grammar has to be in Chomsky Normal Form.");
+    }
+    startSymbol = nonterminals.intern(cfg.getStartSymbol());
+    for (String nt : cfg.getNonterminals()) {
+      nonterminals.intern(nt);
+    }
+    List<CfgProductionRule> productionRules = cfg.getProductionRules();
+    int ruleCount = productionRules.size();
+    rules = productionRules.toArray(new CfgProductionRule[ruleCount]);
+    lhs = new int[ruleCount];
+    rhs1 = new int[ruleCount];
+    rhs2 = new int[ruleCount];
+    Map<String, List<Integer>> byTerminal = new HashMap<>();
+    for (int r = 0; r < ruleCount; r++) {
+      lhs[r] = nonterminals.intern(rules[r].getLhs());
+      if (rules[r].getRhs().length == 1) {
+        rhs1[r] = -1;
+        rhs2[r] = -1;
+        byTerminal.computeIfAbsent(rules[r].getRhs()[0], t -> new ArrayList<>())
+            .add(r);
+      } else {
+        rhs1[r] = nonterminals.intern(rules[r].getRhs()[0]);
+        rhs2[r] = nonterminals.intern(rules[r].getRhs()[1]);
+      }
+    }
+    for (Map.Entry<String, List<Integer>> entry : byTerminal.entrySet()) {
+      terminalRules.put(entry.getKey(), toArray(entry.getValue()));
+    }
+    int size = nonterminals.size();
+    binaryRules = new int[size * size][];
+    leftSymbol = new boolean[size];
+    for (int r = 0; r < ruleCount; r++) {
+      if (rhs1[r] >= 0) {
+        int pair = rhs1[r] * size + rhs2[r];
+        int[] old = binaryRules[pair];
+        int[] extended = old == null ? new int[1] : new int[old.length + 1];
+        if (old != null) {
+          System.arraycopy(old, 0, extended, 0, old.length);
+        }
+        extended[extended.length - 1] = r;
+        binaryRules[pair] = extended;
+        leftSymbol[rhs1[r]] = true;
+      }
+    }
+  }
+
+  /** Fills the chart for w, tokens separated by spaces like for the rules. */
+  public CfgCykDenseChart parse(String w) {
+    String[] wSplit = w.split(" ");
+    CfgCykDenseChart chart = new CfgCykDenseChart(this, wSplit, true);
+    fill(chart);
+    return chart;
+  }
+
+  /** Returns whether w is in the language, without keeping backpointers. */
+  public boolean recognize(String w) {
+    String[] wSplit = w.split(" ");
+    CfgCykDenseChart chart = new CfgCykDenseChart(this, wSplit, false);
+    fill(chart);
+    return chart.isRecognized();
+  }
+
+  /** Scans the tokens, then combines the spans by increasing length. */
+  private void fill(CfgCykDenseChart chart) {
+    String[] wSplit = chart.getTokens();
+    int n = wSplit.length;
+    int size = nonterminals.size();
+    for (int i = 0; i < n; i++) {
+      int[] scanRules = terminalRules.get(wSplit[i]);
+      if (scanRules != null) {
+        for (int r : scanRules) {
+          chart.add(lhs[r], i, i + 1, r, -1);
+        }
+      }
+    }
+    for (int length = 2; length <= n; length++) {
+      for (int i = 0; i + length <= n; i++) {
+        int j = i + length;
+        for (int k = i + 1; k < j; k++) {
+          BitSet left = chart.getCell(i, k);
+          BitSet right = chart.getCell(k, j);
+          if (left == null || right == null) {
+            continue;
+          }
+          for (int b = left.nextSetBit(0); b >= 0;
+               b = left.nextSetBit(b + 1)) {
+            if (!leftSymbol[b]) {
+              continue;
+            }
+            for (int c = right.nextSetBit(0); c >= 0;
+                 c = right.nextSetBit(c + 1)) {
+              int[] completeRules = binaryRules[b * size + c];
+              if (completeRules != null) {
+                for (int r : completeRules) {
+                  chart.add(lhs[r], i, j, r, k);
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    int[] array = new int[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = list.get(i);
+    }
+    return array;
+  }
+
+  SymbolTable getNonterminals() {
+    return this.nonterminals;
+  }
+
+  CfgProductionRule getRule(int r) {
+    return this.rules[r];
+  }
+
+  int getRhs1(int r) {
+    return this.rhs1[r];
+  }
+
+  int getRhs2(int r) {
+    return this.rhs2[r];
+  }
+
+  int getStartSymbol() {
+    return this.startSymbol;
+  }
+}
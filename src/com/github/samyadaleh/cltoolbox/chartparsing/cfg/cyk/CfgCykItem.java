@@ -0,0 +1,62 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.item.AbstractChartItem;
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
+
+/**
+ * CYK item [A,i,l] for a nonterminal A spanning l symbols from position i, the
+ * nonterminal stored as id of a symbol table. The string form is only built
+ * when it is asked for, like when printing the trace. Items of this kind are
+ * compared by their ids, the hash code is the one of the item form, so they
+ * are equal to other items of the same form.
+ */
+public class CfgCykItem extends AbstractChartItem {
+  private final SymbolTable symbols;
+  private final int nt;
+  private final int i;
+  private final int length;
+  private final int hash;
+
+  public CfgCykItem(SymbolTable symbols, int nt, int i, int length) {
+    this.symbols = symbols;
+    this.nt = nt;
+    this.i = i;
+    this.length = length;
+    this.hash = mix((symbols.getSymbol(nt).hashCode() * 31
+        + stringHashCode(i)) * 31 + stringHashCode(length));
+  }
+
+  public SymbolTable getSymbols() {
+    return this.symbols;
+  }
+
+  public int getNt() {
+    return this.nt;
+  }
+
+  public int getI() {
+    return this.i;
+  }
+
+  public int getLength() {
+    return this.length;
+  }
+
+  @Override public String[] getItemForm() {
+    return new String[] {symbols.getSymbol(nt), String.valueOf(i),
+        String.valueOf(length)};
+  }
+
+  @Override public boolean equals(Object o) {
+    if (o instanceof CfgCykItem && ((CfgCykItem) o).symbols == symbols) {
+      CfgCykItem other = (CfgCykItem) o;
+      return hash == other.hash && nt == other.nt && i == other.i
+          && length == other.length;
+    }
+    return super.equals(o);
+  }
+
+  @Override public int hashCode() {
+    return hash;
+  }
+}
@@ -41,4 +41,24 @@ class CfgCykUtils {
     }
     return derivedTrees;
   }
+
+  /**
+   * Returns the trees of the rule with each combination of a tree of the left
+   * and a tree of the right antecedence substituted.
+   */
+  static List<Tree> generateDerivedTrees(List<Tree> leftTrees,
+      List<Tree> rightTrees, CfgProductionRule rule) throws ParseException {
+    List<Tree> derivedTrees = new ArrayList<>();
+    Tree derivedTreeBase = new Tree(rule);
+    for (Tree leftTree : leftTrees) {
+      for (Tree rightTree : rightTrees) {
+        Tree derivedTree =
+            TreeUtils.performLeftmostSubstitution(derivedTreeBase, leftTree);
+        derivedTree =
+            TreeUtils.performLeftmostSubstitution(derivedTree, rightTree);
+        derivedTrees.add(derivedTree);
+      }
+    }
+    return derivedTrees;
+  }
 }
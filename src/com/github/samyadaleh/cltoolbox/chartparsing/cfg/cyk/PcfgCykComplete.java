@@ -2,6 +2,7 @@ package com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk;
 
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.DynamicDeductionRuleInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.IndexedDynamicDeductionRuleInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ProbabilisticChartItemInterface;
 import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
 import com.github.samyadaleh.cltoolbox.common.cfg.PcfgProductionRule;
@@ -17,7 +18,8 @@ import java.util.List;
  * Similar to the complete rule for CYK, but used for a PCFG and with weights
  * for probabilistic CYK parsing.
  */
-public class PcfgCykComplete implements DynamicDeductionRuleInterface {
+public class PcfgCykComplete
+    implements IndexedDynamicDeductionRuleInterface, Cloneable {
 
   protected List<ProbabilisticChartItemInterface> antecedences =
       new ArrayList<>();
@@ -28,6 +30,7 @@ public class PcfgCykComplete implements DynamicDeductionRuleInterface {
   protected final PcfgProductionRule pRule;
 
   private final int antneeded = 2;
+  protected boolean buildTrees = true;
   private static final Logger log = LogManager.getLogger();
 
   public PcfgCykComplete(PcfgProductionRule pRule) {
@@ -87,6 +90,9 @@ public class PcfgCykComplete implements DynamicDeductionRuleInterface {
 
   protected void addTreesToConsequence(String i1,
       ProbabilisticChartItemInterface consequence) throws ParseException {
+    if (!buildTrees) {
+      return;
+    }
     CfgProductionRule rule =
         new CfgProductionRule(pRule.getLhs(), pRule.getRhs());
     List<Tree> derivedTrees =
@@ -108,9 +114,56 @@ public class PcfgCykComplete implements DynamicDeductionRuleInterface {
         .valueOf(pRule.getP()) + ")| : [" + pRule.getLhs() + ", i, k]";
   }
 
+  /**
+   * Items of the first rhs symbol are stored under the position they end at,
+   * items of the second rhs symbol under the position they start at.
+   */
+  @Override public List<String> getIndexKeys(ChartItemInterface item) {
+    String[] itemForm = item.getItemForm();
+    List<String> keys = new ArrayList<>();
+    if (itemForm[0].equals(pRule.getRhs()[0])) {
+      keys.add("pcfg [" + itemForm[0] + ",?," + itemForm[2] + "]");
+    }
+    if (itemForm[0].equals(pRule.getRhs()[1])) {
+      keys.add("pcfg [" + itemForm[0] + "," + itemForm[1] + ",?]");
+    }
+    return keys;
+  }
+
+  @Override public List<String> getPartnerKeys(ChartItemInterface item) {
+    String[] itemForm = item.getItemForm();
+    List<String> keys = new ArrayList<>();
+    if (itemForm[0].equals(pRule.getRhs()[0])) {
+      keys.add("pcfg [" + pRule.getRhs()[1] + "," + itemForm[2] + ",?]");
+    }
+    if (itemForm[0].equals(pRule.getRhs()[1])) {
+      keys.add("pcfg [" + pRule.getRhs()[0] + ",?," + itemForm[1] + "]");
+    }
+    return keys;
+  }
+
+  @Override public void setBuildTrees(boolean buildTrees) {
+    this.buildTrees = buildTrees;
+  }
+
+  @Override public boolean isBuildTrees() {
+    return this.buildTrees;
+  }
+
   @Override public void clearItems() {
-    antecedences = new ArrayList<>();
-    consequences = new ArrayList<>();
+    antecedences.clear();
+    consequences.clear();
+  }
+
+  @Override public DynamicDeductionRuleInterface copy() {
+    try {
+      PcfgCykComplete copy = (PcfgCykComplete) super.clone();
+      copy.antecedences = new ArrayList<>();
+      copy.consequences = new ArrayList<>();
+      return copy;
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
   }
 
   protected void logItemGeneration(ChartItemInterface item) {
@@ -14,13 +14,13 @@ public class PcfgCykItem extends AbstractChartItem implements ProbabilisticChart
   /** Constructor takes the weight, a nonterminal, the beginning and end of
    * its span. */
   public PcfgCykItem(double p, String lhs, int i, int j) {
+    super(new String[] {lhs, String.valueOf(i), String.valueOf(j)});
     this.p = p;
-    this.itemForm = new String[] {lhs, String.valueOf(i), String.valueOf(j)};
   }
 
   @Override public String toString() {
     return String.valueOf(p) + " : "
-      + ArrayUtils.toString(this.itemForm);
+      + ArrayUtils.toString(getItemForm());
   }
 
   @Override public Double getProbability() {
@@ -0,0 +1,122 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.github.samyadaleh.cltoolbox.common.tag.Tree;
+
+/**
+ * Chart of the Viterbi parser. Per span from i to j it holds the best weight
+ * of each nonterminal, positive infinity if it wasn't derived, and the index
+ * of the rule and the split of that derivation, split -1 for scans. Items
+ * are addressed like PcfgCykItems [A,i,j].
+ */
+public class PcfgCykViterbiChart {
+  private final PcfgCykViterbiParser parser;
+  private final int n;
+  private final int size;
+  /** Per span at index i * (n + 1) + j, null while empty. */
+  private final double[][] scores;
+  private final int[][] backRules;
+  private final int[][] backSplits;
+
+  PcfgCykViterbiChart(PcfgCykViterbiParser parser, int n, int size) {
+    this.parser = parser;
+    this.n = n;
+    this.size = size;
+    this.scores = new double[(n + 1) * (n + 1)][];
+    this.backRules = new int[scores.length][];
+    this.backSplits = new int[scores.length][];
+  }
+
+  /**
+   * Sets the weight of nt over span i to j if it is lower than the known one.
+   * Keeps the first of equal weights like the deduction does.
+   */
+  void relax(int nt, int i, int j, double weight, int r, int k) {
+    int cellIndex = i * (n + 1) + j;
+    double[] cell = scores[cellIndex];
+    if (cell == null) {
+      cell = new double[size];
+      Arrays.fill(cell, Double.POSITIVE_INFINITY);
+      scores[cellIndex] = cell;
+      backRules[cellIndex] = new int[size];
+      backSplits[cellIndex] = new int[size];
+    }
+    if (weight < cell[nt]) {
+      cell[nt] = weight;
+      backRules[cellIndex][nt] = r;
+      backSplits[cellIndex][nt] = k;
+    }
+  }
+
+  double[] getScores(int i, int j) {
+    return scores[i * (n + 1) + j];
+  }
+
+  /** Returns true if the start symbol spans the whole input. */
+  public boolean isRecognized() {
+    return getWeight() != Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Returns the weight of the best parse, the negative logarithm of its
+   * probability, positive infinity if there is none.
+   */
+  public double getWeight() {
+    return getWeight(parser.getStartSymbol(), 0, n);
+  }
+
+  /**
+   * Returns the best weight of item [nt,i,j], positive infinity if it wasn't
+   * derived.
+   */
+  public double getWeight(String nt, int i, int j) {
+    return getWeight(parser.getNonterminals().getId(nt), i, j);
+  }
+
+  private double getWeight(int nt, int i, int j) {
+    if (nt < 0 || i < 0 || j <= i || j > n) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double[] cell = getScores(i, j);
+    return cell == null ? Double.POSITIVE_INFINITY : cell[nt];
+  }
+
+  /** Returns the number of derived items, like the chart of the deduction. */
+  public int getItemCount() {
+    int count = 0;
+    for (double[] cell : scores) {
+      if (cell != null) {
+        for (double weight : cell) {
+          if (weight != Double.POSITIVE_INFINITY) {
+            count++;
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  /** Returns the tree of the best parse, null if there is none. */
+  public Tree getBestTree() throws ParseException {
+    if (!isRecognized()) {
+      return null;
+    }
+    return getBestTree(parser.getStartSymbol(), 0, n);
+  }
+
+  private Tree getBestTree(int nt, int i, int j) throws ParseException {
+    int cellIndex = i * (n + 1) + j;
+    int r = backRules[cellIndex][nt];
+    int k = backSplits[cellIndex][nt];
+    if (k < 0) {
+      return new Tree(parser.getRule(r));
+    }
+    return CfgCykUtils.generateDerivedTrees(
+        Collections.singletonList(getBestTree(parser.getRhs1(r), i, k)),
+        Collections.singletonList(getBestTree(parser.getRhs2(r), k, j)),
+        parser.getRule(r)).get(0);
+  }
+}
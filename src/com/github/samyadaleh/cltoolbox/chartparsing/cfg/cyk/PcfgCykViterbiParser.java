@@ -0,0 +1,158 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
+import com.github.samyadaleh.cltoolbox.common.cfg.Pcfg;
+import com.github.samyadaleh.cltoolbox.common.cfg.PcfgProductionRule;
+
+/**
+ * Viterbi parser for PCFGs in Chomsky Normal Form that works on arrays instead
+ * of chart items. Weights are the negative logarithms of the probabilities
+ * like for the pcfg-cyk rules, each rule's weight is computed once. Per span
+ * the chart holds the best weight of each nonterminal and the rule and split
+ * it was derived by. Finds the same weights as the deduction with the pcfg-cyk
+ * rules that keeps the lower weight. An instance can be used by several
+ * threads at once.
+ */
+public class PcfgCykViterbiParser {
+  private final SymbolTable nonterminals = new SymbolTable();
+  /** The rules without probabilities, for building trees. */
+  private final CfgProductionRule[] rules;
+  /** -log(p) of each rule. */
+  private final double[] ruleWeights;
+  private final int[] lhs;
+  private final int[] rhs1;
+  private final int[] rhs2;
+  /** Rules A -> t by terminal t. */
+  private final Map<String, int[]> terminalRules = new HashMap<>();
+  /** Rules A -> B C by B, empty if there are none. */
+  private final int[][] rulesByLeft;
+  private final int startSymbol;
+
+  public PcfgCykViterbiParser(Pcfg pcfg) {
+    if (!new Cfg(pcfg).isInChomskyNormalForm()) {
+      throw new IllegalArgumentException(
+          "PCFG has to be in Chomsky Normal Form.");
+    }
+    startSymbol = nonterminals.intern(pcfg.getStartSymbol());
+    for (String nt : pcfg.getNonterminals()) {
+      nonterminals.intern(nt);
+    }
+    List<PcfgProductionRule> pRules = pcfg.getProductionRules();
+    int ruleCount = pRules.size();
+    rules = new CfgProductionRule[ruleCount];
+    ruleWeights = new double[ruleCount];
+    lhs = new int[ruleCount];
+    rhs1 = new int[ruleCount];
+    rhs2 = new int[ruleCount];
+    Map<String, List<Integer>> byTerminal = new HashMap<>();
+    for (int r = 0; r < ruleCount; r++) {
+      PcfgProductionRule pRule = pRules.get(r);
+      rules[r] = new CfgProductionRule(pRule.getLhs(), pRule.getRhs());
+      ruleWeights[r] = -Math.log(pRule.getP());
+      lhs[r] = nonterminals.intern(pRule.getLhs());
+      if (pRule.getRhs().length == 1) {
+        rhs1[r] = -1;
+        rhs2[r] = -1;
+        byTerminal.computeIfAbsent(pRule.getRhs()[0], t -> new ArrayList<>())
+            .add(r);
+      } else {
+        rhs1[r] = nonterminals.intern(pRule.getRhs()[0]);
+        rhs2[r] = nonterminals.intern(pRule.getRhs()[1]);
+      }
+    }
+    for (Map.Entry<String, List<Integer>> entry : byTerminal.entrySet()) {
+      terminalRules.put(entry.getKey(), toArray(entry.getValue()));
+    }
+    int size = nonterminals.size();
+    List<List<Integer>> byLeft = new ArrayList<>();
+    for (int b = 0; b < size; b++) {
+      byLeft.add(new ArrayList<>());
+    }
+    for (int r = 0; r < ruleCount; r++) {
+      if (rhs1[r] >= 0) {
+        byLeft.get(rhs1[r]).add(r);
+      }
+    }
+    rulesByLeft = new int[size][];
+    for (int b = 0; b < size; b++) {
+      rulesByLeft[b] = toArray(byLeft.get(b));
+    }
+  }
+
+  /** Fills the chart for w, tokens separated by spaces like for the rules. */
+  public PcfgCykViterbiChart parse(String w) {
+    String[] wSplit = w.split(" ");
+    int n = wSplit.length;
+    PcfgCykViterbiChart chart =
+        new PcfgCykViterbiChart(this, n, nonterminals.size());
+    for (int i = 0; i < n; i++) {
+      int[] scanRules = terminalRules.get(wSplit[i]);
+      if (scanRules != null) {
+        for (int r : scanRules) {
+          chart.relax(lhs[r], i, i + 1, ruleWeights[r], r, -1);
+        }
+      }
+    }
+    for (int length = 2; length <= n; length++) {
+      for (int i = 0; i + length <= n; i++) {
+        int j = i + length;
+        for (int k = i + 1; k < j; k++) {
+          double[] left = chart.getScores(i, k);
+          double[] right = chart.getScores(k, j);
+          if (left == null || right == null) {
+            continue;
+          }
+          for (int b = 0; b < left.length; b++) {
+            double leftWeight = left[b];
+            if (leftWeight == Double.POSITIVE_INFINITY) {
+              continue;
+            }
+            for (int r : rulesByLeft[b]) {
+              double rightWeight = right[rhs2[r]];
+              if (rightWeight != Double.POSITIVE_INFINITY) {
+                chart.relax(lhs[r], i, j,
+                    leftWeight + rightWeight + ruleWeights[r], r, k);
+              }
+            }
+          }
+        }
+      }
+    }
+    return chart;
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    int[] array = new int[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = list.get(i);
+    }
+    return array;
+  }
+
+  SymbolTable getNonterminals() {
+    return this.nonterminals;
+  }
+
+  CfgProductionRule getRule(int r) {
+    return this.rules[r];
+  }
+
+  int getRhs1(int r) {
+    return this.rhs1[r];
+  }
+
+  int getRhs2(int r) {
+    return this.rhs2[r];
+  }
+
+  int getStartSymbol() {
+    return this.startSymbol;
+  }
+}
@@ -14,14 +14,14 @@ public class PcfgAstarItem extends AbstractChartItem implements ProbabilisticCha
   /** Constructor takes the weight, a nonterminal, the beginning and length of
    * its span. */
   public PcfgAstarItem(double ruleW, double outW, String lhs, int i, int j) {
+    super(new String[] {lhs, String.valueOf(i), String.valueOf(j)});
     this.ruleW = ruleW;
     this.outW = outW;
-    this.itemForm = new String[] {lhs, String.valueOf(i), String.valueOf(j)};
   }
 
   @Override public String toString() {
     return String.valueOf(ruleW) + " + " + String.valueOf(outW) + " : "
-      + ArrayUtils.toString(this.itemForm);
+      + ArrayUtils.toString(getItemForm());
   }
 
   @Override public Double getProbability() {
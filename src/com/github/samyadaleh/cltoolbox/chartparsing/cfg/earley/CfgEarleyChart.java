@@ -0,0 +1,318 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.samyadaleh.cltoolbox.common.TreeUtils;
+import com.github.samyadaleh.cltoolbox.common.cfg.CompactCfg;
+import com.github.samyadaleh.cltoolbox.common.tag.Tree;
+
+/**
+ * Chart of the Earley parser, one item set per input position. Item
+ * [A -> α •β,i,j] is stored in the set of position j as dotted rule id and
+ * origin i. Trees are built from the items when they are asked for.
+ */
+public class CfgEarleyChart {
+  private static final Logger log = LogManager.getLogger();
+  private final CfgEarleyParser parser;
+  private final List<Column> columns = new ArrayList<>();
+  /** The tokens, the one at index j leads to the set of position j + 1. */
+  private final List<String> tokens = new ArrayList<>();
+
+  CfgEarleyChart(CfgEarleyParser parser) {
+    this.parser = parser;
+  }
+
+  /** Appends the item set of the next position, reached by token. */
+  Column addColumn(String token) {
+    if (!columns.isEmpty()) {
+      tokens.add(token);
+    }
+    Column column = new Column();
+    columns.add(column);
+    return column;
+  }
+
+  /** Removes the item sets of the last k positions and their tokens. */
+  void removeColumns(int k) {
+    for (int i = 0; i < k; i++) {
+      columns.remove(columns.size() - 1);
+      tokens.remove(tokens.size() - 1);
+    }
+  }
+
+  Column getColumn(int j) {
+    return columns.get(j);
+  }
+
+  /** Returns the number of tokens the chart has read. */
+  public int getLength() {
+    return tokens.size();
+  }
+
+  /** Returns true if a rule of the start symbol spans the whole input. */
+  public boolean isRecognized() {
+    return !getGoalRules().isEmpty();
+  }
+
+  private List<Integer> getGoalRules() {
+    List<Integer> goalRules = new ArrayList<>();
+    CompactCfg cfg = parser.getCfg();
+    Column last = columns.get(getLength());
+    for (int r = 0; r < parser.getRuleCount(); r++) {
+      if (cfg.getLhs(r) == parser.getStartSymbol() && last
+          .contains(parser.getDottedRule(r, cfg.getRhs(r).length), 0)) {
+        goalRules.add(r);
+      }
+    }
+    return goalRules;
+  }
+
+  /** Returns the number of items, like the chart size of the deduction. */
+  public int getItemCount() {
+    int count = 0;
+    for (Column column : columns) {
+      count += column.size();
+    }
+    return count;
+  }
+
+  /** Returns the forms [A -> α •β,i,j] of all items, ordered by j. */
+  public List<String[]> getItemForms() {
+    List<String[]> itemForms = new ArrayList<>();
+    CompactCfg cfg = parser.getCfg();
+    for (int j = 0; j < columns.size(); j++) {
+      Column column = columns.get(j);
+      for (int item = 0; item < column.size(); item++) {
+        int dottedRule = column.getDottedRule(item);
+        itemForms.add(new String[] {
+            cfg.dottedRuleToString(parser.getRule(dottedRule),
+                parser.getDot(dottedRule)),
+            String.valueOf(column.getOrigin(item)), String.valueOf(j)});
+      }
+    }
+    return itemForms;
+  }
+
+  /**
+   * Returns the trees of all derivations of the goal items. Derivations in
+   * which an item derives itself are left out.
+   */
+  public List<Tree> getDerivedTrees() {
+    List<Tree> derivedTrees = new ArrayList<>();
+    Map<String, List<Tree>> memo = new HashMap<>();
+    try {
+      for (int r : getGoalRules()) {
+        derivedTrees.addAll(getTrees(r, 0, getLength(), memo, new HashMap<>()));
+      }
+    } catch (ParseException e) {
+      log.error(e.getMessage(), e);
+    }
+    return derivedTrees;
+  }
+
+  /**
+   * Returns the trees of the completed item of rule r from i to j. Items
+   * that are visited can only be reached again from items of the same span,
+   * so the trees are memoized for the item together with the visited items
+   * of its span.
+   */
+  private List<Tree> getTrees(int r, int i, int j,
+      Map<String, List<Tree>> memo, Map<Integer, Set<Integer>> visiting)
+      throws ParseException {
+    Set<Integer> spanVisiting = visiting
+        .computeIfAbsent(i * columns.size() + j, span -> new TreeSet<>());
+    if (spanVisiting.contains(r)) {
+      return Collections.emptyList();
+    }
+    String key = r + " " + i + " " + j + " " + spanVisiting;
+    List<Tree> trees = memo.get(key);
+    if (trees != null) {
+      return trees;
+    }
+    spanVisiting.add(r);
+    trees = new ArrayList<>();
+    Tree ruleTree = new Tree(parser.getCfg().getRule(r));
+    for (List<Tree> children : getChildren(r, parser.getCfg().getRhs(r).length,
+        i, j, memo, visiting)) {
+      Tree tree = ruleTree;
+      for (Tree child : children) {
+        tree = TreeUtils.performLeftmostSubstitution(tree, child);
+      }
+      trees.add(tree);
+    }
+    spanVisiting.remove(r);
+    memo.put(key, trees);
+    return trees;
+  }
+
+  /**
+   * Returns the sequences of trees of the nonterminals before the dot of item
+   * [A -> α •β,i,j] of rule r.
+   */
+  private List<List<Tree>> getChildren(int r, int dot, int i, int j,
+      Map<String, List<Tree>> memo, Map<Integer, Set<Integer>> visiting)
+      throws ParseException {
+    List<List<Tree>> sequences = new ArrayList<>();
+    if (dot == 0) {
+      if (i == j) {
+        sequences.add(Collections.emptyList());
+      }
+      return sequences;
+    }
+    CompactCfg cfg = parser.getCfg();
+    int symbol = cfg.getRhs(r)[dot - 1];
+    int before = parser.getDottedRule(r, dot - 1);
+    if (!parser.isNonterminal(symbol)) {
+      if (j > i && columns.get(j - 1).contains(before, i) && symbol == cfg
+          .getSymbols().getId(tokens.get(j - 1))) {
+        sequences.addAll(getChildren(r, dot - 1, i, j - 1, memo, visiting));
+      }
+      return sequences;
+    }
+    for (int k = i; k <= j; k++) {
+      if (!columns.get(k).contains(before, i)) {
+        continue;
+      }
+      List<List<Tree>> prefixes = null;
+      for (int r2 = 0; r2 < parser.getRuleCount(); r2++) {
+        if (cfg.getLhs(r2) != symbol || !columns.get(j)
+            .contains(parser.getDottedRule(r2, cfg.getRhs(r2).length), k)) {
+          continue;
+        }
+        List<Tree> lastChildren = getTrees(r2, k, j, memo, visiting);
+        if (lastChildren.isEmpty()) {
+          continue;
+        }
+        if (prefixes == null) {
+          prefixes = getChildren(r, dot - 1, i, k, memo, visiting);
+        }
+        for (List<Tree> prefix : prefixes) {
+          for (Tree lastChild : lastChildren) {
+            List<Tree> sequence = new ArrayList<>(prefix);
+            sequence.add(lastChild);
+            sequences.add(sequence);
+          }
+        }
+      }
+    }
+    return sequences;
+  }
+
+  /**
+   * Item set of one position. Items are stored in the order they were added.
+   * Items with a symbol after the dot are linked into a list per symbol.
+   */
+  static final class Column {
+    private int[] dottedRules = new int[16];
+    private int[] origins = new int[16];
+    private int[] nextWaiting = new int[16];
+    private int size = 0;
+    /** Open addressing set of the items, 0 is an empty slot. */
+    private long[] keys = new long[32];
+    /** First item waiting for each symbol, null while none waits. */
+    private int[] firstWaiting;
+    private final BitSet predicted = new BitSet();
+
+    int size() {
+      return this.size;
+    }
+
+    int getDottedRule(int item) {
+      return this.dottedRules[item];
+    }
+
+    int getOrigin(int item) {
+      return this.origins[item];
+    }
+
+    /** Adds the item, returns false if it was already there. */
+    boolean add(int dottedRule, int origin) {
+      long key = toKey(dottedRule, origin);
+      int slot = findSlot(key);
+      if (keys[slot] == key) {
+        return false;
+      }
+      keys[slot] = key;
+      if (size == dottedRules.length) {
+        dottedRules = Arrays.copyOf(dottedRules, size * 2);
+        origins = Arrays.copyOf(origins, size * 2);
+        nextWaiting = Arrays.copyOf(nextWaiting, size * 2);
+      }
+      dottedRules[size] = dottedRule;
+      origins[size] = origin;
+      size++;
+      if (size * 2 > keys.length) {
+        rehash();
+      }
+      return true;
+    }
+
+    boolean contains(int dottedRule, int origin) {
+      long key = toKey(dottedRule, origin);
+      return keys[findSlot(key)] == key;
+    }
+
+    private static long toKey(int dottedRule, int origin) {
+      return (((long) origin) << 32 | dottedRule) + 1;
+    }
+
+    private int findSlot(long key) {
+      long hash = key * 0x9E3779B97F4A7C15L;
+      int slot = (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+      while (keys[slot] != 0 && keys[slot] != key) {
+        slot = (slot + 1) & (keys.length - 1);
+      }
+      return slot;
+    }
+
+    private void rehash() {
+      long[] old = keys;
+      keys = new long[old.length * 2];
+      for (long key : old) {
+        if (key != 0) {
+          keys[findSlot(key)] = key;
+        }
+      }
+    }
+
+    /** Links the item into the list of the items waiting for symbol. */
+    void addWaiting(int item, int symbol, int symbolCount) {
+      if (firstWaiting == null) {
+        firstWaiting = new int[symbolCount];
+        Arrays.fill(firstWaiting, -1);
+      }
+      nextWaiting[item] = firstWaiting[symbol];
+      firstWaiting[symbol] = item;
+    }
+
+    /** Returns the last item that waits for symbol, -1 if there is none. */
+    int getFirstWaiting(int symbol) {
+      return firstWaiting == null ? -1 : firstWaiting[symbol];
+    }
+
+    /** Returns the item that waits for the same symbol before item. */
+    int getNextWaiting(int item) {
+      return this.nextWaiting[item];
+    }
+
+    boolean isPredicted(int nt) {
+      return this.predicted.get(nt);
+    }
+
+    void setPredicted(BitSet nonterminals) {
+      this.predicted.or(nonterminals);
+    }
+  }
+}
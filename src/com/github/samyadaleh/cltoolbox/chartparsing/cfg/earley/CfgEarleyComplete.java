@@ -1,24 +1,87 @@
 package com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley;
 
-import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.AbstractDynamicDecutionRuleTwoAntecedences;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.AbstractDynamicDeductionRule;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.ConsequenceSinkInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.IndexedDynamicDeductionRuleInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.DeductionChartItem;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
 import com.github.samyadaleh.cltoolbox.common.ArrayUtils;
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
+import com.github.samyadaleh.cltoolbox.common.cfg.CompactCfg;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * If in one item a dot is before a nonterminal and the other item is a rule
  * with that nonterminal as lhs and the dot at the end, move the dot over the
- * nonterminal.
+ * nonterminal. Works on items given as strings as well as on CfgEarleyItems.
+ * Keeps no state per application.
  */
-public class CfgEarleyComplete
-  extends AbstractDynamicDecutionRuleTwoAntecedences {
+public class CfgEarleyComplete extends AbstractDynamicDeductionRule
+  implements IndexedDynamicDeductionRuleInterface {
+
+  /** Rule names per completed symbol of the compact grammar last seen. */
+  private volatile RuleNames ruleNames;
 
   public CfgEarleyComplete() {
     this.name = "complete";
     this.antNeeded = 2;
   }
 
-  protected void calculateConsequences(String[] itemForm1, String[] itemForm2) {
+  @Override public boolean isStateless() {
+    return true;
+  }
+
+  @Override public List<ChartItemInterface> getConsequences()
+    throws ParseException {
+    return applyToAntecedences();
+  }
+
+  @Override public void apply(List<ChartItemInterface> antecedences,
+    ConsequenceSinkInterface sink) {
+    if (antecedences.size() != antNeeded) {
+      return;
+    }
+    ChartItemInterface antecedence1 = antecedences.get(0);
+    ChartItemInterface antecedence2 = antecedences.get(1);
+    if (antecedence1 instanceof CfgEarleyItem) {
+      CfgEarleyItem item1 = (CfgEarleyItem) antecedence1;
+      CfgEarleyItem item2 = (CfgEarleyItem) antecedence2;
+      calculateConsequences(item1, item2, antecedences, sink);
+      calculateConsequences(item2, item1, antecedences, sink);
+    } else {
+      String[] itemForm1 = antecedence1.getItemForm();
+      String[] itemForm2 = antecedence2.getItemForm();
+      calculateConsequences(itemForm1, itemForm2, antecedences, sink);
+      calculateConsequences(itemForm2, itemForm1, antecedences, sink);
+    }
+  }
+
+  private void calculateConsequences(CfgEarleyItem active,
+    CfgEarleyItem passive, List<ChartItemInterface> antecedences,
+    ConsequenceSinkInterface sink) {
+    if (active.getJ() == passive.getI() && passive.getNextSymbol() < 0
+      && active.getNextSymbol() == passive.getLhs()) {
+      CompactCfg cfg = active.getCfg();
+      RuleNames names = ruleNames;
+      if (names == null || names.cfg != cfg) {
+        names = new RuleNames(cfg);
+        ruleNames = names;
+      }
+      String ruleName = names.getName(passive.getLhs());
+      ChartItemInterface consequence =
+        new CfgEarleyItem(cfg, active.getRule(), active.getDot() + 1,
+          active.getI(), passive.getJ());
+      consequence.setTrees(antecedences.get(0).getTrees());
+      logItemGeneration(consequence, antecedences, ruleName);
+      sink.add(consequence, ruleName);
+    }
+  }
+
+  private void calculateConsequences(String[] itemForm1, String[] itemForm2,
+    List<ChartItemInterface> antecedences, ConsequenceSinkInterface sink) {
     String stack1 = itemForm1[0];
     String[] stackSplit1 = stack1.split(" ");
     int i1 = Integer.parseInt(itemForm1[1]);
@@ -32,7 +95,7 @@ public class CfgEarleyComplete
       for (int l = 0; l < stackSplit1.length; l++) {
         if (stackSplit1[l].startsWith("•") && stackSplit1[l]
           .substring(1).equals(stackSplit2[0])) {
-          this.name = "complete " + stackSplit2[0];
+          String ruleName = "complete " + stackSplit2[0];
           String newStack;
           if (l == stackSplit1.length - 1) {
             newStack = ArrayUtils.getSubSequenceAsString(stackSplit1, 0, l)
@@ -45,17 +108,104 @@ public class CfgEarleyComplete
           ChartItemInterface consequence =
             new DeductionChartItem(newStack, String.valueOf(i1), String.valueOf(k2));
           consequence.setTrees(antecedences.get(0).getTrees());
-          logItemGeneration(consequence);
-          consequences.add(consequence);
+          logItemGeneration(consequence, antecedences, ruleName);
+          sink.add(consequence, ruleName);
           break;
         }
       }
     }
   }
 
+  /**
+   * Completed items are stored under their lhs and the position they start
+   * at, items with the dot before a nonterminal under that nonterminal and the
+   * position they end at.
+   */
+  @Override public List<String> getIndexKeys(ChartItemInterface item) {
+    List<String> keys = new ArrayList<>();
+    if (item instanceof CfgEarleyItem) {
+      CfgEarleyItem earleyItem = (CfgEarleyItem) item;
+      SymbolTable symbols = earleyItem.getCfg().getSymbols();
+      if (earleyItem.getNextSymbol() < 0) {
+        keys.add(getPassiveKey(symbols.getSymbol(earleyItem.getLhs()),
+          String.valueOf(earleyItem.getI())));
+      } else {
+        keys.add(getActiveKey(symbols.getSymbol(earleyItem.getNextSymbol()),
+          String.valueOf(earleyItem.getJ())));
+      }
+      return keys;
+    }
+    String[] itemForm = item.getItemForm();
+    String stack = itemForm[0];
+    if (stack.endsWith("•")) {
+      keys.add(getPassiveKey(stack.split(" ")[0], itemForm[1]));
+    } else {
+      keys.add(getActiveKey(getSymbolAfterDot(stack), itemForm[2]));
+    }
+    return keys;
+  }
+
+  @Override public List<String> getPartnerKeys(ChartItemInterface item) {
+    List<String> keys = new ArrayList<>();
+    if (item instanceof CfgEarleyItem) {
+      CfgEarleyItem earleyItem = (CfgEarleyItem) item;
+      SymbolTable symbols = earleyItem.getCfg().getSymbols();
+      if (earleyItem.getNextSymbol() < 0) {
+        keys.add(getActiveKey(symbols.getSymbol(earleyItem.getLhs()),
+          String.valueOf(earleyItem.getI())));
+      } else {
+        keys.add(getPassiveKey(symbols.getSymbol(earleyItem.getNextSymbol()),
+          String.valueOf(earleyItem.getJ())));
+      }
+      return keys;
+    }
+    String[] itemForm = item.getItemForm();
+    String stack = itemForm[0];
+    if (stack.endsWith("•")) {
+      keys.add(getActiveKey(stack.split(" ")[0], itemForm[1]));
+    } else {
+      keys.add(getPassiveKey(getSymbolAfterDot(stack), itemForm[2]));
+    }
+    return keys;
+  }
+
+  private static String getSymbolAfterDot(String stack) {
+    String afterDot = stack.substring(stack.indexOf('•') + 1);
+    int end = afterDot.indexOf(' ');
+    return end < 0 ? afterDot : afterDot.substring(0, end);
+  }
+
+  private static String getPassiveKey(String nt, String i) {
+    return "earley [" + nt + " -> ɣ •," + i + ",?]";
+  }
+
+  private static String getActiveKey(String nt, String j) {
+    return "earley [A -> α •" + nt + " β,?," + j + "]";
+  }
+
   @Override public String toString() {
     return "[A -> α •B β,i,j] [B -> ɣ •,j,k]" + "\n______\n"
       + "[A -> α B •β,i,k]";
   }
 
+  /** Rule names per symbol id of a compact grammar. */
+  private static class RuleNames {
+    private final CompactCfg cfg;
+    private final String[] names;
+
+    private RuleNames(CompactCfg cfg) {
+      this.cfg = cfg;
+      SymbolTable symbols = cfg.getSymbols();
+      this.names = new String[symbols.size()];
+      for (int i = 0; i < names.length; i++) {
+        names[i] = "complete " + symbols.getSymbol(i);
+      }
+    }
+
+    private String getName(int symbol) {
+      return symbol < names.length ? names[symbol]
+        : "complete " + cfg.getSymbols().getSymbol(symbol);
+    }
+  }
+
 }
@@ -0,0 +1,79 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.item.AbstractChartItem;
+import com.github.samyadaleh.cltoolbox.common.cfg.CompactCfg;
+
+/**
+ * Earley item [A -> α •β,i,j] with the dotted rule stored as rule id of a
+ * compact cfg and dot position. The string form is only built when it is asked
+ * for, like when printing the trace. Items of this kind are compared by their
+ * ids, the hash code is the one of the item form, so they are equal to other
+ * items of the same form.
+ */
+public class CfgEarleyItem extends AbstractChartItem {
+  private final CompactCfg cfg;
+  private final int rule;
+  private final int dot;
+  private final int i;
+  private final int j;
+  private final int hash;
+
+  public CfgEarleyItem(CompactCfg cfg, int rule, int dot, int i, int j) {
+    this.cfg = cfg;
+    this.rule = rule;
+    this.dot = dot;
+    this.i = i;
+    this.j = j;
+    this.hash = mix((cfg.dottedRuleHashCode(rule, dot) * 31
+        + stringHashCode(i)) * 31 + stringHashCode(j));
+  }
+
+  public CompactCfg getCfg() {
+    return this.cfg;
+  }
+
+  public int getRule() {
+    return this.rule;
+  }
+
+  public int getDot() {
+    return this.dot;
+  }
+
+  public int getI() {
+    return this.i;
+  }
+
+  public int getJ() {
+    return this.j;
+  }
+
+  /** Returns the lhs of the dotted rule. */
+  public int getLhs() {
+    return cfg.getLhs(rule);
+  }
+
+  /** Returns the symbol after the dot or -1 if the dot is at the end. */
+  public int getNextSymbol() {
+    int[] rhs = cfg.getRhs(rule);
+    return dot < rhs.length ? rhs[dot] : -1;
+  }
+
+  @Override public String[] getItemForm() {
+    return new String[] {cfg.dottedRuleToString(rule, dot),
+      String.valueOf(i), String.valueOf(j)};
+  }
+
+  @Override public boolean equals(Object o) {
+    if (o instanceof CfgEarleyItem && ((CfgEarleyItem) o).cfg == cfg) {
+      CfgEarleyItem other = (CfgEarleyItem) o;
+      return hash == other.hash && rule == other.rule && dot == other.dot
+        && i == other.i && j == other.j;
+    }
+    return super.equals(o);
+  }
+
+  @Override public int hashCode() {
+    return hash;
+  }
+}
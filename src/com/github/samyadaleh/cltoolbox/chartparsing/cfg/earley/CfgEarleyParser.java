@@ -0,0 +1,278 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+import com.github.samyadaleh.cltoolbox.common.cfg.CompactCfg;
+
+/**
+ * Earley parser for any cfg that works on per position item sets instead of
+ * chart items. Items are pairs of dotted rule id and origin. Items waiting for
+ * a symbol are linked per symbol in the set they end at, so completion and
+ * scan only visit items that fit. Nullable symbols are skipped when an item is
+ * added, as described by Aycock and Horspool, so completion never has to look
+ * at items of the set that is still growing. Prediction adds the precomputed
+ * closure of a nonterminal at once. Derives the same items as the deduction
+ * with the cfg-earley rules. An instance can be used by several threads at
+ * once.
+ */
+public class CfgEarleyParser {
+  private final CompactCfg cfg;
+  /** Id of the dotted rule with dot 0 for each rule. */
+  private final int[] ruleOffsets;
+  /** Rule of each dotted rule. */
+  private final int[] dottedRuleRules;
+  /** Symbol after the dot of each dotted rule, -1 if the dot is at the end. */
+  private final int[] nextSymbols;
+  private final boolean[] nonterminals;
+  private final boolean[] nullable;
+  /** Rules of the nonterminals predicted along with each nonterminal. */
+  private final int[][] predictedRules;
+  /** Nonterminals predicted along with each nonterminal. */
+  private final BitSet[] predictedNonterminals;
+  private final int startSymbol;
+
+  public CfgEarleyParser(Cfg cfg) {
+    this.cfg = new CompactCfg(cfg);
+    SymbolTable symbols = this.cfg.getSymbols();
+    startSymbol = symbols.getId(cfg.getStartSymbol());
+    int ruleCount = countRules(cfg);
+    int size = symbols.size();
+    nonterminals = new boolean[size];
+    for (int s = 0; s < size; s++) {
+      nonterminals[s] = cfg.nonterminalsContain(symbols.getSymbol(s));
+    }
+    ruleOffsets = new int[ruleCount];
+    int dottedRuleCount = 0;
+    for (int r = 0; r < ruleCount; r++) {
+      ruleOffsets[r] = dottedRuleCount;
+      dottedRuleCount += this.cfg.getRhs(r).length + 1;
+    }
+    dottedRuleRules = new int[dottedRuleCount];
+    nextSymbols = new int[dottedRuleCount];
+    for (int r = 0; r < ruleCount; r++) {
+      int[] rhs = this.cfg.getRhs(r);
+      for (int dot = 0; dot <= rhs.length; dot++) {
+        dottedRuleRules[ruleOffsets[r] + dot] = r;
+        nextSymbols[ruleOffsets[r] + dot] = dot < rhs.length ? rhs[dot] : -1;
+      }
+    }
+    nullable = getNullable(ruleCount, size);
+    List<List<Integer>> rulesByLhs = new ArrayList<>();
+    for (int s = 0; s < size; s++) {
+      rulesByLhs.add(new ArrayList<>());
+    }
+    for (int r = 0; r < ruleCount; r++) {
+      rulesByLhs.get(this.cfg.getLhs(r)).add(r);
+    }
+    predictedRules = new int[size][];
+    predictedNonterminals = new BitSet[size];
+    for (int s = 0; s < size; s++) {
+      if (nonterminals[s]) {
+        predictClosure(s, rulesByLhs);
+      }
+    }
+  }
+
+  /** Returns the number of distinct rules of the compact grammar. */
+  private int countRules(Cfg cfg) {
+    int count = 0;
+    for (int r = 0; r < cfg.getProductionRules().size(); r++) {
+      count = Math.max(count,
+          this.cfg.getRuleId(cfg.getProductionRules().get(r)) + 1);
+    }
+    return count;
+  }
+
+  /** Returns which symbols derive the empty word. */
+  private boolean[] getNullable(int ruleCount, int size) {
+    boolean[] isNullable = new boolean[size];
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int r = 0; r < ruleCount; r++) {
+        int lhs = cfg.getLhs(r);
+        if (isNullable[lhs]) {
+          continue;
+        }
+        boolean all = true;
+        for (int symbol : cfg.getRhs(r)) {
+          all &= isNullable[symbol];
+        }
+        if (all) {
+          isNullable[lhs] = true;
+          changed = true;
+        }
+      }
+    }
+    return isNullable;
+  }
+
+  /**
+   * Collects the nonterminals that are predicted when nt is, those that can
+   * follow a nullable prefix of the rule of a predicted nonterminal, and
+   * their rules.
+   */
+  private void predictClosure(int nt, List<List<Integer>> rulesByLhs) {
+    BitSet closure = new BitSet();
+    List<Integer> agenda = new ArrayList<>();
+    closure.set(nt);
+    agenda.add(nt);
+    List<Integer> rules = new ArrayList<>();
+    while (!agenda.isEmpty()) {
+      int lhs = agenda.remove(agenda.size() - 1);
+      for (int r : rulesByLhs.get(lhs)) {
+        rules.add(r);
+        for (int symbol : cfg.getRhs(r)) {
+          if (nonterminals[symbol] && !closure.get(symbol)) {
+            closure.set(symbol);
+            agenda.add(symbol);
+          }
+          if (!nullable[symbol]) {
+            break;
+          }
+        }
+      }
+    }
+    predictedNonterminals[nt] = closure;
+    predictedRules[nt] = new int[rules.size()];
+    for (int i = 0; i < rules.size(); i++) {
+      predictedRules[nt][i] = rules.get(i);
+    }
+  }
+
+  /** Fills the chart for w, tokens separated by spaces like for the rules. */
+  public CfgEarleyChart parse(String w) {
+    CfgEarleyChart chart = newChart();
+    for (String token : w.split(" ")) {
+      addColumn(chart, token);
+    }
+    return chart;
+  }
+
+  /** Returns whether w is in the language of the grammar. */
+  public boolean recognize(String w) {
+    return parse(w).isRecognized();
+  }
+
+  /** Returns a chart that holds the item set of position 0. */
+  CfgEarleyChart newChart() {
+    CfgEarleyChart chart = new CfgEarleyChart(this);
+    CfgEarleyChart.Column column = chart.addColumn(null);
+    if (startSymbol >= 0 && nonterminals[startSymbol]) {
+      predict(column, startSymbol, 0);
+    }
+    complete(chart, column, 0);
+    return chart;
+  }
+
+  /**
+   * Scans the token with the items of the last set of the chart and adds the
+   * set of the next position.
+   */
+  void addColumn(CfgEarleyChart chart, String token) {
+    int j = chart.getLength();
+    CfgEarleyChart.Column last = chart.getColumn(j);
+    CfgEarleyChart.Column column = chart.addColumn(token);
+    int symbol = cfg.getSymbols().getId(token);
+    if (symbol >= 0 && !nonterminals[symbol]) {
+      for (int item = last.getFirstWaiting(symbol); item >= 0;
+           item = last.getNextWaiting(item)) {
+        add(column, last.getDottedRule(item) + 1, last.getOrigin(item));
+      }
+    }
+    complete(chart, column, j + 1);
+  }
+
+  /**
+   * Processes the items of the set at position j in the order they were
+   * added, new ones included: completes those with the dot at the end and
+   * lets the others wait for their next symbol, predicting it if it is a
+   * nonterminal not predicted yet.
+   */
+  private void complete(CfgEarleyChart chart, CfgEarleyChart.Column column,
+      int j) {
+    for (int item = 0; item < column.size(); item++) {
+      int dottedRule = column.getDottedRule(item);
+      int symbol = nextSymbols[dottedRule];
+      if (symbol < 0) {
+        CfgEarleyChart.Column originColumn =
+            chart.getColumn(column.getOrigin(item));
+        int lhs = cfg.getLhs(dottedRuleRules[dottedRule]);
+        for (int waiting = originColumn.getFirstWaiting(lhs); waiting >= 0;
+             waiting = originColumn.getNextWaiting(waiting)) {
+          add(column, originColumn.getDottedRule(waiting) + 1,
+              originColumn.getOrigin(waiting));
+        }
+      } else {
+        column.addWaiting(item, symbol, nonterminals.length);
+        if (nonterminals[symbol] && !column.isPredicted(symbol)) {
+          predict(column, symbol, j);
+        }
+      }
+    }
+  }
+
+  /** Returns the terminals items of the set wait for. */
+  Set<String> getExpectedTerminals(CfgEarleyChart.Column column) {
+    Set<String> expected = new LinkedHashSet<>();
+    for (int item = 0; item < column.size(); item++) {
+      int symbol = nextSymbols[column.getDottedRule(item)];
+      if (symbol >= 0 && !nonterminals[symbol]) {
+        expected.add(cfg.getSymbols().getSymbol(symbol));
+      }
+    }
+    return expected;
+  }
+
+  private void predict(CfgEarleyChart.Column column, int nt, int j) {
+    column.setPredicted(predictedNonterminals[nt]);
+    for (int r : predictedRules[nt]) {
+      add(column, ruleOffsets[r], j);
+    }
+  }
+
+  /** Adds the item and the items that skip nullable symbols after its dot. */
+  private void add(CfgEarleyChart.Column column, int dottedRule, int origin) {
+    while (column.add(dottedRule, origin)) {
+      int symbol = nextSymbols[dottedRule];
+      if (symbol < 0 || !nullable[symbol]) {
+        return;
+      }
+      dottedRule++;
+    }
+  }
+
+  CompactCfg getCfg() {
+    return this.cfg;
+  }
+
+  int getStartSymbol() {
+    return this.startSymbol;
+  }
+
+  int getRule(int dottedRule) {
+    return this.dottedRuleRules[dottedRule];
+  }
+
+  int getDot(int dottedRule) {
+    return dottedRule - ruleOffsets[dottedRuleRules[dottedRule]];
+  }
+
+  int getDottedRule(int rule, int dot) {
+    return ruleOffsets[rule] + dot;
+  }
+
+  int getRuleCount() {
+    return this.ruleOffsets.length;
+  }
+
+  boolean isNonterminal(int symbol) {
+    return this.nonterminals[symbol];
+  }
+}
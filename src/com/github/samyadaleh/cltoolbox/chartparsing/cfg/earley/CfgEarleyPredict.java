@@ -5,30 +5,62 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.AbstractDynamicDeductionRule;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.ConsequenceSinkInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.DeductionChartItem;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
 import com.github.samyadaleh.cltoolbox.common.ArrayUtils;
 import com.github.samyadaleh.cltoolbox.common.TreeUtils;
 import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
+import com.github.samyadaleh.cltoolbox.common.cfg.CompactCfg;
 import com.github.samyadaleh.cltoolbox.common.tag.Tree;
 
 /**
  * If the next symbol after the dot is a nonterminal, for a rule with that
- * symbol as lhs predict a new item.
+ * symbol as lhs predict a new item. Works on items given as strings as well as
+ * on CfgEarleyItems. Keeps no state per application.
  */
 public class CfgEarleyPredict extends AbstractDynamicDeductionRule {
 
   private final CfgProductionRule rule;
+  private final String ruleName;
+  /** Id of the rule in the compact grammar last seen. */
+  private volatile RuleId ruleId;
 
   public CfgEarleyPredict(CfgProductionRule rule) {
     this.rule = rule;
-    this.name = "predict " + rule.toString();
+    this.ruleName = "predict " + rule.toString();
+    this.name = ruleName;
     this.antNeeded = 1;
   }
 
+  @Override public boolean isStateless() {
+    return true;
+  }
+
   @Override public List<ChartItemInterface> getConsequences() throws ParseException {
-    if (antecedences.size() == antNeeded) {
-      String[] itemForm = antecedences.get(0).getItemForm();
+    return applyToAntecedences();
+  }
+
+  @Override public void apply(List<ChartItemInterface> antecedences,
+    ConsequenceSinkInterface sink) throws ParseException {
+    if (antecedences.size() != antNeeded) {
+      return;
+    }
+    ChartItemInterface antecedence = antecedences.get(0);
+    if (antecedence instanceof CfgEarleyItem) {
+      CfgEarleyItem item = (CfgEarleyItem) antecedence;
+      RuleId id = ruleId;
+      if (id == null || id.cfg != item.getCfg()) {
+        id = new RuleId(item.getCfg(), rule);
+        ruleId = id;
+      }
+      if (id.id >= 0 && item.getNextSymbol() == id.cfg.getLhs(id.id)) {
+        addConsequence(
+          new CfgEarleyItem(id.cfg, id.id, 0, item.getJ(), item.getJ()),
+          antecedences, sink);
+      }
+    } else {
+      String[] itemForm = antecedence.getItemForm();
       String stack = itemForm[0];
       String[] stackSplit = stack.split(" ");
       int j = Integer.parseInt(itemForm[2]);
@@ -43,22 +75,28 @@ public class CfgEarleyPredict extends AbstractDynamicDeductionRule {
             newStack =
               rule.getLhs() + " -> " + "•" + String.join(" ", rule.getRhs());
           }
-          ChartItemInterface consequence =
-            new DeductionChartItem(newStack, String.valueOf(j), String.valueOf(j));
-          Tree derivedTreeBase = new Tree(rule);
-          List<Tree> derivedTrees = new ArrayList<>();
-          for (Tree tree : antecedences.get(0).getTrees()) {
-            derivedTrees.add(
-              TreeUtils.performLeftmostSubstitution(tree, derivedTreeBase));
-          }
-          consequence.setTrees(derivedTrees);
-          logItemGeneration(consequence);
-          consequences.add(consequence);
+          addConsequence(new DeductionChartItem(newStack, String.valueOf(j),
+            String.valueOf(j)), antecedences, sink);
           break;
         }
       }
     }
-    return consequences;
+  }
+
+  private void addConsequence(ChartItemInterface consequence,
+    List<ChartItemInterface> antecedences, ConsequenceSinkInterface sink)
+    throws ParseException {
+    if (buildTrees) {
+      Tree derivedTreeBase = new Tree(rule);
+      List<Tree> derivedTrees = new ArrayList<>();
+      for (Tree tree : antecedences.get(0).getTrees()) {
+        derivedTrees
+          .add(TreeUtils.performLeftmostSubstitution(tree, derivedTreeBase));
+      }
+      consequence.setTrees(derivedTrees);
+    }
+    logItemGeneration(consequence, antecedences, ruleName);
+    sink.add(consequence, ruleName);
   }
 
   @Override public String toString() {
@@ -67,4 +105,15 @@ public class CfgEarleyPredict extends AbstractDynamicDeductionRule {
       + ArrayUtils.toString(rule.getRhs()) + ",j,j]";
   }
 
+  /** Id of the rule in a compact grammar, -1 if it isn't part of it. */
+  private static class RuleId {
+    private final CompactCfg cfg;
+    private final int id;
+
+    private RuleId(CompactCfg cfg, CfgProductionRule rule) {
+      this.cfg = cfg;
+      this.id = cfg.getRuleId(rule);
+    }
+  }
+
 }
@@ -1,27 +1,64 @@
 package com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley;
 
+import java.text.ParseException;
 import java.util.List;
 
 import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.AbstractDynamicDeductionRule;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.ConsequenceSinkInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.DeductionChartItem;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
 import com.github.samyadaleh.cltoolbox.common.ArrayUtils;
+import com.github.samyadaleh.cltoolbox.common.cfg.CompactCfg;
 
 /** The scan rule for topdown removes a terminal if it is the next input
- * symbol. */
+ * symbol. Works on items given as strings as well as on CfgEarleyItems. Keeps
+ * no state per application. */
 public class CfgEarleyScan extends AbstractDynamicDeductionRule {
 
   private final String[] wsplit;
+  /** Rule names per input position. */
+  private final String[] names;
+  /** Ids of the input symbols in the compact grammar last seen. */
+  private volatile WordIds wordIds;
 
   public CfgEarleyScan(String[] wsplit) {
     this.wsplit = wsplit;
     this.name = "scan";
     this.antNeeded = 1;
+    this.names = new String[wsplit.length];
+    for (int i = 0; i < wsplit.length; i++) {
+      names[i] = "scan " + wsplit[i];
+    }
+  }
+
+  @Override public boolean isStateless() {
+    return true;
+  }
+
+  @Override public List<ChartItemInterface> getConsequences()
+    throws ParseException {
+    return applyToAntecedences();
   }
 
-  @Override public List<ChartItemInterface> getConsequences() {
-    if (antecedences.size() == antNeeded) {
-      String[] itemForm = antecedences.get(0).getItemForm();
+  @Override public void apply(List<ChartItemInterface> antecedences,
+    ConsequenceSinkInterface sink) {
+    if (antecedences.size() != antNeeded) {
+      return;
+    }
+    ChartItemInterface antecedence = antecedences.get(0);
+    if (antecedence instanceof CfgEarleyItem) {
+      CfgEarleyItem item = (CfgEarleyItem) antecedence;
+      int j = item.getJ();
+      if (j < wsplit.length && item.getNextSymbol() >= 0
+        && item.getNextSymbol() == getWordIds(item.getCfg()).ids[j]) {
+        ChartItemInterface consequence = new CfgEarleyItem(item.getCfg(),
+          item.getRule(), item.getDot() + 1, item.getI(), j + 1);
+        consequence.setTrees(item.getTrees());
+        logItemGeneration(consequence, antecedences, names[j]);
+        sink.add(consequence, names[j]);
+      }
+    } else {
+      String[] itemForm = antecedence.getItemForm();
       String stack = itemForm[0];
       String[] stackSplit = stack.split(" ");
       int i = Integer.parseInt(itemForm[1]);
@@ -29,7 +66,6 @@ public class CfgEarleyScan extends AbstractDynamicDeductionRule {
       for (int k = 0; k < stackSplit.length; k++) {
         if (stackSplit[k].startsWith("•") && j < wsplit.length && wsplit[j]
           .equals(stackSplit[k].substring(1))) {
-          this.name = "scan " + wsplit[j];
           StringBuilder newStack = new StringBuilder();
           newStack.append(ArrayUtils.getSubSequenceAsString(stackSplit, 0, k));
           if (k == stackSplit.length - 1) {
@@ -41,17 +77,39 @@ public class CfgEarleyScan extends AbstractDynamicDeductionRule {
           }
           ChartItemInterface consequence = new DeductionChartItem(newStack.toString(),
             String.valueOf(i), String.valueOf(j + 1));
-          consequence.setTrees(antecedences.get(0).getTrees());
-          logItemGeneration(consequence);
-          consequences.add(consequence);
+          consequence.setTrees(antecedence.getTrees());
+          logItemGeneration(consequence, antecedences, names[j]);
+          sink.add(consequence, names[j]);
         }
       }
     }
-    return consequences;
+  }
+
+  private WordIds getWordIds(CompactCfg cfg) {
+    WordIds ids = wordIds;
+    if (ids == null || ids.cfg != cfg) {
+      ids = new WordIds(cfg, wsplit);
+      wordIds = ids;
+    }
+    return ids;
   }
 
   @Override public String toString() {
     return "[A -> α •a β,i,j]" + "\n______ w_j = a\n" + "[A -> α a • β,i,j+1]";
   }
 
+  /** Symbol ids of the input symbols, -1 for symbols not in the grammar. */
+  private static class WordIds {
+    private final CompactCfg cfg;
+    private final int[] ids;
+
+    private WordIds(CompactCfg cfg, String[] wsplit) {
+      this.cfg = cfg;
+      this.ids = new int[wsplit.length];
+      for (int i = 0; i < wsplit.length; i++) {
+        ids[i] = cfg.getSymbols().getId(wsplit[i]);
+      }
+    }
+  }
+
 }
@@ -0,0 +1,66 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley;
+
+import java.util.Set;
+
+/**
+ * Earley parse that is fed one token at a time, like while input is typed.
+ * Each token adds the item set of one position to the chart, the sets before
+ * are never touched again. Taking back the last k tokens drops their sets.
+ * A session must not be used by several threads at once.
+ */
+public class CfgEarleySession {
+  private final CfgEarleyParser parser;
+  private final CfgEarleyChart chart;
+
+  public CfgEarleySession(CfgEarleyParser parser) {
+    this.parser = parser;
+    this.chart = parser.newChart();
+  }
+
+  /**
+   * Adds the next token and returns whether the tokens so far are still the
+   * prefix of some sentence.
+   */
+  public boolean addToken(String token) {
+    parser.addColumn(chart, token);
+    return isViablePrefix();
+  }
+
+  /** Takes back the last k tokens. */
+  public void rollback(int k) {
+    if (k < 0 || k > chart.getLength()) {
+      throw new IllegalArgumentException(
+          "Can't take back " + k + " of " + chart.getLength() + " tokens.");
+    }
+    chart.removeColumns(k);
+  }
+
+  /**
+   * Returns whether the tokens so far start some sentence. Items are only
+   * added to a set if the tokens up to it can be continued to a sentence, as
+   * long as all nonterminals of the grammar generate something.
+   */
+  public boolean isViablePrefix() {
+    return chart.getColumn(chart.getLength()).size() > 0;
+  }
+
+  /** Returns whether the tokens so far are a sentence. */
+  public boolean isRecognized() {
+    return chart.isRecognized();
+  }
+
+  /** Returns the terminals that can follow the tokens so far. */
+  public Set<String> getExpectedTerminals() {
+    return parser.getExpectedTerminals(chart.getColumn(chart.getLength()));
+  }
+
+  /** Returns the number of tokens added and not taken back. */
+  public int getLength() {
+    return chart.getLength();
+  }
+
+  /** Returns the chart of the tokens so far, for items and trees. */
+  public CfgEarleyChart getChart() {
+    return this.chart;
+  }
+}
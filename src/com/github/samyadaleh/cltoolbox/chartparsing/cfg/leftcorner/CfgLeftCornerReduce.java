@@ -53,23 +53,25 @@ public class CfgLeftCornerReduce extends AbstractDynamicDeductionRule {
         }
         ChartItemInterface consequence =
             new DeductionChartItem(newCompl, newPred, newLhs);
-        List<Tree> derivedTrees = new ArrayList<>();
-        Tree derivedTreeBase = new Tree(rule);
-        List<Tree> antDerivedTrees = antecedences.get(0).getTrees();
-        if (antDerivedTrees.size() > 0 && antDerivedTrees
-            .get(antDerivedTrees.size() - 1).getRoot().getLabel()
-            .equals(rule.getRhs()[0])) {
-          derivedTreeBase = TreeUtils
-              .performLeftmostSubstitution(derivedTreeBase,
-                  antDerivedTrees.get(antDerivedTrees.size() - 1));
-          for (int i = 0; i < antecedences.get(0).getTrees().size() - 1; i++) {
-            derivedTrees.add(antecedences.get(0).getTrees().get(i));
+        if (buildTrees) {
+          List<Tree> derivedTrees = new ArrayList<>();
+          Tree derivedTreeBase = new Tree(rule);
+          List<Tree> antDerivedTrees = antecedences.get(0).getTrees();
+          if (antDerivedTrees.size() > 0 && antDerivedTrees
+              .get(antDerivedTrees.size() - 1).getRoot().getLabel()
+              .equals(rule.getRhs()[0])) {
+            derivedTreeBase = TreeUtils
+                .performLeftmostSubstitution(derivedTreeBase,
+                    antDerivedTrees.get(antDerivedTrees.size() - 1));
+            for (int i = 0; i < antDerivedTrees.size() - 1; i++) {
+              derivedTrees.add(antecedences.get(0).getTrees().get(i));
+            }
+          } else {
+            derivedTrees.addAll(antecedences.get(0).getTrees());
           }
-        } else {
-          derivedTrees.addAll(antecedences.get(0).getTrees());
+          derivedTrees.add(derivedTreeBase);
+          consequence.setTrees(derivedTrees);
         }
-        derivedTrees.add(derivedTreeBase);
-        consequence.setTrees(derivedTrees);
         logItemGeneration(consequence);
         consequences.add(consequence);
       }
@@ -33,31 +33,35 @@ public class CfgLeftCornerRemove extends AbstractDynamicDeductionRule {
       String[] stackPredSplit = itemForm[1].split(" ");
       if (itemForm[0].length() > 0 && itemForm[1].length() > 0
           && stackComplSplit[0].equals(stackPredSplit[0])) {
-        this.name = "remove " + stackComplSplit[0];
+        if (recordNames) {
+          this.name = "remove " + stackComplSplit[0];
+        }
         String newCompl = ArrayUtils
             .getSubSequenceAsString(stackComplSplit, 1, stackComplSplit.length);
         String newPred = ArrayUtils
             .getSubSequenceAsString(stackPredSplit, 1, stackPredSplit.length);
         ChartItemInterface consequence =
             new DeductionChartItem(newCompl, newPred, itemForm[2]);
-        List<Tree> derivedTrees = new ArrayList<>();
-        List<Tree> antDerivedTrees = antecedences.get(0).getTrees();
-        if (antDerivedTrees.size() > 1) {
-          for (int i = 0; i < antDerivedTrees.size() - 2; i++) {
-            derivedTrees.add(antDerivedTrees.get(i));
-          }
-          try {
-            derivedTrees.add(TreeUtils.performLeftmostSubstitution(
-                antDerivedTrees.get(antDerivedTrees.size() - 2),
-                antDerivedTrees.get(antDerivedTrees.size() - 1)));
-          } catch (StringIndexOutOfBoundsException e) {
-            log.debug(e.getMessage(), e);
+        if (buildTrees) {
+          List<Tree> derivedTrees = new ArrayList<>();
+          List<Tree> antDerivedTrees = antecedences.get(0).getTrees();
+          if (antDerivedTrees.size() > 1) {
+            for (int i = 0; i < antDerivedTrees.size() - 2; i++) {
+              derivedTrees.add(antDerivedTrees.get(i));
+            }
+            try {
+              derivedTrees.add(TreeUtils.performLeftmostSubstitution(
+                  antDerivedTrees.get(antDerivedTrees.size() - 2),
+                  antDerivedTrees.get(antDerivedTrees.size() - 1)));
+            } catch (StringIndexOutOfBoundsException e) {
+              log.debug(e.getMessage(), e);
+              derivedTrees.addAll(antDerivedTrees);
+            }
+          } else {
             derivedTrees.addAll(antDerivedTrees);
           }
-        } else {
-          derivedTrees.addAll(antDerivedTrees);
+          consequence.setTrees(derivedTrees);
         }
-        consequence.setTrees(derivedTrees);
         logItemGeneration(consequence);
         consequences.add(consequence);
       }
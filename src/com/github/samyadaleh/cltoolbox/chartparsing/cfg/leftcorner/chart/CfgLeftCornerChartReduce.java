@@ -33,22 +33,24 @@ public class CfgLeftCornerChartReduce extends AbstractDynamicDeductionRule {
           rule.getLhs() + " -> " + rule.getRhs()[0] + " •" + ArrayUtils
             .getSubSequenceAsString(rule.getRhs(), 1, rule.getRhs().length),
           i, l);
-        Tree derivedTreeBase = new Tree(rule);
-        List<Tree> antDerivedTrees = antecedences.get(0).getTrees();
-        List<Tree> derivedTrees = new ArrayList<>();
-        if (antDerivedTrees.size() > 0
-          && antDerivedTrees.get(antDerivedTrees.size() - 1).getRoot()
-            .getLabel().equals(rule.getRhs()[0])) {
-          derivedTreeBase = TreeUtils.performLeftmostSubstitution(
-            derivedTreeBase, antDerivedTrees.get(antDerivedTrees.size() - 1));
-          for (int j = 0; j < antecedences.get(0).getTrees().size() - 1; j++) {
-            derivedTrees.add(antecedences.get(0).getTrees().get(j));
+        if (buildTrees) {
+          Tree derivedTreeBase = new Tree(rule);
+          List<Tree> antDerivedTrees = antecedences.get(0).getTrees();
+          List<Tree> derivedTrees = new ArrayList<>();
+          if (antDerivedTrees.size() > 0
+            && antDerivedTrees.get(antDerivedTrees.size() - 1).getRoot()
+              .getLabel().equals(rule.getRhs()[0])) {
+            derivedTreeBase = TreeUtils.performLeftmostSubstitution(
+              derivedTreeBase, antDerivedTrees.get(antDerivedTrees.size() - 1));
+            for (int j = 0; j < antDerivedTrees.size() - 1; j++) {
+              derivedTrees.add(antecedences.get(0).getTrees().get(j));
+            }
+          } else {
+            derivedTrees.addAll(antecedences.get(0).getTrees());
           }
-        } else {
-          derivedTrees.addAll(antecedences.get(0).getTrees());
+          derivedTrees.add(derivedTreeBase);
+          consequence.setTrees(derivedTrees);
         }
-        derivedTrees.add(derivedTreeBase);
-        consequence.setTrees(derivedTrees);
         logItemGeneration(consequence);
         consequences.add(consequence);
       }
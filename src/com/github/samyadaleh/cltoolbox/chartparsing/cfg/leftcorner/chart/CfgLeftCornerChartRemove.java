@@ -35,7 +35,9 @@ public class CfgLeftCornerChartRemove
         int l2 = Integer.parseInt(itemForm2[2]);
         if (mayDottedRuleSplit[k].substring(1).equals(itemForm2[0])
           && i + l1 == j && mayDottedRuleSplit[k].length() > 1) {
-          this.name = "remove " + mayDottedRuleSplit[k].substring(1);
+          if (recordNames) {
+            this.name = "remove " + mayDottedRuleSplit[k].substring(1);
+          }
           if (k == mayDottedRuleSplit.length - 1) {
             handleDotBeforeLastSymbol(itemForm1, mayDottedRuleSplit, k, i, l1,
                 l2);
@@ -59,25 +61,27 @@ public class CfgLeftCornerChartRemove
         + ArrayUtils.getSubSequenceAsString(mayDottedRuleSplit, k + 1,
           mayDottedRuleSplit.length),
       String.valueOf(i), String.valueOf(l1 + l2));
-    List<Tree> derivedTrees = new ArrayList<>();
-    if (Arrays.equals(antecedences.get(0).getItemForm(), itemForm1)) {
-      for (Tree tree1 : antecedences.get(0).getTrees()) {
-        for (Tree tree2 : antecedences.get(1).getTrees()) {
-          derivedTrees
-            .add(TreeUtils.performLeftmostSubstitution(tree1, tree2));
-        }
+    if (buildTrees) {
+      List<Tree> derivedTrees = new ArrayList<>();
+      if (Arrays.equals(antecedences.get(0).getItemForm(), itemForm1)) {
+        for (Tree tree1 : antecedences.get(0).getTrees()) {
+          for (Tree tree2 : antecedences.get(1).getTrees()) {
+            derivedTrees
+              .add(TreeUtils.performLeftmostSubstitution(tree1, tree2));
+          }
 
-      }
-    } else {
-      for (Tree tree1 : antecedences.get(0).getTrees()) {
-        for (Tree tree2 : antecedences.get(1).getTrees()) {
-          derivedTrees
-            .add(TreeUtils.performLeftmostSubstitution(tree2, tree1));
         }
+      } else {
+        for (Tree tree1 : antecedences.get(0).getTrees()) {
+          for (Tree tree2 : antecedences.get(1).getTrees()) {
+            derivedTrees
+              .add(TreeUtils.performLeftmostSubstitution(tree2, tree1));
+          }
 
+        }
       }
+      consequence.setTrees(derivedTrees);
     }
-    consequence.setTrees(derivedTrees);
     logItemGeneration(consequence);
     consequences.add(consequence);
   }
@@ -89,31 +93,33 @@ public class CfgLeftCornerChartRemove
       ArrayUtils.getSubSequenceAsString(mayDottedRuleSplit, 0, k) + " "
         + mayDottedRuleSplit[k].substring(1) + " •",
       String.valueOf(i), String.valueOf(l1 + l2));
-    List<Tree> derivedTrees = new ArrayList<>();
-    if (Arrays.equals(antecedences.get(0).getItemForm(), itemForm1)) {
-      if (antecedences.get(1).getTrees().size() > 0) {
-        for (Tree tree1 : antecedences.get(0).getTrees()) {
-          for (Tree tree2 : antecedences.get(1).getTrees()) {
-            derivedTrees
-              .add(TreeUtils.performLeftmostSubstitution(tree1, tree2));
+    if (buildTrees) {
+      List<Tree> derivedTrees = new ArrayList<>();
+      if (Arrays.equals(antecedences.get(0).getItemForm(), itemForm1)) {
+        if (antecedences.get(1).getTrees().size() > 0) {
+          for (Tree tree1 : antecedences.get(0).getTrees()) {
+            for (Tree tree2 : antecedences.get(1).getTrees()) {
+              derivedTrees
+                .add(TreeUtils.performLeftmostSubstitution(tree1, tree2));
+            }
           }
+        } else {
+          derivedTrees.addAll(antecedences.get(0).getTrees());
         }
       } else {
-        derivedTrees.addAll(antecedences.get(0).getTrees());
-      }
-    } else {
-      if (antecedences.get(0).getTrees().size() > 0) {
-        for (Tree tree1 : antecedences.get(0).getTrees()) {
-          for (Tree tree2 : antecedences.get(1).getTrees()) {
-            derivedTrees
-              .add(TreeUtils.performLeftmostSubstitution(tree2, tree1));
+        if (antecedences.get(0).getTrees().size() > 0) {
+          for (Tree tree1 : antecedences.get(0).getTrees()) {
+            for (Tree tree2 : antecedences.get(1).getTrees()) {
+              derivedTrees
+                .add(TreeUtils.performLeftmostSubstitution(tree2, tree1));
+            }
           }
+        } else {
+          derivedTrees.addAll(antecedences.get(0).getTrees());
         }
-      } else {
-        derivedTrees.addAll(antecedences.get(0).getTrees());
       }
+      consequence.setTrees(derivedTrees);
     }
-    consequence.setTrees(derivedTrees);
     logItemGeneration(consequence);
     consequences.add(consequence);
   }
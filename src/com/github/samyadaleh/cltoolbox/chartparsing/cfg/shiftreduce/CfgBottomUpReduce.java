@@ -41,30 +41,32 @@ public class CfgBottomUpReduce extends AbstractDynamicDeductionRule {
         } else {
           consequence = new DeductionChartItem(gamma + " " + rule.getLhs(), i);
         }
-        List<Tree> derivedTrees =
-            new ArrayList<>(antecedences.get(0).getTrees());
-        Tree derivedTreeBase = new Tree(rule);
-        for (Tree tree : antecedences.get(0).getTrees()) {
-          boolean found = false;
-          for (String rhsSym : rule.getRhs()) {
-            if (tree.getRoot().getLabel().equals(rhsSym)) {
-              derivedTrees.remove(0);
-              try {
-                derivedTreeBase = TreeUtils
-                    .performLeftmostSubstitution(derivedTreeBase, tree);
-              } catch (IndexOutOfBoundsException e) {
-                log.debug(e.getMessage(), e);
+        if (buildTrees) {
+          List<Tree> derivedTrees =
+              new ArrayList<>(antecedences.get(0).getTrees());
+          Tree derivedTreeBase = new Tree(rule);
+          for (Tree tree : antecedences.get(0).getTrees()) {
+            boolean found = false;
+            for (String rhsSym : rule.getRhs()) {
+              if (tree.getRoot().getLabel().equals(rhsSym)) {
+                derivedTrees.remove(0);
+                try {
+                  derivedTreeBase = TreeUtils
+                      .performLeftmostSubstitution(derivedTreeBase, tree);
+                } catch (IndexOutOfBoundsException e) {
+                  log.debug(e.getMessage(), e);
+                }
+                found = true;
+                break;
               }
-              found = true;
+            }
+            if (!found) {
               break;
             }
           }
-          if (!found) {
-            break;
-          }
+          derivedTrees.add(0, derivedTreeBase);
+          consequence.setTrees(derivedTrees);
         }
-        derivedTrees.add(0, derivedTreeBase);
-        consequence.setTrees(derivedTrees);
         logItemGeneration(consequence);
         consequences.add(consequence);
       }
@@ -0,0 +1,235 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.shiftreduce;
+
+import java.math.BigInteger;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.samyadaleh.cltoolbox.common.TreeUtils;
+import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
+import com.github.samyadaleh.cltoolbox.common.tag.Tree;
+
+/**
+ * Shared packed parse forest of a GLR parse. Each node is a symbol spanning
+ * the input from i to j and exists only once. The nodes of nonterminals have
+ * one packed alternative per rule and sequence of child nodes that derive
+ * them.
+ */
+public class CfgGlrForest {
+  private static final Logger log = LogManager.getLogger();
+  private final List<CfgProductionRule> rules;
+  private final Map<String, Node> nodes = new HashMap<>();
+  private Node root = null;
+
+  CfgGlrForest(List<CfgProductionRule> rules) {
+    this.rules = rules;
+  }
+
+  /** Returns the node of nonterminal nt from i to j, new if needed. */
+  Node getNode(String nt, int i, int j) {
+    return getNode(nt, i, j, false);
+  }
+
+  /** Returns the node of the terminal at position i, new if needed. */
+  Node getTerminalNode(String t, int i) {
+    return getNode(t, i, i + 1, true);
+  }
+
+  private Node getNode(String symbol, int i, int j, boolean terminal) {
+    String key = (terminal ? "t " : "n ") + symbol + " " + i + " " + j;
+    Node node = nodes.get(key);
+    if (node == null) {
+      node = new Node(symbol, i, j, terminal);
+      nodes.put(key, node);
+    }
+    return node;
+  }
+
+  void setRoot(Node root) {
+    this.root = root;
+  }
+
+  /** Returns true if the start symbol spans the whole input. */
+  public boolean isRecognized() {
+    return root != null;
+  }
+
+  /** Returns the number of symbol nodes. */
+  public int getNodeCount() {
+    return nodes.size();
+  }
+
+  /** Returns the number of packed alternatives of all nodes. */
+  public int getAlternativeCount() {
+    int count = 0;
+    for (Node node : nodes.values()) {
+      count += node.alternatives.size();
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of derivations of the start symbol. Alternatives that
+   * lead back to a node whose count is being computed would allow infinitely
+   * many derivations, they are not counted.
+   */
+  public BigInteger countDerivations() {
+    if (root == null) {
+      return BigInteger.ZERO;
+    }
+    return countDerivations(root, new HashMap<>(), new HashMap<>());
+  }
+
+  /**
+   * Nodes on the path can only be reached again from nodes of the same span,
+   * so counts are memoized for the node together with the nodes of its span
+   * on the path.
+   */
+  private BigInteger countDerivations(Node node, Map<String, BigInteger> counts,
+      Map<String, Set<String>> onPath) {
+    if (node.isTerminal()) {
+      return BigInteger.ONE;
+    }
+    Set<String> spanPath = getSpanPath(node, onPath);
+    String key = node + " " + spanPath;
+    BigInteger count = counts.get(key);
+    if (count != null) {
+      return count;
+    }
+    spanPath.add(node.toString());
+    count = BigInteger.ZERO;
+    for (Alternative alternative : node.alternatives) {
+      BigInteger alternativeCount = BigInteger.ONE;
+      for (Node child : alternative.children) {
+        if (isOnPath(child, onPath)) {
+          alternativeCount = BigInteger.ZERO;
+          break;
+        }
+        alternativeCount = alternativeCount
+            .multiply(countDerivations(child, counts, onPath));
+      }
+      count = count.add(alternativeCount);
+    }
+    spanPath.remove(node.toString());
+    counts.put(key, count);
+    return count;
+  }
+
+  private static Set<String> getSpanPath(Node node,
+      Map<String, Set<String>> onPath) {
+    return onPath.computeIfAbsent(node.i + " " + node.j, s -> new TreeSet<>());
+  }
+
+  private static boolean isOnPath(Node node, Map<String, Set<String>> onPath) {
+    return !node.isTerminal() && getSpanPath(node, onPath)
+        .contains(node.toString());
+  }
+
+  /**
+   * Returns the trees of all derivations of the start symbol. Derivations in
+   * which a node derives itself are left out.
+   */
+  public List<Tree> getDerivedTrees() {
+    if (root == null) {
+      return new ArrayList<>();
+    }
+    try {
+      return new ArrayList<>(
+          getTrees(root, new HashMap<>(), new HashMap<>()));
+    } catch (ParseException e) {
+      log.error(e.getMessage(), e);
+      return new ArrayList<>();
+    }
+  }
+
+  /** Memoizes the trees like countDerivations memoizes the counts. */
+  private List<Tree> getTrees(Node node, Map<String, List<Tree>> memo,
+      Map<String, Set<String>> onPath) throws ParseException {
+    if (isOnPath(node, onPath)) {
+      return Collections.emptyList();
+    }
+    Set<String> spanPath = getSpanPath(node, onPath);
+    String key = node + " " + spanPath;
+    List<Tree> trees = memo.get(key);
+    if (trees != null) {
+      return trees;
+    }
+    spanPath.add(node.toString());
+    trees = new ArrayList<>();
+    for (Alternative alternative : node.alternatives) {
+      List<Tree> partial = new ArrayList<>();
+      partial.add(new Tree(rules.get(alternative.rule)));
+      for (Node child : alternative.children) {
+        if (child.isTerminal()) {
+          continue;
+        }
+        List<Tree> childTrees = getTrees(child, memo, onPath);
+        List<Tree> extended = new ArrayList<>();
+        for (Tree tree : partial) {
+          for (Tree childTree : childTrees) {
+            extended.add(TreeUtils.performLeftmostSubstitution(tree, childTree));
+          }
+        }
+        partial = extended;
+      }
+      trees.addAll(partial);
+    }
+    spanPath.remove(node.toString());
+    memo.put(key, trees);
+    return trees;
+  }
+
+  /** A symbol spanning the input from i to j. */
+  static class Node {
+    private final String symbol;
+    private final int i;
+    private final int j;
+    private final boolean terminal;
+    private final List<Alternative> alternatives = new ArrayList<>();
+
+    private Node(String symbol, int i, int j, boolean terminal) {
+      this.symbol = symbol;
+      this.i = i;
+      this.j = j;
+      this.terminal = terminal;
+    }
+
+    /** Adds the derivation by the rule from the children if it is new. */
+    void addAlternative(int rule, Node[] children) {
+      for (Alternative alternative : alternatives) {
+        if (alternative.rule == rule && Arrays
+            .equals(alternative.children, children)) {
+          return;
+        }
+      }
+      alternatives.add(new Alternative(rule, children));
+    }
+
+    private boolean isTerminal() {
+      return this.terminal;
+    }
+
+    @Override public String toString() {
+      return "[" + symbol + "," + i + "," + j + "]";
+    }
+  }
+
+  private static class Alternative {
+    private final int rule;
+    private final Node[] children;
+
+    private Alternative(int rule, Node[] children) {
+      this.rule = rule;
+      this.children = children;
+    }
+  }
+}
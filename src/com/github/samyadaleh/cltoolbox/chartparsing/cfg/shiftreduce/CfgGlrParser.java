@@ -0,0 +1,235 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.shiftreduce;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToLrKRulesConverter;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
+
+/**
+ * Generalized LR parser that runs the LR(k) automaton on a graph-structured
+ * stack. Where the table has more than one action the stack forks, stacks
+ * that reach the same state at the same position are merged. Reductions are
+ * done per position until no new stack edge appears, as described by Tomita
+ * with the correction of Farshi for ε rules. The derivations are recorded in a
+ * shared packed forest. Unlike the deduction with the LR(k) rules it accepts
+ * every cfg, also those with conflicts. An instance can be used by several
+ * threads at once.
+ */
+public class CfgGlrParser {
+  private final Cfg cfg;
+  private final CfgGlrTable table;
+
+  public CfgGlrParser(Cfg cfg, int k) {
+    this.cfg = cfg;
+    this.table = CfgToLrKRulesConverter.computeGlrTable(cfg, k);
+  }
+
+  public CfgGlrTable getTable() {
+    return this.table;
+  }
+
+  /** Parses w, tokens separated by spaces like for the rules. */
+  public CfgGlrForest parse(String w) {
+    String[] wSplit = w.isEmpty() ? new String[0] : w.split(" ");
+    List<CfgProductionRule> rules = table.getRules();
+    CfgGlrForest forest = new CfgGlrForest(rules);
+    GssNode initialNode = new GssNode(table.getInitialState(), 0);
+    Map<Integer, GssNode> level = new HashMap<>();
+    level.put(initialNode.state, initialNode);
+    for (int i = 0; ; i++) {
+      reduceAll(level, i, wSplit, forest);
+      if (i == wSplit.length) {
+        for (GssNode node : level.values()) {
+          if (!table.isAcceptState(node.state)) {
+            continue;
+          }
+          for (GssEdge edge : node.edges) {
+            if (edge.target == initialNode) {
+              forest.setRoot(edge.label);
+            }
+          }
+        }
+        return forest;
+      }
+      level = shift(level, i, wSplit[i], forest);
+      if (level.isEmpty()) {
+        return forest;
+      }
+    }
+  }
+
+  /** Returns whether w is in the language of the grammar. */
+  public boolean recognize(String w) {
+    return parse(w).isRecognized();
+  }
+
+  /**
+   * Applies all reductions to the stacks that end at position i. When an
+   * edge is added to a node that already existed, paths through it may allow
+   * reductions of nodes that were already handled, so those are done again
+   * for the paths that go through the new edge.
+   */
+  private void reduceAll(Map<Integer, GssNode> level, int i, String[] wSplit,
+      CfgGlrForest forest) {
+    Deque<Reduction> agenda = new ArrayDeque<>();
+    for (GssNode node : level.values()) {
+      addReductions(agenda, node, i, wSplit, null);
+    }
+    List<CfgProductionRule> rules = table.getRules();
+    while (!agenda.isEmpty()) {
+      Reduction reduction = agenda.poll();
+      CfgProductionRule rule = rules.get(reduction.rule);
+      int length = getRhsLength(rule);
+      List<GssNode> ends = new ArrayList<>();
+      List<CfgGlrForest.Node[]> labels = new ArrayList<>();
+      collectPaths(reduction.node, length, new CfgGlrForest.Node[length], ends,
+          labels, reduction.edge, i);
+      for (int p = 0; p < ends.size(); p++) {
+        GssNode end = ends.get(p);
+        int target = table.getTransition(end.state, rule.getLhs());
+        if (target < 0) {
+          continue;
+        }
+        CfgGlrForest.Node label = forest.getNode(rule.getLhs(), end.level, i);
+        label.addAlternative(reduction.rule, labels.get(p));
+        GssNode node = level.get(target);
+        if (node == null) {
+          node = new GssNode(target, i);
+          level.put(target, node);
+          node.edges.add(new GssEdge(end, label));
+          addReductions(agenda, node, i, wSplit, null);
+        } else if (!node.hasEdgeTo(end)) {
+          GssEdge edge = new GssEdge(end, label);
+          node.edges.add(edge);
+          for (GssNode other : level.values()) {
+            addReductions(agenda, other, i, wSplit, edge);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds the reductions of the node. If edge is not null they are restricted
+   * to the paths through it, so ε rules are left out.
+   */
+  private void addReductions(Deque<Reduction> agenda, GssNode node, int i,
+      String[] wSplit, GssEdge edge) {
+    for (int rule : table.getReduces(node.state, wSplit, i)) {
+      if (edge == null || getRhsLength(table.getRules().get(rule)) > 0) {
+        agenda.add(new Reduction(node, rule, edge));
+      }
+    }
+  }
+
+  /** Moves the stacks that can shift the token to the next position. */
+  private Map<Integer, GssNode> shift(Map<Integer, GssNode> level, int i,
+      String token, CfgGlrForest forest) {
+    Map<Integer, GssNode> nextLevel = new HashMap<>();
+    if (!cfg.terminalsContain(token)) {
+      return nextLevel;
+    }
+    CfgGlrForest.Node label = forest.getTerminalNode(token, i);
+    for (GssNode node : level.values()) {
+      int target = table.getTransition(node.state, token);
+      if (target < 0) {
+        continue;
+      }
+      GssNode next = nextLevel.get(target);
+      if (next == null) {
+        next = new GssNode(target, i + 1);
+        nextLevel.put(target, next);
+      }
+      next.edges.add(new GssEdge(node, label));
+    }
+    return nextLevel;
+  }
+
+  /**
+   * Collects the nodes reached from node by following length edges and the
+   * labels of the edges on the way, ordered from left to right. If required
+   * is not null only the paths through it are collected. It starts at a node
+   * of position i and the positions only decrease along a path, so the
+   * search stops at lower positions while required is not passed yet.
+   */
+  private static void collectPaths(GssNode node, int length,
+      CfgGlrForest.Node[] path, List<GssNode> ends,
+      List<CfgGlrForest.Node[]> labels, GssEdge required, int i) {
+    if (length == 0) {
+      if (required == null) {
+        ends.add(node);
+        labels.add(path.clone());
+      }
+      return;
+    }
+    if (required != null && node.level < i) {
+      return;
+    }
+    for (GssEdge edge : node.edges) {
+      path[length - 1] = edge.label;
+      collectPaths(edge.target, length - 1, path, ends, labels,
+          edge == required ? null : required, i);
+    }
+  }
+
+  /** Returns the number of symbols of the right hand side, 0 for ε. */
+  private static int getRhsLength(CfgProductionRule rule) {
+    String[] rhs = rule.getRhs();
+    if (rhs.length == 0 || (rhs.length == 1 && (rhs[0].equals("ε") || rhs[0]
+        .isEmpty()))) {
+      return 0;
+    }
+    return rhs.length;
+  }
+
+  /** Top of a stack: a state at an input position. */
+  private static class GssNode {
+    private final int state;
+    private final int level;
+    private final List<GssEdge> edges = new ArrayList<>();
+
+    private GssNode(int state, int level) {
+      this.state = state;
+      this.level = level;
+    }
+
+    private boolean hasEdgeTo(GssNode node) {
+      for (GssEdge edge : edges) {
+        if (edge.target == node) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /** Link to the node below, labeled with the forest node of the symbol. */
+  private static class GssEdge {
+    private final GssNode target;
+    private final CfgGlrForest.Node label;
+
+    private GssEdge(GssNode target, CfgGlrForest.Node label) {
+      this.target = target;
+      this.label = label;
+    }
+  }
+
+  /** Reduction of a node, restricted to the paths through edge if set. */
+  private static class Reduction {
+    private final GssNode node;
+    private final int rule;
+    private final GssEdge edge;
+
+    private Reduction(GssNode node, int rule, GssEdge edge) {
+      this.node = node;
+      this.rule = rule;
+      this.edge = edge;
+    }
+  }
+}
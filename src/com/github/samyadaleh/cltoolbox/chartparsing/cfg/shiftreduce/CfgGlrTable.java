@@ -0,0 +1,148 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.shiftreduce;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
+
+/**
+ * Parse table of an LR(k) automaton that keeps all actions of a state, also
+ * if they conflict. Per state it holds the transitions on terminals and
+ * nonterminals and the rules to reduce with their lookaheads.
+ */
+public class CfgGlrTable {
+  private final List<CfgProductionRule> rules;
+  private final int initialState;
+  private final List<Map<String, Integer>> transitions = new ArrayList<>();
+  private final List<List<Reduce>> reduces = new ArrayList<>();
+  private final boolean[] acceptStates;
+
+  public CfgGlrTable(List<CfgProductionRule> rules, int stateCount,
+      int initialState) {
+    this.rules = rules;
+    this.initialState = initialState;
+    this.acceptStates = new boolean[stateCount];
+    for (int i = 0; i < stateCount; i++) {
+      transitions.add(new HashMap<>());
+      reduces.add(new ArrayList<>());
+    }
+  }
+
+  /** Sets the state reached from state by shifting or going to symbol. */
+  public void addTransition(int state, String symbol, int target) {
+    transitions.get(state).put(symbol, target);
+  }
+
+  /**
+   * Adds the reduction with the rule at index rule if the next tokens start
+   * with lookahead, where "$" stands for the end of the input. An empty
+   * lookahead always reduces.
+   */
+  public void addReduce(int state, int rule, String[] lookahead) {
+    for (Reduce reduce : reduces.get(state)) {
+      if (reduce.rule == rule && String.join(" ", reduce.lookahead)
+          .equals(String.join(" ", lookahead))) {
+        return;
+      }
+    }
+    reduces.get(state).add(new Reduce(rule, lookahead));
+  }
+
+  public void addAcceptState(int state) {
+    acceptStates[state] = true;
+  }
+
+  public List<CfgProductionRule> getRules() {
+    return this.rules;
+  }
+
+  public int getInitialState() {
+    return this.initialState;
+  }
+
+  public int getStateCount() {
+    return this.acceptStates.length;
+  }
+
+  /** Returns the state reached by symbol, -1 if there is none. */
+  public int getTransition(int state, String symbol) {
+    Integer target = transitions.get(state).get(symbol);
+    return target == null ? -1 : target;
+  }
+
+  /**
+   * Returns the indexes of the rules the state reduces with if the input
+   * continues at position i.
+   */
+  public List<Integer> getReduces(int state, String[] wSplit, int i) {
+    List<Integer> result = new ArrayList<>();
+    for (Reduce reduce : reduces.get(state)) {
+      if (reduce.matches(wSplit, i)) {
+        result.add(reduce.rule);
+      }
+    }
+    return result;
+  }
+
+  public boolean isAcceptState(int state) {
+    return this.acceptStates[state];
+  }
+
+  /** Returns true if a state has more than one action for some input. */
+  public boolean hasConflicts() {
+    for (int state = 0; state < getStateCount(); state++) {
+      List<Reduce> stateReduces = reduces.get(state);
+      for (int r = 0; r < stateReduces.size(); r++) {
+        Reduce reduce = stateReduces.get(r);
+        for (String symbol : transitions.get(state).keySet()) {
+          if (reduce.lookahead.length == 0
+              || reduce.lookahead[0].equals(symbol)) {
+            return true;
+          }
+        }
+        for (int r2 = r + 1; r2 < stateReduces.size(); r2++) {
+          if (reduce.overlaps(stateReduces.get(r2))) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private static class Reduce {
+    private final int rule;
+    private final String[] lookahead;
+
+    private Reduce(int rule, String[] lookahead) {
+      this.rule = rule;
+      this.lookahead = lookahead;
+    }
+
+    private boolean matches(String[] wSplit, int i) {
+      for (int l = 0; l < lookahead.length; l++) {
+        String next = i + l < wSplit.length ? wSplit[i + l] : "$";
+        if (!lookahead[l].equals(next)) {
+          return false;
+        }
+        if (next.equals("$")) {
+          return true;
+        }
+      }
+      return true;
+    }
+
+    /** Returns true if some input matches both lookaheads. */
+    private boolean overlaps(Reduce other) {
+      for (int l = 0; l < Math.min(lookahead.length, other.lookahead.length);
+           l++) {
+        if (!lookahead[l].equals(other.lookahead[l])) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.shiftreduce;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.item.AbstractChartItem;
+
+/**
+ * LR(k) item [q0 X1 q1 ... Xn qn, i] with the stack stored as linked cells of
+ * symbol ids and states of a parse table, so shifting and reducing don't
+ * split or join strings. Items that share the bottom of their stacks share
+ * its cells. The string form is only built when it is asked for, the hash
+ * code is the one of the item form, so they are equal to other items of the
+ * same form.
+ */
+public class CfgLrKItem extends AbstractChartItem {
+  private final CfgLrKTable table;
+  private final Cell stack;
+  private final int i;
+  private final int hash;
+
+  /** Item with only the state on the stack. */
+  public CfgLrKItem(CfgLrKTable table, int state, int i) {
+    this(table, new Cell(null, -1, state, hashCode(0, "q", state)), i);
+  }
+
+  private CfgLrKItem(CfgLrKTable table, Cell stack, int i) {
+    this.table = table;
+    this.stack = stack;
+    this.i = i;
+    this.hash = mix(stack.hash * 31 + stringHashCode(i));
+  }
+
+  public int getI() {
+    return this.i;
+  }
+
+  /** Returns the state on top of the stack. */
+  public int getState() {
+    return stack.state;
+  }
+
+  /** Returns the number of symbols on the stack. */
+  public int getDepth() {
+    return stack.depth;
+  }
+
+  /**
+   * Returns the item with the symbol and state pushed on the stack, at
+   * position i.
+   */
+  public CfgLrKItem push(int symbol, int state, int i) {
+    int h = hashCode(stack.hash, " ", -1);
+    h = hashCode(h, table.getSymbol(symbol), -1);
+    return new CfgLrKItem(table,
+        new Cell(stack, symbol, state, hashCode(h, " q", state)), i);
+  }
+
+  /**
+   * Returns the item with the symbols of the rhs popped from the stack and
+   * the lhs and state pushed on it, null if the rhs is not on top of the
+   * stack.
+   */
+  public CfgLrKItem reduce(int[] rhs, int lhs, int state) {
+    Cell cell = popped(rhs);
+    if (cell == null) {
+      return null;
+    }
+    int h = hashCode(cell.hash, " ", -1);
+    h = hashCode(h, table.getSymbol(lhs), -1);
+    return new CfgLrKItem(table,
+        new Cell(cell, lhs, state, hashCode(h, " q", state)), i);
+  }
+
+  /**
+   * Returns the state below the rhs on top of the stack, -1 if the rhs is not
+   * on top of the stack.
+   */
+  public int getStateBelow(int[] rhs) {
+    Cell cell = popped(rhs);
+    return cell == null ? -1 : cell.state;
+  }
+
+  private Cell popped(int[] rhs) {
+    if (stack.depth < rhs.length) {
+      return null;
+    }
+    Cell cell = stack;
+    for (int s = rhs.length - 1; s >= 0; s--) {
+      if (cell.symbol != rhs[s]) {
+        return null;
+      }
+      cell = cell.below;
+    }
+    return cell;
+  }
+
+  @Override public String[] getItemForm() {
+    StringBuilder builder = new StringBuilder();
+    appendStack(builder, stack);
+    return new String[] {builder.toString(), String.valueOf(i)};
+  }
+
+  private void appendStack(StringBuilder builder, Cell cell) {
+    if (cell.below != null) {
+      appendStack(builder, cell.below);
+      builder.append(' ').append(table.getSymbol(cell.symbol)).append(' ');
+    }
+    builder.append('q').append(cell.state);
+  }
+
+  @Override public boolean equals(Object o) {
+    if (o instanceof CfgLrKItem && ((CfgLrKItem) o).table == table) {
+      CfgLrKItem other = (CfgLrKItem) o;
+      if (hash != other.hash || i != other.i) {
+        return false;
+      }
+      Cell cell = stack;
+      Cell otherCell = other.stack;
+      while (cell != otherCell) {
+        if (cell == null || otherCell == null || cell.state != otherCell.state
+            || cell.symbol != otherCell.symbol) {
+          return false;
+        }
+        cell = cell.below;
+        otherCell = otherCell.below;
+      }
+      return true;
+    }
+    return o != null && o.hashCode() == hash && super.equals(o);
+  }
+
+  @Override public int hashCode() {
+    return hash;
+  }
+
+  /**
+   * Continues the String hash code h with the text and the state, a negative
+   * state is left out.
+   */
+  private static int hashCode(int h, String text, int state) {
+    for (int c = 0; c < text.length(); c++) {
+      h = 31 * h + text.charAt(c);
+    }
+    if (state >= 0) {
+      int divisor = 1;
+      while (state / divisor >= 10) {
+        divisor *= 10;
+      }
+      for (; divisor > 0; divisor /= 10) {
+        h = 31 * h + '0' + state / divisor % 10;
+      }
+    }
+    return h;
+  }
+
+  /** Symbol and state on top of the stack below. */
+  private static class Cell {
+    private final Cell below;
+    private final int symbol;
+    private final int state;
+    private final int depth;
+    /** Hash code of the string form of the stack up to this cell. */
+    private final int hash;
+
+    private Cell(Cell below, int symbol, int state, int hash) {
+      this.below = below;
+      this.symbol = symbol;
+      this.state = state;
+      this.depth = below == null ? 0 : below.depth + 1;
+      this.hash = hash;
+    }
+  }
+}
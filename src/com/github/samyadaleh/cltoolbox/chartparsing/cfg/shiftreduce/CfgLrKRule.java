@@ -2,8 +2,6 @@ package com.github.samyadaleh.cltoolbox.chartparsing.cfg.shiftreduce;
 
 import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.AbstractDynamicDeductionRule;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
-import com.github.samyadaleh.cltoolbox.chartparsing.item.DeductionChartItem;
-import com.github.samyadaleh.cltoolbox.common.ArrayUtils;
 import com.github.samyadaleh.cltoolbox.common.TreeUtils;
 import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
 import com.github.samyadaleh.cltoolbox.common.tag.Tree;
@@ -11,22 +9,27 @@ import com.github.samyadaleh.cltoolbox.common.tag.Tree;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Implementation of a general rule for LR(k) parsing, depends on a deterministic
  * parse table
  */
 public class CfgLrKRule extends AbstractDynamicDeductionRule {
-  private final List<CfgProductionRule> rules;
-  private final Map<String, String> parsTable;
+  private final CfgLrKTable table;
   private final String[] wSplit;
+  /** Symbol ids of the input, -1 for symbols the table doesn't know. */
+  private final int[] tokens;
+  /** Lookahead ids of the input from each position. */
+  private final int[] lookaheads;
 
-  public CfgLrKRule(String[] wSplit, List<CfgProductionRule> rules,
-      Map<String, String> parsTable) {
+  public CfgLrKRule(String[] wSplit, CfgLrKTable table) {
     this.wSplit = wSplit;
-    this.rules = rules;
-    this.parsTable = parsTable;
+    this.table = table;
+    this.tokens = new int[wSplit.length];
+    for (int i = 0; i < wSplit.length; i++) {
+      tokens[i] = table.getSymbolId(wSplit[i]);
+    }
+    this.lookaheads = table.getLookaheadIds(wSplit);
     this.antNeeded = 1;
     this.name = "LR(k) parse table lookup";
   }
@@ -34,106 +37,76 @@ public class CfgLrKRule extends AbstractDynamicDeductionRule {
   @Override public List<ChartItemInterface> getConsequences()
       throws ParseException {
     if (antNeeded == antecedences.size()) {
-      String[] itemForm = antecedences.get(0).getItemForm();
-      int i = Integer.parseInt(itemForm[1]);
-      String stack = itemForm[0];
-      String[] stackSplit = stack.split(" ");
-      String state = stackSplit[stackSplit.length - 1];
-      String[] tableKey;
-      tableKey = new String[2];
-      tableKey[0] = state.substring(1);
-      int j = 1;
-      for (String sym : ArrayUtils.getSubSequenceAsArray(wSplit, i, i + 1)) {
-        tableKey[j] = sym;
-        j++;
-      }
-      String key =
-          ArrayUtils.getSubSequenceAsString(tableKey, 0, tableKey.length);
-      if (parsTable.containsKey(key)) {
-        lookUpShiftAction(i, stackSplit, state, key);
-      } else {
-        String halfKey = state.substring(1) + " $";
-        String action = parsTable.get(halfKey);
-        if (action != null && action.startsWith("r")) {
-          int ruleId = Integer.parseInt(action.substring(1));
-          CfgProductionRule rule = rules.get(ruleId - 1);
-          for (int l = 0; l < rule.getRhs().length; l++) {
-            if (!rule.getRhs()[l].equals(stackSplit[stackSplit.length
-                - (rule.getRhs().length - l) * 2])) {
-              return consequences;
-            }
-          }
-          this.name = "reduce " + rule.toString();
-          StringBuilder newStack = new StringBuilder(ArrayUtils
-              .getSubSequenceAsString(stackSplit, 0,
-                  stackSplit.length - rule.getRhs().length * 2));
-          newStack.append(" ").append(rule.getLhs());
-          lookUpGotoAction(
-              stackSplit[stackSplit.length - rule.getRhs().length * 2 - 1],
-              rule, newStack);
-          generateConsequence(
-              new DeductionChartItem(newStack.toString(), itemForm[1]), rule);
-        } else if (action != null && action.equals("acc")) {
+      CfgLrKItem item = (CfgLrKItem) antecedences.get(0);
+      int action = table.getAction(item.getState(), lookaheads[item.getI()]);
+      if (action == CfgLrKTable.SHIFT) {
+        lookUpShiftAction(item);
+      } else if (action >= 0) {
+        int[] rhs = table.getRhs(action);
+        int below = item.getStateBelow(rhs);
+        if (below < 0) {
           return consequences;
-        } else {
-          log.error("Unexpected table entry " + action + " for " + halfKey);
         }
+        CfgProductionRule rule = table.getRules().get(action);
+        int newState = table.getTransition(below, table.getLhs(action));
+        if (newState < 0) {
+          log.error("No goto entry for " + rule.getLhs() + " after reducing "
+              + rule.toString());
+          return consequences;
+        }
+        generateConsequence(item.reduce(rhs, table.getLhs(action), newState),
+            rule);
       }
     }
     return consequences;
   }
 
-  private void generateConsequence(DeductionChartItem consequence1,
+  private void generateConsequence(ChartItemInterface consequence1,
       CfgProductionRule rule) throws ParseException {
-    List<Tree> derivedTrees = new ArrayList<>(antecedences.get(0).getTrees());
-    Tree derivedTreeBase = new Tree(rule);
-    for (Tree tree : antecedences.get(0).getTrees()) {
-      boolean found = false;
+    if (recordNames) {
+      this.name = "reduce " + rule.toString();
+    }
+    if (buildTrees) {
+      List<Tree> derivedTrees = new ArrayList<>(antecedences.get(0).getTrees());
+      Tree derivedTreeBase = new Tree(rule);
+      int children = 0;
       for (String rhsSym : rule.getRhs()) {
-        if (tree.getRoot().getLabel().equals(rhsSym)) {
-          derivedTrees.remove(0);
-          derivedTreeBase =
-              TreeUtils.performLeftmostSubstitution(derivedTreeBase, tree);
-          found = true;
-          break;
+        if (table.isNonterminal(rhsSym)) {
+          children++;
         }
       }
-      if (!found) {
-        break;
+      // the trees of the stack start with the one of the topmost nonterminal
+      for (int c = children - 1; c >= 0; c--) {
+        derivedTreeBase = TreeUtils
+            .performLeftmostSubstitution(derivedTreeBase, derivedTrees.get(c));
       }
+      derivedTrees.subList(0, children).clear();
+      derivedTrees.add(0, derivedTreeBase);
+      consequence1.setTrees(derivedTrees);
     }
-    derivedTrees.add(0, derivedTreeBase);
-    this.name = "reduce " + rule.toString();
-    consequence1.setTrees(derivedTrees);
     logItemGeneration(consequence1);
     consequences.add(consequence1);
   }
 
-  private void lookUpGotoAction(String s, CfgProductionRule rule,
-      StringBuilder newStack) {
-    String[] lastTableKey = new String[] {s.substring(1), rule.getLhs()};
-    String lastKey =
-        ArrayUtils.getSubSequenceAsString(lastTableKey, 0, lastTableKey.length);
-    String newState = parsTable.get(lastKey);
-    newStack.append(" q").append(newState);
-  }
-
-  private void lookUpShiftAction(int i, String[] stackSplit, String state,
-      String key) {
-    String action = parsTable.get(key);
-    if (action.startsWith("s")) {
-      ChartItemInterface consequence = new DeductionChartItem(
-          ArrayUtils.getSubSequenceAsString(stackSplit, 0, stackSplit.length)
-              + " " + wSplit[i] + " q" + action.substring(1),
-          String.valueOf(i + 1));
-      consequence.setTrees(antecedences.get(0).getTrees());
+  private void lookUpShiftAction(CfgLrKItem item) {
+    int i = item.getI();
+    // with k = 0 the table shifts regardless of the end of the input
+    if (i >= wSplit.length) {
+      return;
+    }
+    int newState = table.getTransition(item.getState(), tokens[i]);
+    if (newState < 0) {
+      log.error("No shift entry for " + wSplit[i] + " in state "
+          + item.getState());
+      return;
+    }
+    ChartItemInterface consequence = item.push(tokens[i], newState, i + 1);
+    consequence.setTrees(antecedences.get(0).getTrees());
+    if (recordNames) {
       this.name = "shift " + wSplit[i];
-      logItemGeneration(consequence);
-      consequences.add(consequence);
-    } else {
-      log.error("Unexpected table entry " + action + " for " + state + ", "
-          + wSplit[i]);
     }
+    logItemGeneration(consequence);
+    consequences.add(consequence);
   }
 
   @Override public String toString() {
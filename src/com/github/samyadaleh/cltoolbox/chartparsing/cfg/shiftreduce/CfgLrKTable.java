@@ -0,0 +1,248 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg.shiftreduce;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
+
+/**
+ * Deterministic LR(k) parse table as dense int arrays. The action of a state
+ * depends on the next k tokens, where "$" marks the end of the input. The
+ * transitions on terminals and nonterminals give the state after a shift or
+ * after a reduce. Actions are the index of the rule to reduce, SHIFT, ACCEPT
+ * or ERROR.
+ */
+public class CfgLrKTable {
+  public static final int ERROR = -1;
+  public static final int SHIFT = -2;
+  public static final int ACCEPT = -3;
+  private static final int MAGIC = 0x4c524b54;
+  private static final int VERSION = 1;
+
+  private final List<CfgProductionRule> rules;
+  private final int k;
+  private final String[] symbols;
+  private final Map<String, Integer> symbolIds = new HashMap<>();
+  private final String[] lookaheads;
+  private final Map<String, Integer> lookaheadIds = new HashMap<>();
+  private final Set<String> nonterminals = new HashSet<>();
+  /** Symbol ids of the lhs and the rhs of each rule, ε is left out. */
+  private final int[] ruleLhs;
+  private final int[][] ruleRhs;
+  private final int stateCount;
+  private final int initialState;
+  /** Target of state s on symbol x at s * symbols.length + x, -1 if none. */
+  private final int[] transitions;
+  /** Action of state s on lookahead l at s * lookaheads.length + l. */
+  private final int[] actions;
+  private final int conflictCount;
+
+  /**
+   * The lookaheads are the tokens joined by spaces, for k = 0 there is only
+   * the empty one.
+   */
+  public CfgLrKTable(List<CfgProductionRule> rules, int k, String[] symbols,
+      String[] lookaheads, int stateCount, int initialState, int[] transitions,
+      int[] actions, int conflictCount) {
+    this.rules = rules;
+    this.k = k;
+    this.symbols = symbols;
+    this.lookaheads = lookaheads;
+    this.stateCount = stateCount;
+    this.initialState = initialState;
+    this.transitions = transitions;
+    this.actions = actions;
+    this.conflictCount = conflictCount;
+    for (int i = 0; i < symbols.length; i++) {
+      symbolIds.put(symbols[i], i);
+    }
+    for (int i = 0; i < lookaheads.length; i++) {
+      lookaheadIds.put(lookaheads[i], i);
+    }
+    ruleLhs = new int[rules.size()];
+    ruleRhs = new int[rules.size()][];
+    for (int r = 0; r < rules.size(); r++) {
+      CfgProductionRule rule = rules.get(r);
+      nonterminals.add(rule.getLhs());
+      ruleLhs[r] = getSymbolId(rule.getLhs());
+      String[] rhs = rule.getRhs();
+      ruleRhs[r] = new int[rhs[0].equals("") ? 0 : rhs.length];
+      for (int s = 0; s < ruleRhs[r].length; s++) {
+        ruleRhs[r][s] = getSymbolId(rhs[s]);
+      }
+    }
+  }
+
+  public List<CfgProductionRule> getRules() {
+    return this.rules;
+  }
+
+  public int getK() {
+    return this.k;
+  }
+
+  public int getStateCount() {
+    return this.stateCount;
+  }
+
+  public int getInitialState() {
+    return this.initialState;
+  }
+
+  /** Returns how many actions were dropped because another one was there. */
+  public int getConflictCount() {
+    return this.conflictCount;
+  }
+
+  /** Returns the number of cells of the action and the transition table. */
+  public int getTableSize() {
+    return actions.length + transitions.length;
+  }
+
+  /** Returns true if the symbol is the lhs of a rule. */
+  public boolean isNonterminal(String symbol) {
+    return nonterminals.contains(symbol);
+  }
+
+  /** Returns the id of the symbol in the table, -1 if it has none. */
+  public int getSymbolId(String symbol) {
+    Integer id = symbolIds.get(symbol);
+    return id == null ? -1 : id;
+  }
+
+  public String getSymbol(int id) {
+    return this.symbols[id];
+  }
+
+  /** Returns the symbol id of the lhs of the rule at index rule. */
+  public int getLhs(int rule) {
+    return this.ruleLhs[rule];
+  }
+
+  /** Returns the symbol ids of the rhs of the rule, empty for ε. */
+  public int[] getRhs(int rule) {
+    return this.ruleRhs[rule];
+  }
+
+  /** Returns the state reached by symbol, -1 if there is none. */
+  public int getTransition(int state, String symbol) {
+    return getTransition(state, getSymbolId(symbol));
+  }
+
+  /** Returns the state reached by the symbol id, -1 if there is none. */
+  public int getTransition(int state, int symbol) {
+    return symbol < 0 ? -1 : transitions[state * symbols.length + symbol];
+  }
+
+  /**
+   * Returns for each position i from 0 to the length of the input the id of
+   * the lookahead of the input that continues at i, -1 if the table has no
+   * action for it.
+   */
+  public int[] getLookaheadIds(String[] wSplit) {
+    int[] ids = new int[wSplit.length + 1];
+    for (int i = 0; i <= wSplit.length; i++) {
+      StringBuilder lookahead = new StringBuilder();
+      for (int l = 0; l < k; l++) {
+        if (l > 0) {
+          lookahead.append(' ');
+        }
+        if (i + l >= wSplit.length) {
+          lookahead.append('$');
+          break;
+        }
+        lookahead.append(wSplit[i + l]);
+      }
+      Integer id = lookaheadIds.get(lookahead.toString());
+      ids[i] = id == null ? -1 : id;
+    }
+    return ids;
+  }
+
+  /** Returns the action for a lookahead id from getLookaheadIds. */
+  public int getAction(int state, int lookahead) {
+    return lookahead < 0 ? ERROR : actions[state * lookaheads.length
+        + lookahead];
+  }
+
+  /** Returns true if the state accepts for some lookahead. */
+  public boolean isAcceptState(int state) {
+    for (int l = 0; l < lookaheads.length; l++) {
+      if (actions[state * lookaheads.length + l] == ACCEPT) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Writes the table, the rules are left out. */
+  public void write(DataOutputStream out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(k);
+    out.writeInt(rules.size());
+    writeStrings(out, symbols);
+    writeStrings(out, lookaheads);
+    out.writeInt(stateCount);
+    out.writeInt(initialState);
+    out.writeInt(conflictCount);
+    for (int transition : transitions) {
+      out.writeInt(transition);
+    }
+    for (int action : actions) {
+      out.writeInt(action);
+    }
+  }
+
+  /**
+   * Reads a table written by write for the same rules. Throws an IOException
+   * if the data is no such table.
+   */
+  public static CfgLrKTable read(DataInputStream in,
+      List<CfgProductionRule> rules) throws IOException {
+    if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+      throw new IOException("Not an LR(k) table of this version.");
+    }
+    int k = in.readInt();
+    if (in.readInt() != rules.size()) {
+      throw new IOException("The LR(k) table belongs to other rules.");
+    }
+    String[] symbols = readStrings(in);
+    String[] lookaheads = readStrings(in);
+    int stateCount = in.readInt();
+    int initialState = in.readInt();
+    int conflictCount = in.readInt();
+    int[] transitions = new int[stateCount * symbols.length];
+    for (int i = 0; i < transitions.length; i++) {
+      transitions[i] = in.readInt();
+    }
+    int[] actions = new int[stateCount * lookaheads.length];
+    for (int i = 0; i < actions.length; i++) {
+      actions[i] = in.readInt();
+    }
+    return new CfgLrKTable(rules, k, symbols, lookaheads, stateCount,
+        initialState, transitions, actions, conflictCount);
+  }
+
+  private static void writeStrings(DataOutputStream out, String[] strings)
+      throws IOException {
+    out.writeInt(strings.length);
+    for (String string : strings) {
+      out.writeUTF(string);
+    }
+  }
+
+  private static String[] readStrings(DataInputStream in) throws IOException {
+    String[] strings = new String[in.readInt()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = in.readUTF();
+    }
+    return strings;
+  }
+}
@@ -43,18 +43,21 @@ public class CfgTopDownPredict extends AbstractDynamicDeductionRule {
             consequence =
                 new DeductionChartItem(String.join(" ", rule.getRhs()), i);
           }
-          if (derivedTrees.size() == 0) {
-            List<Tree> derivedTreesNew = new ArrayList<>();
-            derivedTreesNew.add(new Tree(rule));
-            consequence.setTrees(derivedTreesNew);
-          } else {
-            List<Tree> derivedTreesNew = new ArrayList<>();
-            Tree derivedTreeBase = new Tree(rule);
-            for (Tree tree : derivedTrees) {
-              derivedTreesNew.add(
-                  TreeUtils.performLeftmostSubstitution(tree, derivedTreeBase));
+          if (buildTrees) {
+            if (derivedTrees.size() == 0) {
+              List<Tree> derivedTreesNew = new ArrayList<>();
+              derivedTreesNew.add(new Tree(rule));
+              consequence.setTrees(derivedTreesNew);
+            } else {
+              List<Tree> derivedTreesNew = new ArrayList<>();
+              Tree derivedTreeBase = new Tree(rule);
+              for (Tree tree : derivedTrees) {
+                derivedTreesNew.add(
+                    TreeUtils
+                        .performLeftmostSubstitution(tree, derivedTreeBase));
+              }
+              consequence.setTrees(derivedTreesNew);
             }
-            consequence.setTrees(derivedTreesNew);
           }
           logItemGeneration(consequence);
           consequences.add(consequence);
@@ -69,17 +72,20 @@ public class CfgTopDownPredict extends AbstractDynamicDeductionRule {
                     .getSubSequenceAsString(stackSplit, 1, stackSplit.length),
                 i);
           }
-          if (derivedTrees.size() == 0) {
-            derivedTrees.add(new Tree(rule));
-            consequence.setTrees(derivedTrees);
-          } else {
-            List<Tree> derivedTreesNew = new ArrayList<>();
-            Tree derivedTreeBase = new Tree(rule);
-            for (Tree tree : derivedTrees) {
-              derivedTreesNew.add(
-                  TreeUtils.performLeftmostSubstitution(tree, derivedTreeBase));
+          if (buildTrees) {
+            if (derivedTrees.size() == 0) {
+              derivedTrees.add(new Tree(rule));
+              consequence.setTrees(derivedTrees);
+            } else {
+              List<Tree> derivedTreesNew = new ArrayList<>();
+              Tree derivedTreeBase = new Tree(rule);
+              for (Tree tree : derivedTrees) {
+                derivedTreesNew.add(
+                    TreeUtils
+                        .performLeftmostSubstitution(tree, derivedTreeBase));
+              }
+              consequence.setTrees(derivedTreesNew);
             }
-            consequence.setTrees(derivedTreesNew);
           }
           logItemGeneration(consequence);
           consequences.add(consequence);
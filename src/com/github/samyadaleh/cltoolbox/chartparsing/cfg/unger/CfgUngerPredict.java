@@ -35,13 +35,15 @@ public class CfgUngerPredict extends AbstractDynamicDeductionRule {
       if (itemForm[0].substring(1).equals(rule.getLhs())) {
         List<Tree> derivedTrees = antecedences.get(0).getTrees();
         List<Tree> derivedTreesNew = new ArrayList<>();
-        if (derivedTrees.size() == 0) {
-          derivedTreesNew.add(new Tree(rule));
-        } else {
-          Tree derivedTreeBase = new Tree(rule);
-          for (Tree tree : derivedTrees) {
-            derivedTreesNew.add(
-              TreeUtils.performLeftmostSubstitution(tree, derivedTreeBase));
+        if (buildTrees) {
+          if (derivedTrees.size() == 0) {
+            derivedTreesNew.add(new Tree(rule));
+          } else {
+            Tree derivedTreeBase = new Tree(rule);
+            for (Tree tree : derivedTrees) {
+              derivedTreesNew.add(
+                TreeUtils.performLeftmostSubstitution(tree, derivedTreeBase));
+            }
           }
         }
         if (rule.getRhs().length == 1) {
@@ -25,7 +25,9 @@ public class CfgUngerScan extends AbstractDynamicDeductionRule {
         Integer.parseInt(itemForm[2]) - Integer.parseInt(itemForm[1]);
       if (itemForm[0].charAt(0) == '•'
         && itemForm[0].substring(1).equals(wSplit[pos]) && length == 1) {
-        this.name = "scan " + wSplit[pos];
+        if (recordNames) {
+          this.name = "scan " + wSplit[pos];
+        }
         ChartItemInterface consequence =
           new DeductionChartItem(wSplit[pos] + "•", itemForm[1], itemForm[2]);
         consequence.setTrees(antecedences.get(0).getTrees());
@@ -0,0 +1,20 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.converter;
+
+import java.text.ParseException;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.ParsingSchema;
+
+/**
+ * A grammar converted for one parsing algorithm as far as possible without
+ * knowing the input. Can be kept and instantiated for many sentences, also by
+ * several threads at once.
+ */
+@FunctionalInterface
+public interface CompiledGrammarInterface {
+
+  /**
+   * Returns a new parsing schema for input w. Rules of the schema that keep
+   * state are not shared with other schemas of this grammar.
+   */
+  ParsingSchema instantiate(String w) throws ParseException;
+}
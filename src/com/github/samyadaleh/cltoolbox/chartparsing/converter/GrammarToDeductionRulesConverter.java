@@ -26,32 +26,45 @@ public class GrammarToDeductionRulesConverter {
    */
   public static ParsingSchema convertToSchema(Cfg cfg, String w,
       String algorithm) throws ParseException {
+    return instantiate(compile(cfg, algorithm), w);
+  }
+
+  /**
+   * Returns the grammar converted for the algorithm, to be instantiated for
+   * each sentence. Null if the algorithm is unknown or can't handle the
+   * grammar.
+   */
+  public static CompiledGrammarInterface compile(Cfg cfg, String algorithm) {
     switch (algorithm) {
     case "cfg-topdown":
-      return CfgToTopDownRulesConverter.cfgToTopDownRules(cfg, w);
+      return w -> CfgToTopDownRulesConverter.cfgToTopDownRules(cfg, w);
     case "cfg-shiftreduce":
-      return CfgToShiftReduceRulesConverter.cfgToShiftReduceRules(cfg, w);
+      return w -> CfgToShiftReduceRulesConverter.cfgToShiftReduceRules(cfg, w);
     case "cfg-earley":
-      return CfgToEarleyRulesConverter.cfgToEarleyRules(cfg, w);
+      return CfgToEarleyRulesConverter.compileEarleyRules(cfg);
     case "cfg-earley-passive":
-      return CfgToEarleyPassiveRulesConverter.cfgToEarleyPassiveRules(cfg, w);
+      return w -> CfgToEarleyPassiveRulesConverter
+          .cfgToEarleyPassiveRules(cfg, w);
     case "cfg-leftcorner":
-      return CfgToLeftCornerRulesConverter.cfgToLeftCornerRules(cfg, w);
+      return w -> CfgToLeftCornerRulesConverter.cfgToLeftCornerRules(cfg, w);
     case "cfg-leftcorner-chart":
-      return CfgToLeftCornerChartRulesConverter.cfgToLeftCornerChartRules(cfg, w);
+      return w -> CfgToLeftCornerChartRulesConverter
+          .cfgToLeftCornerChartRules(cfg, w);
     case "cfg-cyk":
-      return CfgToCykRulesConverter.cfgToCykRules(cfg, w);
+      return CfgToCykRulesConverter.compileCykRules(cfg);
     case "cfg-cyk-extended":
-      return CfgToCykRulesConverter.cfgToCykExtendedRules(cfg, w);
+      return CfgToCykRulesConverter.compileCykExtendedRules(cfg);
     case "cfg-cyk-general":
-      return CfgToCykRulesConverter.cfgToCykGeneralRules(cfg, w);
+      return w -> CfgToCykRulesConverter.cfgToCykGeneralRules(cfg, w);
     case "cfg-unger":
-      return CfgToUngerRulesConverter.cfgToUngerRules(cfg, w);
+      return w -> CfgToUngerRulesConverter.cfgToUngerRules(cfg, w);
+    case "cfg-lalr-1":
+      return CfgToLrKRulesConverter.compileLalrRules(cfg);
     default:
       if (algorithm.matches("cfg-lr-\\d+")) {
         String[] algorithmSplit = algorithm.split("-");
         return CfgToLrKRulesConverter
-            .cfgToLrKRules(cfg, w, Integer.parseInt(algorithmSplit[2]));
+            .compileLrKRules(cfg, Integer.parseInt(algorithmSplit[2]));
       }
       log.info(
           "I did not understand. Please check the spelling of your parsing algorithm.");
@@ -81,18 +94,44 @@ public class GrammarToDeductionRulesConverter {
     }
   }
 
+  /**
+   * Returns the grammar converted for the algorithm, to be instantiated for
+   * each sentence. Null if the algorithm is unknown.
+   */
+  public static CompiledGrammarInterface compile(Tag tag, String algorithm) {
+    switch (algorithm) {
+    case "tag-cyk-extended":
+    case "tag-cyk-general":
+    case "tag-earley":
+    case "tag-earley-prefixvalid":
+      return w -> convertToSchema(tag, w, algorithm);
+    default:
+      log.info(
+          "I did not understand. Please check the spelling of your parsing algorithm.");
+      return null;
+    }
+  }
+
   /**
    * Call with appropriate grammar. Better call the convert-to function first.
    */
   public static ParsingSchema convertToSchema(Srcg srcg, String w,
       String algorithm) throws ParseException {
+    return instantiate(compile(srcg, algorithm), w);
+  }
+
+  /**
+   * Returns the grammar converted for the algorithm, to be instantiated for
+   * each sentence. Null if the algorithm is unknown.
+   */
+  public static CompiledGrammarInterface compile(Srcg srcg, String algorithm) {
     switch (algorithm) {
     case "srcg-earley":
-      return LcfrsToEarleyRulesConverter.srcgToEarleyRules(srcg, w);
+      return w -> LcfrsToEarleyRulesConverter.srcgToEarleyRules(srcg, w);
     case "srcg-cyk-extended":
-      return LcfrsToCykRulesConverter.srcgToCykExtendedRules(srcg, w);
+      return w -> LcfrsToCykRulesConverter.srcgToCykExtendedRules(srcg, w);
     case "srcg-cyk-general":
-      return LcfrsToCykRulesConverter.srcgToCykGeneralRules(srcg, w);
+      return w -> LcfrsToCykRulesConverter.srcgToCykGeneralRules(srcg, w);
     default:
       log.info(
           "I did not understand. Please check the spelling of your parsing algorithm.");
@@ -105,11 +144,19 @@ public class GrammarToDeductionRulesConverter {
    */
   public static ParsingSchema convertToSchema(Pcfg pcfg, String w,
       String algorithm) throws ParseException {
+    return instantiate(compile(pcfg, algorithm), w);
+  }
+
+  /**
+   * Returns the grammar converted for the algorithm, to be instantiated for
+   * each sentence. Null if the algorithm is unknown.
+   */
+  public static CompiledGrammarInterface compile(Pcfg pcfg, String algorithm) {
     switch (algorithm) {
     case "pcfg-astar":
-      return PcfgToAstarRulesConverter.pcfgToAstarRules(pcfg, w);
+      return PcfgToAstarRulesConverter.compileAstarRules(pcfg);
     case "pcfg-cyk":
-      return PcfgToCykRulesConverter.pcfgToCykRules(pcfg, w);
+      return PcfgToCykRulesConverter.compileCykRules(pcfg);
     default:
       log.info(
           "I did not understand. Please check the spelling of your parsing algorithm.");
@@ -117,4 +164,9 @@ public class GrammarToDeductionRulesConverter {
     }
   }
 
+  private static ParsingSchema instantiate(CompiledGrammarInterface grammar,
+      String w) throws ParseException {
+    return grammar == null ? null : grammar.instantiate(w);
+  }
+
 }
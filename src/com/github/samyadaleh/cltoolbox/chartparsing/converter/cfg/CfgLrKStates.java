@@ -0,0 +1,595 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.shiftreduce.CfgGlrTable;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.shiftreduce.CfgLrKTable;
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
+import com.github.samyadaleh.cltoolbox.common.cfg.CompactCfg;
+
+/**
+ * States of the LR(k) automaton of a cfg with all items encoded as numbers.
+ * An item is a long of dotted rule id and lookahead id, where lookaheads are
+ * interned sequences of at most k symbol ids. A state is identified by its
+ * sorted kernel items, so the target of a transition is found by a hash
+ * lookup. The rule S' -> S is added after the rules of the grammar. For
+ * LALR(1) the states are those of the LR(0) automaton and the lookaheads of
+ * their kernel items are propagated along the transitions, as in the
+ * algorithm of the dragon book.
+ */
+final class CfgLrKStates {
+  private static final Logger log = LogManager.getLogger();
+  private final CompactCfg cfg;
+  private final int k;
+  private final int startRule;
+  private final int[] lhs;
+  private final int[][] rhs;
+  private final boolean[] nonterminals;
+  private final int[][] rulesByLhs;
+  /** Id of the dotted rule with dot 0 for each rule. */
+  private final int[] ruleOffsets;
+  private final int[] dottedRuleRules;
+  /** Symbol after the dot of each dotted rule, -1 if the dot is at the end. */
+  private final int[] nextSymbols;
+  private final List<long[]> lookaheads = new ArrayList<>();
+  private final Map<Key, Integer> lookaheadIds = new HashMap<>();
+  private final Map<Long, Integer> concatenations = new HashMap<>();
+  /** The first k symbols of the words of each nonterminal. */
+  private final List<Set<Integer>> firstSets = new ArrayList<>();
+  private final Map<Long, int[]> dottedRuleFirstSets = new HashMap<>();
+  private final List<long[]> kernels = new ArrayList<>();
+  private final Map<Key, Integer> stateIds = new HashMap<>();
+  private final List<long[]> closures = new ArrayList<>();
+  private final List<int[]> transitions = new ArrayList<>();
+
+  /** Computes the canonical LR(k) states. */
+  CfgLrKStates(Cfg cfg, int k) {
+    this(cfg, k, false);
+  }
+
+  /** Computes the LALR(1) states. */
+  static CfgLrKStates lalr(Cfg cfg) {
+    return new CfgLrKStates(cfg, 1, true);
+  }
+
+  private CfgLrKStates(Cfg cfg, int k, boolean lalr) {
+    this.cfg = new CompactCfg(cfg);
+    this.k = k;
+    SymbolTable symbols = this.cfg.getSymbols();
+    for (String nt : cfg.getNonterminals()) {
+      symbols.intern(nt);
+    }
+    for (String t : cfg.getTerminals()) {
+      symbols.intern(t);
+    }
+    int startSymbol = symbols.intern(cfg.getStartSymbol());
+    int augmentedStartSymbol = symbols.intern(cfg.getStartSymbol() + "'");
+    int endSymbol = symbols.intern("$");
+    startRule = this.cfg.getRuleCount();
+    lhs = new int[startRule + 1];
+    rhs = new int[startRule + 1][];
+    for (int r = 0; r < startRule; r++) {
+      lhs[r] = this.cfg.getLhs(r);
+      rhs[r] = this.cfg.getRhs(r);
+    }
+    lhs[startRule] = augmentedStartSymbol;
+    rhs[startRule] = new int[] {startSymbol};
+    nonterminals = new boolean[symbols.size()];
+    for (int s = 0; s < symbols.size(); s++) {
+      nonterminals[s] = cfg.nonterminalsContain(symbols.getSymbol(s));
+    }
+    nonterminals[augmentedStartSymbol] = true;
+    List<List<Integer>> byLhs = new ArrayList<>();
+    for (int s = 0; s < symbols.size(); s++) {
+      byLhs.add(new ArrayList<>());
+    }
+    ruleOffsets = new int[lhs.length];
+    int dottedRuleCount = 0;
+    for (int r = 0; r < lhs.length; r++) {
+      byLhs.get(lhs[r]).add(r);
+      ruleOffsets[r] = dottedRuleCount;
+      dottedRuleCount += rhs[r].length + 1;
+    }
+    rulesByLhs = new int[symbols.size()][];
+    for (int s = 0; s < symbols.size(); s++) {
+      rulesByLhs[s] = toArray(byLhs.get(s));
+    }
+    dottedRuleRules = new int[dottedRuleCount];
+    nextSymbols = new int[dottedRuleCount];
+    for (int r = 0; r < lhs.length; r++) {
+      for (int dot = 0; dot <= rhs[r].length; dot++) {
+        dottedRuleRules[ruleOffsets[r] + dot] = r;
+        nextSymbols[ruleOffsets[r] + dot] =
+            dot < rhs[r].length ? rhs[r][dot] : -1;
+      }
+    }
+    internLookahead(new long[0]);
+    computeFirstSets();
+    int initialLookahead =
+        k > 0 ? internLookahead(new long[] {endSymbol}) : 0;
+    addState(new long[] {
+        toItem(ruleOffsets[startRule], lalr ? 0 : initialLookahead)});
+    for (int state = 0; state < kernels.size(); state++) {
+      computeState(state, !lalr);
+    }
+    if (lalr) {
+      addLalrLookaheads(initialLookahead);
+    }
+    logStates();
+  }
+
+  private static int[] toArray(Collection<Integer> list) {
+    int[] array = new int[list.size()];
+    int i = 0;
+    for (int element : list) {
+      array[i++] = element;
+    }
+    return array;
+  }
+
+  private static long toItem(int dottedRule, int lookahead) {
+    return ((long) dottedRule) << 32 | lookahead;
+  }
+
+  private static int getDottedRule(long item) {
+    return (int) (item >>> 32);
+  }
+
+  private static int getLookahead(long item) {
+    return (int) item;
+  }
+
+  /** Returns the id of the state with the kernel, adds it if it is new. */
+  private int addState(long[] kernel) {
+    Key key = new Key(kernel);
+    Integer state = stateIds.get(key);
+    if (state == null) {
+      state = kernels.size();
+      kernels.add(kernel);
+      stateIds.put(key, state);
+    }
+    return state;
+  }
+
+  /**
+   * Computes the closure of the state and the states it leads to. Without
+   * lookaheads all items get the empty one.
+   */
+  private void computeState(int state, boolean withLookaheads) {
+    long[] closure = getClosure(kernels.get(state), withLookaheads);
+    closures.add(closure);
+    Map<Integer, List<Long>> advancedItems = new TreeMap<>();
+    for (long item : closure) {
+      int symbol = nextSymbols[getDottedRule(item)];
+      if (symbol >= 0) {
+        advancedItems.computeIfAbsent(symbol, s -> new ArrayList<>())
+            .add(item + (1L << 32));
+      }
+    }
+    int[] stateTransitions = new int[nonterminals.length];
+    Arrays.fill(stateTransitions, -1);
+    for (Map.Entry<Integer, List<Long>> entry : advancedItems.entrySet()) {
+      long[] kernel = new long[entry.getValue().size()];
+      for (int i = 0; i < kernel.length; i++) {
+        kernel[i] = entry.getValue().get(i);
+      }
+      Arrays.sort(kernel);
+      stateTransitions[entry.getKey()] = addState(kernel);
+    }
+    transitions.add(stateTransitions);
+  }
+
+  /**
+   * Computes the lookaheads of the kernel items of the LR(0) states and
+   * replaces the closures by the ones with lookaheads. The closure of
+   * [A -> α •β, #] shows which lookaheads the items after a transition get
+   * spontaneously and for which ones # stands for the lookaheads of the item
+   * itself that are propagated.
+   */
+  private void addLalrLookaheads(int initialLookahead) {
+    int propagated = internLookahead(new long[] {-1});
+    int[] offsets = new int[getStateCount() + 1];
+    for (int state = 0; state < getStateCount(); state++) {
+      offsets[state + 1] = offsets[state] + kernels.get(state).length;
+    }
+    List<BitSet> kernelLookaheads = new ArrayList<>();
+    List<List<Integer>> propagations = new ArrayList<>();
+    for (int i = 0; i < offsets[getStateCount()]; i++) {
+      kernelLookaheads.add(new BitSet());
+      propagations.add(new ArrayList<>());
+    }
+    kernelLookaheads.get(0).set(initialLookahead);
+    for (int state = 0; state < getStateCount(); state++) {
+      long[] kernel = kernels.get(state);
+      for (int i = 0; i < kernel.length; i++) {
+        long[] closure = getClosure(
+            new long[] {toItem(getDottedRule(kernel[i]), propagated)}, true);
+        for (long item : closure) {
+          int dottedRule = getDottedRule(item);
+          int symbol = nextSymbols[dottedRule];
+          if (symbol < 0) {
+            continue;
+          }
+          int target = transitions.get(state)[symbol];
+          int targetItem = offsets[target] + Arrays
+              .binarySearch(kernels.get(target), toItem(dottedRule + 1, 0));
+          if (getLookahead(item) == propagated) {
+            propagations.get(offsets[state] + i).add(targetItem);
+          } else {
+            kernelLookaheads.get(targetItem).set(getLookahead(item));
+          }
+        }
+      }
+    }
+    List<Integer> agenda = new ArrayList<>();
+    for (int i = 0; i < kernelLookaheads.size(); i++) {
+      agenda.add(i);
+    }
+    while (!agenda.isEmpty()) {
+      int kernelItem = agenda.remove(agenda.size() - 1);
+      BitSet from = kernelLookaheads.get(kernelItem);
+      for (int targetItem : propagations.get(kernelItem)) {
+        BitSet to = kernelLookaheads.get(targetItem);
+        int size = to.cardinality();
+        to.or(from);
+        if (to.cardinality() > size) {
+          agenda.add(targetItem);
+        }
+      }
+    }
+    for (int state = 0; state < getStateCount(); state++) {
+      long[] kernel = kernels.get(state);
+      List<Long> items = new ArrayList<>();
+      for (int i = 0; i < kernel.length; i++) {
+        BitSet itemLookaheads = kernelLookaheads.get(offsets[state] + i);
+        for (int lookahead = itemLookaheads.nextSetBit(0); lookahead >= 0;
+             lookahead = itemLookaheads.nextSetBit(lookahead + 1)) {
+          items.add(toItem(getDottedRule(kernel[i]), lookahead));
+        }
+      }
+      long[] kernelWithLookaheads = new long[items.size()];
+      for (int i = 0; i < kernelWithLookaheads.length; i++) {
+        kernelWithLookaheads[i] = items.get(i);
+      }
+      closures.set(state, getClosure(kernelWithLookaheads, true));
+    }
+  }
+
+  /**
+   * Adds the items [B -> •γ, v] for all items [A -> α •B β, u] and all v in
+   * FIRST_k(β u).
+   */
+  private long[] getClosure(long[] kernel, boolean withLookaheads) {
+    Set<Long> seen = new HashSet<>();
+    List<Long> items = new ArrayList<>();
+    for (long item : kernel) {
+      seen.add(item);
+      items.add(item);
+    }
+    for (int i = 0; i < items.size(); i++) {
+      int dottedRule = getDottedRule(items.get(i));
+      int symbol = nextSymbols[dottedRule];
+      if (symbol < 0 || !nonterminals[symbol]) {
+        continue;
+      }
+      int[] firstSet = withLookaheads ?
+          getFirstSet(dottedRule + 1, getLookahead(items.get(i))) :
+          new int[] {0};
+      for (int lookahead : firstSet) {
+        for (int r : rulesByLhs[symbol]) {
+          long item = toItem(ruleOffsets[r], lookahead);
+          if (seen.add(item)) {
+            items.add(item);
+          }
+        }
+      }
+    }
+    long[] closure = new long[items.size()];
+    for (int i = 0; i < closure.length; i++) {
+      closure[i] = items.get(i);
+    }
+    return closure;
+  }
+
+  /** Computes the first sets of the nonterminals as fixpoint. */
+  private void computeFirstSets() {
+    for (int s = 0; s < nonterminals.length; s++) {
+      firstSets.add(new HashSet<>());
+    }
+    if (k == 0) {
+      return;
+    }
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int r = 0; r < lhs.length; r++) {
+        if (firstSets.get(lhs[r]).addAll(getFirstSet(rhs[r], 0))) {
+          changed = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the ids of the first k symbols of the words derived from the
+   * symbols of the dotted rule after the dot, followed by the lookahead.
+   */
+  private int[] getFirstSet(int dottedRule, int lookahead) {
+    if (k == 0) {
+      return new int[] {0};
+    }
+    long key = toItem(dottedRule, lookahead);
+    int[] firstSet = dottedRuleFirstSets.get(key);
+    if (firstSet == null) {
+      int rule = dottedRuleRules[dottedRule];
+      Set<Integer> prefixes =
+          getFirstSet(rhs[rule], dottedRule - ruleOffsets[rule]);
+      firstSet = toArray(
+          concatenate(prefixes, Collections.singleton(lookahead)));
+      dottedRuleFirstSets.put(key, firstSet);
+    }
+    return firstSet;
+  }
+
+  /** Returns the first k symbols of the words derived from symbols[from..]. */
+  private Set<Integer> getFirstSet(int[] symbols, int from) {
+    Set<Integer> prefixes = Collections.singleton(0);
+    for (int i = from; i < symbols.length; i++) {
+      Set<Integer> symbolFirstSet = nonterminals[symbols[i]] ?
+          firstSets.get(symbols[i]) :
+          Collections
+              .singleton(internLookahead(new long[] {symbols[i]}));
+      prefixes = concatenate(prefixes, symbolFirstSet);
+      boolean complete = true;
+      for (int prefix : prefixes) {
+        complete &= lookaheads.get(prefix).length >= k;
+      }
+      if (complete) {
+        break;
+      }
+    }
+    return prefixes;
+  }
+
+  /** Returns all prefixes followed by all suffixes, cut after k symbols. */
+  private Set<Integer> concatenate(Set<Integer> prefixes,
+      Set<Integer> suffixes) {
+    Set<Integer> result = new HashSet<>();
+    for (int prefix : prefixes) {
+      if (lookaheads.get(prefix).length >= k) {
+        result.add(prefix);
+        continue;
+      }
+      for (int suffix : suffixes) {
+        long key = toItem(prefix, suffix);
+        Integer concatenation = concatenations.get(key);
+        if (concatenation == null) {
+          long[] prefixSymbols = lookaheads.get(prefix);
+          long[] suffixSymbols = lookaheads.get(suffix);
+          long[] symbols = Arrays.copyOf(prefixSymbols,
+              Math.min(k, prefixSymbols.length + suffixSymbols.length));
+          System.arraycopy(suffixSymbols, 0, symbols, prefixSymbols.length,
+              symbols.length - prefixSymbols.length);
+          concatenation = internLookahead(symbols);
+          concatenations.put(key, concatenation);
+        }
+        result.add(concatenation);
+      }
+    }
+    return result;
+  }
+
+  private int internLookahead(long[] symbols) {
+    Key key = new Key(symbols);
+    Integer id = lookaheadIds.get(key);
+    if (id == null) {
+      id = lookaheads.size();
+      lookaheads.add(symbols);
+      lookaheadIds.put(key, id);
+    }
+    return id;
+  }
+
+  private String getLookaheadString(int lookahead) {
+    return String.join(" ", getLookaheadSymbols(lookahead));
+  }
+
+  private String[] getLookaheadSymbols(int lookahead) {
+    long[] symbols = lookaheads.get(lookahead);
+    String[] strings = new String[symbols.length];
+    for (int i = 0; i < symbols.length; i++) {
+      strings[i] = cfg.getSymbols().getSymbol((int) symbols[i]);
+    }
+    return strings;
+  }
+
+  int getStateCount() {
+    return this.kernels.size();
+  }
+
+  /** Returns the rules of the grammar without S' -> S. */
+  List<CfgProductionRule> getRules() {
+    List<CfgProductionRule> rules = new ArrayList<>();
+    for (int r = 0; r < startRule; r++) {
+      rules.add(cfg.getRule(r));
+    }
+    return rules;
+  }
+
+  private String[] getSymbolStrings() {
+    String[] symbols = new String[nonterminals.length];
+    for (int s = 0; s < symbols.length; s++) {
+      symbols[s] = cfg.getSymbols().getSymbol(s);
+    }
+    return symbols;
+  }
+
+  /**
+   * Returns the table that shifts if an item expects the next token and
+   * reduces with an item whose lookahead fits. Of conflicting actions the
+   * shift or the reduce with the lower rule index is kept, like yacc does.
+   */
+  CfgLrKTable getTable() {
+    Map<Integer, Integer> columns = new HashMap<>();
+    List<String> columnLookaheads = new ArrayList<>();
+    for (long[] closure : closures) {
+      for (long item : closure) {
+        for (int lookahead : getActionLookaheads(item)) {
+          if (!columns.containsKey(lookahead)) {
+            columns.put(lookahead, columnLookaheads.size());
+            columnLookaheads.add(getLookaheadString(lookahead));
+          }
+        }
+      }
+    }
+    int columnCount = columnLookaheads.size();
+    int[] actions = new int[getStateCount() * columnCount];
+    Arrays.fill(actions, CfgLrKTable.ERROR);
+    int conflictCount = 0;
+    for (int state = 0; state < getStateCount(); state++) {
+      for (long item : closures.get(state)) {
+        int action = getAction(item);
+        for (int lookahead : getActionLookaheads(item)) {
+          int cell = state * columnCount + columns.get(lookahead);
+          int old = actions[cell];
+          if (old == CfgLrKTable.ERROR) {
+            actions[cell] = action;
+          } else if (old != action) {
+            conflictCount++;
+            if (action == CfgLrKTable.SHIFT || old >= 0 && action >= 0
+                && action < old) {
+              actions[cell] = action;
+            }
+          }
+        }
+      }
+    }
+    int symbolCount = nonterminals.length;
+    int[] table = new int[getStateCount() * symbolCount];
+    for (int state = 0; state < getStateCount(); state++) {
+      System.arraycopy(transitions.get(state), 0, table, state * symbolCount,
+          symbolCount);
+    }
+    return new CfgLrKTable(getRules(), k, getSymbolStrings(),
+        columnLookaheads.toArray(new String[0]), getStateCount(), 0, table,
+        actions, conflictCount);
+  }
+
+  /** Returns SHIFT, ACCEPT, the rule to reduce or ERROR for the item. */
+  private int getAction(long item) {
+    int dottedRule = getDottedRule(item);
+    int symbol = nextSymbols[dottedRule];
+    if (symbol >= 0) {
+      return nonterminals[symbol] ? CfgLrKTable.ERROR : CfgLrKTable.SHIFT;
+    }
+    int rule = dottedRuleRules[dottedRule];
+    return rule == startRule ? CfgLrKTable.ACCEPT : rule;
+  }
+
+  /**
+   * Returns the lookaheads the item acts on: its own if it is complete,
+   * FIRST_k(a β u) if it is [A -> α •a β, u].
+   */
+  private int[] getActionLookaheads(long item) {
+    int dottedRule = getDottedRule(item);
+    int symbol = nextSymbols[dottedRule];
+    if (symbol < 0) {
+      return new int[] {getLookahead(item)};
+    }
+    if (nonterminals[symbol]) {
+      return new int[0];
+    }
+    return getFirstSet(dottedRule, getLookahead(item));
+  }
+
+  /** Returns a table with all transitions and reduces of all states. */
+  CfgGlrTable getGlrTable() {
+    CfgGlrTable table = new CfgGlrTable(getRules(), getStateCount(), 0);
+    String[] symbols = getSymbolStrings();
+    for (int state = 0; state < getStateCount(); state++) {
+      int[] stateTransitions = transitions.get(state);
+      for (int symbol = 0; symbol < symbols.length; symbol++) {
+        if (stateTransitions[symbol] >= 0) {
+          table.addTransition(state, symbols[symbol], stateTransitions[symbol]);
+        }
+      }
+      for (long item : closures.get(state)) {
+        int action = getAction(item);
+        if (action == CfgLrKTable.ACCEPT) {
+          table.addAcceptState(state);
+        } else if (action >= 0) {
+          table.addReduce(state, action,
+              getLookaheadSymbols(getLookahead(item)));
+        }
+      }
+    }
+    return table;
+  }
+
+  private void logStates() {
+    if (log.isDebugEnabled()) {
+      log.debug("Generated states: ");
+      for (long[] closure : closures) {
+        StringBuilder line = new StringBuilder("{");
+        for (long item : closure) {
+          line.append(" [").append(itemToString(item)).append(']');
+        }
+        line.append(" }");
+        log.debug(line.toString());
+      }
+    }
+  }
+
+  private String itemToString(long item) {
+    int dottedRule = getDottedRule(item);
+    int rule = dottedRuleRules[dottedRule];
+    int dot = dottedRule - ruleOffsets[rule];
+    SymbolTable symbols = cfg.getSymbols();
+    StringBuilder builder = new StringBuilder();
+    builder.append(symbols.getSymbol(lhs[rule])).append(" ->");
+    for (int i = 0; i < rhs[rule].length; i++) {
+      builder.append(i == dot ? " •" : " ")
+          .append(symbols.getSymbol(rhs[rule][i]));
+    }
+    if (dot == rhs[rule].length) {
+      builder.append(" •");
+    }
+    String lookahead = getLookaheadString(getLookahead(item));
+    return lookahead.isEmpty() ? builder.toString() :
+        builder.append(", ").append(lookahead).toString();
+  }
+
+  /** Array with value semantics to use as hash key. */
+  private static final class Key {
+    private final long[] values;
+    private final int hash;
+
+    private Key(long[] values) {
+      this.values = values;
+      this.hash = Arrays.hashCode(values);
+    }
+
+    @Override public int hashCode() {
+      return this.hash;
+    }
+
+    @Override public boolean equals(Object o) {
+      return o instanceof Key && Arrays.equals(values, ((Key) o).values);
+    }
+  }
+}
@@ -4,9 +4,12 @@ import com.github.samyadaleh.cltoolbox.chartparsing.*;
 import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.CfgCykComplete;
 import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.CfgCykCompleteGeneral;
 import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.CfgCykCompleteUnary;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.CfgCykItem;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.CompiledGrammarInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.DynamicDeductionRuleInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.DeductionChartItem;
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
 import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
 import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
 import com.github.samyadaleh.cltoolbox.common.tag.Tree;
@@ -21,28 +24,57 @@ public class CfgToCykRulesConverter {
   private static final Logger log = LogManager.getLogger();
 
   /**
-   * Converts grammar into rules for CYK parsing for CNF.
+   * Converts grammar into rules for CYK parsing for CNF. Items are CfgCykItems
+   * sharing one symbol table.
    */
   public static ParsingSchema cfgToCykRules(Cfg cfg, String w)
       throws ParseException {
+    CompiledGrammarInterface compiled = compileCykRules(cfg);
+    return compiled == null ? null : compiled.instantiate(w);
+  }
+
+  /**
+   * Returns the grammar for CYK parsing, null if it is not in Chomsky Normal
+   * Form. The symbol table and the complete rules are created once.
+   */
+  public static CompiledGrammarInterface compileCykRules(Cfg cfg) {
     if (!cfg.isInChomskyNormalForm()) {
       log.info("Grammar has to be in Chomsky Normal Form.");
       return null;
     }
-    String[] wSplit = w.split(" ");
-    ParsingSchema schema = new ParsingSchema();
-
+    List<CfgProductionRule> scanRules = new ArrayList<>();
+    List<DynamicDeductionRuleInterface> completeRules = new ArrayList<>();
     for (CfgProductionRule rule : cfg.getProductionRules()) {
       if (rule.getRhs().length == 1) {
-        addCykScanRules(wSplit, schema, rule);
+        scanRules.add(rule);
       } else {
-        DynamicDeductionRuleInterface complete = new CfgCykComplete(rule);
-        schema.addRule(complete);
+        completeRules.add(new CfgCykComplete(rule));
       }
     }
-    schema.addGoal(new DeductionChartItem(cfg.getStartSymbol(), "0",
-        String.valueOf(wSplit.length)));
-    return schema;
+    return compileCykRules(cfg, scanRules, completeRules);
+  }
+
+  /**
+   * Returns a grammar whose schemas get scan rules for the given terminal
+   * rules and copies of the complete rules, all sharing one symbol table.
+   */
+  private static CompiledGrammarInterface compileCykRules(Cfg cfg,
+      List<CfgProductionRule> scanRules,
+      List<DynamicDeductionRuleInterface> completeRules) {
+    SymbolTable symbols = new SymbolTable();
+    int startSymbol = symbols.intern(cfg.getStartSymbol());
+    return w -> {
+      String[] wSplit = w.split(" ");
+      ParsingSchema schema = new ParsingSchema();
+      for (CfgProductionRule rule : scanRules) {
+        addCykScanRules(wSplit, schema, rule, symbols);
+      }
+      for (DynamicDeductionRuleInterface complete : completeRules) {
+        schema.addRule(complete.copy());
+      }
+      schema.addGoal(new CfgCykItem(symbols, startSymbol, 0, wSplit.length));
+      return schema;
+    };
   }
 
   /**
@@ -52,39 +84,42 @@ public class CfgToCykRulesConverter {
    */
   public static ParsingSchema cfgToCykExtendedRules(Cfg cfg, String w)
       throws ParseException {
+    CompiledGrammarInterface compiled = compileCykExtendedRules(cfg);
+    return compiled == null ? null : compiled.instantiate(w);
+  }
+
+  /**
+   * Returns the grammar for CYK parsing with chain rules, null if it is not in
+   * Canonical Two Form.
+   */
+  public static CompiledGrammarInterface compileCykExtendedRules(Cfg cfg) {
     if (!cfg.isInCanonicalTwoForm()) {
       log.info("Grammar has to be in Canonical Two Form.");
       return null;
     }
-    String[] wSplit = w.split(" ");
-    ParsingSchema schema = new ParsingSchema();
-
+    List<CfgProductionRule> scanRules = new ArrayList<>();
+    List<DynamicDeductionRuleInterface> completeRules = new ArrayList<>();
     for (CfgProductionRule rule : cfg.getProductionRules()) {
       if (rule.getRhs().length == 1) {
         if (cfg.terminalsContain(rule.getRhs()[0])) {
-          addCykScanRules(wSplit, schema, rule);
+          scanRules.add(rule);
         } else {
-          DynamicDeductionRuleInterface complete =
-              new CfgCykCompleteUnary(rule);
-          schema.addRule(complete);
+          completeRules.add(new CfgCykCompleteUnary(rule));
         }
       } else {
-        DynamicDeductionRuleInterface complete = new CfgCykComplete(rule);
-        schema.addRule(complete);
+        completeRules.add(new CfgCykComplete(rule));
       }
     }
-    schema.addGoal(new DeductionChartItem(cfg.getStartSymbol(), "0",
-        String.valueOf(wSplit.length)));
-    return schema;
+    return compileCykRules(cfg, scanRules, completeRules);
   }
 
   private static void addCykScanRules(String[] wSplit, ParsingSchema schema,
-      CfgProductionRule rule) throws ParseException {
+      CfgProductionRule rule, SymbolTable symbols) throws ParseException {
     for (int i = 0; i < wSplit.length; i++) {
       if (wSplit[i].equals(rule.getRhs()[0])) {
         StaticDeductionRule scan = new StaticDeductionRule();
         ChartItemInterface consequence =
-            new DeductionChartItem(rule.getLhs(), String.valueOf(i), "1");
+            new CfgCykItem(symbols, symbols.intern(rule.getLhs()), i, 1);
         List<Tree> derivedTrees = new ArrayList<>();
         derivedTrees.add(new Tree(rule));
         consequence.setTrees(derivedTrees);
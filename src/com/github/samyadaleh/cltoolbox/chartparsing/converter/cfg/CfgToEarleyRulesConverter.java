@@ -2,13 +2,15 @@ package com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg;
 
 import com.github.samyadaleh.cltoolbox.chartparsing.*;
 import com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley.CfgEarleyComplete;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley.CfgEarleyItem;
 import com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley.CfgEarleyPredict;
 import com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley.CfgEarleyScan;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.CompiledGrammarInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.DynamicDeductionRuleInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
-import com.github.samyadaleh.cltoolbox.chartparsing.item.DeductionChartItem;
 import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
 import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
+import com.github.samyadaleh.cltoolbox.common.cfg.CompactCfg;
 import com.github.samyadaleh.cltoolbox.common.tag.Tree;
 
 import java.text.ParseException;
@@ -19,53 +21,51 @@ public class CfgToEarleyRulesConverter {
   /**
    * Converts a cfg to a parsing scheme for Earley parsing. Based n
    * https://user.phil.hhu.de/~kallmeyer/Parsing/earley.pdf
+   * Items are CfgEarleyItems over a compact copy of the grammar.
    */
   public static ParsingSchema cfgToEarleyRules(Cfg cfg, String w)
       throws ParseException {
-    String[] wSplit = w.split(" ");
-    ParsingSchema schema = new ParsingSchema();
-
-    DynamicDeductionRuleInterface scan = new CfgEarleyScan(wSplit);
-    schema.addRule(scan);
+    return compileEarleyRules(cfg).instantiate(w);
+  }
 
+  /**
+   * Returns the grammar for Earley parsing. The compact grammar and the
+   * predict and complete rules are created once and copied for each sentence.
+   */
+  public static CompiledGrammarInterface compileEarleyRules(Cfg cfg) {
+    CompactCfg compactCfg = new CompactCfg(cfg);
     DynamicDeductionRuleInterface complete = new CfgEarleyComplete();
-    schema.addRule(complete);
-
+    List<DynamicDeductionRuleInterface> predictRules = new ArrayList<>();
+    List<CfgProductionRule> startRules = new ArrayList<>();
     for (CfgProductionRule rule : cfg.getProductionRules()) {
       if (rule.getLhs().equals(cfg.getStartSymbol())) {
+        startRules.add(rule);
+      }
+      predictRules.add(new CfgEarleyPredict(rule));
+    }
+    return w -> {
+      String[] wSplit = w.split(" ");
+      ParsingSchema schema = new ParsingSchema();
+      schema.addRule(new CfgEarleyScan(wSplit));
+      schema.addRule(complete.copy());
+      for (CfgProductionRule rule : startRules) {
         StaticDeductionRule axiom = new StaticDeductionRule();
-        if (rule.getRhs()[0].equals("")) {
-          ChartItemInterface consequence =
-              new DeductionChartItem(cfg.getStartSymbol() + " -> •", "0", "0");
-          List<Tree> derivedTrees = new ArrayList<>();
-          derivedTrees.add(new Tree(rule));
-          consequence.setTrees(derivedTrees);
-          axiom.addConsequence(consequence);
-        } else {
-          ChartItemInterface consequence = new DeductionChartItem(
-              cfg.getStartSymbol() + " -> •" + String.join(" ", rule.getRhs()),
-              "0", "0");
-          List<Tree> derivedTrees = new ArrayList<>();
-          derivedTrees.add(new Tree(rule));
-          consequence.setTrees(derivedTrees);
-          axiom.addConsequence(consequence);
-        }
+        int ruleId = compactCfg.getRuleId(rule);
+        ChartItemInterface consequence =
+            new CfgEarleyItem(compactCfg, ruleId, 0, 0, 0);
+        List<Tree> derivedTrees = new ArrayList<>();
+        derivedTrees.add(new Tree(rule));
+        consequence.setTrees(derivedTrees);
+        axiom.addConsequence(consequence);
         axiom.setName("axiom");
         schema.addAxiom(axiom);
-        if (rule.getRhs()[0].equals("")) {
-          schema.addGoal(
-              new DeductionChartItem(cfg.getStartSymbol() + " -> •", "0",
-                  String.valueOf(wSplit.length)));
-        } else {
-          schema.addGoal(new DeductionChartItem(
-              cfg.getStartSymbol() + " -> " + String.join(" ", rule.getRhs())
-                  + " •", "0", String.valueOf(wSplit.length)));
-        }
+        schema.addGoal(new CfgEarleyItem(compactCfg, ruleId,
+            compactCfg.getRhs(ruleId).length, 0, wSplit.length));
       }
-
-      DynamicDeductionRuleInterface predict = new CfgEarleyPredict(rule);
-      schema.addRule(predict);
-    }
-    return schema;
+      for (DynamicDeductionRuleInterface predict : predictRules) {
+        schema.addRule(predict.copy());
+      }
+      return schema;
+    };
   }
 }
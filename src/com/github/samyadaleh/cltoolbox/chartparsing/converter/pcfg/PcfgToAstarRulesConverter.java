@@ -7,6 +7,7 @@ import com.github.samyadaleh.cltoolbox.chartparsing.StaticDeductionRule;
 import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.astar.PcfgAstarComplete;
 import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.astar.PcfgAstarItem;
 import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.astar.SxCalc;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.CompiledGrammarInterface;
 import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
 import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
 import com.github.samyadaleh.cltoolbox.common.cfg.Pcfg;
@@ -19,6 +20,7 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PcfgToAstarRulesConverter {
   private static final Logger log = LogManager.getLogger();
@@ -29,16 +31,32 @@ public class PcfgToAstarRulesConverter {
    */
   public static ParsingSchema pcfgToAstarRules(Pcfg pcfg, String w)
       throws ParseException {
+    return compileAstarRules(pcfg).instantiate(w);
+  }
+
+  /**
+   * Returns the grammar for a star parsing. The outside estimates depend on
+   * the sentence length only, they are computed once per length and kept.
+   */
+  public static CompiledGrammarInterface compileAstarRules(Pcfg pcfg) {
     if (!(new Cfg(pcfg)).isInChomskyNormalForm()) {
       log.info(
           "PCFG must be in Chomsky Normal Form to apply this kind of astar parsing.");
     }
-    String[] wSplit = w.split(" ");
-    ParsingSchema schema = new ParsingSchema();
+    Map<Integer, Map<String, Double>> outsidesByLength =
+        new ConcurrentHashMap<>();
+    return w -> {
+      String[] wSplit = w.split(" ");
+      Map<String, Double> outsides = outsidesByLength
+          .computeIfAbsent(wSplit.length, n -> SxCalc
+              .getOutsides(SxCalc.getInsides(pcfg, n), n, pcfg));
+      return createSchema(pcfg, wSplit, outsides);
+    };
+  }
 
-    Map<String, Double> insides = SxCalc.getInsides(pcfg, wSplit.length);
-    Map<String, Double> outsides =
-        SxCalc.getOutsides(insides, wSplit.length, pcfg);
+  private static ParsingSchema createSchema(Pcfg pcfg, String[] wSplit,
+      Map<String, Double> outsides) throws ParseException {
+    ParsingSchema schema = new ParsingSchema();
 
     for (PcfgProductionRule pRule : pcfg.getProductionRules()) {
       if (pRule.getRhs().length == 1) {
@@ -6,6 +6,7 @@ import com.github.samyadaleh.cltoolbox.chartparsing.item.ProbabilisticChartItemI
 import com.github.samyadaleh.cltoolbox.chartparsing.StaticDeductionRule;
 import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.PcfgCykComplete;
 import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.PcfgCykItem;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.CompiledGrammarInterface;
 import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
 import com.github.samyadaleh.cltoolbox.common.cfg.CfgProductionRule;
 import com.github.samyadaleh.cltoolbox.common.cfg.Pcfg;
@@ -27,13 +28,39 @@ public class PcfgToCykRulesConverter {
    */
   public static ParsingSchema pcfgToCykRules(Pcfg pcfg, String w)
       throws ParseException {
+    return compileCykRules(pcfg).instantiate(w);
+  }
+
+  /**
+   * Returns the grammar for probabilistic CYK parsing. The complete rules are
+   * created once and copied for each sentence.
+   */
+  public static CompiledGrammarInterface compileCykRules(Pcfg pcfg) {
     if (!(new Cfg(pcfg)).isInChomskyNormalForm()) {
       log.info(
           "PCFG must be in Chomsky Normal Form to apply this kind of cyk parsing.");
     }
-    String[] wSplit = w.split(" ");
-    ParsingSchema schema = new ParsingSchema();
+    List<DynamicDeductionRuleInterface> completeRules = new ArrayList<>();
+    for (PcfgProductionRule pRule : pcfg.getProductionRules()) {
+      if (pRule.getRhs().length != 1) {
+        completeRules.add(new PcfgCykComplete(pRule));
+      }
+    }
+    return w -> {
+      String[] wSplit = w.split(" ");
+      ParsingSchema schema = new ParsingSchema();
+      addScanRules(pcfg, wSplit, schema);
+      for (DynamicDeductionRuleInterface complete : completeRules) {
+        schema.addRule(complete.copy());
+      }
+      schema.addGoal(
+          new PcfgCykItem(0, pcfg.getStartSymbol(), 0, wSplit.length));
+      return schema;
+    };
+  }
 
+  private static void addScanRules(Pcfg pcfg, String[] wSplit,
+      ParsingSchema schema) throws ParseException {
     for (PcfgProductionRule pRule : pcfg.getProductionRules()) {
       if (pRule.getRhs().length == 1) {
         for (int i = 0; i < wSplit.length; i++) {
@@ -52,12 +79,7 @@ public class PcfgToCykRulesConverter {
           scan.setName("scan " + pRule.toString());
           schema.addAxiom(scan);
         }
-      } else {
-        DynamicDeductionRuleInterface complete = new PcfgCykComplete(pRule);
-        schema.addRule(complete);
       }
     }
-    schema.addGoal(new PcfgCykItem(0, pcfg.getStartSymbol(), 0, wSplit.length));
-    return schema;
   }
 }
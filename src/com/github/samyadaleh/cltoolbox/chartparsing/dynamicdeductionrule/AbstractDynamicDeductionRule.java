@@ -5,19 +5,23 @@ import com.github.samyadaleh.cltoolbox.common.tag.Tree;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /** Class to hold the methods commonly used by all DeductionRules. */
 public abstract class AbstractDynamicDeductionRule
-  implements DynamicDeductionRuleInterface {
+  implements DynamicDeductionRuleInterface, Cloneable {
 
-  protected List<ChartItemInterface> antecedences;
-  protected List<ChartItemInterface> consequences;
+  protected List<ChartItemInterface> antecedences = new ArrayList<>();
+  protected List<ChartItemInterface> consequences = new ArrayList<>();
   protected String name;
   protected static final Logger log = LogManager.getLogger();
 
   protected int antNeeded;
+  protected boolean buildTrees = true;
+  protected boolean recordNames = true;
 
   @Override public List<ChartItemInterface> getAntecedences() {
     return this.antecedences;
@@ -35,12 +39,64 @@ public abstract class AbstractDynamicDeductionRule
     return this.antNeeded;
   }
 
+  @Override public void setBuildTrees(boolean buildTrees) {
+    this.buildTrees = buildTrees;
+  }
+
+  @Override public boolean isBuildTrees() {
+    return this.buildTrees;
+  }
+
+  @Override public void setRecordNames(boolean recordNames) {
+    this.recordNames = recordNames;
+  }
+
+  /**
+   * Empties the list of consequences for the next application. The list is
+   * reused, so consequences have to be taken out before the rule is applied
+   * again.
+   */
   @Override public void clearItems() {
-    antecedences = new ArrayList<>();
-    consequences = new ArrayList<>();
+    antecedences = Collections.emptyList();
+    consequences.clear();
+  }
+
+  /**
+   * Implements getConsequences for rules that override apply, for the
+   * antecedences set on this object.
+   */
+  protected List<ChartItemInterface> applyToAntecedences()
+    throws ParseException {
+    apply(antecedences, (consequence, ruleName) -> {
+      name = ruleName;
+      consequences.add(consequence);
+    });
+    return consequences;
+  }
+
+  /**
+   * Shallow copy of the rule, subclasses with caches that are filled while
+   * computing consequences have to give the copy its own caches.
+   */
+  @Override public DynamicDeductionRuleInterface copy() {
+    try {
+      AbstractDynamicDeductionRule copy =
+        (AbstractDynamicDeductionRule) super.clone();
+      copy.antecedences = Collections.emptyList();
+      copy.consequences = new ArrayList<>();
+      return copy;
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
   }
 
   protected void logItemGeneration(ChartItemInterface item) {
+    logItemGeneration(item, antecedences, name);
+  }
+
+  /** Logs the generation of an item by a rule that keeps no state per call. */
+  protected static void logItemGeneration(ChartItemInterface item,
+    List<ChartItemInterface> antecedences, String name) {
     if(log.isDebugEnabled()) {
       StringBuilder out = new StringBuilder("generated: ");
       out.append(item).append(" with trees:");
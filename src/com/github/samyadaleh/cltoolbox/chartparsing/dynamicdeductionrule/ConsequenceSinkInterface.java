@@ -0,0 +1,12 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+
+/**
+ * Receives the consequences a rule derives, each with the name of the rule as
+ * it shall appear in the trace.
+ */
+@FunctionalInterface
+public interface ConsequenceSinkInterface {
+  void add(ChartItemInterface consequence, String ruleName);
+}
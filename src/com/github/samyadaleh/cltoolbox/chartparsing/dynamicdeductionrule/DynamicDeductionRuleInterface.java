@@ -1,6 +1,10 @@
 package com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule;
 
+import java.text.ParseException;
+import java.util.List;
+
 import com.github.samyadaleh.cltoolbox.chartparsing.DeductionRuleInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
 
 /**
  * Specification for dynamic rules where antecedences have to be set and they
@@ -10,4 +14,51 @@ import com.github.samyadaleh.cltoolbox.chartparsing.DeductionRuleInterface;
 public interface DynamicDeductionRuleInterface extends DeductionRuleInterface {
   int getAntecedencesNeeded();
   void clearItems();
+
+  /**
+   * If false, consequences are generated without derived trees, which is
+   * enough to recognize whether the input is in the language.
+   */
+  void setBuildTrees(boolean buildTrees);
+
+  boolean isBuildTrees();
+
+  /**
+   * If false, rules that name each application after its antecedences don't
+   * build the name, because no applied rule is recorded. Rules with a fixed
+   * name can ignore it.
+   */
+  default void setRecordNames(boolean recordNames) {
+  }
+
+  /**
+   * Returns an independent instance of the rule with the same configuration
+   * and no antecedences or consequences set. Setting antecedences and
+   * computing consequences on the copy must not affect this rule, so that each
+   * thread of a parallel deduction can work on its own copy.
+   */
+  DynamicDeductionRuleInterface copy();
+
+  /**
+   * Derives the consequences of the antecedences and passes them to the sink.
+   * The default implementation goes through setAntecedences and
+   * getConsequences of this object, rules that keep no state per call
+   * override it and return true in isStateless.
+   */
+  default void apply(List<ChartItemInterface> antecedences,
+    ConsequenceSinkInterface sink) throws ParseException {
+    clearItems();
+    setAntecedences(antecedences);
+    for (ChartItemInterface consequence : getConsequences()) {
+      sink.add(consequence, getName());
+    }
+  }
+
+  /**
+   * Returns true if apply doesn't change the rule object, so it can be shared
+   * between threads and parses.
+   */
+  default boolean isStateless() {
+    return false;
+  }
 }
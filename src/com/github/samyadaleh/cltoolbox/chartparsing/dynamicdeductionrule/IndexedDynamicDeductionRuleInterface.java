@@ -0,0 +1,26 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+
+import java.util.List;
+
+/**
+ * Dynamic rules that can tell the deduction system which chart items may be
+ * combined with a given item. The deduction system keeps an index from keys
+ * to the chart items stored under them and only offers the items found under
+ * the partner keys as further antecedences instead of every item in the chart.
+ * Each item that can be an antecedence together with item must be stored under
+ * at least one of the keys returned by getPartnerKeys(item).
+ */
+public interface IndexedDynamicDeductionRuleInterface
+  extends DynamicDeductionRuleInterface {
+
+  /** Returns the keys under which the item is stored in the chart index. */
+  List<String> getIndexKeys(ChartItemInterface item);
+
+  /**
+   * Returns the keys under which all items are stored that can be used as
+   * antecedences together with item.
+   */
+  List<String> getPartnerKeys(ChartItemInterface item);
+}
@@ -0,0 +1,58 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.forest;
+
+import java.util.List;
+
+/**
+ * One derivation of a node of the parse forest: the hyperedge used to derive
+ * the node and one derivation of each of its tails.
+ */
+public class Derivation {
+  private final int node;
+  private final Hyperedge edge;
+  /** Position of the hyperedge among the incoming edges of the node. */
+  private final int edgeIndex;
+  /** Ranks of the derivations of the tails. */
+  private final int[] ranks;
+  private final List<Derivation> children;
+  private final double weight;
+
+  Derivation(int node, Hyperedge edge, int edgeIndex, int[] ranks,
+    List<Derivation> children) {
+    this.node = node;
+    this.edge = edge;
+    this.edgeIndex = edgeIndex;
+    this.ranks = ranks;
+    this.children = children;
+    double weight = edge.getWeight();
+    for (Derivation child : children) {
+      weight += child.getWeight();
+    }
+    this.weight = weight;
+  }
+
+  public int getNode() {
+    return this.node;
+  }
+
+  public Hyperedge getEdge() {
+    return this.edge;
+  }
+
+  int getEdgeIndex() {
+    return this.edgeIndex;
+  }
+
+  int[] getRanks() {
+    return this.ranks;
+  }
+
+  /** Returns the derivations of the tails of the edge in the same order. */
+  public List<Derivation> getChildren() {
+    return this.children;
+  }
+
+  /** Returns the sum of the weights of all hyperedges in the derivation. */
+  public double getWeight() {
+    return this.weight;
+  }
+}
@@ -0,0 +1,45 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.forest;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.DeductionRuleInterface;
+
+/**
+ * One way to derive a node of the parse forest: the rule that was applied and
+ * the nodes of its antecedences in the order they were passed to the rule. The
+ * weight is the one of the deduction step, 0 in unweighted deductions.
+ */
+public class Hyperedge {
+  private final int head;
+  private final int[] tails;
+  private final DeductionRuleInterface rule;
+  private final String ruleName;
+  private final double weight;
+
+  Hyperedge(int head, int[] tails, DeductionRuleInterface rule,
+    String ruleName, double weight) {
+    this.head = head;
+    this.tails = tails;
+    this.rule = rule;
+    this.ruleName = ruleName;
+    this.weight = weight;
+  }
+
+  public int getHead() {
+    return this.head;
+  }
+
+  public int[] getTails() {
+    return this.tails;
+  }
+
+  public DeductionRuleInterface getRule() {
+    return this.rule;
+  }
+
+  public String getRuleName() {
+    return this.ruleName;
+  }
+
+  public double getWeight() {
+    return this.weight;
+  }
+}
@@ -0,0 +1,166 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.forest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Finds the k best derivations in a weighted parse forest with the lazy
+ * algorithm of Huang and Chiang (2005). The derivations of a node are only
+ * enumerated as far as they are asked for, so the k best derivations of the
+ * roots cost little more than the best one. The weight of a derivation is the
+ * sum of the weights of its hyperedges. Hyperedges that lead back to a node
+ * whose derivations are being enumerated are not followed.
+ */
+public class KBestExtractor {
+  private final ParseForest forest;
+  private final Comparator<Derivation> order;
+  /** Derivations of each node found so far, best first. */
+  private final Map<Integer, List<Derivation>> found = new HashMap<>();
+  /** Candidates for the next derivations of each node. */
+  private final Map<Integer, PriorityQueue<Derivation>> candidates =
+    new HashMap<>();
+  /** Edge index and tail ranks of all candidates ever queued per node. */
+  private final Map<Integer, Set<List<Integer>>> queued = new HashMap<>();
+  private final Set<Integer> inProgress = new HashSet<>();
+
+  /**
+   * If lowestFirst is true derivations with lower weight are better, like
+   * negative log probabilities, otherwise higher ones.
+   */
+  public KBestExtractor(ParseForest forest, boolean lowestFirst) {
+    this.forest = forest;
+    Comparator<Derivation> byWeight =
+      Comparator.comparingDouble(Derivation::getWeight);
+    this.order = lowestFirst ? byWeight : byWeight.reversed();
+  }
+
+  /** Returns at most k best derivations of all roots together, best first. */
+  public List<Derivation> getKBest(int k) {
+    List<Derivation> derivations = new ArrayList<>();
+    for (int root : forest.getRoots()) {
+      derivations.addAll(getKBest(root, k));
+    }
+    derivations.sort(order);
+    if (derivations.size() > k) {
+      return new ArrayList<>(derivations.subList(0, k));
+    }
+    return derivations;
+  }
+
+  /** Returns at most k best derivations of the node, best first. */
+  public List<Derivation> getKBest(int id, int k) {
+    List<Derivation> derivations = new ArrayList<>();
+    for (int rank = 0; rank < k; rank++) {
+      Derivation derivation = getDerivation(id, rank);
+      if (derivation == null) {
+        break;
+      }
+      derivations.add(derivation);
+    }
+    return derivations;
+  }
+
+  /**
+   * Returns the derivation of the node with the given rank, 0 being the best,
+   * or null if the node has less derivations.
+   */
+  private Derivation getDerivation(int id, int rank) {
+    List<Derivation> derivations = found.get(id);
+    if (derivations == null) {
+      if (inProgress.contains(id)) {
+        return null;
+      }
+      derivations = initialize(id);
+    }
+    if (rank < derivations.size()) {
+      return derivations.get(rank);
+    }
+    if (!inProgress.add(id)) {
+      return null;
+    }
+    PriorityQueue<Derivation> queue = candidates.get(id);
+    while (derivations.size() <= rank) {
+      if (!derivations.isEmpty()) {
+        queueSuccessors(derivations.get(derivations.size() - 1), queue);
+      }
+      if (queue.isEmpty()) {
+        break;
+      }
+      derivations.add(queue.poll());
+    }
+    inProgress.remove(id);
+    return rank < derivations.size() ? derivations.get(rank) : null;
+  }
+
+  /** Queues the best derivation of each incoming edge of the node. */
+  private List<Derivation> initialize(int id) {
+    inProgress.add(id);
+    PriorityQueue<Derivation> queue = new PriorityQueue<>(order);
+    candidates.put(id, queue);
+    queued.put(id, new HashSet<>());
+    List<Hyperedge> edges = forest.getIncomingEdges(id);
+    for (int i = 0; i < edges.size(); i++) {
+      Derivation candidate =
+        createCandidate(id, i, new int[edges.get(i).getTails().length]);
+      if (candidate != null) {
+        queue.add(candidate);
+      }
+    }
+    inProgress.remove(id);
+    List<Derivation> derivations = new ArrayList<>();
+    found.put(id, derivations);
+    return derivations;
+  }
+
+  /**
+   * Queues the derivations that use the same edge as the derivation and the
+   * next worse derivation for exactly one of the tails.
+   */
+  private void queueSuccessors(Derivation derivation,
+    PriorityQueue<Derivation> queue) {
+    int[] ranks = derivation.getRanks();
+    for (int i = 0; i < ranks.length; i++) {
+      int[] successorRanks = Arrays.copyOf(ranks, ranks.length);
+      successorRanks[i]++;
+      Derivation candidate = createCandidate(derivation.getNode(),
+        derivation.getEdgeIndex(), successorRanks);
+      if (candidate != null) {
+        queue.add(candidate);
+      }
+    }
+  }
+
+  /**
+   * Returns the derivation of the node via the edge and the tail derivations
+   * of the given ranks. Returns null if it was queued before or if a tail has
+   * no derivation of the needed rank.
+   */
+  private Derivation createCandidate(int id, int edgeIndex, int[] ranks) {
+    List<Integer> key = new ArrayList<>(ranks.length + 1);
+    key.add(edgeIndex);
+    for (int rank : ranks) {
+      key.add(rank);
+    }
+    if (queued.get(id).contains(key)) {
+      return null;
+    }
+    Hyperedge edge = forest.getIncomingEdges(id).get(edgeIndex);
+    List<Derivation> children = new ArrayList<>();
+    for (int i = 0; i < ranks.length; i++) {
+      Derivation child = getDerivation(edge.getTails()[i], ranks[i]);
+      if (child == null) {
+        return null;
+      }
+      children.add(child);
+    }
+    queued.get(id).add(key);
+    return new Derivation(id, edge, edgeIndex, ranks, children);
+  }
+}
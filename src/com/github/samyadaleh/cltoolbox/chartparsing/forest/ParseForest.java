@@ -0,0 +1,232 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.forest;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.DeductionStep;
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+
+/**
+ * Packed shared parse forest of a deduction. Nodes are the chart items that
+ * lead to a goal item, identified by their index in the chart, hyperedges are
+ * the ways they were derived. Equal subderivations are stored only once, so
+ * the forest stays polynomial in size even if the number of trees is
+ * exponential.
+ */
+public class ParseForest {
+  private final List<ChartItemInterface> chart;
+  /** Incoming hyperedges of all nodes, ordered by node id. */
+  private final TreeMap<Integer, List<Hyperedge>> incoming = new TreeMap<>();
+  private final List<Integer> roots;
+  /** Strongly connected component of each node, computed on first use. */
+  private Map<Integer, Integer> components = null;
+
+  /**
+   * Builds the forest from the chart, the applied rule names and the
+   * deduction steps of a deduction, starting from the goal items at the
+   * indexes in roots.
+   */
+  public ParseForest(List<ChartItemInterface> chart,
+    List<? extends List<String>> appliedRules,
+    List<? extends List<DeductionStep>> steps, List<Integer> roots) {
+    this.chart = chart;
+    this.roots = Collections.unmodifiableList(new ArrayList<>(roots));
+    List<Integer> todo = new ArrayList<>(roots);
+    while (!todo.isEmpty()) {
+      int id = todo.remove(todo.size() - 1);
+      if (incoming.containsKey(id)) {
+        continue;
+      }
+      List<Hyperedge> edges = new ArrayList<>();
+      List<DeductionStep> stepsOfItem = steps.get(id);
+      for (int i = 0; i < stepsOfItem.size(); i++) {
+        DeductionStep step = stepsOfItem.get(i);
+        edges.add(new Hyperedge(id, step.getAntecedences(), step.getRule(),
+          appliedRules.get(id).get(i), step.getWeight()));
+        for (int tail : step.getAntecedences()) {
+          if (!incoming.containsKey(tail)) {
+            todo.add(tail);
+          }
+        }
+      }
+      incoming.put(id, edges);
+    }
+  }
+
+  /** Returns the ids of the goal nodes the forest was built from. */
+  public List<Integer> getRoots() {
+    return this.roots;
+  }
+
+  /** Returns the ids of all nodes in ascending order. */
+  public Set<Integer> getNodes() {
+    return Collections.unmodifiableSet(incoming.keySet());
+  }
+
+  public ChartItemInterface getItem(int id) {
+    return chart.get(id);
+  }
+
+  /** Returns the hyperedges that derive the node with the given id. */
+  public List<Hyperedge> getIncomingEdges(int id) {
+    List<Hyperedge> edges = incoming.get(id);
+    if (edges == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(edges);
+  }
+
+  public int getNodeCount() {
+    return incoming.size();
+  }
+
+  public int getEdgeCount() {
+    int count = 0;
+    for (List<Hyperedge> edges : incoming.values()) {
+      count += edges.size();
+    }
+    return count;
+  }
+
+  /** Returns the number of derivations of all goal nodes together. */
+  public BigInteger countDerivations() {
+    Map<String, BigInteger> counts = new HashMap<>();
+    BigInteger sum = BigInteger.ZERO;
+    for (int root : roots) {
+      sum = sum.add(countDerivations(root, counts, new HashMap<>()));
+    }
+    return sum;
+  }
+
+  /**
+   * Returns the number of derivations of the node in which no node derives
+   * itself. A hyperedge that leads back to a node whose count is being
+   * computed would allow infinitely many derivations, such hyperedges are not
+   * counted.
+   */
+  public BigInteger countDerivations(int id) {
+    return countDerivations(id, new HashMap<>(), new HashMap<>());
+  }
+
+  /**
+   * Only the nodes on the path that are in the same strongly connected
+   * component can be reached again from the node, so the count is memoized
+   * for the node together with them.
+   */
+  private BigInteger countDerivations(int id, Map<String, BigInteger> counts,
+    Map<Integer, Set<Integer>> onPath) {
+    int component = getComponent(id);
+    Set<Integer> componentPath =
+      onPath.computeIfAbsent(component, c -> new TreeSet<>());
+    String key = id + " " + componentPath;
+    BigInteger count = counts.get(key);
+    if (count != null) {
+      return count;
+    }
+    componentPath.add(id);
+    count = BigInteger.ZERO;
+    for (Hyperedge edge : getIncomingEdges(id)) {
+      BigInteger edgeCount = BigInteger.ONE;
+      for (int tail : edge.getTails()) {
+        Set<Integer> tailPath = onPath.get(getComponent(tail));
+        if (tailPath != null && tailPath.contains(tail)) {
+          edgeCount = BigInteger.ZERO;
+          break;
+        }
+        edgeCount = edgeCount.multiply(countDerivations(tail, counts, onPath));
+      }
+      count = count.add(edgeCount);
+    }
+    componentPath.remove(id);
+    counts.put(key, count);
+    return count;
+  }
+
+  private int getComponent(int id) {
+    if (components == null) {
+      components = new HashMap<>();
+      Map<Integer, Integer> indexes = new HashMap<>();
+      Map<Integer, Integer> lowLinks = new HashMap<>();
+      List<Integer> stack = new ArrayList<>();
+      for (int node : incoming.keySet()) {
+        if (!indexes.containsKey(node)) {
+          computeComponents(node, indexes, lowLinks, stack);
+        }
+      }
+    }
+    Integer component = components.get(id);
+    return component == null ? id : component;
+  }
+
+  /**
+   * Tarjan's algorithm on the edges from heads to tails, each component is
+   * identified by the node it was found from.
+   */
+  private void computeComponents(int id, Map<Integer, Integer> indexes,
+    Map<Integer, Integer> lowLinks, List<Integer> stack) {
+    indexes.put(id, indexes.size());
+    lowLinks.put(id, indexes.get(id));
+    stack.add(id);
+    for (Hyperedge edge : getIncomingEdges(id)) {
+      for (int tail : edge.getTails()) {
+        if (!indexes.containsKey(tail)) {
+          computeComponents(tail, indexes, lowLinks, stack);
+          lowLinks.put(id, Math.min(lowLinks.get(id), lowLinks.get(tail)));
+        } else if (!components.containsKey(tail)) {
+          lowLinks.put(id, Math.min(lowLinks.get(id), indexes.get(tail)));
+        }
+      }
+    }
+    if (lowLinks.get(id).equals(indexes.get(id))) {
+      int node;
+      do {
+        node = stack.remove(stack.size() - 1);
+        components.put(node, id);
+      } while (node != id);
+    }
+  }
+
+  /**
+   * Writes the forest in a line based format. First a line with the root ids,
+   * then for each node a line "id item" followed by one line per hyperedge
+   * "  <- tail tail ... : rule".
+   */
+  public void write(Writer writer) throws IOException {
+    writer.write("roots");
+    for (int root : roots) {
+      writer.write(" " + root);
+    }
+    writer.write('\n');
+    for (Map.Entry<Integer, List<Hyperedge>> entry : incoming.entrySet()) {
+      writer.write(entry.getKey() + " " + chart.get(entry.getKey()) + '\n');
+      for (Hyperedge edge : entry.getValue()) {
+        StringBuilder line = new StringBuilder("  <-");
+        for (int tail : edge.getTails()) {
+          line.append(' ').append(tail);
+        }
+        line.append(" : ").append(edge.getRuleName()).append('\n');
+        writer.write(line.toString());
+      }
+    }
+  }
+
+  @Override public String toString() {
+    StringWriter writer = new StringWriter();
+    try {
+      write(writer);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return writer.toString();
+  }
+}
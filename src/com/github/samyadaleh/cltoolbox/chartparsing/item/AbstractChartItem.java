@@ -6,39 +6,122 @@ import java.util.List;
 import com.github.samyadaleh.cltoolbox.common.ArrayUtils;
 import com.github.samyadaleh.cltoolbox.common.tag.Tree;
 
-/** Abstract class that holds the functions commonly used by all items. */
+/**
+ * Abstract class that holds the functions commonly used by all items. The item
+ * form is set once by the constructor, the hash code is computed on first use
+ * and cached afterwards.
+ */
 public abstract class AbstractChartItem implements ChartItemInterface {
 
-  protected String[] itemForm;
+  private final String[] itemForm;
   private List<Tree> trees = new ArrayList<>();
+  private int hash;
 
+  /** The item takes over the array, it must not be changed afterwards. */
+  protected AbstractChartItem(String[] itemForm) {
+    this.itemForm = itemForm;
+  }
+
+  /**
+   * For items that compute their item form from other fields, they override
+   * getItemForm, equals and hashCode.
+   */
+  protected AbstractChartItem() {
+    this.itemForm = null;
+  }
+
+  /** Returns a copy of the item form. */
   @Override public String[] getItemForm() {
-    return this.itemForm;
+    return this.itemForm.clone();
   }
 
+  /** Returns the item form of the item without copying it if possible. */
+  private static String[] itemFormOf(ChartItemInterface item) {
+    if (item instanceof AbstractChartItem) {
+      String[] itemForm = ((AbstractChartItem) item).itemForm;
+      if (itemForm != null) {
+        return itemForm;
+      }
+    }
+    return item.getItemForm();
+  }
+
+  /**
+   * Items are equal if their item forms are equal element by element. Items of
+   * the same class compare their cached hash codes first. Use
+   * ArrayUtils.match for comparisons where '?' shall match everything.
+   */
   @Override public boolean equals(Object o) {
-    if (o instanceof ChartItemInterface) {
-      return ArrayUtils
-          .match(this.itemForm, ((ChartItemInterface) o).getItemForm());
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof ChartItemInterface)) {
+      return false;
+    }
+    if (o.getClass() == getClass() && o.hashCode() != hashCode()) {
+      return false;
+    }
+    String[] itemForm1 = itemFormOf(this);
+    String[] itemForm2 = itemFormOf((ChartItemInterface) o);
+    if (itemForm1.length != itemForm2.length) {
+      return false;
     }
-    return false;
+    for (int i = itemForm1.length - 1; i >= 0; i--) {
+      if (!itemForm1[i].equals(itemForm2[i])) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override public int hashCode() {
-    int hashCode = 0;
-    int i = 2;
-    for (String item : this.itemForm) {
-      for (char chara : item.toCharArray()) {
-        int value = (int) chara;
-        hashCode += value * i;
-        i += 2;
+    int h = hash;
+    if (h == 0) {
+      for (String element : itemFormOf(this)) {
+        h = h * 31 + element.hashCode();
       }
+      h = mix(h);
+      hash = h;
+    }
+    return h;
+  }
+
+  /**
+   * Returns the hash code of String.valueOf(value) without building the
+   * string, so items with numeric fields can compute the hash code of their
+   * item form.
+   */
+  protected static int stringHashCode(int value) {
+    if (value == Integer.MIN_VALUE) {
+      return String.valueOf(value).hashCode();
     }
-    return hashCode;
+    int h = 0;
+    if (value < 0) {
+      h = '-';
+      value = -value;
+    }
+    int divisor = 1;
+    while (value / divisor >= 10) {
+      divisor *= 10;
+    }
+    for (; divisor > 0; divisor /= 10) {
+      h = h * 31 + '0' + value / divisor % 10;
+    }
+    return h;
+  }
+
+  /** Finalization step of MurmurHash3, spreads the bits of h over all bits. */
+  protected static int mix(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
   }
 
   @Override public String toString() {
-    return ArrayUtils.toString(this.itemForm);
+    return ArrayUtils.toString(itemFormOf(this));
   }
 
   @Override public List<Tree> getTrees() {
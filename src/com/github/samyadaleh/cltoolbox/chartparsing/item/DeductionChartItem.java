@@ -2,6 +2,6 @@ package com.github.samyadaleh.cltoolbox.chartparsing.item;
 
 public class DeductionChartItem extends AbstractChartItem {
   public DeductionChartItem(String... args) {
-    this.itemForm = args;
+    super(args.clone());
   }
 }
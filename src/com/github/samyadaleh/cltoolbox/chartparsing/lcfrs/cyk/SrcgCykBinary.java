@@ -5,7 +5,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.AbstractDynamicDecutionRuleTwoAntecedences;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.AbstractDynamicDeductionRule;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.ConsequenceSinkInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.lcfrs.SrcgDeductionUtils;
 import com.github.samyadaleh.cltoolbox.common.TreeUtils;
@@ -15,9 +16,10 @@ import com.github.samyadaleh.cltoolbox.common.tag.Tree;
 /**
  * Similar to the binary complete rule in CYK for CFG. If there is a clause and
  * the vectors of two items that represent the rhs match, combine them to a new
- * item that represents the lhs with span over both.
+ * item that represents the lhs with span over both. Keeps no state per
+ * application.
  */
-public class SrcgCykBinary extends AbstractDynamicDecutionRuleTwoAntecedences {
+public class SrcgCykBinary extends AbstractDynamicDeductionRule {
 
   private final Clause clause;
   private final String[] wSplit;
@@ -29,8 +31,29 @@ public class SrcgCykBinary extends AbstractDynamicDecutionRuleTwoAntecedences {
     this.wSplit = wSplit;
   }
 
-  @SuppressWarnings("unchecked") protected void calculateConsequences(
-    String[] itemForm2, String[] itemForm1) throws ParseException {
+  @Override public boolean isStateless() {
+    return true;
+  }
+
+  @Override public List<ChartItemInterface> getConsequences()
+    throws ParseException {
+    return applyToAntecedences();
+  }
+
+  @Override public void apply(List<ChartItemInterface> antecedences,
+    ConsequenceSinkInterface sink) throws ParseException {
+    if (antecedences.size() == antNeeded) {
+      String[] itemForm1 = antecedences.get(0).getItemForm();
+      String[] itemForm2 = antecedences.get(1).getItemForm();
+      calculateConsequences(itemForm1, itemForm2, antecedences, sink);
+      calculateConsequences(itemForm2, itemForm1, antecedences, sink);
+    }
+  }
+
+  @SuppressWarnings("unchecked") private void calculateConsequences(
+    String[] itemForm2, String[] itemForm1,
+    List<ChartItemInterface> antecedences, ConsequenceSinkInterface sink)
+    throws ParseException {
     String nt1 = itemForm1[0];
     String nt2 = itemForm2[0];
     if (nt2.equals(clause.getRhs().get(0).getNonterminal())
@@ -44,12 +67,13 @@ public class SrcgCykBinary extends AbstractDynamicDecutionRuleTwoAntecedences {
           .getRangesForArguments(overallRanges, clause.getLhs());
         ChartItemInterface consequence =
           new SrcgCykItem(clause.getLhs().getNonterminal(), newVector);
-        List<Tree> derivedTrees =
-            calculateDerivatedTrees(itemForm1, overallRanges);
-        consequence.setTrees(derivedTrees);
-        consequences.add(consequence);
-        logItemGeneration(consequence);
-        this.name = "complete " + clause.toString();
+        if (buildTrees) {
+          List<Tree> derivedTrees =
+              calculateDerivatedTrees(itemForm1, overallRanges, antecedences);
+          consequence.setTrees(derivedTrees);
+        }
+        logItemGeneration(consequence, antecedences, name);
+        sink.add(consequence, name);
       }
     }
   }
@@ -95,7 +119,8 @@ public class SrcgCykBinary extends AbstractDynamicDecutionRuleTwoAntecedences {
   }
 
   private List<Tree> calculateDerivatedTrees(String[] itemForm1,
-      ArrayList<Integer> overallRanges) throws ParseException {
+      ArrayList<Integer> overallRanges, List<ChartItemInterface> antecedences)
+      throws ParseException {
     List<Tree> derivedTrees = new ArrayList<>();
     Tree derivedTreeBase =
       TreeUtils.getTreeOfSrcgClause(clause, overallRanges);
@@ -73,11 +73,13 @@ public class SrcgCykGeneral extends AbstractDynamicDeductionRule {
         if (rangesAreOverlapping(rangeOverArguments)) {
           continue;
         }
-        List<Tree> derivedTrees =
-            generateDerivatedTrees(lhs, rangeOverElements);
         ChartItemInterface consequence =
           new SrcgCykItem(clause.getLhs().getNonterminal(), rangeOverArguments);
-        consequence.setTrees(derivedTrees);
+        if (buildTrees) {
+          List<Tree> derivedTrees =
+              generateDerivatedTrees(lhs, rangeOverElements);
+          consequence.setTrees(derivedTrees);
+        }
         logItemGeneration(consequence);
         consequences.add(consequence);
       }
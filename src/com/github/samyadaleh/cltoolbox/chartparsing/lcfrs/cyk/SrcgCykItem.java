@@ -10,21 +10,24 @@ import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
 public class SrcgCykItem extends AbstractChartItem implements ChartItemInterface {
 
   public SrcgCykItem(String nt, int i, int j) {
-    this.itemForm = new String[3];
-    this.itemForm[0] = nt;
-    this.itemForm[1] = String.valueOf(i);
-    this.itemForm[2] = String.valueOf(j);
+    super(new String[] {nt, String.valueOf(i), String.valueOf(j)});
   }
 
   public SrcgCykItem(String nt, List<Integer> ranges) {
-    this.itemForm = new String[ranges.size() + 1];
-    this.itemForm[0] = nt;
+    super(toItemForm(nt, ranges));
+  }
+
+  private static String[] toItemForm(String nt, List<Integer> ranges) {
+    String[] itemForm = new String[ranges.size() + 1];
+    itemForm[0] = nt;
     for (int i = 0; i < ranges.size(); i++) {
-      this.itemForm[i + 1] = String.valueOf(ranges.get(i));
+      itemForm[i + 1] = String.valueOf(ranges.get(i));
     }
+    return itemForm;
   }
 
   @Override public String toString() {
+    String[] itemForm = getItemForm();
     StringBuilder builder = new StringBuilder();
     builder.append("[").append(itemForm[0]).append(", (");
     for (int i = 0; i * 2 + 2 < itemForm.length; i++) {
@@ -40,13 +40,17 @@ public class SrcgCykUnary extends AbstractDynamicDeductionRule {
         if (overallRanges.size() > 0) {
           List<Integer> newVector = (List<Integer>) SrcgDeductionUtils
               .getRangesForArguments(overallRanges, clause.getLhs());
-          List<Tree> derivedTrees = generateDerivatedTrees(overallRanges);
           ChartItemInterface consequence =
               new SrcgCykItem(clause.getLhs().getNonterminal(), newVector);
-          consequence.setTrees(derivedTrees);
+          if (buildTrees) {
+            List<Tree> derivedTrees = generateDerivatedTrees(overallRanges);
+            consequence.setTrees(derivedTrees);
+          }
           consequences.add(consequence);
           logItemGeneration(consequence);
-          this.name = "complete " + clause.toString();
+          if (recordNames) {
+            this.name = "complete " + clause.toString();
+          }
         }
       }
 
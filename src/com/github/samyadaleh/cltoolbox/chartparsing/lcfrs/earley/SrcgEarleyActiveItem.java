@@ -1,6 +1,7 @@
 package com.github.samyadaleh.cltoolbox.chartparsing.lcfrs.earley;
 
 import java.text.ParseException;
+import java.util.Arrays;
 import java.util.List;
 
 import com.github.samyadaleh.cltoolbox.chartparsing.item.AbstractChartItem;
@@ -20,13 +21,8 @@ public class SrcgEarleyActiveItem extends AbstractChartItem implements ChartItem
    * lhs. */
   public SrcgEarleyActiveItem(String clause, int pos, int i, int j,
     RangeVector p) {
-    String[] pRanges = p.getRangesAsPlainArray();
-    this.itemForm = new String[pRanges.length + 4];
-    this.itemForm[0] = clause;
-    this.itemForm[1] = String.valueOf(pos);
-    this.itemForm[2] = String.valueOf(i);
-    this.itemForm[3] = String.valueOf(j);
-    System.arraycopy(pRanges, 0, this.itemForm, 4, pRanges.length);
+    super(toItemForm(clause, pos, i, j,
+      Arrays.asList(p.getRangesAsPlainArray())));
     this.p = p;
   }
 
@@ -34,19 +30,26 @@ public class SrcgEarleyActiveItem extends AbstractChartItem implements ChartItem
    * of conversions. */
   SrcgEarleyActiveItem(String clause, int pos, int i, int j,
     List<String> rangeVector) {
-    this.itemForm = new String[rangeVector.size() + 4];
-    this.itemForm[0] = clause;
-    this.itemForm[1] = String.valueOf(pos);
-    this.itemForm[2] = String.valueOf(i);
-    this.itemForm[3] = String.valueOf(j);
+    super(toItemForm(clause, pos, i, j, rangeVector));
+  }
+
+  private static String[] toItemForm(String clause, int pos, int i, int j,
+    List<String> rangeVector) {
+    String[] itemForm = new String[rangeVector.size() + 4];
+    itemForm[0] = clause;
+    itemForm[1] = String.valueOf(pos);
+    itemForm[2] = String.valueOf(i);
+    itemForm[3] = String.valueOf(j);
     int k = 4;
     for (String range : rangeVector) {
       itemForm[k] = range;
       k++;
     }
+    return itemForm;
   }
 
   @Override public String toString() {
+    String[] itemForm = getItemForm();
     String[] clauseSplit = itemForm[0].split("->");
     try {
       Clause clause = new Clause(clauseSplit[0], clauseSplit[1]);
@@ -52,8 +52,10 @@ public class SrcgEarleyComplete
         String nt2 = rhsPred.getNonterminal();
         if (vectorsMatch && itemForm1[itemForm1.length - 2].equals(pos2) && nt
             .equals(nt2)) {
-          this.name =
-              "complete " + clause2Parsed.getLhs().getSymAt(iInt2, jInt2);
+          if (recordNames) {
+            this.name =
+                "complete " + clause2Parsed.getLhs().getSymAt(iInt2, jInt2);
+          }
           String posB = itemForm1[itemForm1.length - 1];
           int posBInt = Integer.parseInt(posB);
           ArrayList<String> newVector = new ArrayList<>();
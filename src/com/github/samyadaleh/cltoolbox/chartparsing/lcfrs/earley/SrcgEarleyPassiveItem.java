@@ -11,16 +11,22 @@ class SrcgEarleyPassiveItem extends AbstractChartItem implements ChartItemInterf
 
   SrcgEarleyPassiveItem(String nt,
     List<String> newVector) {
-    this.itemForm = new String[newVector.size() + 1];
-    this.itemForm[0] = nt;
+    super(toItemForm(nt, newVector));
+  }
+
+  private static String[] toItemForm(String nt, List<String> newVector) {
+    String[] itemForm = new String[newVector.size() + 1];
+    itemForm[0] = nt;
     int i = 1;
     for (String entry : newVector) {
       itemForm[i] = entry;
       i++;
     }
+    return itemForm;
   }
 
   @Override public String toString() {
+    String[] itemForm = getItemForm();
     StringBuilder builder = new StringBuilder();
     builder.append("[").append(itemForm[0]);
     for (int i = 0; i*2+2 <itemForm.length; i++){
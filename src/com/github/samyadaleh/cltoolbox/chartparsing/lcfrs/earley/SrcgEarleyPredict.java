@@ -46,17 +46,19 @@ public class SrcgEarleyPredict extends AbstractDynamicDeductionRule {
                   new SrcgEarleyActiveItem(outClause.toString(),
                       Integer.parseInt(itemForm[1]), 1, 0, new RangeVector(
                       outClause.getLhs().getSymbolsAsPlainArray().length));
-              List<Tree> derivedTrees = new ArrayList<>();
-              Tree derivedTreeBase = TreeUtils.getTreeOfSrcgClause(outClause);
-              for (Tree tree : antecedences.get(0).getTrees()) {
-                try {
-                  derivedTrees.add(TreeUtils
-                      .performLeftmostSubstitution(tree, derivedTreeBase));
-                } catch (IndexOutOfBoundsException e) {
-                  log.debug(e.getMessage(), e);
+              if (buildTrees) {
+                List<Tree> derivedTrees = new ArrayList<>();
+                Tree derivedTreeBase = TreeUtils.getTreeOfSrcgClause(outClause);
+                for (Tree tree : antecedences.get(0).getTrees()) {
+                  try {
+                    derivedTrees.add(TreeUtils
+                        .performLeftmostSubstitution(tree, derivedTreeBase));
+                  } catch (IndexOutOfBoundsException e) {
+                    log.debug(e.getMessage(), e);
+                  }
                 }
+                consequence.setTrees(derivedTrees);
               }
-              consequence.setTrees(derivedTrees);
               logItemGeneration(consequence);
               consequences.add(consequence);
             }
@@ -40,7 +40,9 @@ public class SrcgEarleyScan extends AbstractDynamicDeductionRule {
         if (clauseParsed.getLhs().ifSymExists(iInt, jInt)
             && posInt < wSplit.length && clauseParsed.getLhsSymAt(iInt, jInt)
             .equals(wSplit[posInt])) {
-          this.name = "scan " + wSplit[posInt];
+          if (recordNames) {
+            this.name = "scan " + wSplit[posInt];
+          }
           ArrayList<String> newVector = new ArrayList<>();
           for (int k = 0; k * 2 + 5 < itemForm.length; k++) {
             newVector.add(itemForm[2 * k + 4]);
@@ -51,13 +53,15 @@ public class SrcgEarleyScan extends AbstractDynamicDeductionRule {
           ChartItemInterface consequence =
               new SrcgEarleyActiveItem(itemForm[0], posInt + 1, iInt, jInt + 1,
                   newVector);
-          List<Tree> derivedTrees = new ArrayList<>();
-          for (Tree tree : antecedences.get(0).getTrees()) {
-            derivedTrees.add(TreeUtils
-                .performPositionSubstitution(tree, wSplit[posInt],
-                    itemForm[1]));
+          if (buildTrees) {
+            List<Tree> derivedTrees = new ArrayList<>();
+            for (Tree tree : antecedences.get(0).getTrees()) {
+              derivedTrees.add(TreeUtils
+                  .performPositionSubstitution(tree, wSplit[posInt],
+                      itemForm[1]));
+            }
+            consequence.setTrees(derivedTrees);
           }
-          consequence.setTrees(derivedTrees);
           logItemGeneration(consequence);
           consequences.add(consequence);
         }
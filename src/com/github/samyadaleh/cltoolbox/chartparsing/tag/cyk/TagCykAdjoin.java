@@ -42,27 +42,33 @@ public class TagCykAdjoin extends AbstractDynamicDecutionRuleTwoAntecedences {
       && node1.equals("⊤") && node2.endsWith("⊥")) {
       ChartItemInterface consequence = new DeductionChartItem(treeName2,
         node2.substring(0, node2.length() - 1) + "⊤", i, f1b, f2b, j);
-      List<Tree> derivatedTrees = new ArrayList<>();
-      if (Arrays.equals(itemForm1, antecedences.get(0).getItemForm())) {
-        for (Tree tree1 : antecedences.get(0).getTrees()) {
-          for (Tree tree2 : antecedences.get(1).getTrees()) {
-            derivatedTrees
-              .add(tree2.adjoin(node2.substring(0, node2.length() - 1), tree1));
+      if (buildTrees) {
+        List<Tree> derivatedTrees = new ArrayList<>();
+        if (Arrays.equals(itemForm1, antecedences.get(0).getItemForm())) {
+          for (Tree tree1 : antecedences.get(0).getTrees()) {
+            for (Tree tree2 : antecedences.get(1).getTrees()) {
+              derivatedTrees
+                .add(tree2.adjoin(node2.substring(0, node2.length() - 1),
+                  tree1));
+            }
           }
-        }
-      } else {
-        for (Tree tree1 : antecedences.get(0).getTrees()) {
-          for (Tree tree2 : antecedences.get(1).getTrees()) {
-            derivatedTrees
-              .add(tree1.adjoin(node2.substring(0, node2.length() - 1), tree2));
+        } else {
+          for (Tree tree1 : antecedences.get(0).getTrees()) {
+            for (Tree tree2 : antecedences.get(1).getTrees()) {
+              derivatedTrees
+                .add(tree1.adjoin(node2.substring(0, node2.length() - 1),
+                  tree2));
+            }
           }
         }
+        consequence.setTrees(derivatedTrees);
+      }
+      if (recordNames) {
+        String node2Name = (node2.length() > 1)
+            ? node2.substring(0, node2.length() - 1) : "ε";
+        this.name =
+            "adjoin " + treeName2 + "[" + node2Name + "," + treeName1 + "]";
       }
-      String node2Name =
-          (node2.length() > 1) ? node2.substring(0, node2.length() - 1) : "ε";
-      this.name =
-          "adjoin " + treeName2 + "[" + node2Name + "," + treeName1 + "]";
-      consequence.setTrees(derivatedTrees);
       logItemGeneration(consequence);
       consequences.add(consequence);
     }
@@ -41,14 +41,18 @@ public class TagCykSubstitute extends AbstractDynamicDeductionRule {
             .getLabel())) {
         ChartItemInterface consequence = new DeductionChartItem(this.treeName,
           this.nodeGorn + "⊤", i, "-", "-", j);
-        Tree derivedTreeBase = tag.getTree(this.treeName);
-        List<Tree> derivedTrees = new ArrayList<>();
-        for (Tree tree : antecedences.get(0).getTrees()) {
-          derivedTrees.add(derivedTreeBase.substitute(this.nodeGorn, tree));
+        if (buildTrees) {
+          Tree derivedTreeBase = tag.getTree(this.treeName);
+          List<Tree> derivedTrees = new ArrayList<>();
+          for (Tree tree : antecedences.get(0).getTrees()) {
+            derivedTrees.add(derivedTreeBase.substitute(this.nodeGorn, tree));
+          }
+          consequence.setTrees(derivedTrees);
+        }
+        if (recordNames) {
+          this.name = "substitute " + this.treeName + "[" + this.nodeGorn + ","
+              + treeName + "]";
         }
-        consequence.setTrees(derivedTrees);
-        this.name = "substitute " + this.treeName + "[" + this.nodeGorn + ","
-            + treeName + "]";
         logItemGeneration(consequence);
         consequences.add(consequence);
       }
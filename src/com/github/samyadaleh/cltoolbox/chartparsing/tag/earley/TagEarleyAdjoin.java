@@ -5,6 +5,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.AbstractDynamicDecutionRuleTwoAntecedences;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.IndexedDynamicDeductionRuleInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.DeductionChartItem;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
 import com.github.samyadaleh.cltoolbox.common.tag.Tag;
@@ -15,7 +16,8 @@ import com.github.samyadaleh.cltoolbox.common.tag.Tree;
  * been adjoined.
  */
 public class TagEarleyAdjoin
-  extends AbstractDynamicDecutionRuleTwoAntecedences {
+  extends AbstractDynamicDecutionRuleTwoAntecedences
+  implements IndexedDynamicDeductionRuleInterface {
 
   private final Tag tag;
 
@@ -50,30 +52,72 @@ public class TagEarleyAdjoin
         && pos2.equals("rb") && j1.equals(j2)) {
         ChartItemInterface consequence =
           new DeductionChartItem(treeName2, node2, "rb", i, g, h, l, "1");
-        List<Tree> derivedTrees = new ArrayList<>();
-        if (Arrays.equals(antecedences.get(0).getItemForm(), itemForm1)) {
-          for (Tree tree1 : antecedences.get(1).getTrees()) {
-            for (Tree tree2 : antecedences.get(0).getTrees()) {
-              derivedTrees.add(tree1.adjoin(node2, tree2));
+        if (buildTrees) {
+          List<Tree> derivedTrees = new ArrayList<>();
+          if (Arrays.equals(antecedences.get(0).getItemForm(), itemForm1)) {
+            for (Tree tree1 : antecedences.get(1).getTrees()) {
+              for (Tree tree2 : antecedences.get(0).getTrees()) {
+                derivedTrees.add(tree1.adjoin(node2, tree2));
+              }
             }
-          }
-        } else {
-          for (Tree tree1 : antecedences.get(1).getTrees()) {
-            for (Tree tree2 : antecedences.get(0).getTrees()) {
-              derivedTrees.add(tree2.adjoin(node2, tree1));
+          } else {
+            for (Tree tree1 : antecedences.get(1).getTrees()) {
+              for (Tree tree2 : antecedences.get(0).getTrees()) {
+                derivedTrees.add(tree2.adjoin(node2, tree1));
+              }
             }
           }
+          consequence.setTrees(derivedTrees);
+        }
+        if (recordNames) {
+          String node2name = node2.length() == 0 ? "ε" : node2;
+          this.name =
+              "adjoin " + treeName2 + "[" + node2name + "," + treeName1 + "]";
         }
-        consequence.setTrees(derivedTrees);
-        String node2name = node2.length() == 0 ? "ε" : node2;
-        this.name =
-            "adjoin " + treeName2 + "[" + node2name + "," + treeName1 + "]";
         logItemGeneration(consequence);
         consequences.add(consequence);
       }
     }
   }
 
+  /**
+   * Items of completely recognized auxiliary trees are stored under the
+   * position where their foot starts, items of nodes where the adjunction may
+   * take place under the position where they start.
+   */
+  @Override public List<String> getIndexKeys(ChartItemInterface item) {
+    String[] itemForm = item.getItemForm();
+    List<String> keys = new ArrayList<>();
+    if (isAuxiliaryRootItem(itemForm)) {
+      keys.add("tag [β,ε,ra,?," + itemForm[4] + ",?,?,0]");
+    }
+    if (isAdjunctionSiteItem(itemForm)) {
+      keys.add("tag [ɣ,p,rb," + itemForm[3] + ",?,?,?,0]");
+    }
+    return keys;
+  }
+
+  @Override public List<String> getPartnerKeys(ChartItemInterface item) {
+    String[] itemForm = item.getItemForm();
+    List<String> keys = new ArrayList<>();
+    if (isAuxiliaryRootItem(itemForm)) {
+      keys.add("tag [ɣ,p,rb," + itemForm[4] + ",?,?,?,0]");
+    }
+    if (isAdjunctionSiteItem(itemForm)) {
+      keys.add("tag [β,ε,ra,?," + itemForm[3] + ",?,?,0]");
+    }
+    return keys;
+  }
+
+  private static boolean isAuxiliaryRootItem(String[] itemForm) {
+    return itemForm[1].equals("") && itemForm[2].equals("ra") && itemForm[7]
+      .equals("0");
+  }
+
+  private static boolean isAdjunctionSiteItem(String[] itemForm) {
+    return itemForm[2].equals("rb") && itemForm[7].equals("0");
+  }
+
   @Override public String toString() {
     return "[β,ε,ra,i,j,k,l,0], [ɣ,p,rb,j,g,h,k,0]" + "\n______ β ∈ f_SA(ɣ,p)\n"
       + "[ɣ,p,rb,i,g,h,l,1]";
@@ -39,9 +39,11 @@ public class TagEarleyPredictAdjoinable extends AbstractDynamicDeductionRule {
       if (adjoinable && itemForm[2].equals("la") && itemForm[7].equals("0")) {
         ChartItemInterface consequence =
           new DeductionChartItem(auxTreeName, "", "la", l, "-", "-", l, "0");
-        List<Tree> derivedTrees = new ArrayList<>();
-        derivedTrees.add(tag.getAuxiliaryTree(auxTreeName));
-        consequence.setTrees(derivedTrees);
+        if (buildTrees) {
+          List<Tree> derivedTrees = new ArrayList<>();
+          derivedTrees.add(tag.getAuxiliaryTree(auxTreeName));
+          consequence.setTrees(derivedTrees);
+        }
         logItemGeneration(consequence);
         consequences.add(consequence);
       }
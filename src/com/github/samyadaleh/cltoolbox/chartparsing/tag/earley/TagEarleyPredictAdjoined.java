@@ -45,9 +45,11 @@ public class TagEarleyPredictAdjoined extends AbstractDynamicDeductionRule {
         && itemForm[4].equals("-") && itemForm[5].equals("-")) {
         ChartItemInterface consequence =
           new DeductionChartItem(outTreeName, outNode, "lb", l, "-", "-", l, "0");
-        List<Tree> derivedTrees = new ArrayList<>();
-        derivedTrees.add(tag.getTree(outTreeName));
-        consequence.setTrees(derivedTrees);
+        if (buildTrees) {
+          List<Tree> derivedTrees = new ArrayList<>();
+          derivedTrees.add(tag.getTree(outTreeName));
+          consequence.setTrees(derivedTrees);
+        }
         logItemGeneration(consequence);
         consequences.add(consequence);
       }
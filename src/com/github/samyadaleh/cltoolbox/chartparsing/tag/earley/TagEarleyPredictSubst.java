@@ -51,9 +51,11 @@ public class TagEarleyPredictSubst extends AbstractDynamicDeductionRule {
         && substNodeLabel.equals(iniTreeRootLabel)) {
         ChartItemInterface consequence =
           new DeductionChartItem(iniTreeName, "", "la", i1, "-", "-", i1, "0");
-        List<Tree> derivedTrees = new ArrayList<>();
-        derivedTrees.add(tag.getInitialTree(iniTreeName));
-        consequence.setTrees(derivedTrees);
+        if (buildTrees) {
+          List<Tree> derivedTrees = new ArrayList<>();
+          derivedTrees.add(tag.getInitialTree(iniTreeName));
+          consequence.setTrees(derivedTrees);
+        }
         logItemGeneration(consequence);
         consequences.add(consequence);
       }
@@ -35,7 +35,9 @@ public class TagEarleyScanTerm extends AbstractDynamicDeductionRule {
       if (lInt < wSplit.length && itemForm[2].equals("la") && itemForm[7]
           .equals("0") && tag.getTree(treeName).getNodeByGornAdress(node)
           .getLabel().equals(wSplit[lInt])) {
-        this.name = "scan " + wSplit[lInt];
+        if (recordNames) {
+          this.name = "scan " + wSplit[lInt];
+        }
         ChartItemInterface consequence =
             new DeductionChartItem(treeName, node, "ra", itemForm[3],
                 itemForm[4], itemForm[5], String.valueOf(lInt + 1), "0");
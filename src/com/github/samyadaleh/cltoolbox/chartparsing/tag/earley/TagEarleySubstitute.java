@@ -49,18 +49,23 @@ public class TagEarleySubstitute extends AbstractDynamicDeductionRule {
         && pos.equals("ra") && iniTreeRootLabel.equals(substNodeLabel)) {
         ChartItemInterface consequence =
           new DeductionChartItem(outTreeName, outNode, "rb", i, "-", "-", j, "0");
-        Tree derivedTreeBase = tag.getTree(outTreeName);
-        List<Tree> derivedTrees = new ArrayList<>();
-        for (Tree tree : antecedences.get(0).getTrees()) {
-          derivedTrees
-            .add(TreeUtils.performLeftmostSubstitution(derivedTreeBase, tree));
+        if (buildTrees) {
+          Tree derivedTreeBase = tag.getTree(outTreeName);
+          List<Tree> derivedTrees = new ArrayList<>();
+          for (Tree tree : antecedences.get(0).getTrees()) {
+            derivedTrees
+              .add(TreeUtils
+                .performLeftmostSubstitution(derivedTreeBase, tree));
+          }
+          consequence.setTrees(derivedTrees);
         }
         // imagine a tree with 1 node where you would substitute into the root
         // ...
-        String outNodeName = outNode.length() == 0 ? "ε" : outNode;
-        this.name = "substitute " + outTreeName + "[" + outNodeName + ","
-            + treeName + "]";
-        consequence.setTrees(derivedTrees);
+        if (recordNames) {
+          String outNodeName = outNode.length() == 0 ? "ε" : outNode;
+          this.name = "substitute " + outTreeName + "[" + outNodeName + ","
+              + treeName + "]";
+        }
         logItemGeneration(consequence);
         consequences.add(consequence);
       }
@@ -51,8 +51,12 @@ public class TagEarleyPrefixValidAdjoin extends
       ChartItemInterface consequence =
           new DeductionChartItem(treeName2, node2, "rb", "~", iGamma1, j2, k2,
               l1, "1");
-      generateDerivatedTrees(itemForm1, node2, consequence);
-      this.name = "adjoin " + treeName2 + "[" + node2 + "," + treeName1 + "]";
+      if (buildTrees) {
+        generateDerivatedTrees(itemForm1, node2, consequence);
+      }
+      if (recordNames) {
+        this.name = "adjoin " + treeName2 + "[" + node2 + "," + treeName1 + "]";
+      }
       logItemGeneration(consequence);
       consequences.add(consequence);
     }
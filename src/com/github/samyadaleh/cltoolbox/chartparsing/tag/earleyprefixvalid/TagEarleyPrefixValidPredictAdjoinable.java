@@ -36,9 +36,11 @@ public class TagEarleyPrefixValidPredictAdjoinable
         ChartItemInterface consequence =
             new DeductionChartItem(auxTreeName, "", "la", l, l, "-", "-", l,
                 "0");
-        List<Tree> derivedTrees = new ArrayList<>();
-        derivedTrees.add(tag.getAuxiliaryTree(auxTreeName));
-        consequence.setTrees(derivedTrees);
+        if (buildTrees) {
+          List<Tree> derivedTrees = new ArrayList<>();
+          derivedTrees.add(tag.getAuxiliaryTree(auxTreeName));
+          consequence.setTrees(derivedTrees);
+        }
         logItemGeneration(consequence);
         consequences.add(consequence);
       }
@@ -40,10 +40,11 @@ public class TagEarleyPrefixValidPredictAdjoined
             new DeductionChartItem(treeName2, node2, "lb", iGamma2, m, "-", "-",
                 m, "0");
         List<Tree> derivedTrees = generateDerivatedTrees(itemForm1);
-        String node2name = node2.length() == 0 ? "ε" : node2;
-        this.name =
-            "predict adjoined " + treeName2 + "[" + node2name + "," + treeName1
-                + "]";
+        if (recordNames) {
+          String node2name = node2.length() == 0 ? "ε" : node2;
+          this.name = "predict adjoined " + treeName2 + "[" + node2name + ","
+              + treeName1 + "]";
+        }
         consequence.setTrees(derivedTrees);
         logItemGeneration(consequence);
         consequences.add(consequence);
@@ -37,9 +37,11 @@ public class TagEarleyPrefixValidPredictSubst
         ChartItemInterface consequence =
             new DeductionChartItem(iniTreeName, "", "la", l, l, "-", "-", l,
                 "0");
-        List<Tree> derivedTrees = new ArrayList<>();
-        derivedTrees.add(tag.getInitialTree(iniTreeName));
-        consequence.setTrees(derivedTrees);
+        if (buildTrees) {
+          List<Tree> derivedTrees = new ArrayList<>();
+          derivedTrees.add(tag.getInitialTree(iniTreeName));
+          consequence.setTrees(derivedTrees);
+        }
         logItemGeneration(consequence);
         consequences.add(consequence);
       }
@@ -28,7 +28,9 @@ public class TagEarleyPrefixValidScanTerm extends AbstractDynamicDeductionRule {
       if (lInt < wSplit.length && itemForm[2].equals("la") && itemForm[8]
           .equals("0") && tag.getTree(treeName).getNodeByGornAdress(node)
           .getLabel().equals(wSplit[lInt])) {
-        this.name = "scan " + wSplit[lInt];
+        if (recordNames) {
+          this.name = "scan " + wSplit[lInt];
+        }
         ChartItemInterface consequence =
             new DeductionChartItem(treeName, node, "ra", itemForm[3],
                 itemForm[4], itemForm[5], itemForm[6], String.valueOf(lInt + 1),
@@ -45,10 +45,14 @@ public class TagEarleyPrefixValidSubstitute
       ChartItemInterface consequence =
           new DeductionChartItem(treeName1, node1, "rb", "~", l1, "-", "-",
               itemForm2[7], "0");
-      List<Tree> derivedTrees = generateDerivatedTrees(itemForm1);
-      consequence.setTrees(derivedTrees);
-      this.name =
-          "substitute " + treeName1 + "[" + node1 + "," + treeName2 + "]";
+      if (buildTrees) {
+        List<Tree> derivedTrees = generateDerivatedTrees(itemForm1);
+        consequence.setTrees(derivedTrees);
+      }
+      if (recordNames) {
+        this.name =
+            "substitute " + treeName1 + "[" + node1 + "," + treeName2 + "]";
+      }
       logItemGeneration(consequence);
       consequences.add(consequence);
     }
@@ -0,0 +1,137 @@
+package com.github.samyadaleh.cltoolbox.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.CorpusParser;
+import com.github.samyadaleh.cltoolbox.chartparsing.ParseResult;
+
+/**
+ * Parses the lines of a corpus on a pool of workers and writes one JSON
+ * record per sentence in input order. Only a few sentences per worker are read
+ * ahead of the oldest one not written yet, so memory doesn't grow with the
+ * size of the corpus. Blank lines are skipped, records carry the line number.
+ */
+class CorpusRunner {
+  /** Sentences read ahead per worker. */
+  private static final int READ_AHEAD = 4;
+  private final CorpusParser parser;
+  private final int workers;
+
+  CorpusRunner(CorpusParser parser, int workers) {
+    this.parser = parser;
+    this.workers = workers;
+  }
+
+  /** Parses all lines of in, writes the records to out. */
+  void run(BufferedReader in, Writer out) throws IOException {
+    ExecutorService pool = Executors.newFixedThreadPool(workers);
+    Deque<Future<String>> pending = new ArrayDeque<>();
+    try {
+      String line;
+      int lineNumber = 0;
+      while ((line = in.readLine()) != null) {
+        lineNumber++;
+        String sentence = line.trim().replaceAll("\\s+", " ");
+        if (sentence.isEmpty()) {
+          continue;
+        }
+        if (pending.size() >= workers * READ_AHEAD) {
+          writeNext(pending, out);
+        }
+        int number = lineNumber;
+        pending.add(pool.submit(() -> parseToRecord(number, sentence)));
+      }
+      while (!pending.isEmpty()) {
+        writeNext(pending, out);
+      }
+    } finally {
+      pool.shutdownNow();
+      out.flush();
+    }
+  }
+
+  /**
+   * Waits for the oldest pending sentence and writes its record. Flushes
+   * before waiting so records show up while the workers are busy.
+   */
+  private static void writeNext(Deque<Future<String>> pending, Writer out)
+      throws IOException {
+    Future<String> next = pending.poll();
+    if (!next.isDone()) {
+      out.flush();
+    }
+    try {
+      out.write(next.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while parsing corpus.");
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+    out.write('\n');
+  }
+
+  private String parseToRecord(int line, String sentence) {
+    try {
+      return toRecord(line, parser.parse(sentence));
+    } catch (Exception e) {
+      return "{\"line\":" + line + ",\"sentence\":" + quote(sentence)
+          + ",\"error\":" + quote(String.valueOf(e.getMessage())) + "}";
+    }
+  }
+
+  /**
+   * Returns the result as JSON object with line number, sentence, recognized
+   * flag, best tree in bracketed form or null, number of chart items and
+   * parse time in milliseconds.
+   */
+  static String toRecord(int line, ParseResult result) {
+    String tree = result.getTrees().isEmpty() ? "null"
+        : quote(result.getTrees().get(0).toString());
+    return "{\"line\":" + line + ",\"sentence\":" + quote(result.getSentence())
+        + ",\"recognized\":" + result.isRecognized() + ",\"tree\":" + tree
+        + ",\"items\":" + result.getItemCount() + ",\"ms\":" + String
+        .format(Locale.ROOT, "%.3f", result.getNanos() / 1000000.0) + "}";
+  }
+
+  /** Returns s as JSON string literal. */
+  static String quote(String s) {
+    StringBuilder quoted = new StringBuilder("\"");
+    for (char c : s.toCharArray()) {
+      switch (c) {
+      case '"':
+        quoted.append("\\\"");
+        break;
+      case '\\':
+        quoted.append("\\\\");
+        break;
+      case '\n':
+        quoted.append("\\n");
+        break;
+      case '\t':
+        quoted.append("\\t");
+        break;
+      case '\r':
+        quoted.append("\\r");
+        break;
+      default:
+        if (c < 0x20) {
+          quoted.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+        } else {
+          quoted.append(c);
+        }
+      }
+    }
+    return quoted.append('"').toString();
+  }
+}
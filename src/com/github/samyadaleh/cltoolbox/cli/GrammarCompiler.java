@@ -0,0 +1,207 @@
+package com.github.samyadaleh.cltoolbox.cli;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.CompiledGrammarInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.GrammarToDeductionRulesConverter;
+import com.github.samyadaleh.cltoolbox.common.AbstractNTSGrammar;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+import com.github.samyadaleh.cltoolbox.common.cfg.Pcfg;
+import com.github.samyadaleh.cltoolbox.common.lcfrs.Srcg;
+import com.github.samyadaleh.cltoolbox.common.parser.CfgGrammarParser;
+import com.github.samyadaleh.cltoolbox.common.parser.PcfgGrammarParser;
+import com.github.samyadaleh.cltoolbox.common.parser.SrcgGrammarParser;
+import com.github.samyadaleh.cltoolbox.common.parser.TagGrammarParser;
+import com.github.samyadaleh.cltoolbox.common.tag.Tag;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.text.ParseException;
+
+/**
+ * Reads grammar files and converts grammars to the formalism and form a
+ * parsing algorithm needs before compiling them for that algorithm. Remembers
+ * the TAG of the last conversion, the trace table displays its trees.
+ */
+class GrammarCompiler {
+  private static final Logger log = LogManager.getLogger();
+  /** If set, grammars that don't fit an algorithm are converted. */
+  private final boolean please;
+  private Tag tag = null;
+
+  GrammarCompiler(boolean please) {
+    this.please = please;
+  }
+
+  /**
+   * Reads a grammar file in the format its extension names, returns null for
+   * unknown extensions.
+   */
+  static AbstractNTSGrammar readGrammar(String grammarFile)
+      throws IOException, ParseException {
+    String[] grammarFileSplit = grammarFile.split("[.]");
+    try (BufferedReader grammarReader = new BufferedReader(
+        new FileReader(grammarFile))) {
+      AbstractNTSGrammar grammar;
+      switch (grammarFileSplit[grammarFileSplit.length - 1]) {
+      case "cfg":
+        grammar = CfgGrammarParser.parseCfgReader(grammarReader);
+        break;
+      case "pcfg":
+        grammar = PcfgGrammarParser.parsePcfgReader(grammarReader);
+        break;
+      case "tag":
+        grammar = TagGrammarParser.parseTagReader(grammarReader);
+        break;
+      case "srcg":
+        grammar = SrcgGrammarParser.parseSrcgReader(grammarReader);
+        break;
+      default:
+        log.warn("Unknown file format of file " + grammarFile);
+        return null;
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("Grammar read from file: " + grammar.toString());
+      }
+      return grammar;
+    }
+  }
+
+  /**
+   * Converts the grammar as needed and compiles it for the algorithm. Returns
+   * null if the grammar can't be converted or the algorithm is unknown, throws
+   * IllegalArgumentException if the formalisms don't fit.
+   */
+  CompiledGrammarInterface compile(AbstractNTSGrammar grammar,
+      String algorithm) throws ParseException {
+    tag = grammar instanceof Tag ? (Tag) grammar : null;
+    if (grammar instanceof Cfg) {
+      return compileCfg((Cfg) grammar, algorithm);
+    } else if (grammar instanceof Pcfg) {
+      return compilePcfg((Pcfg) grammar, algorithm);
+    } else if (grammar instanceof Tag) {
+      return compileTag((Tag) grammar, algorithm);
+    } else if (grammar instanceof Srcg) {
+      return compileSrcg((Srcg) grammar, algorithm);
+    }
+    return null;
+  }
+
+  /** Returns the TAG the last compiled grammar was or was converted to. */
+  Tag getTag() {
+    return this.tag;
+  }
+
+  private CompiledGrammarInterface compileSrcg(Srcg srcg, String algorithm)
+      throws ParseException {
+    String[] algorithmSplit = algorithm.split("-");
+    switch (algorithmSplit[0]) {
+    case "cfg":
+      throw new IllegalArgumentException(
+          "I can't parse with a less expressive formalism.");
+    case "pcfg":
+      throw new IllegalArgumentException(
+          "I can't parse with a less expressive formalism.");
+    case "tag":
+      throw new IllegalArgumentException(
+          "I can't parse with a less expressive formalism.");
+    case "srcg":
+      return compileConverted(GrammarToGrammarConverter
+          .checkAndMayConvertToSrcg(srcg, algorithm, please), algorithm);
+    default:
+      throw new IllegalArgumentException("I don't know formalism \"" + algorithm
+          + "\", please check the spelling.");
+    }
+  }
+
+  private CompiledGrammarInterface compileTag(Tag tag, String algorithm)
+      throws ParseException {
+    String[] algorithmSplit = algorithm.split("-");
+    switch (algorithmSplit[0]) {
+    case "cfg":
+      throw new IllegalArgumentException(
+          "I can't parse with a less expressive formalism.");
+    case "pcfg":
+      throw new IllegalArgumentException(
+          "I can't parse with a less expressive formalism.");
+    case "tag":
+      return compileConverted(GrammarToGrammarConverter
+          .checkAndMayConvertToTag(tag, algorithm, please), algorithm);
+    case "srcg":
+      throw new IllegalArgumentException(
+          "I can't convert a tree language to a string language.");
+    default:
+      throw new IllegalArgumentException("I don't know formalism \"" + algorithm
+          + "\", please check the spelling.");
+    }
+  }
+
+  private CompiledGrammarInterface compilePcfg(Pcfg pcfg, String algorithm)
+      throws ParseException {
+    String[] algorithmSplit = algorithm.split("-");
+    switch (algorithmSplit[0]) {
+    case "cfg":
+      return compileConverted(GrammarToGrammarConverter
+          .checkAndMayConvertToCfg(pcfg, algorithm, please), algorithm);
+    case "pcfg":
+      return compileConverted(GrammarToGrammarConverter
+          .checkAndMayConvertToPcfg(pcfg, algorithm, please), algorithm);
+    case "tag":
+      return compileConverted(GrammarToGrammarConverter
+          .checkAndMayConvertToTag(pcfg, algorithm, please), algorithm);
+    case "srcg":
+      return compileConverted(GrammarToGrammarConverter
+          .checkAndMayConvertToSrcg(pcfg, algorithm, please), algorithm);
+    default:
+      throw new IllegalArgumentException("I don't know formalism \"" + algorithm
+          + "\", please check the spelling.");
+    }
+  }
+
+  private CompiledGrammarInterface compileCfg(Cfg cfg, String algorithm)
+      throws ParseException {
+    String[] algorithmSplit = algorithm.split("-");
+    switch (algorithmSplit[0]) {
+    case "cfg":
+      return compileConverted(GrammarToGrammarConverter
+          .checkAndMayConvertToCfg(cfg, algorithm, please), algorithm);
+    case "tag":
+      return compileConverted(GrammarToGrammarConverter
+          .checkAndMayConvertToTag(cfg, algorithm, please), algorithm);
+    case "pcfg":
+      return compileConverted(GrammarToGrammarConverter
+          .checkAndMayConvertToPcfg(cfg, algorithm, please), algorithm);
+    case "srcg":
+      return compileConverted(GrammarToGrammarConverter
+          .checkAndMayConvertToSrcg(cfg, algorithm, please), algorithm);
+    default:
+      throw new IllegalArgumentException("I don't know formalism \"" + algorithm
+          + "\", please check the spelling.");
+    }
+  }
+
+  /**
+   * Compiles the grammar that was converted for the algorithm, null if the
+   * conversion failed.
+   */
+  private CompiledGrammarInterface compileConverted(AbstractNTSGrammar grammar,
+      String algorithm) {
+    if (grammar == null) {
+      return null;
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Grammar after conversion: " + grammar.toString());
+    }
+    if (grammar instanceof Cfg) {
+      return GrammarToDeductionRulesConverter.compile((Cfg) grammar, algorithm);
+    } else if (grammar instanceof Pcfg) {
+      return GrammarToDeductionRulesConverter
+          .compile((Pcfg) grammar, algorithm);
+    } else if (grammar instanceof Tag) {
+      tag = (Tag) grammar;
+      return GrammarToDeductionRulesConverter.compile((Tag) grammar, algorithm);
+    }
+    return GrammarToDeductionRulesConverter.compile((Srcg) grammar, algorithm);
+  }
+}
@@ -30,6 +30,7 @@ class GrammarToGrammarConverter {
     case "cfg-cyk-extended":
       return getCfgForCykExtended(cfg, please);
     case "cfg-cyk-general":
+    case "cfg-lalr-1":
       return cfg;
     case "cfg-unger":
       return getCfgForLeftCorner(cfg, please);
@@ -1,18 +1,21 @@
 package com.github.samyadaleh.cltoolbox.cli;
 
+import com.github.samyadaleh.cltoolbox.chartparsing.CorpusParser;
 import com.github.samyadaleh.cltoolbox.chartparsing.Deduction;
 import com.github.samyadaleh.cltoolbox.chartparsing.ParsingSchema;
 import com.github.samyadaleh.cltoolbox.chartparsing.StaticDeductionRule;
-import com.github.samyadaleh.cltoolbox.chartparsing.converter.GrammarToDeductionRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.agenda.AgendaFactory;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.CompiledGrammarInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToLrKRulesConverter;
 import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.DynamicDeductionRuleInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.forest.ParseForest;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+import com.github.samyadaleh.cltoolbox.common.AbstractNTSGrammar;
 import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
 import com.github.samyadaleh.cltoolbox.common.cfg.Pcfg;
-import com.github.samyadaleh.cltoolbox.common.lcfrs.Srcg;
-import com.github.samyadaleh.cltoolbox.common.parser.CfgGrammarParser;
-import com.github.samyadaleh.cltoolbox.common.parser.PcfgGrammarParser;
-import com.github.samyadaleh.cltoolbox.common.parser.SrcgGrammarParser;
-import com.github.samyadaleh.cltoolbox.common.parser.TagGrammarParser;
+import com.github.samyadaleh.cltoolbox.common.cfg.util.ExpectedCounts;
+import com.github.samyadaleh.cltoolbox.common.cfg.util.InsideOutside;
+import com.github.samyadaleh.cltoolbox.common.parser.PcfgGrammarWriter;
 import com.github.samyadaleh.cltoolbox.common.tag.Tag;
 import com.github.samyadaleh.cltoolbox.common.tag.Tree;
 import com.github.samyadaleh.cltoolbox.gui.DisplayTree;
@@ -22,10 +25,21 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Entry point into toolbox for the calls by command line
@@ -35,11 +49,18 @@ class Main { // NO_UCD (test only)
   private static boolean success = false;
   private static boolean please = false;
   private static boolean javafx = false;
+  private static String agendaStrategy = null;
+  private static boolean recognize = false;
+  private static boolean lazy = false;
+  private static boolean forest = false;
+  private static int kBest = 0;
+  private static int threads = 1;
+  private static int workers = Runtime.getRuntime().availableProcessors();
+  private static int iterations = 10;
   private static ParsingSchema schema = null;
-  private static Cfg cfg;
+  /** The grammar converted for the algorithm, instantiated per sentence. */
+  private static CompiledGrammarInterface compiled = null;
   private static Tag tag = null;
-  private static Srcg srcg;
-  private static Pcfg pcfg;
   private static final Logger log = LogManager.getLogger();
 
   /**
@@ -47,6 +68,18 @@ class Main { // NO_UCD (test only)
    * help about the what arguments to use.
    */
   public static void main(String[] args) {
+    if (args.length > 0 && args[0].equals("corpus")) {
+      parseCorpus(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+    if (args.length > 0 && args[0].equals("server")) {
+      serve(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+    if (args.length > 0 && args[0].equals("train")) {
+      train(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
     logCall(args);
     if (args.length < 3) {
       printHelp();
@@ -54,18 +87,15 @@ class Main { // NO_UCD (test only)
     }
     String grammarFile = args[0];
     String w = args[1];
-    String algorithm = args[2];
-    if (algorithm.equals("srcg-cyk")) {
-      log.info("Using srcg-cyk-extended instead.");
-      algorithm = "srcg-cyk-extended";
-    } else if (algorithm.equals("tag-cyk")) {
-      log.info("Using tag-cyk-extended instead.");
-      algorithm = "tag-cyk-extended";
-    }
-    handleOptionalParameters(args);
+    String algorithm = getAlgorithm(args[2]);
+    handleOptionalParameters(args, 3);
     JfxWindowHolder jwh = new JfxWindowHolder();
+    schema = null;
     try {
-      parseGrammarFileAndConvertToParsingSchema(grammarFile, w, algorithm);
+      parseGrammarFileAndCompile(grammarFile, algorithm);
+      if (compiled != null) {
+        schema = compiled.instantiate(w);
+      }
     } catch (IOException | ParseException e) {
       log.error(e.getMessage(), e);
       return;
@@ -73,18 +103,39 @@ class Main { // NO_UCD (test only)
       log.warn(e.getMessage(), e);
     }
     logParsingSchema();
-    Deduction deduction = new Deduction();
-    if (algorithm.equals("pcfg-astar")) {
-      deduction.setReplace('l');
-    } else if (algorithm.equals("pcfg-cyk")) {
-      deduction.setReplace('l');
+    if (agendaStrategy != null && schema != null) {
+      try {
+        schema.setAgenda(AgendaFactory
+            .createAgenda(agendaStrategy, algorithm.startsWith("pcfg")));
+      } catch (IllegalArgumentException e) {
+        log.error(e.getMessage(), e);
+        return;
+      }
     }
+    Deduction deduction = createDeduction(algorithm);
+    deduction.setKeepAlternatives(kBest > 0);
+    deduction.setParallelism(threads);
     try {
       log.info(deduction.doParse(schema, success));
     } catch (ParseException e) {
       log.error(e.getMessage(), e);
       return;
     }
+    if (recognize) {
+      return;
+    }
+    if (forest) {
+      ParseForest parseForest = deduction.getParseForest();
+      log.info(parseForest.toString());
+      log.info("derivations: " + parseForest.countDerivations());
+      return;
+    }
+    if (kBest > 0) {
+      for (Tree tree : deduction.getKBestTrees(kBest)) {
+        log.info(tree.toString());
+      }
+      return;
+    }
     if (displayParsingTraceTable(jwh, deduction))
       return;
     if (schema != null) {
@@ -96,6 +147,204 @@ class Main { // NO_UCD (test only)
     }
   }
 
+  /**
+   * Parses each line of a corpus file, or of stdin if the file is "-", with
+   * the grammar converted once. Writes one record per sentence to stdout in
+   * input order, the sentences are parsed by a pool of workers.
+   */
+  private static void parseCorpus(String[] args) {
+    if (log.isDebugEnabled()) {
+      log.debug("Corpus call: " + String.join(" ", args));
+    }
+    if (args.length < 3) {
+      printHelp();
+      return;
+    }
+    String grammarFile = args[0];
+    String corpusFile = args[1];
+    String algorithm = getAlgorithm(args[2]);
+    handleOptionalParameters(args, 3);
+    try {
+      parseGrammarFileAndCompile(grammarFile, algorithm);
+    } catch (IOException | ParseException | IllegalArgumentException e) {
+      log.error(e.getMessage(), e);
+      return;
+    }
+    if (compiled == null) {
+      return;
+    }
+    if (agendaStrategy != null) {
+      try {
+        AgendaFactory.createAgenda(agendaStrategy, false);
+      } catch (IllegalArgumentException e) {
+        log.error(e.getMessage(), e);
+        return;
+      }
+    }
+    CompiledGrammarInterface grammar = compiled;
+    String strategy = agendaStrategy;
+    CompiledGrammarInterface withAgenda = strategy == null ? grammar : w -> {
+      ParsingSchema sentenceSchema = grammar.instantiate(w);
+      if (sentenceSchema != null) {
+        sentenceSchema.setAgenda(AgendaFactory
+            .createAgenda(strategy, algorithm.startsWith("pcfg")));
+      }
+      return sentenceSchema;
+    };
+    Supplier<Deduction> deductions = () -> createDeduction(algorithm);
+    CorpusParser parser = new CorpusParser(withAgenda, deductions);
+    parser.setMaxTrees(recognize ? 0 : 1);
+    Writer out = new BufferedWriter(
+        new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+    try (BufferedReader in = corpusFile.equals("-") ? new BufferedReader(
+        new InputStreamReader(System.in, StandardCharsets.UTF_8))
+        : new BufferedReader(new FileReader(corpusFile))) {
+      new CorpusRunner(parser, workers).run(in, out);
+    } catch (IOException e) {
+      log.error(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Loads the grammar files once and answers parse requests on a local port
+   * until the process is stopped. Grammars are named by their file name
+   * without extension, or with it if two files share the name.
+   */
+  private static void serve(String[] args) {
+    if (log.isDebugEnabled()) {
+      log.debug("Server call: " + String.join(" ", args));
+    }
+    if (args.length < 2) {
+      printHelp();
+      return;
+    }
+    handleOptionalParameters(args, 1);
+    int port;
+    try {
+      port = Integer.parseInt(args[0]);
+    } catch (NumberFormatException e) {
+      log.error("Port has to be a number: " + args[0], e);
+      return;
+    }
+    Map<String, AbstractNTSGrammar> grammars = new LinkedHashMap<>();
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].startsWith("--")) {
+        continue;
+      }
+      try {
+        AbstractNTSGrammar grammar = GrammarCompiler.readGrammar(args[i]);
+        if (grammar != null) {
+          String fileName = new File(args[i]).getName();
+          String name = fileName.substring(0, fileName.lastIndexOf('.'));
+          grammars.put(grammars.containsKey(name) ? fileName : name, grammar);
+        }
+      } catch (IOException | ParseException e) {
+        log.error(e.getMessage(), e);
+        return;
+      }
+    }
+    ParseServer server = new ParseServer(grammars, please, lazy, workers);
+    try {
+      log.info("Listening on port " + server.start(port) + " with grammars "
+          + grammars.keySet());
+      server.awaitClose();
+    } catch (IOException e) {
+      log.error(e.getMessage(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      server.close();
+    }
+  }
+
+  /**
+   * Estimates the rule probabilities of the grammar from the sentences of a
+   * corpus file by expectation maximization with the inside-outside algorithm
+   * and writes the trained PCFG. A CFG starts with uniform probabilities. The
+   * sentences of each iteration are counted by the workers in parallel.
+   */
+  private static void train(String[] args) {
+    if (log.isDebugEnabled()) {
+      log.debug("Train call: " + String.join(" ", args));
+    }
+    if (args.length < 3) {
+      printHelp();
+      return;
+    }
+    String corpusFile = args[1];
+    String outputFile = args[2];
+    handleOptionalParameters(args, 3);
+    Pcfg pcfg;
+    try {
+      AbstractNTSGrammar grammar = GrammarCompiler.readGrammar(args[0]);
+      if (grammar instanceof Pcfg) {
+        pcfg = GrammarToGrammarConverter
+            .checkAndMayConvertToPcfg((Pcfg) grammar, "pcfg-cyk", please);
+      } else if (grammar instanceof Cfg) {
+        pcfg = GrammarToGrammarConverter
+            .checkAndMayConvertToPcfg((Cfg) grammar, "pcfg-cyk", please);
+      } else {
+        log.info("Training needs a CFG or a PCFG.");
+        return;
+      }
+    } catch (IOException | ParseException e) {
+      log.error(e.getMessage(), e);
+      return;
+    }
+    if (pcfg == null) {
+      return;
+    }
+    try {
+      for (int i = 1; i <= iterations; i++) {
+        InsideOutside insideOutside = new InsideOutside(pcfg);
+        ExpectedCounts counts;
+        try (BufferedReader in = new BufferedReader(
+            new FileReader(corpusFile))) {
+          counts = insideOutside.expectedCounts(in.lines().iterator(), workers);
+        }
+        log.info("Iteration " + i + ": log likelihood "
+            + counts.getLogLikelihood() + " of " + counts.getSentences()
+            + " sentences, " + counts.getSkipped() + " skipped");
+        pcfg = insideOutside.reestimate(counts);
+      }
+      try (Writer out = new BufferedWriter(new FileWriter(outputFile))) {
+        PcfgGrammarWriter.writePcfg(pcfg, out);
+      }
+    } catch (IOException e) {
+      log.error(e.getMessage(), e);
+    }
+  }
+
+  /** Returns a Deduction configured by the options for the algorithm. */
+  private static Deduction createDeduction(String algorithm) {
+    return createDeduction(algorithm, recognize, lazy);
+  }
+
+  /** Returns a Deduction configured for the algorithm. */
+  static Deduction createDeduction(String algorithm, boolean recognize,
+      boolean lazy) {
+    Deduction deduction = new Deduction();
+    if (algorithm.equals("pcfg-astar")) {
+      deduction.setReplace('l');
+    } else if (algorithm.equals("pcfg-cyk")) {
+      deduction.setReplace('l');
+    }
+    deduction.setRecognizeOnly(recognize);
+    deduction.setLazyTrees(lazy);
+    return deduction;
+  }
+
+  static String getAlgorithm(String algorithm) {
+    if (algorithm.equals("srcg-cyk")) {
+      log.info("Using srcg-cyk-extended instead.");
+      return "srcg-cyk-extended";
+    } else if (algorithm.equals("tag-cyk")) {
+      log.info("Using tag-cyk-extended instead.");
+      return "tag-cyk-extended";
+    }
+    return algorithm;
+  }
+
   private static boolean displayParsingTraceTable(JfxWindowHolder jwh,
       Deduction deduction) {
     String[][] data = deduction.printTrace();
@@ -161,11 +410,21 @@ class Main { // NO_UCD (test only)
     }
   }
 
-  private static void handleOptionalParameters(String[] args) {
+  /** Reads the options from args, starting at index first. */
+  private static void handleOptionalParameters(String[] args, int first) {
     success = false;
     please = false;
     javafx = false;
-    for (int i = 3; i < args.length; i++) {
+    agendaStrategy = null;
+    recognize = false;
+    lazy = false;
+    forest = false;
+    kBest = 0;
+    threads = 1;
+    workers = Runtime.getRuntime().availableProcessors();
+    iterations = 10;
+    CfgToLrKRulesConverter.setTableCacheDirectory(null);
+    for (int i = first; i < args.length; i++) {
       if (args[i].equals("--success")) {
         success = true;
       } else if (args[i].equals("--please")) {
@@ -174,216 +433,73 @@ class Main { // NO_UCD (test only)
       if (args[i].equals("--javafx")) {
         javafx = true;
       }
-    }
-  }
-
-  private static void parseGrammarFileAndConvertToParsingSchema(
-      String grammarFile, String w, String algorithm)
-      throws IOException, ParseException {
-    String[] grammarFileSplit = grammarFile.split("[.]");
-    BufferedReader grammarReader =
-        new BufferedReader(new FileReader(grammarFile));
-    switch (grammarFileSplit[grammarFileSplit.length - 1]) {
-    case "cfg":
-      parseCfgFileAndConvertToSchema(grammarReader, w, algorithm);
-      break;
-    case "pcfg":
-      parsePcfgFileAndConvertToSchema(grammarReader, w, algorithm);
-      break;
-    case "tag":
-      parseTagFileAndConvertToSchema(grammarReader, w, algorithm);
-      break;
-    case "srcg":
-      parseSrcgFileAndConvertToSchema(grammarReader, w, algorithm);
-      break;
-    default:
-      log.warn("Unknown file format of file " + grammarFile);
-    }
-  }
-
-  private static void parseSrcgFileAndConvertToSchema(
-      BufferedReader grammarFile, String w, String algorithm)
-      throws IOException, ParseException {
-    srcg = SrcgGrammarParser.parseSrcgReader(grammarFile);
-    if (log.isDebugEnabled()) {
-      log.debug("Grammar read from file: " + srcg.toString());
-    }
-    String[] algorithmSplit = algorithm.split("-");
-    switch (algorithmSplit[0]) {
-    case "cfg":
-      throw new IllegalArgumentException(
-          "I can't parse with a less expressive formalism.");
-    case "pcfg":
-      throw new IllegalArgumentException(
-          "I can't parse with a less expressive formalism.");
-    case "tag":
-      throw new IllegalArgumentException(
-          "I can't parse with a less expressive formalism.");
-    case "srcg":
-      srcg = GrammarToGrammarConverter
-          .checkAndMayConvertToSrcg(srcg, algorithm, please);
-      if (srcg != null) {
-        if (log.isDebugEnabled()) {
-          log.debug("Grammar after conversion: " + srcg.toString());
-        }
-        schema = GrammarToDeductionRulesConverter
-            .convertToSchema(srcg, w, algorithm);
+      if (args[i].equals("--recognize")) {
+        recognize = true;
       }
-      break;
-    default:
-      throw new IllegalArgumentException("I don't know formalism \"" + algorithm
-          + "\", please check the spelling.");
-    }
-  }
-
-  private static void parseTagFileAndConvertToSchema(BufferedReader grammarFile,
-      String w, String algorithm) throws IOException, ParseException {
-    tag = TagGrammarParser.parseTagReader(grammarFile);
-    if (log.isDebugEnabled()) {
-      log.debug("Grammar read from file: " + tag.toString());
-    }
-    String[] algorithmSplit = algorithm.split("-");
-    switch (algorithmSplit[0]) {
-    case "cfg":
-      throw new IllegalArgumentException(
-          "I can't parse with a less expressive formalism.");
-    case "pcfg":
-      throw new IllegalArgumentException(
-          "I can't parse with a less expressive formalism.");
-    case "tag":
-      tag = GrammarToGrammarConverter
-          .checkAndMayConvertToTag(tag, algorithm, please);
-      if (tag != null) {
-        if (log.isDebugEnabled()) {
-          log.debug("Grammar after conversion: " + tag.toString());
-        }
-        schema =
-            GrammarToDeductionRulesConverter.convertToSchema(tag, w, algorithm);
-      }
-      break;
-    case "srcg":
-      throw new IllegalArgumentException(
-          "I can't convert a tree language to a string language.");
-    default:
-      throw new IllegalArgumentException("I don't know formalism \"" + algorithm
-          + "\", please check the spelling.");
-    }
-  }
-
-  private static void parsePcfgFileAndConvertToSchema(
-      BufferedReader grammarFile, String w, String algorithm)
-      throws IOException, ParseException {
-    pcfg = PcfgGrammarParser.parsePcfgReader(grammarFile);
-    if (log.isDebugEnabled()) {
-      log.debug("Grammar read from file: " + pcfg.toString());
-    }
-    String[] algorithmSplit = algorithm.split("-");
-    switch (algorithmSplit[0]) {
-    case "cfg":
-      cfg = GrammarToGrammarConverter
-          .checkAndMayConvertToCfg(pcfg, algorithm, please);
-      if (cfg != null) {
-        if (log.isDebugEnabled()) {
-          log.debug("Grammar after conversion: " + cfg.toString());
-        }
-        schema =
-            GrammarToDeductionRulesConverter.convertToSchema(cfg, w, algorithm);
+      if (args[i].equals("--lazy")) {
+        lazy = true;
       }
-      break;
-    case "pcfg":
-      pcfg = GrammarToGrammarConverter
-          .checkAndMayConvertToPcfg(pcfg, algorithm, please);
-      if (pcfg != null) {
-        if (log.isDebugEnabled()) {
-          log.debug("Grammar after conversion: " + pcfg.toString());
-        }
-        schema = GrammarToDeductionRulesConverter
-            .convertToSchema(pcfg, w, algorithm);
+      if (args[i].equals("--forest")) {
+        forest = true;
       }
-      break;
-    case "tag":
-      tag = GrammarToGrammarConverter
-          .checkAndMayConvertToTag(pcfg, algorithm, please);
-      if (tag != null) {
-        if (log.isDebugEnabled()) {
-          log.debug("Grammar after conversion: " + tag.toString());
+      if (args[i].startsWith("--kbest=")) {
+        try {
+          kBest = Integer.parseInt(args[i].substring("--kbest=".length()));
+        } catch (NumberFormatException e) {
+          log.error("k of --kbest has to be a number: " + args[i], e);
         }
-        schema =
-            GrammarToDeductionRulesConverter.convertToSchema(tag, w, algorithm);
       }
-      break;
-    case "srcg":
-      srcg = GrammarToGrammarConverter
-          .checkAndMayConvertToSrcg(pcfg, algorithm, please);
-      if (srcg != null) {
-        if (log.isDebugEnabled()) {
-          log.debug("Grammar after conversion: " + srcg.toString());
+      if (args[i].startsWith("--threads=")) {
+        try {
+          threads = Math.max(1,
+              Integer.parseInt(args[i].substring("--threads=".length())));
+        } catch (NumberFormatException e) {
+          log.error("n of --threads has to be a number: " + args[i], e);
         }
-        schema = GrammarToDeductionRulesConverter
-            .convertToSchema(srcg, w, algorithm);
       }
-      break;
-    default:
-      throw new IllegalArgumentException("I don't know formalism \"" + algorithm
-          + "\", please check the spelling.");
-    }
-  }
-
-  private static void parseCfgFileAndConvertToSchema(BufferedReader grammarFile,
-      String w, String algorithm) throws IOException, ParseException {
-    cfg = CfgGrammarParser.parseCfgReader(grammarFile);
-    if (log.isDebugEnabled()) {
-      log.debug("Grammar read from file: " + cfg.toString());
-    }
-    String[] algorithmSplit = algorithm.split("-");
-    switch (algorithmSplit[0]) {
-    case "cfg":
-      cfg = GrammarToGrammarConverter
-          .checkAndMayConvertToCfg(cfg, algorithm, please);
-      if (cfg != null) {
-        if (log.isDebugEnabled()) {
-          log.debug("Grammar after conversion: " + cfg.toString());
+      if (args[i].startsWith("--workers=")) {
+        try {
+          workers = Math.max(1,
+              Integer.parseInt(args[i].substring("--workers=".length())));
+        } catch (NumberFormatException e) {
+          log.error("n of --workers has to be a number: " + args[i], e);
         }
-        schema =
-            GrammarToDeductionRulesConverter.convertToSchema(cfg, w, algorithm);
       }
-      break;
-    case "tag":
-      tag = GrammarToGrammarConverter
-          .checkAndMayConvertToTag(cfg, algorithm, please);
-      if (tag != null) {
-        if (log.isDebugEnabled()) {
-          log.debug("Grammar after conversion: " + tag.toString());
+      if (args[i].startsWith("--iterations=")) {
+        try {
+          iterations = Math.max(1,
+              Integer.parseInt(args[i].substring("--iterations=".length())));
+        } catch (NumberFormatException e) {
+          log.error("n of --iterations has to be a number: " + args[i], e);
         }
-        schema =
-            GrammarToDeductionRulesConverter.convertToSchema(tag, w, algorithm);
       }
-      break;
-    case "pcfg":
-      pcfg = GrammarToGrammarConverter
-          .checkAndMayConvertToPcfg(cfg, algorithm, please);
-      if (pcfg != null) {
-        if (log.isDebugEnabled()) {
-          log.debug("Grammar after conversion: " + pcfg.toString());
-        }
-        schema = GrammarToDeductionRulesConverter
-            .convertToSchema(pcfg, w, algorithm);
+      if (args[i].startsWith("--agenda=")) {
+        agendaStrategy = args[i].substring("--agenda=".length());
       }
-      break;
-    case "srcg":
-      srcg = GrammarToGrammarConverter
-          .checkAndMayConvertToSrcg(cfg, algorithm, please);
-      if (srcg != null) {
-        if (log.isDebugEnabled()) {
-          log.debug("Grammar after conversion: " + srcg.toString());
-        }
-        schema = GrammarToDeductionRulesConverter
-            .convertToSchema(srcg, w, algorithm);
+      if (args[i].startsWith("--cache=")) {
+        CfgToLrKRulesConverter.setTableCacheDirectory(
+            new File(args[i].substring("--cache=".length())));
       }
-      break;
-    default:
-      throw new IllegalArgumentException("I don't know formalism \"" + algorithm
-          + "\", please check the spelling.");
+    }
+  }
+
+  /**
+   * Reads the grammar, converts it as needed for the algorithm and sets the
+   * compiled grammar, null if the grammar can't be used.
+   */
+  private static void parseGrammarFileAndCompile(String grammarFile,
+      String algorithm) throws IOException, ParseException {
+    compiled = null;
+    tag = null;
+    AbstractNTSGrammar grammar = GrammarCompiler.readGrammar(grammarFile);
+    if (grammar == null) {
+      return;
+    }
+    GrammarCompiler compiler = new GrammarCompiler(please);
+    try {
+      compiled = compiler.compile(grammar, algorithm);
+    } finally {
+      tag = compiler.getTag();
     }
   }
 
@@ -408,6 +524,7 @@ class Main { // NO_UCD (test only)
         + "\n   cfg-earley-passive" + "\n   cfg-leftcorner"
         + "\n   cfg-leftcorner-chart" + "\n   cfg-topdown"
         + "\n   cfg-shiftreduce" + "\n   cfg-lr-k   (with k >=0)"
+        + "\n   cfg-lalr-1"
         + "\n   cfg-unger" + "\n   pcfg-astar" + "\n   tag-cyk-extended"
         + "\n   tag-cyk-general" + "\n   tag-earley"
         + "\n   tag-earley-prefixvalid" + "\n   srcg-cyk-extended"
@@ -417,7 +534,40 @@ class Main { // NO_UCD (test only)
             + "that lead to a goal item."
             + "\n   --please : if a grammar doesn't fit an "
             + "algorithm, ask me to convert it. No promises."
-            + "\n   --javafx : display graphics with javafx instead of awt.");
+            + "\n   --javafx : display graphics with javafx instead of awt."
+            + "\n   --agenda=<fifo|lifo|priority> : order in which items are "
+            + "explored, priority prefers the best weighted items."
+            + "\n   --recognize : only print whether the input is accepted, "
+            + "without trace or trees."
+            + "\n   --lazy : build the derived trees from the trace after "
+            + "parsing instead of during parsing."
+            + "\n   --forest : print the packed parse forest and the number "
+            + "of derivations instead of trace and trees."
+            + "\n   --kbest=<k> : print the k best trees of a weighted "
+            + "parse instead of trace and trees."
+            + "\n   --threads=<n> : apply the rules with n threads, ignored "
+            + "for weighted parses."
+            + "\n   --workers=<n> : in corpus mode parse n sentences at once, "
+            + "default is the number of processors. In server mode the "
+            + "number of parses at once. In train mode the number of "
+            + "threads counting sentences."
+            + "\n   --iterations=<n> : in train mode the number of EM "
+            + "iterations, default is 10."
+            + "\n   --cache=<dir> : store LR(k) parse tables in dir and "
+            + "reuse them for the same grammar and k.");
+    log.info("Corpus mode: corpus [grammar file] [corpus file or - for stdin] "
+        + "[parsing algorithm] [<optional parameters>] parses each line and "
+        + "prints one JSON record per line to stdout in input order.");
+    log.info("Server mode: server [port] [grammar files] "
+        + "[<optional parameters>] loads the grammars once and answers "
+        + "requests on localhost, one per line: PARSE [grammar] [parsing "
+        + "algorithm] [input string], RECOGNIZE [grammar] [parsing algorithm] "
+        + "[input string], STATS, PING or QUIT. The grammar is named by its "
+        + "file name without extension, answers are JSON records.");
+    log.info("Train mode: train [grammar file] [corpus file] [output file] "
+        + "[<optional parameters>] estimates the rule probabilities of a CFG "
+        + "or PCFG in Chomsky Normal Form from the sentences of the corpus "
+        + "with the inside-outside algorithm and writes the PCFG.");
     log.info(
         "example: java -jar CL-Toolbox.jar ..\\resources\\grammars\\anbn.cfg "
             + "\"a a b b\" cfg-topdown --success");
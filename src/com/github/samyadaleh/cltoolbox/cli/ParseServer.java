@@ -0,0 +1,247 @@
+package com.github.samyadaleh.cltoolbox.cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.CorpusParser;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.CompiledGrammarInterface;
+import com.github.samyadaleh.cltoolbox.common.AbstractNTSGrammar;
+
+/**
+ * Answers parse requests on a local port with grammars that were read once.
+ * Each grammar is converted and compiled for an algorithm on its first
+ * request and kept for all later ones. Every connection gets its own thread,
+ * the parses themselves run on a pool of workers. The protocol is one request
+ * per line and one answer per line:
+ * <ul>
+ * <li>PARSE grammar algorithm sentence: JSON record with the best tree</li>
+ * <li>RECOGNIZE grammar algorithm sentence: JSON record without tree</li>
+ * <li>STATS: JSON object with counters of the server</li>
+ * <li>PING: PONG</li>
+ * <li>QUIT: closes the connection</li>
+ * </ul>
+ * Failed requests are answered with a JSON object with an error field.
+ */
+class ParseServer {
+  private static final Logger log = LogManager.getLogger();
+  private final Map<String, AbstractNTSGrammar> grammars;
+  /**
+   * Compilations by grammar name and algorithm, including the failed ones.
+   */
+  private final Map<String, FutureTask<CompiledGrammarInterface>> compiled =
+      new ConcurrentHashMap<>();
+  private final boolean please;
+  private final boolean lazy;
+  private final ExecutorService parsers;
+  private final ExecutorService connections =
+      Executors.newCachedThreadPool();
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong errors = new AtomicLong();
+  private final AtomicInteger openConnections = new AtomicInteger();
+  private final long startTime = System.currentTimeMillis();
+  private ServerSocket serverSocket;
+  private Thread acceptor;
+
+  ParseServer(Map<String, AbstractNTSGrammar> grammars, boolean please,
+      boolean lazy, int workers) {
+    this.grammars = grammars;
+    this.please = please;
+    this.lazy = lazy;
+    this.parsers = Executors.newFixedThreadPool(workers);
+  }
+
+  /**
+   * Starts listening on the loopback address, port 0 picks a free port.
+   * Returns the port.
+   */
+  int start(int port) throws IOException {
+    serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    acceptor = new Thread(this::acceptConnections, "parse-server");
+    acceptor.start();
+    return serverSocket.getLocalPort();
+  }
+
+  /** Waits until the server is closed. */
+  void awaitClose() throws InterruptedException {
+    acceptor.join();
+  }
+
+  /** Stops accepting connections and closes the open ones. */
+  void close() {
+    try {
+      if (serverSocket != null) {
+        serverSocket.close();
+      }
+    } catch (IOException e) {
+      log.warn(e.getMessage(), e);
+    }
+    connections.shutdownNow();
+    parsers.shutdownNow();
+  }
+
+  private void acceptConnections() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket socket = serverSocket.accept();
+        connections.execute(() -> serve(socket));
+      } catch (SocketException e) {
+        if (!serverSocket.isClosed()) {
+          log.error(e.getMessage(), e);
+        }
+      } catch (IOException e) {
+        log.error(e.getMessage(), e);
+      }
+    }
+  }
+
+  /** Answers the requests of one connection until QUIT or end of input. */
+  private void serve(Socket socket) {
+    openConnections.incrementAndGet();
+    try (Socket s = socket;
+        BufferedReader in = new BufferedReader(
+            new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+        Writer out = new BufferedWriter(
+            new OutputStreamWriter(s.getOutputStream(),
+                StandardCharsets.UTF_8))) {
+      String line;
+      int requestNumber = 0;
+      while ((line = in.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty()) {
+          continue;
+        }
+        if (line.equalsIgnoreCase("QUIT")) {
+          break;
+        }
+        out.write(handle(++requestNumber, line));
+        out.write('\n');
+        out.flush();
+      }
+    } catch (InterruptedIOException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      log.debug(e.getMessage(), e);
+    } finally {
+      openConnections.decrementAndGet();
+    }
+  }
+
+  /** Returns the answer to one request line. */
+  String handle(int requestNumber, String line) {
+    String[] request = line.split("\\s+", 4);
+    switch (request[0].toUpperCase(Locale.ROOT)) {
+    case "PING":
+      return "PONG";
+    case "STATS":
+      return stats();
+    case "PARSE":
+      return parse(requestNumber, request, false);
+    case "RECOGNIZE":
+      return parse(requestNumber, request, true);
+    default:
+      errors.incrementAndGet();
+      return error("Unknown request " + request[0]
+          + ", expected PARSE, RECOGNIZE, STATS, PING or QUIT.");
+    }
+  }
+
+  private String parse(int requestNumber, String[] request,
+      boolean recognize) {
+    requests.incrementAndGet();
+    if (request.length < 4) {
+      errors.incrementAndGet();
+      return error("Expected " + request[0] + " [grammar] [parsing algorithm] "
+          + "[input string].");
+    }
+    String sentence = request[3].trim().replaceAll("\\s+", " ");
+    try {
+      String algorithm = Main.getAlgorithm(request[2]);
+      CorpusParser parser = new CorpusParser(getCompiled(request[1], algorithm),
+          () -> Main.createDeduction(algorithm, recognize, lazy));
+      parser.setMaxTrees(recognize ? 0 : 1);
+      Future<String> record = parsers.submit(
+          () -> CorpusRunner.toRecord(requestNumber, parser.parse(sentence)));
+      return record.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      errors.incrementAndGet();
+      return error("Interrupted while parsing.");
+    } catch (ExecutionException e) {
+      errors.incrementAndGet();
+      return error(String.valueOf(e.getCause().getMessage()));
+    } catch (IllegalArgumentException e) {
+      errors.incrementAndGet();
+      return error(String.valueOf(e.getMessage()));
+    }
+  }
+
+  /**
+   * Returns the grammar compiled for the algorithm, compiles it on the first
+   * request. The compilation runs outside of the map, requests for the same
+   * grammar and algorithm wait for it and get its result or failure.
+   */
+  private CompiledGrammarInterface getCompiled(String name, String algorithm)
+      throws InterruptedException, ExecutionException {
+    AbstractNTSGrammar grammar = grammars.get(name);
+    if (grammar == null) {
+      throw new IllegalArgumentException("Unknown grammar " + name + ", known "
+          + "grammars are " + grammars.keySet());
+    }
+    String key = name + " " + algorithm;
+    FutureTask<CompiledGrammarInterface> compilation = compiled.get(key);
+    if (compilation == null) {
+      FutureTask<CompiledGrammarInterface> newCompilation =
+          new FutureTask<>(() -> {
+            // conversions may store results in the grammar
+            synchronized (grammar) {
+              return new GrammarCompiler(please).compile(grammar, algorithm);
+            }
+          });
+      compilation = compiled.putIfAbsent(key, newCompilation);
+      if (compilation == null) {
+        compilation = newCompilation;
+        compilation.run();
+      }
+    }
+    CompiledGrammarInterface result = compilation.get();
+    if (result == null) {
+      throw new IllegalArgumentException("Can't parse grammar " + name
+          + " with " + algorithm + (please ? "." : ", try --please."));
+    }
+    return result;
+  }
+
+  private String stats() {
+    return "{\"requests\":" + requests.get() + ",\"errors\":" + errors.get()
+        + ",\"connections\":" + openConnections.get() + ",\"grammars\":"
+        + grammars.size() + ",\"compiled\":" + compiled.size()
+        + ",\"uptimeMs\":" + (System.currentTimeMillis() - startTime) + "}";
+  }
+
+  private static String error(String message) {
+    return "{\"error\":" + CorpusRunner.quote(message) + "}";
+  }
+}
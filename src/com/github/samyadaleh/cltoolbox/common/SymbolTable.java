@@ -0,0 +1,41 @@
+package com.github.samyadaleh.cltoolbox.common;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Assigns consecutive int ids to symbols, so that items and rules can compare
+ * and store symbols as numbers and only need the strings for printing. Lookups
+ * are safe while other threads add symbols.
+ */
+public class SymbolTable {
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+  private final List<String> symbols = new CopyOnWriteArrayList<>();
+
+  /** Returns the id of the symbol, adds it to the table if it is new. */
+  public synchronized int intern(String symbol) {
+    Integer id = ids.get(symbol);
+    if (id == null) {
+      id = symbols.size();
+      symbols.add(symbol);
+      ids.put(symbol, id);
+    }
+    return id;
+  }
+
+  /** Returns the id of the symbol or -1 if it is not in the table. */
+  public int getId(String symbol) {
+    Integer id = ids.get(symbol);
+    return id == null ? -1 : id;
+  }
+
+  public String getSymbol(int id) {
+    return symbols.get(id);
+  }
+
+  public int size() {
+    return symbols.size();
+  }
+}
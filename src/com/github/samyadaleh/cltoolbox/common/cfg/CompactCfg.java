@@ -0,0 +1,102 @@
+package com.github.samyadaleh.cltoolbox.common.cfg;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
+
+/**
+ * The production rules of a cfg with all symbols replaced by ids of a symbol
+ * table and each rule identified by its index, so dotted rules can be stored
+ * as pair of rule id and dot position. The rhs of epsilon rules is empty.
+ */
+public class CompactCfg {
+  private final SymbolTable symbols = new SymbolTable();
+  private final List<CfgProductionRule> rules = new ArrayList<>();
+  private final Map<String, Integer> ruleIds = new HashMap<>();
+  private final int[] lhs;
+  private final int[][] rhs;
+  /** Hash codes of the strings of the dotted rules by rule and dot. */
+  private final int[][] dottedRuleHashCodes;
+
+  public CompactCfg(Cfg cfg) {
+    for (CfgProductionRule rule : cfg.getProductionRules()) {
+      if (!ruleIds.containsKey(rule.toString())) {
+        ruleIds.put(rule.toString(), rules.size());
+        rules.add(rule);
+      }
+    }
+    this.lhs = new int[rules.size()];
+    this.rhs = new int[rules.size()][];
+    for (int r = 0; r < rules.size(); r++) {
+      CfgProductionRule rule = rules.get(r);
+      lhs[r] = symbols.intern(rule.getLhs());
+      if (rule.getRhs()[0].equals("")) {
+        rhs[r] = new int[0];
+      } else {
+        rhs[r] = new int[rule.getRhs().length];
+        for (int i = 0; i < rhs[r].length; i++) {
+          rhs[r][i] = symbols.intern(rule.getRhs()[i]);
+        }
+      }
+    }
+    this.dottedRuleHashCodes = new int[rules.size()][];
+    for (int r = 0; r < rules.size(); r++) {
+      dottedRuleHashCodes[r] = new int[rhs[r].length + 1];
+      for (int dot = 0; dot <= rhs[r].length; dot++) {
+        dottedRuleHashCodes[r][dot] = dottedRuleToString(r, dot).hashCode();
+      }
+    }
+  }
+
+  public SymbolTable getSymbols() {
+    return this.symbols;
+  }
+
+  /** Returns the id of a rule of the grammar, -1 if it isn't part of it. */
+  public int getRuleId(CfgProductionRule rule) {
+    Integer id = ruleIds.get(rule.toString());
+    return id == null ? -1 : id;
+  }
+
+  /** Returns the number of distinct rules. */
+  public int getRuleCount() {
+    return this.rules.size();
+  }
+
+  public CfgProductionRule getRule(int rule) {
+    return rules.get(rule);
+  }
+
+  public int getLhs(int rule) {
+    return lhs[rule];
+  }
+
+  public int[] getRhs(int rule) {
+    return rhs[rule];
+  }
+
+  /**
+   * Returns the dotted rule in the notation of the Earley items like
+   * "S -> a •S b".
+   */
+  public String dottedRuleToString(int rule, int dot) {
+    StringBuilder builder = new StringBuilder();
+    builder.append(symbols.getSymbol(lhs[rule])).append(" ->");
+    for (int i = 0; i < rhs[rule].length; i++) {
+      builder.append(i == dot ? " •" : " ")
+        .append(symbols.getSymbol(rhs[rule][i]));
+    }
+    if (dot == rhs[rule].length) {
+      builder.append(" •");
+    }
+    return builder.toString();
+  }
+
+  /** Returns the hash code of dottedRuleToString without building it. */
+  public int dottedRuleHashCode(int rule, int dot) {
+    return dottedRuleHashCodes[rule][dot];
+  }
+}
@@ -0,0 +1,63 @@
+package com.github.samyadaleh.cltoolbox.common.cfg.util;
+
+/**
+ * Expected number of uses of each rule of a PCFG over some sentences, indexed
+ * like the production rules of the grammar, with the log likelihood of the
+ * sentences. Each thread fills its own counts, they are merged at the end.
+ */
+public class ExpectedCounts {
+  private final double[] ruleCounts;
+  private double logLikelihood = 0;
+  private int sentences = 0;
+  private int skipped = 0;
+
+  ExpectedCounts(int rules) {
+    this.ruleCounts = new double[rules];
+  }
+
+  void addRuleCount(int r, double count) {
+    ruleCounts[r] += count;
+  }
+
+  void addSentence(double sentenceLogLikelihood) {
+    logLikelihood += sentenceLogLikelihood;
+    sentences++;
+  }
+
+  void addSkipped() {
+    skipped++;
+  }
+
+  /** Adds the counts of other to these. */
+  void merge(ExpectedCounts other) {
+    for (int r = 0; r < ruleCounts.length; r++) {
+      ruleCounts[r] += other.ruleCounts[r];
+    }
+    logLikelihood += other.logLikelihood;
+    sentences += other.sentences;
+    skipped += other.skipped;
+  }
+
+  /** Returns the expected count of the rule at index r. */
+  public double getRuleCount(int r) {
+    return this.ruleCounts[r];
+  }
+
+  /** Returns the sum of the natural log probabilities of the sentences. */
+  public double getLogLikelihood() {
+    return this.logLikelihood;
+  }
+
+  /** Returns the number of sentences the grammar generates. */
+  public int getSentences() {
+    return this.sentences;
+  }
+
+  /**
+   * Returns the number of sentences the grammar doesn't generate or whose
+   * probability is out of the range of doubles.
+   */
+  public int getSkipped() {
+    return this.skipped;
+  }
+}
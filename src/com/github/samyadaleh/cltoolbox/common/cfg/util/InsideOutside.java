@@ -0,0 +1,342 @@
+package com.github.samyadaleh.cltoolbox.common.cfg.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+import com.github.samyadaleh.cltoolbox.common.cfg.Pcfg;
+import com.github.samyadaleh.cltoolbox.common.cfg.PcfgProductionRule;
+
+/**
+ * Inside-outside algorithm for PCFGs in Chomsky Normal Form. Computes the
+ * expected rule counts of a corpus and re-estimates the rule probabilities
+ * from them, one iteration of expectation maximization. To keep long
+ * sentences from underflowing, every inside and outside cell is divided by
+ * its largest value and keeps the log of the factor as its scale.
+ */
+public class InsideOutside {
+  /** Sentences a worker takes from the corpus at once. */
+  private static final int BATCH = 64;
+  private final Pcfg pcfg;
+  private final SymbolTable nonterminals = new SymbolTable();
+  private final int startSymbol;
+  private final double[] probabilities;
+  private final int[] lhs;
+  private final int[] rhs1;
+  private final int[] rhs2;
+  /** Terminal rules by token. */
+  private final Map<String, int[]> terminalRules = new HashMap<>();
+  /** Binary rules by their first rhs nonterminal. */
+  private final int[][] rulesByLeft;
+
+  public InsideOutside(Pcfg pcfg) {
+    if (!new Cfg(pcfg).isInChomskyNormalForm()) {
+      throw new IllegalArgumentException(
+          "PCFG has to be in Chomsky Normal Form.");
+    }
+    this.pcfg = pcfg;
+    startSymbol = nonterminals.intern(pcfg.getStartSymbol());
+    for (String nt : pcfg.getNonterminals()) {
+      nonterminals.intern(nt);
+    }
+    List<PcfgProductionRule> rules = pcfg.getProductionRules();
+    probabilities = new double[rules.size()];
+    lhs = new int[rules.size()];
+    rhs1 = new int[rules.size()];
+    rhs2 = new int[rules.size()];
+    Map<String, List<Integer>> byTerminal = new HashMap<>();
+    for (int r = 0; r < rules.size(); r++) {
+      PcfgProductionRule rule = rules.get(r);
+      probabilities[r] = rule.getP();
+      lhs[r] = nonterminals.intern(rule.getLhs());
+      if (rule.getRhs().length == 1) {
+        rhs1[r] = -1;
+        byTerminal.computeIfAbsent(rule.getRhs()[0], t -> new ArrayList<>())
+            .add(r);
+      } else {
+        rhs1[r] = nonterminals.intern(rule.getRhs()[0]);
+        rhs2[r] = nonterminals.intern(rule.getRhs()[1]);
+      }
+    }
+    for (Map.Entry<String, List<Integer>> entry : byTerminal.entrySet()) {
+      terminalRules.put(entry.getKey(), toArray(entry.getValue()));
+    }
+    List<List<Integer>> byLeft = new ArrayList<>();
+    for (int b = 0; b < nonterminals.size(); b++) {
+      byLeft.add(new ArrayList<>());
+    }
+    for (int r = 0; r < rules.size(); r++) {
+      if (rhs1[r] >= 0) {
+        byLeft.get(rhs1[r]).add(r);
+      }
+    }
+    rulesByLeft = new int[nonterminals.size()][];
+    for (int b = 0; b < rulesByLeft.length; b++) {
+      rulesByLeft[b] = toArray(byLeft.get(b));
+    }
+  }
+
+  /** Returns the expected rule counts of one sentence. */
+  public ExpectedCounts expectedCounts(String w) {
+    ExpectedCounts counts = new ExpectedCounts(probabilities.length);
+    addExpectedCounts(w.split(" "), counts);
+    return counts;
+  }
+
+  /**
+   * Returns the expected rule counts of all sentences, computed by the given
+   * number of threads that each count into their own ExpectedCounts. Blank
+   * sentences are skipped, whitespace is normalized.
+   */
+  public ExpectedCounts expectedCounts(Iterator<String> sentences,
+      int threads) {
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Callable<ExpectedCounts>> workers = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        workers.add(() -> {
+          ExpectedCounts counts = new ExpectedCounts(probabilities.length);
+          List<String> batch;
+          while (!(batch = nextBatch(sentences)).isEmpty()) {
+            for (String w : batch) {
+              addExpectedCounts(w.split(" "), counts);
+            }
+          }
+          return counts;
+        });
+      }
+      ExpectedCounts total = new ExpectedCounts(probabilities.length);
+      for (Future<ExpectedCounts> counts : pool.invokeAll(workers)) {
+        total.merge(counts.get());
+      }
+      return total;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /** Takes the next sentences that are not blank from the shared iterator. */
+  private static List<String> nextBatch(Iterator<String> sentences) {
+    List<String> batch = new ArrayList<>();
+    synchronized (sentences) {
+      while (batch.size() < BATCH && sentences.hasNext()) {
+        String w = sentences.next().trim().replaceAll("\\s+", " ");
+        if (!w.isEmpty()) {
+          batch.add(w);
+        }
+      }
+    }
+    return batch;
+  }
+
+  /**
+   * Returns a copy of the grammar with the probabilities of the rules of each
+   * nonterminal set to their share of its expected count. Rules of
+   * nonterminals that were not used keep their probabilities.
+   */
+  public Pcfg reestimate(ExpectedCounts counts) {
+    double[] lhsCounts = new double[nonterminals.size()];
+    for (int r = 0; r < probabilities.length; r++) {
+      lhsCounts[lhs[r]] += counts.getRuleCount(r);
+    }
+    List<PcfgProductionRule> rules = pcfg.getProductionRules();
+    String[][] newRules = new String[rules.size()][];
+    for (int r = 0; r < rules.size(); r++) {
+      double p = lhsCounts[lhs[r]] > 0
+          ? counts.getRuleCount(r) / lhsCounts[lhs[r]] : probabilities[r];
+      newRules[r] = new String[] {rules.get(r).getLhs(),
+          String.join(" ", rules.get(r).getRhs()), String.valueOf(p)};
+    }
+    Pcfg result = new Pcfg();
+    result.setNonterminals(pcfg.getNonterminals());
+    result.setTerminals(pcfg.getTerminals());
+    result.setStartSymbol(pcfg.getStartSymbol());
+    result.setProductionRules(newRules);
+    return result;
+  }
+
+  /** Adds the expected rule counts of the sentence to counts. */
+  private void addExpectedCounts(String[] wSplit, ExpectedCounts counts) {
+    int n = wSplit.length;
+    int size = nonterminals.size();
+    double[][] inside = new double[(n + 1) * (n + 1)][];
+    double[] insideScales = new double[inside.length];
+    for (int i = 0; i < n; i++) {
+      int[] scanRules = terminalRules.get(wSplit[i]);
+      if (scanRules == null) {
+        counts.addSkipped();
+        return;
+      }
+      int cellIndex = i * (n + 1) + i + 1;
+      double[] cell = new double[size];
+      for (int r : scanRules) {
+        cell[lhs[r]] += probabilities[r];
+      }
+      inside[cellIndex] = cell;
+      normalize(inside, insideScales, cellIndex);
+    }
+    for (int length = 2; length <= n; length++) {
+      for (int i = 0; i + length <= n; i++) {
+        int j = i + length;
+        int cellIndex = i * (n + 1) + j;
+        for (int k = i + 1; k < j; k++) {
+          int leftIndex = i * (n + 1) + k;
+          int rightIndex = k * (n + 1) + j;
+          double[] left = inside[leftIndex];
+          double[] right = inside[rightIndex];
+          if (left == null || right == null) {
+            continue;
+          }
+          double factor = -1;
+          for (int b = 0; b < size; b++) {
+            if (left[b] == 0) {
+              continue;
+            }
+            for (int r : rulesByLeft[b]) {
+              double rightInside = right[rhs2[r]];
+              if (rightInside != 0) {
+                if (factor < 0) {
+                  factor = align(inside, insideScales, cellIndex,
+                      insideScales[leftIndex] + insideScales[rightIndex],
+                      size);
+                }
+                inside[cellIndex][lhs[r]] +=
+                    probabilities[r] * left[b] * rightInside * factor;
+              }
+            }
+          }
+        }
+        normalize(inside, insideScales, cellIndex);
+      }
+    }
+    double[] goal = inside[n];
+    double z = goal == null ? 0 : goal[startSymbol];
+    if (z == 0 || Double.isInfinite(z) || Double.isNaN(z)) {
+      counts.addSkipped();
+      return;
+    }
+    double logZ = Math.log(z) + insideScales[n];
+    counts.addSentence(logZ);
+    double[][] outside = new double[inside.length][];
+    double[] outsideScales = new double[inside.length];
+    outside[n] = new double[size];
+    outside[n][startSymbol] = 1;
+    for (int length = n; length >= 2; length--) {
+      for (int i = 0; i + length <= n; i++) {
+        int j = i + length;
+        int cellIndex = i * (n + 1) + j;
+        double[] outsideCell = outside[cellIndex];
+        if (outsideCell == null) {
+          continue;
+        }
+        normalize(outside, outsideScales, cellIndex);
+        for (int k = i + 1; k < j; k++) {
+          int leftIndex = i * (n + 1) + k;
+          int rightIndex = k * (n + 1) + j;
+          double[] left = inside[leftIndex];
+          double[] right = inside[rightIndex];
+          if (left == null || right == null) {
+            continue;
+          }
+          double leftFactor = align(outside, outsideScales, leftIndex,
+              outsideScales[cellIndex] + insideScales[rightIndex], size);
+          double rightFactor = align(outside, outsideScales, rightIndex,
+              outsideScales[cellIndex] + insideScales[leftIndex], size);
+          double countFactor = Math.exp(outsideScales[cellIndex]
+              + insideScales[leftIndex] + insideScales[rightIndex] - logZ);
+          for (int b = 0; b < size; b++) {
+            if (left[b] == 0) {
+              continue;
+            }
+            for (int r : rulesByLeft[b]) {
+              int c = rhs2[r];
+              double weight = outsideCell[lhs[r]];
+              if (right[c] == 0 || weight == 0) {
+                continue;
+              }
+              weight *= probabilities[r];
+              outside[leftIndex][b] += weight * right[c] * leftFactor;
+              outside[rightIndex][c] += weight * left[b] * rightFactor;
+              counts.addRuleCount(r,
+                  weight * left[b] * right[c] * countFactor);
+            }
+          }
+        }
+      }
+    }
+    for (int i = 0; i < n; i++) {
+      int cellIndex = i * (n + 1) + i + 1;
+      double[] outsideCell = outside[cellIndex];
+      if (outsideCell == null) {
+        continue;
+      }
+      double countFactor = Math.exp(outsideScales[cellIndex] - logZ);
+      for (int r : terminalRules.get(wSplit[i])) {
+        counts.addRuleCount(r,
+            outsideCell[lhs[r]] * probabilities[r] * countFactor);
+      }
+    }
+  }
+
+  /**
+   * Prepares the cell for adding values of the given log scale and returns
+   * the factor to multiply them with. A cell is created with that scale, a
+   * cell with a lower one is rescaled to it.
+   */
+  private static double align(double[][] cells, double[] scales,
+      int cellIndex, double scale, int size) {
+    if (cells[cellIndex] == null) {
+      cells[cellIndex] = new double[size];
+      scales[cellIndex] = scale;
+    } else if (scale > scales[cellIndex]) {
+      double factor = Math.exp(scales[cellIndex] - scale);
+      double[] cell = cells[cellIndex];
+      for (int a = 0; a < cell.length; a++) {
+        cell[a] *= factor;
+      }
+      scales[cellIndex] = scale;
+    }
+    return Math.exp(scale - scales[cellIndex]);
+  }
+
+  /** Divides the cell by its maximum and adds the log of it to its scale. */
+  private static void normalize(double[][] cells, double[] scales,
+      int cellIndex) {
+    double[] cell = cells[cellIndex];
+    if (cell == null) {
+      return;
+    }
+    double max = 0;
+    for (double value : cell) {
+      max = Math.max(max, value);
+    }
+    if (max > 0 && !Double.isInfinite(max)) {
+      for (int a = 0; a < cell.length; a++) {
+        cell[a] /= max;
+      }
+      scales[cellIndex] += Math.log(max);
+    }
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    int[] array = new int[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = list.get(i);
+    }
+    return array;
+  }
+}
@@ -0,0 +1,33 @@
+package com.github.samyadaleh.cltoolbox.common.parser;
+
+import com.github.samyadaleh.cltoolbox.common.cfg.Pcfg;
+import com.github.samyadaleh.cltoolbox.common.cfg.PcfgProductionRule;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+public class PcfgGrammarWriter {
+
+  /**
+   * Writes the PCFG in the format PcfgGrammarParser reads. Probabilities are
+   * written without exponent because the reader splits tokens at '-'.
+   */
+  public static void writePcfg(Pcfg pcfg, Writer writer) throws IOException {
+    writer.write("N = {" + String.join(", ", pcfg.getNonterminals()) + "}\n");
+    writer.write("T = {" + String.join(", ", pcfg.getTerminals()) + "}\n");
+    writer.write("S = " + pcfg.getStartSymbol() + "\n");
+    writer.write("P = {");
+    boolean first = true;
+    for (PcfgProductionRule rule : pcfg.getProductionRules()) {
+      if (!first) {
+        writer.write(", ");
+      }
+      writer.write(BigDecimal.valueOf(rule.getP()).toPlainString() + " : "
+          + rule.getLhs() + " -> " + String.join(" ", rule.getRhs()));
+      first = false;
+    }
+    writer.write("}\n");
+    writer.flush();
+  }
+}
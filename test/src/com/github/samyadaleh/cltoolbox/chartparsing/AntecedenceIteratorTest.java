@@ -0,0 +1,51 @@
+package com.github.samyadaleh.cltoolbox.chartparsing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.item.DeductionChartItem;
+
+public class AntecedenceIteratorTest {
+  @Test public void testCombinationsWithoutTrigger() {
+    ChartItemInterface trigger = new DeductionChartItem("S", "0");
+    List<ChartItemInterface> candidates = new ArrayList<>();
+    candidates.add(new DeductionChartItem("A", "0"));
+    candidates.add(new DeductionChartItem("S", "0"));
+    candidates.add(new DeductionChartItem("B", "0"));
+    candidates.add(new DeductionChartItem("C", "0"));
+    List<String> combinations = new ArrayList<>();
+    Iterator<List<ChartItemInterface>> iterator =
+      new AntecedenceIterator(trigger, candidates, 2);
+    while (iterator.hasNext()) {
+      combinations.add(iterator.next().toString());
+    }
+    assertEquals(3, combinations.size());
+    assertEquals("[[S,0], [A,0], [B,0]]", combinations.get(0));
+    assertEquals("[[S,0], [A,0], [C,0]]", combinations.get(1));
+    assertEquals("[[S,0], [B,0], [C,0]]", combinations.get(2));
+  }
+
+  @Test public void testSingleAntecedence() {
+    ChartItemInterface trigger = new DeductionChartItem("S", "0");
+    Iterator<List<ChartItemInterface>> iterator =
+      new AntecedenceIterator(trigger, new ArrayList<>(), 0);
+    assertEquals(1, iterator.next().size());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test public void testNotEnoughCandidates() {
+    ChartItemInterface trigger = new DeductionChartItem("S", "0");
+    List<ChartItemInterface> candidates = new ArrayList<>();
+    candidates.add(trigger);
+    candidates.add(new DeductionChartItem("A", "0"));
+    assertFalse(
+      new AntecedenceIterator(trigger, candidates, 2).hasNext());
+  }
+}
@@ -0,0 +1,66 @@
+package com.github.samyadaleh.cltoolbox.chartparsing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.CompiledGrammarInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.GrammarToDeductionRulesConverter;
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+
+public class CorpusParserTest {
+
+  @Test public void testParseAll() throws ParseException {
+    List<String> corpus = Arrays.asList("a b", "a a b b", "a b b", "a a b b");
+    Cfg cfg = TestGrammarLibrary.anBnCfg();
+    for (String algorithm : new String[] {"cfg-earley", "cfg-topdown"}) {
+      List<ParseResult> results = new CorpusParser(
+          GrammarToDeductionRulesConverter.compile(cfg, algorithm))
+          .parseAll(corpus);
+      assertEquals(corpus.size(), results.size());
+      for (int i = 0; i < corpus.size(); i++) {
+        Deduction deduction = new Deduction();
+        boolean recognized = deduction.doParse(GrammarToDeductionRulesConverter
+            .convertToSchema(cfg, corpus.get(i), algorithm), false);
+        ParseResult result = results.get(i);
+        assertEquals(corpus.get(i), result.getSentence());
+        assertEquals(recognized, result.isRecognized());
+        assertEquals(deduction.getChart().size(), result.getItemCount());
+        assertEquals(recognized ? 1 : 0, result.getTrees().size());
+      }
+    }
+  }
+
+  @Test public void testCompiledGrammarsOfOtherAlgorithms()
+      throws ParseException {
+    CompiledGrammarInterface lr = GrammarToDeductionRulesConverter
+        .compile(TestGrammarLibrary.lrCfg(), "cfg-lr-1");
+    CorpusParser parser = new CorpusParser(lr);
+    assertEquals("(NP (Det (the ))(N (apple )))",
+        parser.parse("the apple").getTrees().get(0).toString());
+    assertEquals("(NP (Det (the ))(N (apple )))",
+        parser.parse("the apple").getTrees().get(0).toString());
+
+    CorpusParser astar = new CorpusParser(GrammarToDeductionRulesConverter
+        .compile(TestGrammarLibrary.niceUglyCarPcfg(), "pcfg-astar"), () -> {
+      Deduction deduction = new Deduction();
+      deduction.setReplace('l');
+      return deduction;
+    });
+    for (ParseResult result : astar.parseAll(
+        Arrays.asList("red nice ugly car", "red nice ugly car", "nice car"))) {
+      assertEquals(true, result.isRecognized());
+    }
+    assertEquals("(N (A (red ))(N (A (nice ))(N (A (ugly ))(N (car )))))",
+        astar.parse("red nice ugly car").getTrees().get(0).toString());
+
+    assertNull(GrammarToDeductionRulesConverter
+        .compile(TestGrammarLibrary.anBnCfg(), "cfg-cyk"));
+  }
+}
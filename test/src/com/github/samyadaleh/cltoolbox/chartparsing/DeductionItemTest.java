@@ -3,15 +3,28 @@ package com.github.samyadaleh.cltoolbox.chartparsing;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import org.junit.Test;
 
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.CfgCykComplete;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.CfgCykItem;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley.CfgEarleyComplete;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley.CfgEarleyItem;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.shiftreduce.CfgLrKItem;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.shiftreduce.CfgLrKTable;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToLrKRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.DynamicDeductionRuleInterface;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.DeductionChartItem;
 import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+import com.github.samyadaleh.cltoolbox.common.SymbolTable;
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+import com.github.samyadaleh.cltoolbox.common.cfg.CompactCfg;
 
 public class DeductionItemTest {
   @Test public void testItemOperations() {
@@ -30,4 +43,97 @@ public class DeductionItemTest {
     itemlist.add(item1);
     assertTrue(itemlist.contains(item2));
   }
+
+  @Test public void testItemFormCannotChange() {
+    String[] args = new String[] {"S", "0", "2"};
+    ChartItemInterface item = new DeductionChartItem(args);
+    Set<ChartItemInterface> items = new HashSet<>();
+    items.add(item);
+    args[0] = "A";
+    item.getItemForm()[1] = "1";
+    assertEquals("[S,0,2]", item.toString());
+    assertTrue(items.contains(new DeductionChartItem("S", "0", "2")));
+  }
+
+  @Test public void testCompactItems() {
+    SymbolTable symbols = new SymbolTable();
+    int s = symbols.intern("S");
+    ChartItemInterface cykItem = new CfgCykItem(symbols, s, 0, 2);
+    assertEquals("[S,0,2]", cykItem.toString());
+    assertEquals(new DeductionChartItem("S", "0", "2"), cykItem);
+    assertEquals(new DeductionChartItem("S", "0", "2").hashCode(),
+        cykItem.hashCode());
+    assertEquals(new DeductionChartItem("S", "-1", "12").hashCode(),
+        new CfgCykItem(symbols, s, -1, 12).hashCode());
+    assertEquals(new CfgCykItem(symbols, s, 0, 2), cykItem);
+    assertEquals(new CfgCykItem(symbols, s, 0, 2).hashCode(),
+        cykItem.hashCode());
+    assertTrue(!cykItem.equals(new CfgCykItem(symbols, s, 1, 2)));
+
+    CompactCfg cfg = new CompactCfg(TestGrammarLibrary.anBnCfg());
+    int rule = cfg.getRuleId(
+        TestGrammarLibrary.anBnCfg().getProductionRules().get(0));
+    ChartItemInterface earleyItem = new CfgEarleyItem(cfg, rule, 1, 0, 1);
+    assertEquals(new DeductionChartItem(
+        cfg.dottedRuleToString(rule, 1), "0", "1"), earleyItem);
+    assertEquals(new DeductionChartItem(
+        cfg.dottedRuleToString(rule, 1), "0", "1").hashCode(),
+        earleyItem.hashCode());
+    assertEquals(new CfgEarleyItem(cfg, rule, 1, 0, 1), earleyItem);
+    assertTrue(!earleyItem.equals(new CfgEarleyItem(cfg, rule, 2, 0, 1)));
+
+    CfgLrKTable table =
+        CfgToLrKRulesConverter.computeTable(TestGrammarLibrary.anBnCfg(), 1);
+    int a = table.getSymbolId("a");
+    CfgLrKItem lrItem = new CfgLrKItem(table, 0, 0).push(a, 12, 1);
+    assertEquals("[q0 a q12,1]", lrItem.toString());
+    assertEquals(new DeductionChartItem("q0 a q12", "1"), lrItem);
+    assertEquals(new DeductionChartItem("q0 a q12", "1").hashCode(),
+        lrItem.hashCode());
+    assertEquals(new CfgLrKItem(table, 0, 0).push(a, 12, 1), lrItem);
+    assertTrue(!lrItem.equals(new CfgLrKItem(table, 0, 0).push(a, 1, 1)));
+    ChartItemInterface reduced = lrItem.reduce(new int[] {a},
+        table.getSymbolId("S"), 3);
+    assertEquals(new DeductionChartItem("q0 S q3", "1"), reduced);
+    assertEquals(new DeductionChartItem("q0 S q3", "1").hashCode(),
+        reduced.hashCode());
+    assertEquals(null, lrItem.reduce(new int[] {a, a}, 0, 3));
+  }
+
+  @Test public void testStatelessRuleApplication() throws ParseException {
+    CompactCfg cfg = new CompactCfg(TestGrammarLibrary.anBnCfg());
+    List<ChartItemInterface> compactItems = Arrays.asList(
+        new CfgEarleyItem(cfg, 1, 2, 1, 3), new CfgEarleyItem(cfg, 0, 1, 0, 1));
+    List<ChartItemInterface> stringItems = Arrays.asList(
+        new DeductionChartItem("S -> a b •", "1", "3"),
+        new DeductionChartItem("S -> a •S b", "0", "1"));
+    DynamicDeductionRuleInterface complete = new CfgEarleyComplete();
+    complete.setBuildTrees(false);
+    assertTrue(complete.isStateless());
+    for (List<ChartItemInterface> antecedences : Arrays
+        .asList(compactItems, stringItems)) {
+      List<String> applied = new ArrayList<>();
+      complete.apply(antecedences,
+          (consequence, ruleName) -> applied.add(ruleName + " " + consequence));
+      assertEquals(Arrays.asList("complete S [S -> a S •b,0,3]"), applied);
+      assertEquals(0, complete.getAntecedences().size());
+      complete.setAntecedences(antecedences);
+      assertEquals("[S -> a S •b,0,3]",
+          complete.getConsequences().get(0).toString());
+      assertEquals("complete S", complete.getName());
+      complete.clearItems();
+    }
+
+    SymbolTable symbols = new SymbolTable();
+    DynamicDeductionRuleInterface cykComplete = new CfgCykComplete(
+        TestGrammarLibrary.anbnCnfCfg().getProductionRules().get(1));
+    cykComplete.setBuildTrees(false);
+    List<ChartItemInterface> consequences = new ArrayList<>();
+    cykComplete.apply(Arrays.asList(
+        new CfgCykItem(symbols, symbols.intern("B"), 1, 1),
+        new CfgCykItem(symbols, symbols.intern("A"), 0, 1)),
+        (consequence, ruleName) -> consequences.add(consequence));
+    assertEquals(Arrays.asList(new DeductionChartItem("S", "0", "2")),
+        consequences);
+  }
 }
@@ -1,298 +1,530 @@
-package com.github.samyadaleh.cltoolbox.chartparsing;
-
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
-
-import java.text.ParseException;
-import java.util.Objects;
-
-import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.*;
-import com.github.samyadaleh.cltoolbox.chartparsing.converter.lcfrs.LcfrsToCykRulesConverter;
-import com.github.samyadaleh.cltoolbox.chartparsing.converter.lcfrs.LcfrsToEarleyRulesConverter;
-import com.github.samyadaleh.cltoolbox.chartparsing.converter.pcfg.PcfgToAstarRulesConverter;
-import com.github.samyadaleh.cltoolbox.chartparsing.converter.pcfg.PcfgToCykRulesConverter;
-import com.github.samyadaleh.cltoolbox.chartparsing.converter.tag.TagToCykRulesConverter;
-import com.github.samyadaleh.cltoolbox.chartparsing.converter.tag.TagToEarleyPrefixValidRulesConverter;
-import com.github.samyadaleh.cltoolbox.chartparsing.converter.tag.TagToEarleyRulesConverter;
-import org.junit.Test;
-
-import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
-
-public class DeductionTest {
-
-  @Test public void testCfgTopdown() throws ParseException {
-    String w = "a a b b";
-    ParsingSchema schema = CfgToTopDownRulesConverter
-        .cfgToTopDownRules(Objects.requireNonNull(TestGrammarLibrary.anBnCfg()),
-            w);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(S (a )(S (a )(b ))(b ))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testCfgTopdownEpsilon() throws ParseException {
-    String w = "a a b b";
-    ParsingSchema schema = CfgToTopDownRulesConverter.cfgToTopDownRules(
-        Objects.requireNonNull(TestGrammarLibrary.anBnEpsilonCfg()), w);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(S (a )(S (a )(S (ε ))(b ))(b ))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testCfgShiftreduce() throws ParseException {
-    String w = "a a b b";
-    ParsingSchema schema = CfgToShiftReduceRulesConverter.cfgToShiftReduceRules(
-        Objects.requireNonNull(TestGrammarLibrary.anBnCfg()), w);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(S (a )(S (a )(b ))(b ))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testCfgEarley() throws ParseException {
-    String w = "a a b b";
-    ParsingSchema schema = CfgToEarleyRulesConverter
-        .cfgToEarleyRules(Objects.requireNonNull(TestGrammarLibrary.anBnCfg()),
-            w);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(S (a )(S (a )(b ))(b ))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testCfgLeftcorner() throws ParseException {
-    String w = "a a b b";
-    ParsingSchema schema = CfgToLeftCornerRulesConverter.cfgToLeftCornerRules(
-        Objects.requireNonNull(TestGrammarLibrary.anBnCfg()), w);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(S (a )(S (a )(b ))(b ))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testCfgLeftcornerBreak() throws ParseException {
-    String w = "a b c d e f g h i";
-    ParsingSchema schema = CfgToLeftCornerRulesConverter.cfgToLeftCornerRules(
-        Objects.requireNonNull(TestGrammarLibrary.leftCornerBreak()), w);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals(
-        "(S (A (D (a ))(E (b ))(F (c )))(B (G (d ))(H (e ))(I (f )))(C (J (g ))(K (h ))(L (i ))))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testCfgLeftcornerChart() throws ParseException {
-    String w = "a b c b a";
-    ParsingSchema schema = CfgToLeftCornerChartRulesConverter
-        .cfgToLeftCornerChartRules(TestGrammarLibrary.wwRCfg(), w);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(S (a )(S (b )(S (c ))(b ))(a ))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testCfgLeftcornerChartBreak() throws ParseException {
-    String w = "a b c d e f g h i";
-    ParsingSchema schema = CfgToLeftCornerChartRulesConverter
-        .cfgToLeftCornerChartRules(TestGrammarLibrary.leftCornerBreak(), w);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals(
-        "(S (A (D (a ))(E (b ))(F (c )))(B (G (d ))(H (e ))(I (f )))(C (J (g ))(K (h ))(L (i ))))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testCfgCyk() throws ParseException {
-    String w = "a a b b";
-    ParsingSchema schema = CfgToCykRulesConverter
-        .cfgToCykRules(Objects.requireNonNull(TestGrammarLibrary.anbnCnfCfg()),
-            w);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(S (A (a ))(X1 (S (A (a ))(B (b )))(B (b ))))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testCfgCykExtended() throws ParseException {
-    String w = "a a b b";
-    ParsingSchema schema = CfgToCykRulesConverter.cfgToCykExtendedRules(
-        Objects.requireNonNull(TestGrammarLibrary.anbnC2fCfg()), w);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(S (A (C (a )))(X1 (S (A (C (a )))(B (b )))(B (b ))))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testTagCyk() throws ParseException {
-    String w2 = "a c b";
-    ParsingSchema schema = TagToCykRulesConverter
-        .tagToCykExtendedRules(TestGrammarLibrary.anCBTag(), w2);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(S (T (a )(T (c )))(b ))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testTagCykGeneral() throws ParseException {
-    String w2 = "a c b";
-    ParsingSchema schema = TagToCykRulesConverter
-        .tagToCykGeneralRules(TestGrammarLibrary.anCBTag(), w2);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(S (T (a )(T (c )))(b ))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testTagEarley() throws ParseException {
-    String w2 = "a c b";
-    ParsingSchema schema = TagToEarleyRulesConverter
-        .tagToEarleyRules(TestGrammarLibrary.anCBTag(), w2);
-    Deduction deduction = new Deduction();
-    try {
-      assertTrue(deduction.doParse(schema, false));
-    } finally {
-      deduction.printTrace();
-      assertEquals("(S (T (a )(T (c )))(b ))",
-          deduction.getDerivedTrees().get(0).toString());
-    }
-  }
-
-  @Test public void testTagEarleyPrefixValid() throws ParseException {
-    String w2 = "a c b";
-    ParsingSchema schema = TagToEarleyPrefixValidRulesConverter
-        .tagToEarleyPrefixValidRules(TestGrammarLibrary.anCBTag(), w2);
-    Deduction deduction = new Deduction();
-    try {
-      assertTrue(deduction.doParse(schema, false));
-    } finally {
-      deduction.printTrace();
-      assertEquals("(S (T (a )(T (c )))(b ))",
-          deduction.getDerivedTrees().get(0).toString());
-    }
-  }
-
-  @Test public void testSrcgCykUnary() throws ParseException {
-    String w3 = "a a b b";
-    ParsingSchema schema = LcfrsToCykRulesConverter
-        .srcgToCykExtendedRules(TestGrammarLibrary.anBnSrcg(), w3);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(S (A (a<0> )(A (a<1> )(b<3> ))(b<2> )))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testSrcgCykBinary() throws ParseException {
-    String w = "a a b b a c b b a c";
-    ParsingSchema schema = LcfrsToCykRulesConverter
-        .srcgToCykExtendedRules(TestGrammarLibrary.longStringsSrcg(), w);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals(
-        "(S (A (A (a<0> )(a<4> )(a<8> ))(C (a<1> )(c<5> )(c<9> )))(B (B (b<3> )(b<6> ))(B (b<2> )(b<7> ))))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testSrcgCykGeneral() throws ParseException {
-    String w = "a a b b a c b b a c";
-    ParsingSchema schema = LcfrsToCykRulesConverter
-        .srcgToCykGeneralRules(TestGrammarLibrary.longStringsSrcg(), w);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertTrue(
-        "(S (A (A (a<0> )(a<4> )(a<8> ))(C (a<1> )(c<5> )(c<9> )))(B (B (b<2> )(b<6> ))(B (b<3> )(b<7> ))))"
-            .equals(deduction.getDerivedTrees().get(0).toString())
-            || "(S (A (A (a<0> )(a<4> )(a<8> ))(C (a<1> )(c<5> )(c<9> )))(B (B (b<2> )(b<7> ))(B (b<3> )(b<6> ))))"
-            .equals(deduction.getDerivedTrees().get(0).toString()));
-  }
-
-  @Test public void testSrcgEarley() throws ParseException {
-    String w3 = "a a b b";
-    ParsingSchema schema = LcfrsToEarleyRulesConverter
-        .srcgToEarleyRules(TestGrammarLibrary.anBnSrcg(), w3);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(S (A (A (a<1> )(b<2> ))(a<0> )(b<3> )))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testPcfgAstar() throws ParseException {
-    String w = "red nice ugly car";
-    ParsingSchema schema = PcfgToAstarRulesConverter
-        .pcfgToAstarRules(TestGrammarLibrary.niceUglyCarPcfg(), w);
-    Deduction deduction = new Deduction();
-    deduction.setReplace('l');
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(N (A (red ))(N (A (nice ))(N (A (ugly ))(N (car )))))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testPcfgCyk() throws ParseException {
-    String w = "red nice ugly car";
-    ParsingSchema schema = PcfgToCykRulesConverter
-        .pcfgToCykRules(TestGrammarLibrary.niceUglyCarPcfg(), w);
-    Deduction deduction = new Deduction();
-    deduction.setReplace('l');
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(N (A (red ))(N (A (nice ))(N (A (ugly ))(N (car )))))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testCfgUnger() throws ParseException {
-    String w = "a a b b";
-    ParsingSchema schema = CfgToUngerRulesConverter
-        .cfgToUngerRules(Objects.requireNonNull(TestGrammarLibrary.anBnCfg()),
-            w);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(S (a )(S (a )(b ))(b ))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testCfgCykGeneral() throws ParseException {
-    String w = "a a b b";
-    ParsingSchema schema = CfgToCykRulesConverter
-        .cfgToCykGeneralRules(TestGrammarLibrary.anBnCfg(), w);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    deduction.printTrace();
-    assertEquals("(S (a )(S (a )(b ))(b ))",
-        deduction.getDerivedTrees().get(0).toString());
-  }
-
-  @Test public void testCfgLr() throws ParseException {
-    String w = "the apple";
-    ParsingSchema schema =
-        CfgToLrKRulesConverter.cfgToLrKRules(TestGrammarLibrary.lrCfg(), w, 0);
-    Deduction deduction = new Deduction();
-    assertTrue(deduction.doParse(schema, false));
-    assertEquals("(NP (Det (the ))(N (apple )))",
-        deduction.getDerivedTrees().get(0).toString());
-    schema =
-        CfgToLrKRulesConverter.cfgToLrKRules(TestGrammarLibrary.lrCfg(), w, 1);
-    assertTrue(deduction.doParse(schema, false));
-   /* schema = cfgToLrKRules(TestGrammarLibrary.lrCfg(), w, 2);
-    assertTrue(deduction.doParse(schema, false)); //*/
-  }
-
-}
+package com.github.samyadaleh.cltoolbox.chartparsing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.agenda.LifoAgenda;
+import com.github.samyadaleh.cltoolbox.chartparsing.agenda.PriorityAgenda;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.*;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.lcfrs.LcfrsToCykRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.lcfrs.LcfrsToEarleyRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.pcfg.PcfgToAstarRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.pcfg.PcfgToCykRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.tag.TagToCykRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.tag.TagToEarleyPrefixValidRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.tag.TagToEarleyRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.dynamicdeductionrule.DynamicDeductionRuleInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+import com.github.samyadaleh.cltoolbox.common.tag.Tree;
+
+public class DeductionTest {
+
+  @Test public void testCfgTopdown() throws ParseException {
+    String w = "a a b b";
+    ParsingSchema schema = CfgToTopDownRulesConverter
+        .cfgToTopDownRules(Objects.requireNonNull(TestGrammarLibrary.anBnCfg()),
+            w);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(S (a )(S (a )(b ))(b ))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testCfgTopdownEpsilon() throws ParseException {
+    String w = "a a b b";
+    ParsingSchema schema = CfgToTopDownRulesConverter.cfgToTopDownRules(
+        Objects.requireNonNull(TestGrammarLibrary.anBnEpsilonCfg()), w);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(S (a )(S (a )(S (ε ))(b ))(b ))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testCfgShiftreduce() throws ParseException {
+    String w = "a a b b";
+    ParsingSchema schema = CfgToShiftReduceRulesConverter.cfgToShiftReduceRules(
+        Objects.requireNonNull(TestGrammarLibrary.anBnCfg()), w);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(S (a )(S (a )(b ))(b ))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testCfgEarley() throws ParseException {
+    String w = "a a b b";
+    ParsingSchema schema = CfgToEarleyRulesConverter
+        .cfgToEarleyRules(Objects.requireNonNull(TestGrammarLibrary.anBnCfg()),
+            w);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(S (a )(S (a )(b ))(b ))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testCfgEarleyLifoAgenda() throws ParseException {
+    String w = "a a b b";
+    ParsingSchema schema = CfgToEarleyRulesConverter
+        .cfgToEarleyRules(Objects.requireNonNull(TestGrammarLibrary.anBnCfg()),
+            w);
+    schema.setAgenda(new LifoAgenda());
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    assertEquals("(S (a )(S (a )(b ))(b ))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testCfgLeftcorner() throws ParseException {
+    String w = "a a b b";
+    ParsingSchema schema = CfgToLeftCornerRulesConverter.cfgToLeftCornerRules(
+        Objects.requireNonNull(TestGrammarLibrary.anBnCfg()), w);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(S (a )(S (a )(b ))(b ))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testCfgLeftcornerBreak() throws ParseException {
+    String w = "a b c d e f g h i";
+    ParsingSchema schema = CfgToLeftCornerRulesConverter.cfgToLeftCornerRules(
+        Objects.requireNonNull(TestGrammarLibrary.leftCornerBreak()), w);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals(
+        "(S (A (D (a ))(E (b ))(F (c )))(B (G (d ))(H (e ))(I (f )))(C (J (g ))(K (h ))(L (i ))))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testCfgLeftcornerChart() throws ParseException {
+    String w = "a b c b a";
+    ParsingSchema schema = CfgToLeftCornerChartRulesConverter
+        .cfgToLeftCornerChartRules(TestGrammarLibrary.wwRCfg(), w);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(S (a )(S (b )(S (c ))(b ))(a ))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testCfgLeftcornerChartBreak() throws ParseException {
+    String w = "a b c d e f g h i";
+    ParsingSchema schema = CfgToLeftCornerChartRulesConverter
+        .cfgToLeftCornerChartRules(TestGrammarLibrary.leftCornerBreak(), w);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals(
+        "(S (A (D (a ))(E (b ))(F (c )))(B (G (d ))(H (e ))(I (f )))(C (J (g ))(K (h ))(L (i ))))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testCfgCyk() throws ParseException {
+    String w = "a a b b";
+    ParsingSchema schema = CfgToCykRulesConverter
+        .cfgToCykRules(Objects.requireNonNull(TestGrammarLibrary.anbnCnfCfg()),
+            w);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(S (A (a ))(X1 (S (A (a ))(B (b )))(B (b ))))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testCfgCykExtended() throws ParseException {
+    String w = "a a b b";
+    ParsingSchema schema = CfgToCykRulesConverter.cfgToCykExtendedRules(
+        Objects.requireNonNull(TestGrammarLibrary.anbnC2fCfg()), w);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(S (A (C (a )))(X1 (S (A (C (a )))(B (b )))(B (b ))))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testTagCyk() throws ParseException {
+    String w2 = "a c b";
+    ParsingSchema schema = TagToCykRulesConverter
+        .tagToCykExtendedRules(TestGrammarLibrary.anCBTag(), w2);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(S (T (a )(T (c )))(b ))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testTagCykGeneral() throws ParseException {
+    String w2 = "a c b";
+    ParsingSchema schema = TagToCykRulesConverter
+        .tagToCykGeneralRules(TestGrammarLibrary.anCBTag(), w2);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(S (T (a )(T (c )))(b ))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testTagEarley() throws ParseException {
+    String w2 = "a c b";
+    ParsingSchema schema = TagToEarleyRulesConverter
+        .tagToEarleyRules(TestGrammarLibrary.anCBTag(), w2);
+    Deduction deduction = new Deduction();
+    try {
+      assertTrue(deduction.doParse(schema, false));
+    } finally {
+      deduction.printTrace();
+      assertEquals("(S (T (a )(T (c )))(b ))",
+          deduction.getDerivedTrees().get(0).toString());
+    }
+  }
+
+  @Test public void testTagEarleyPrefixValid() throws ParseException {
+    String w2 = "a c b";
+    ParsingSchema schema = TagToEarleyPrefixValidRulesConverter
+        .tagToEarleyPrefixValidRules(TestGrammarLibrary.anCBTag(), w2);
+    Deduction deduction = new Deduction();
+    try {
+      assertTrue(deduction.doParse(schema, false));
+    } finally {
+      deduction.printTrace();
+      assertEquals("(S (T (a )(T (c )))(b ))",
+          deduction.getDerivedTrees().get(0).toString());
+    }
+  }
+
+  @Test public void testSrcgCykUnary() throws ParseException {
+    String w3 = "a a b b";
+    ParsingSchema schema = LcfrsToCykRulesConverter
+        .srcgToCykExtendedRules(TestGrammarLibrary.anBnSrcg(), w3);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(S (A (a<0> )(A (a<1> )(b<3> ))(b<2> )))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testSrcgCykBinary() throws ParseException {
+    String w = "a a b b a c b b a c";
+    ParsingSchema schema = LcfrsToCykRulesConverter
+        .srcgToCykExtendedRules(TestGrammarLibrary.longStringsSrcg(), w);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals(
+        "(S (A (A (a<0> )(a<4> )(a<8> ))(C (a<1> )(c<5> )(c<9> )))(B (B (b<3> )(b<6> ))(B (b<2> )(b<7> ))))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testSrcgCykGeneral() throws ParseException {
+    String w = "a a b b a c b b a c";
+    ParsingSchema schema = LcfrsToCykRulesConverter
+        .srcgToCykGeneralRules(TestGrammarLibrary.longStringsSrcg(), w);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertTrue(
+        "(S (A (A (a<0> )(a<4> )(a<8> ))(C (a<1> )(c<5> )(c<9> )))(B (B (b<2> )(b<6> ))(B (b<3> )(b<7> ))))"
+            .equals(deduction.getDerivedTrees().get(0).toString())
+            || "(S (A (A (a<0> )(a<4> )(a<8> ))(C (a<1> )(c<5> )(c<9> )))(B (B (b<2> )(b<7> ))(B (b<3> )(b<6> ))))"
+            .equals(deduction.getDerivedTrees().get(0).toString()));
+  }
+
+  @Test public void testSrcgEarley() throws ParseException {
+    String w3 = "a a b b";
+    ParsingSchema schema = LcfrsToEarleyRulesConverter
+        .srcgToEarleyRules(TestGrammarLibrary.anBnSrcg(), w3);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(S (A (A (a<1> )(b<2> ))(a<0> )(b<3> )))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testPcfgAstar() throws ParseException {
+    String w = "red nice ugly car";
+    ParsingSchema schema = PcfgToAstarRulesConverter
+        .pcfgToAstarRules(TestGrammarLibrary.niceUglyCarPcfg(), w);
+    Deduction deduction = new Deduction();
+    deduction.setReplace('l');
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(N (A (red ))(N (A (nice ))(N (A (ugly ))(N (car )))))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testPcfgCyk() throws ParseException {
+    String w = "red nice ugly car";
+    ParsingSchema schema = PcfgToCykRulesConverter
+        .pcfgToCykRules(TestGrammarLibrary.niceUglyCarPcfg(), w);
+    Deduction deduction = new Deduction();
+    deduction.setReplace('l');
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(N (A (red ))(N (A (nice ))(N (A (ugly ))(N (car )))))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testPcfgCykPriorityAgenda() throws ParseException {
+    String w = "red nice ugly car";
+    ParsingSchema schema = PcfgToCykRulesConverter
+        .pcfgToCykRules(TestGrammarLibrary.niceUglyCarPcfg(), w);
+    schema.setAgenda(new PriorityAgenda(true));
+    Deduction deduction = new Deduction();
+    deduction.setReplace('l');
+    assertTrue(deduction.doParse(schema, false));
+    assertEquals("(N (A (red ))(N (A (nice ))(N (A (ugly ))(N (car )))))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testKBestTrees() throws ParseException {
+    String w = "red nice ugly car";
+    ParsingSchema[] schemas = new ParsingSchema[] {
+        PcfgToCykRulesConverter
+            .pcfgToCykRules(TestGrammarLibrary.niceUglyCarPcfg(), w),
+        PcfgToAstarRulesConverter
+            .pcfgToAstarRules(TestGrammarLibrary.niceUglyCarPcfg(), w)};
+    for (ParsingSchema schema : schemas) {
+      Deduction deduction = new Deduction();
+      deduction.setReplace('l');
+      deduction.setKeepAlternatives(true);
+      assertTrue(deduction.doParse(schema, false));
+      List<Tree> trees = deduction.getKBestTrees(50);
+      assertEquals(2, trees.size());
+      assertEquals("(N (A (red ))(N (A (nice ))(N (A (ugly ))(N (car )))))",
+          trees.get(0).toString());
+      assertEquals("(N (N (red ))(N (A (nice ))(N (A (ugly ))(N (car )))))",
+          trees.get(1).toString());
+      assertEquals(1, deduction.getKBestTrees(1).size());
+    }
+  }
+
+  @Test public void testKBestLazyTrees() throws ParseException {
+    Cfg cfg = new Cfg();
+    cfg.setTerminals(new String[] {"a", "b"});
+    cfg.setNonterminals(new String[] {"E"});
+    cfg.addProductionRule("E -> E b E");
+    cfg.addProductionRule("E -> a");
+    cfg.setStartSymbol("E");
+    Deduction deduction = new Deduction();
+    deduction.setLazyTrees(true);
+    assertTrue(deduction.doParse(CfgToCykRulesConverter
+        .cfgToCykGeneralRules(cfg, "a b a b a b a b a b a b a b a"), false));
+    assertEquals(1, deduction.getKBestTrees(1).size());
+    List<String> trees = new ArrayList<>();
+    for (Tree tree : deduction.getKBestTrees(3)) {
+      trees.add(tree.toString());
+    }
+    assertEquals(3, new HashSet<>(trees).size());
+    // the Catalan number C7 of binary bracketings
+    assertEquals(429, deduction.getDerivedTrees().size());
+    List<String> allTrees = new ArrayList<>();
+    for (Tree tree : deduction.getDerivedTrees()) {
+      allTrees.add(tree.toString());
+    }
+    assertTrue(allTrees.containsAll(trees));
+  }
+
+  @Test public void testRecognizeOnly() throws ParseException {
+    ParsingSchema[] accepting = new ParsingSchema[] {
+        CfgToCykRulesConverter.cfgToCykRules(
+            Objects.requireNonNull(TestGrammarLibrary.anbnCnfCfg()), "a a b b"),
+        CfgToEarleyRulesConverter.cfgToEarleyRules(
+            Objects.requireNonNull(TestGrammarLibrary.anBnCfg()), "a a b b"),
+        TagToEarleyRulesConverter
+            .tagToEarleyRules(TestGrammarLibrary.anCBTag(), "a c b"),
+        LcfrsToEarleyRulesConverter
+            .srcgToEarleyRules(TestGrammarLibrary.anBnSrcg(), "a a b b"),
+        PcfgToAstarRulesConverter.pcfgToAstarRules(
+            TestGrammarLibrary.niceUglyCarPcfg(), "red nice ugly car")};
+    for (ParsingSchema schema : accepting) {
+      Deduction deduction = new Deduction();
+      deduction.setRecognizeOnly(true);
+      assertTrue(deduction.doParse(schema, false));
+      assertEquals(0, deduction.getDerivedTrees().size());
+    }
+    ParsingSchema rejecting = CfgToEarleyRulesConverter.cfgToEarleyRules(
+        Objects.requireNonNull(TestGrammarLibrary.anBnCfg()), "a a b");
+    Deduction deduction = new Deduction();
+    deduction.setRecognizeOnly(true);
+    assertFalse(deduction.doParse(rejecting, false));
+    deduction = new Deduction();
+    assertTrue(deduction.doParse(accepting[1], false));
+    assertEquals("(S (a )(S (a )(b ))(b ))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testLazyTrees() throws ParseException {
+    Deduction deduction = new Deduction();
+    deduction.setLazyTrees(true);
+    assertTrue(deduction.doParse(CfgToLeftCornerRulesConverter
+        .cfgToLeftCornerRules(TestGrammarLibrary.leftCornerBreak(),
+            "a b c d e f g h i"), false));
+    assertEquals("(S (A (D (a ))(E (b ))(F (c )))(B (G (d ))(H (e ))(I (f )))"
+            + "(C (J (g ))(K (h ))(L (i ))))",
+        deduction.getDerivedTrees().get(0).toString());
+
+    ParsingSchema schema = LcfrsToCykRulesConverter
+        .srcgToCykGeneralRules(TestGrammarLibrary.longStringsSrcg(),
+            "a a b b a c b b a c");
+    deduction = new Deduction();
+    deduction.setLazyTrees(true);
+    assertTrue(deduction.doParse(schema, false));
+    assertEquals(2, deduction.getDerivedTrees().size());
+    int goalId = deduction.getChart().indexOf(schema.getGoals().get(0));
+    assertEquals(1,
+        deduction.getDerivationWalker().getTrees(goalId, 1).size());
+    // replaying the rules to build the trees leaves them recognize-only
+    for (DynamicDeductionRuleInterface rule : schema.getRules()) {
+      assertFalse(rule.isBuildTrees());
+    }
+
+    deduction = new Deduction();
+    deduction.setLazyTrees(true);
+    deduction.setReplace('l');
+    assertTrue(deduction.doParse(PcfgToAstarRulesConverter
+        .pcfgToAstarRules(TestGrammarLibrary.niceUglyCarPcfg(),
+            "red nice ugly car"), false));
+    assertEquals("(N (A (red ))(N (A (nice ))(N (A (ugly ))(N (car )))))",
+        deduction.getDerivedTrees().get(0).toString());
+
+    deduction = new Deduction();
+    deduction.setLazyTrees(true);
+    assertTrue(deduction.doParse(TagToEarleyRulesConverter
+        .tagToEarleyRules(TestGrammarLibrary.anCBTag(), "a c b"), false));
+    assertEquals("(S (T (a )(T (c )))(b ))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testLazyTreesAppliedRules() throws ParseException {
+    String w = "a a b b";
+    assertSameAppliedRules(CfgToTopDownRulesConverter
+        .cfgToTopDownRules(TestGrammarLibrary.anBnCfg(), w));
+    assertSameAppliedRules(CfgToShiftReduceRulesConverter
+        .cfgToShiftReduceRules(TestGrammarLibrary.anBnCfg(), w));
+    assertSameAppliedRules(CfgToUngerRulesConverter
+        .cfgToUngerRules(TestGrammarLibrary.anBnCfg(), w));
+    assertSameAppliedRules(CfgToLeftCornerRulesConverter
+        .cfgToLeftCornerRules(TestGrammarLibrary.anBnCfg(), w));
+    assertSameAppliedRules(LcfrsToEarleyRulesConverter
+        .srcgToEarleyRules(TestGrammarLibrary.anBnSrcg(), w));
+    assertSameAppliedRules(LcfrsToCykRulesConverter
+        .srcgToCykExtendedRules(TestGrammarLibrary.anBnSrcg(), w));
+    assertSameAppliedRules(TagToCykRulesConverter
+        .tagToCykExtendedRules(TestGrammarLibrary.anCBTag(), "a c b"));
+    assertSameAppliedRules(TagToEarleyRulesConverter
+        .tagToEarleyRules(TestGrammarLibrary.anCBTag(), "a c b"));
+    assertSameAppliedRules(TagToEarleyPrefixValidRulesConverter
+        .tagToEarleyPrefixValidRules(TestGrammarLibrary.anCBTag(), "a c b"));
+    List<String> lrRules = assertSameAppliedRules(CfgToLrKRulesConverter
+        .cfgToLrKRules(TestGrammarLibrary.lrCfg(), "the apple", 1));
+    assertTrue(lrRules.contains("shift the"));
+    assertTrue(lrRules.contains("reduce NP -> Det N"));
+  }
+
+  /**
+   * Parses with eagerly and with lazily built trees and checks that the same
+   * rule names were recorded, returns them.
+   */
+  private static List<String> assertSameAppliedRules(ParsingSchema schema)
+      throws ParseException {
+    Deduction eager = new Deduction();
+    assertTrue(eager.doParse(schema, false));
+    Deduction lazy = new Deduction();
+    lazy.setLazyTrees(true);
+    assertTrue(lazy.doParse(schema, false));
+    assertEquals(eager.getAppliedRules(), lazy.getAppliedRules());
+    List<String> names = new ArrayList<>();
+    for (List<String> itemRules : lazy.getAppliedRules()) {
+      names.addAll(itemRules);
+    }
+    return names;
+  }
+
+  @Test public void testCfgUnger() throws ParseException {
+    String w = "a a b b";
+    ParsingSchema schema = CfgToUngerRulesConverter
+        .cfgToUngerRules(Objects.requireNonNull(TestGrammarLibrary.anBnCfg()),
+            w);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(S (a )(S (a )(b ))(b ))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testCfgCykGeneral() throws ParseException {
+    String w = "a a b b";
+    ParsingSchema schema = CfgToCykRulesConverter
+        .cfgToCykGeneralRules(TestGrammarLibrary.anBnCfg(), w);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    deduction.printTrace();
+    assertEquals("(S (a )(S (a )(b ))(b ))",
+        deduction.getDerivedTrees().get(0).toString());
+  }
+
+  @Test public void testCfgLr() throws ParseException {
+    String w = "the apple";
+    ParsingSchema schema =
+        CfgToLrKRulesConverter.cfgToLrKRules(TestGrammarLibrary.lrCfg(), w, 0);
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(schema, false));
+    assertEquals("(NP (Det (the ))(N (apple )))",
+        deduction.getDerivedTrees().get(0).toString());
+    schema =
+        CfgToLrKRulesConverter.cfgToLrKRules(TestGrammarLibrary.lrCfg(), w, 1);
+    assertTrue(deduction.doParse(schema, false));
+   /* schema = cfgToLrKRules(TestGrammarLibrary.lrCfg(), w, 2);
+    assertTrue(deduction.doParse(schema, false)); //*/
+  }
+
+  @Test public void testParallelDeduction() throws ParseException {
+    ParsingSchema[] schemas = new ParsingSchema[] {
+        CfgToEarleyRulesConverter.cfgToEarleyRules(
+            Objects.requireNonNull(TestGrammarLibrary.anBnCfg()), "a a b b"),
+        TagToEarleyRulesConverter
+            .tagToEarleyRules(TestGrammarLibrary.anCBTag(), "a c b"),
+        TagToCykRulesConverter
+            .tagToCykExtendedRules(TestGrammarLibrary.anCBTag(), "a c b"),
+        LcfrsToCykRulesConverter
+            .srcgToCykGeneralRules(TestGrammarLibrary.longStringsSrcg(),
+                "a a b b a c b b a c"),
+        LcfrsToEarleyRulesConverter
+            .srcgToEarleyRules(TestGrammarLibrary.anBnSrcg(), "a a b b")};
+    for (ParsingSchema schema : schemas) {
+      Deduction sequential = new Deduction();
+      assertTrue(sequential.doParse(schema, false));
+      Deduction parallel = new Deduction();
+      parallel.setParallelism(4);
+      assertTrue(parallel.doParse(schema, false));
+      assertEquals(new HashSet<>(sequential.getChart()),
+          new HashSet<>(parallel.getChart()));
+      assertEquals(sequential.getDerivedTrees().size(),
+          parallel.getDerivedTrees().size());
+      Deduction again = new Deduction();
+      again.setParallelism(3);
+      assertTrue(again.doParse(schema, false));
+      for (int i = 0; i < parallel.getChart().size(); i++) {
+        ChartItemInterface item = parallel.getChart().get(i);
+        assertEquals(item, again.getChart().get(i));
+        assertEquals(parallel.getBackpointers().get(i),
+            again.getBackpointers().get(i));
+      }
+    }
+  }
+}
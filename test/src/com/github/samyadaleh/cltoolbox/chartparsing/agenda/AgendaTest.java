@@ -0,0 +1,44 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.agenda;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.PcfgCykItem;
+import com.github.samyadaleh.cltoolbox.chartparsing.item.DeductionChartItem;
+
+public class AgendaTest {
+  @Test public void testPriorityAgendaLowestFirst() {
+    AgendaInterface agenda = new PriorityAgenda(true);
+    agenda.add(new DeductionChartItem("X", "0"));
+    agenda.add(new PcfgCykItem(2.0, "A", 0, 1));
+    agenda.add(new PcfgCykItem(0.5, "B", 0, 1));
+    agenda.add(new PcfgCykItem(2.0, "C", 0, 1));
+    assertEquals("B", agenda.poll().getItemForm()[0]);
+    assertEquals("A", agenda.poll().getItemForm()[0]);
+    assertEquals("C", agenda.poll().getItemForm()[0]);
+    assertEquals("X", agenda.poll().getItemForm()[0]);
+    assertTrue(agenda.isEmpty());
+  }
+
+  @Test public void testPriorityAgendaHighestFirst() {
+    AgendaInterface agenda = new PriorityAgenda(false);
+    agenda.add(new PcfgCykItem(0.2, "A", 0, 1));
+    agenda.add(new PcfgCykItem(0.7, "B", 0, 1));
+    assertEquals("B", agenda.poll().getItemForm()[0]);
+    assertEquals("A", agenda.poll().getItemForm()[0]);
+  }
+
+  @Test public void testFifoAndLifoAgenda() {
+    AgendaInterface fifo = new FifoAgenda();
+    AgendaInterface lifo = new LifoAgenda();
+    for (String nt : new String[] {"A", "B"}) {
+      fifo.add(new DeductionChartItem(nt, "0"));
+      lifo.add(new DeductionChartItem(nt, "0"));
+    }
+    assertEquals("A", fifo.poll().getItemForm()[0]);
+    assertEquals("B", lifo.poll().getItemForm()[0]);
+    assertEquals(1, fifo.size());
+  }
+}
@@ -0,0 +1,112 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.CfgCykBitChart;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.CfgCykBitParser;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.CfgCykDenseParser;
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+
+public class CfgCykBitParserTest {
+  @Test public void testAnBn() {
+    CfgCykBitParser parser =
+        new CfgCykBitParser(TestGrammarLibrary.anbnCnfCfg());
+    assertTrue(parser.recognize("a b"));
+    assertTrue(parser.recognize("a a a b b b"));
+    assertFalse(parser.recognize("a a b"));
+    assertFalse(parser.recognize("a c b"));
+    CfgCykBitChart chart = parser.parse("a a b b");
+    assertTrue(chart.contains("X1", 1, 3));
+    assertFalse(chart.contains("S", 0, 3));
+    assertEquals(7, chart.getItemCount());
+  }
+
+  @Test public void testSameItemsAsDenseParser() throws ParseException {
+    Random random = new Random(42);
+    Cfg cfg = randomCnfCfg(random, 300, 20, 6000);
+    CfgCykDenseParser dense = new CfgCykDenseParser(cfg);
+    CfgCykBitParser bits = new CfgCykBitParser(cfg);
+    CfgCykBitParser parallelBits = new CfgCykBitParser(cfg);
+    parallelBits.setParallelism(4);
+    List<String> sentences = new ArrayList<>();
+    for (int s = 0; s < 30; s++) {
+      sentences.add(randomSentence(random, 20, 3 + s % 15));
+    }
+    try {
+      for (String w : sentences) {
+        List<String> expected = toStrings(dense.parse(w).getItemForms());
+        CfgCykBitChart chart = bits.parse(w);
+        assertEquals(expected, toStrings(chart.getItemForms()));
+        assertEquals(expected.size(), chart.getItemCount());
+        assertEquals(dense.parse(w).isRecognized(), chart.isRecognized());
+        assertEquals(expected,
+            toStrings(parallelBits.parse(w).getItemForms()));
+      }
+    } finally {
+      parallelBits.close();
+    }
+    // closed parsers parse in the calling thread
+    assertEquals(toStrings(bits.parse(sentences.get(14)).getItemForms()),
+        toStrings(parallelBits.parse(sentences.get(14)).getItemForms()));
+  }
+
+  private static List<String> toStrings(List<String[]> itemForms) {
+    List<String> strings = new ArrayList<>();
+    for (String[] itemForm : itemForms) {
+      strings.add(String.join(",", itemForm));
+    }
+    Collections.sort(strings);
+    return strings;
+  }
+
+  private static String randomSentence(Random random, int terminals,
+      int length) {
+    StringBuilder w = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      if (i > 0) {
+        w.append(' ');
+      }
+      w.append('t').append(random.nextInt(terminals));
+    }
+    return w.toString();
+  }
+
+  private static Cfg randomCnfCfg(Random random, int nonterminals,
+      int terminals, int binaryRules) throws ParseException {
+    Cfg cfg = new Cfg();
+    String[] nts = new String[nonterminals];
+    for (int i = 0; i < nonterminals; i++) {
+      nts[i] = "N" + i;
+    }
+    String[] ts = new String[terminals];
+    for (int i = 0; i < terminals; i++) {
+      ts[i] = "t" + i;
+    }
+    cfg.setNonterminals(nts);
+    cfg.setTerminals(ts);
+    cfg.setStartSymbol("N0");
+    for (int i = 0; i < nonterminals; i++) {
+      cfg.addProductionRule(
+          "N" + i + " -> t" + random.nextInt(terminals));
+    }
+    for (int r = 0; r < binaryRules; r++) {
+      String rule = "N" + random.nextInt(nonterminals) + " -> N" + random
+          .nextInt(nonterminals) + " N" + random.nextInt(nonterminals);
+      if (!rule.startsWith("N0 ") || r % 10 == 0) {
+        cfg.addProductionRule(rule);
+      }
+    }
+    return cfg;
+  }
+}
@@ -0,0 +1,99 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.Deduction;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.CfgCykDenseChart;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.CfgCykDenseParser;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToCykRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+
+public class CfgCykDenseParserTest {
+  @Test public void testSameAsDeduction() throws ParseException {
+    String[] anbn = new String[] {"a b", "a a b b", "a a a b b b", "a a b",
+        "b a", "a c b", "a a a a a b b b b b"};
+    for (String w : anbn) {
+      crossCheck(TestGrammarLibrary.anbnCnfCfg(), w);
+    }
+    String[] ambiguous = new String[] {"a", "a a", "a a a", "a a a a a",
+        "a b a"};
+    for (String w : ambiguous) {
+      crossCheck(ambiguousCfg(), w);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsNonCnf() {
+    new CfgCykDenseParser(TestGrammarLibrary.anBnCfg());
+  }
+
+  private static void crossCheck(Cfg cfg, String w) throws ParseException {
+    Deduction deduction = new Deduction();
+    // eagerly built trees miss derivations found after an item was used
+    deduction.setLazyTrees(true);
+    boolean recognized =
+        deduction.doParse(CfgToCykRulesConverter.cfgToCykRules(cfg, w), false);
+    CfgCykDenseChart chart = new CfgCykDenseParser(cfg).parse(w);
+    assertEquals(recognized, chart.isRecognized());
+    List<ChartItemInterface> items = deduction.getChart();
+    assertEquals(items.size(), chart.getItemCount());
+    for (int id = 0; id < items.size(); id++) {
+      String[] itemForm = items.get(id).getItemForm();
+      String nt = itemForm[0];
+      int i = Integer.parseInt(itemForm[1]);
+      int length = Integer.parseInt(itemForm[2]);
+      assertTrue(chart.contains(nt, i, length));
+      List<String> expected = new ArrayList<>();
+      List<ArrayList<Integer>> backpointers =
+          deduction.getBackpointers().get(id);
+      List<String> appliedRules = deduction.getAppliedRules().get(id);
+      for (int b = 0; b < backpointers.size(); b++) {
+        List<String> antecedences = new ArrayList<>();
+        for (int antecedenceId : backpointers.get(b)) {
+          antecedences.add(
+              String.join(",", items.get(antecedenceId).getItemForm()));
+        }
+        Collections.sort(antecedences);
+        expected.add(appliedRules.get(b) + " " + antecedences);
+      }
+      List<String> actual = new ArrayList<>();
+      List<String[][]> chartBackpointers = chart.getBackpointers(nt, i, length);
+      List<String> chartRules = chart.getAppliedRules(nt, i, length);
+      for (int b = 0; b < chartBackpointers.size(); b++) {
+        List<String> antecedences = new ArrayList<>();
+        for (String[] antecedence : chartBackpointers.get(b)) {
+          antecedences.add(String.join(",", antecedence));
+        }
+        Collections.sort(antecedences);
+        actual.add(chartRules.get(b) + " " + antecedences);
+      }
+      Collections.sort(expected);
+      Collections.sort(actual);
+      assertEquals(expected, actual);
+    }
+    assertEquals(CfgTestUtils.treeStrings(deduction.getDerivedTrees()),
+        CfgTestUtils.treeStrings(chart.getDerivedTrees()));
+  }
+
+  private static Cfg ambiguousCfg() throws ParseException {
+    Cfg cfg = new Cfg();
+    cfg.setTerminals(new String[] {"a", "b"});
+    cfg.setNonterminals(new String[] {"S", "B"});
+    cfg.addProductionRule("S -> S S");
+    cfg.addProductionRule("S -> a");
+    cfg.addProductionRule("S -> S B");
+    cfg.addProductionRule("B -> b");
+    cfg.setStartSymbol("S");
+    return cfg;
+  }
+}
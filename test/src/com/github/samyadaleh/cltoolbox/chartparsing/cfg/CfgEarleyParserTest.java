@@ -0,0 +1,105 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.Deduction;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley.CfgEarleyChart;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley.CfgEarleyParser;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToEarleyRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+import com.github.samyadaleh.cltoolbox.common.tag.Tree;
+
+public class CfgEarleyParserTest {
+  @Test public void testSameAsDeduction() throws ParseException {
+    for (String w : new String[] {"a b", "a a b b", "a a b", "b a"}) {
+      crossCheck(TestGrammarLibrary.anBnCfg(), w, true);
+    }
+    for (String w : new String[] {"a b", "a a a b b b", "a b b"}) {
+      crossCheck(TestGrammarLibrary.anBnEpsilonCfg(), w, true);
+    }
+    for (String w : new String[] {"a b c b a", "a c b"}) {
+      crossCheck(TestGrammarLibrary.wwRCfg(), w, true);
+    }
+    for (String w : new String[] {"b a b", "b b b a b", "b a a b b", "a"}) {
+      crossCheck(TestGrammarLibrary.epsCfg(), w, true);
+    }
+    // the deduction builds trees top-down in predict, which doesn't work for
+    // left recursion, and S -> A S with nullable A gives infinitely many
+    // trees, so only the items are compared
+    for (String w : new String[] {"a 0 + b + a b 1", "a + + b"}) {
+      crossCheck(TestGrammarLibrary.eftCfg(), w, false);
+    }
+    for (String w : new String[] {"a", "b b", "b a a", "b b a a b"}) {
+      crossCheck(nullableChainCfg(), w, false);
+    }
+    for (String w : new String[] {"c a b", "d", "a c"}) {
+      crossCheck(TestGrammarLibrary.directLeftRecursionCfg(), w, false);
+    }
+    for (String w : new String[] {"b a a", "b a a a a", "b a"}) {
+      crossCheck(TestGrammarLibrary.indirectLeftRecursionCfg(), w, false);
+    }
+  }
+
+  @Test public void testLeftRecursiveTrees() {
+    List<Tree> trees = new CfgEarleyParser(
+        TestGrammarLibrary.indirectLeftRecursionCfg()).parse("b a a a a")
+        .getDerivedTrees();
+    assertEquals(1, trees.size());
+    assertEquals("(S (A (S (A (S (b ))(a ))(a ))(a ))(a ))",
+        trees.get(0).toString());
+  }
+
+  /** Cycles are cut at items, A -> B • may use A -> a • below it. */
+  @Test public void testUnitCycle() throws ParseException {
+    assertEquals(6, new CfgEarleyParser(TestGrammarLibrary.unitCycleCfg())
+        .parse("a").getDerivedTrees().size());
+  }
+
+  /** Nullable symbols after nullable symbols and in front of terminals. */
+  private static Cfg nullableChainCfg() throws ParseException {
+    Cfg cfg = new Cfg();
+    cfg.setTerminals(new String[] {"a", "b"});
+    cfg.setNonterminals(new String[] {"S", "A", "B"});
+    cfg.addProductionRule("S -> A B a");
+    cfg.addProductionRule("S -> A S");
+    cfg.addProductionRule("A -> B B");
+    cfg.addProductionRule("B -> ε");
+    cfg.addProductionRule("B -> b");
+    cfg.setStartSymbol("S");
+    return cfg;
+  }
+
+  private static void crossCheck(Cfg cfg, String w, boolean compareTrees)
+      throws ParseException {
+    Deduction deduction = new Deduction();
+    deduction.setLazyTrees(true);
+    boolean recognized = deduction
+        .doParse(CfgToEarleyRulesConverter.cfgToEarleyRules(cfg, w), false);
+    CfgEarleyChart chart = new CfgEarleyParser(cfg).parse(w);
+    assertEquals(w, recognized, chart.isRecognized());
+    List<String> expected = new ArrayList<>();
+    for (ChartItemInterface item : deduction.getChart()) {
+      expected.add(String.join(",", item.getItemForm()));
+    }
+    List<String> actual = new ArrayList<>();
+    for (String[] itemForm : chart.getItemForms()) {
+      actual.add(String.join(",", itemForm));
+    }
+    Collections.sort(expected);
+    Collections.sort(actual);
+    assertEquals(w, expected, actual);
+    if (compareTrees) {
+      assertEquals(w, CfgTestUtils.treeStrings(deduction.getDerivedTrees()),
+          CfgTestUtils.treeStrings(chart.getDerivedTrees()));
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley.CfgEarleyChart;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley.CfgEarleyParser;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley.CfgEarleySession;
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+
+public class CfgEarleySessionTest {
+
+  @Test public void testTokenByToken() {
+    CfgEarleySession session =
+        new CfgEarleySession(new CfgEarleyParser(TestGrammarLibrary.anBnCfg()));
+    assertEquals(new HashSet<>(Arrays.asList("a")),
+        session.getExpectedTerminals());
+    assertTrue(session.addToken("a"));
+    assertFalse(session.isRecognized());
+    assertEquals(new HashSet<>(Arrays.asList("a", "b")),
+        session.getExpectedTerminals());
+    assertTrue(session.addToken("b"));
+    assertTrue(session.isRecognized());
+    assertTrue(session.getExpectedTerminals().isEmpty());
+    assertFalse(session.addToken("b"));
+    assertFalse(session.isViablePrefix());
+    session.rollback(1);
+    assertTrue(session.isViablePrefix());
+    assertTrue(session.isRecognized());
+    assertEquals(2, session.getLength());
+  }
+
+  @Test public void testRollbackEqualsFreshParse() {
+    CfgEarleyParser parser = new CfgEarleyParser(TestGrammarLibrary.epsCfg());
+    CfgEarleySession session = new CfgEarleySession(parser);
+    for (String token : "b b b a a".split(" ")) {
+      session.addToken(token);
+    }
+    assertFalse(session.isViablePrefix());
+    session.rollback(2);
+    for (String token : "a b".split(" ")) {
+      session.addToken(token);
+    }
+    assertTrue(session.isRecognized());
+    assertEquals(itemForms(parser.parse("b b b a b")),
+        itemForms(session.getChart()));
+    assertEquals(1, session.getChart().getDerivedTrees().size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRollbackTooFar() {
+    CfgEarleySession session =
+        new CfgEarleySession(new CfgEarleyParser(TestGrammarLibrary.anBnCfg()));
+    session.addToken("a");
+    session.rollback(2);
+  }
+
+  private static List<String> itemForms(CfgEarleyChart chart) {
+    List<String> itemForms = new ArrayList<>();
+    for (String[] itemForm : chart.getItemForms()) {
+      itemForms.add(String.join(",", itemForm));
+    }
+    return itemForms;
+  }
+}
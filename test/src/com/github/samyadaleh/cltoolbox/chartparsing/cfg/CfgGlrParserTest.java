@@ -0,0 +1,121 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.text.ParseException;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley.CfgEarleyParser;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.shiftreduce.CfgGlrForest;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.shiftreduce.CfgGlrParser;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToLrKRulesConverter;
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+import com.github.samyadaleh.cltoolbox.common.tag.Tree;
+
+public class CfgGlrParserTest {
+  @Test public void testSameAsEarley() throws ParseException {
+    for (int k = 0; k <= 1; k++) {
+      for (String w : new String[] {"a b", "a a b b", "a a b", "b a"}) {
+        crossCheck(TestGrammarLibrary.anBnCfg(), k, w);
+      }
+      for (String w : new String[] {"a b c b a", "a c b"}) {
+        crossCheck(TestGrammarLibrary.wwRCfg(), k, w);
+      }
+      for (String w : new String[] {"b a b", "b b b a b", "b a a b b", "a"}) {
+        crossCheck(TestGrammarLibrary.epsCfg(), k, w);
+      }
+      for (String w : new String[] {"b a a", "b a a a a", "b a"}) {
+        crossCheck(TestGrammarLibrary.indirectLeftRecursionCfg(), k, w);
+      }
+      for (String w : new String[] {"a", "a + a + a", "a + a + a + a", "a +"}) {
+        crossCheck(ambiguousCfg(), k, w);
+      }
+      for (String w : new String[] {"a", "a a", "a a a b", "a b b a"}) {
+        crossCheck(nullableCfg(), k, w);
+      }
+    }
+  }
+
+  @Test public void testConflictsFork() throws ParseException {
+    Cfg cfg = ambiguousCfg();
+    CfgGlrParser parser = new CfgGlrParser(cfg, 1);
+    assertTrue(parser.getTable().hasConflicts());
+    CfgGlrForest forest = parser.parse("a + a + a + a + a");
+    assertEquals(BigInteger.valueOf(14), forest.countDerivations());
+    assertEquals(14, forest.getDerivedTrees().size());
+    assertFalse(new CfgGlrParser(TestGrammarLibrary.anBnCfg(), 1).getTable()
+        .hasConflicts());
+  }
+
+  @Test public void testLrKRejectsConflicts() throws ParseException {
+    assertNull(
+        CfgToLrKRulesConverter.cfgToLrKRules(ambiguousCfg(), "a + a + a", 1));
+  }
+
+  @Test public void testLeftRecursionAndCycles() {
+    for (int k = 0; k <= 1; k++) {
+      CfgGlrParser parser =
+          new CfgGlrParser(TestGrammarLibrary.directLeftRecursionCfg(), k);
+      assertTrue(parser.recognize("c a b"));
+      assertFalse(parser.recognize("a c"));
+      assertEquals(1, parser.parse("c a b").getDerivedTrees().size());
+      parser = new CfgGlrParser(TestGrammarLibrary.eftCfg(), k);
+      assertTrue(parser.recognize("( a 0 + b 1 ) * a + b * ( a + a * b )"));
+      assertFalse(parser.recognize("( a 0 + b 1 * a"));
+    }
+  }
+
+  @Test public void testCountIndependentOfOrder() {
+    for (int k = 0; k <= 1; k++) {
+      CfgGlrForest forest =
+          new CfgGlrParser(TestGrammarLibrary.unitCycleCfg(), k).parse("a");
+      assertEquals(4, forest.getDerivedTrees().size());
+      assertEquals(BigInteger.valueOf(4), forest.countDerivations());
+    }
+  }
+
+  /** E -> E + E is ambiguous, the number of trees are Catalan numbers. */
+  private static Cfg ambiguousCfg() throws ParseException {
+    Cfg cfg = new Cfg();
+    cfg.setTerminals(new String[] {"a", "+"});
+    cfg.setNonterminals(new String[] {"E"});
+    cfg.addProductionRule("E -> E + E");
+    cfg.addProductionRule("E -> a");
+    cfg.setStartSymbol("E");
+    return cfg;
+  }
+
+  /**
+   * Right nullable and hidden left recursive rules, reductions at a position
+   * add edges to nodes whose paths were already reduced.
+   */
+  private static Cfg nullableCfg() throws ParseException {
+    Cfg cfg = new Cfg();
+    cfg.setTerminals(new String[] {"a", "b"});
+    cfg.setNonterminals(new String[] {"S", "B"});
+    cfg.addProductionRule("S -> a S B B");
+    cfg.addProductionRule("S -> B S b");
+    cfg.addProductionRule("S -> a");
+    cfg.addProductionRule("B -> ε");
+    cfg.addProductionRule("B -> b");
+    cfg.setStartSymbol("S");
+    return cfg;
+  }
+
+  private static void crossCheck(Cfg cfg, int k, String w) {
+    CfgGlrForest forest = new CfgGlrParser(cfg, k).parse(w);
+    List<Tree> expected = new CfgEarleyParser(cfg).parse(w).getDerivedTrees();
+    assertEquals(w, !expected.isEmpty(), forest.isRecognized());
+    assertEquals(w, CfgTestUtils.treeStrings(expected),
+        CfgTestUtils.treeStrings(forest.getDerivedTrees()));
+    assertEquals(w, BigInteger.valueOf(expected.size()),
+        forest.countDerivations());
+  }
+}
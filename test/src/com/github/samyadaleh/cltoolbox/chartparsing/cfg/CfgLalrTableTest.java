@@ -0,0 +1,97 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.text.ParseException;
+
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.shiftreduce.CfgLrKTable;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToLrKRulesConverter;
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+
+public class CfgLalrTableTest {
+
+  @Test public void testSameAsEarley() throws ParseException {
+    for (String w : new String[] {"a b", "a a b b", "a a b", "b a"}) {
+      crossCheck(TestGrammarLibrary.anBnCfg(), w, true);
+    }
+    for (String w : new String[] {"a b c b a", "a c b", "c"}) {
+      crossCheck(TestGrammarLibrary.wwRCfg(), w, true);
+    }
+    for (String w : new String[] {"the apple", "John", "the John"}) {
+      crossCheck(TestGrammarLibrary.lrCfg(), w, true);
+    }
+    for (String w : new String[] {"a b", "a a a b b b", "a b b"}) {
+      crossCheck(TestGrammarLibrary.anBnEpsilonCfg(), w, true);
+    }
+    for (String w : new String[] {"( a 0 + b 1 ) * a + b * ( a + a * b )",
+        "a + + b", "( a"}) {
+      crossCheck(TestGrammarLibrary.eftCfg(), w, false);
+    }
+    for (String w : new String[] {"id = deref id", "deref deref id", "id =",
+        "id = id = id"}) {
+      crossCheck(assignmentCfg(), w, true);
+    }
+  }
+
+  @Test public void testStatesOfLr0() {
+    CfgLrKTable lalr =
+        CfgToLrKRulesConverter.computeLalrTable(TestGrammarLibrary.eftCfg());
+    CfgLrKTable lr0 =
+        CfgToLrKRulesConverter.computeTable(TestGrammarLibrary.eftCfg(), 0);
+    CfgLrKTable lr1 =
+        CfgToLrKRulesConverter.computeTable(TestGrammarLibrary.eftCfg(), 1);
+    assertEquals(0, lalr.getConflictCount());
+    assertEquals(lr0.getStateCount(), lalr.getStateCount());
+    assertTrue(lalr.getStateCount() < lr1.getStateCount());
+    assertTrue(lalr.getTableSize() < lr1.getTableSize());
+  }
+
+  @Test public void testConflicts() throws ParseException {
+    Cfg cfg = lr1Cfg();
+    assertEquals(0,
+        CfgToLrKRulesConverter.computeTable(cfg, 1).getConflictCount());
+    assertTrue(
+        CfgToLrKRulesConverter.computeLalrTable(cfg).getConflictCount() > 0);
+    assertNull(CfgToLrKRulesConverter.compileLalrRules(cfg));
+  }
+
+  /** S -> L = R | R, L -> deref R | id, R -> L is LALR(1), but not SLR(1). */
+  private static Cfg assignmentCfg() throws ParseException {
+    Cfg cfg = new Cfg();
+    cfg.setTerminals(new String[] {"=", "deref", "id"});
+    cfg.setNonterminals(new String[] {"S", "L", "R"});
+    cfg.addProductionRule("S -> L = R");
+    cfg.addProductionRule("S -> R");
+    cfg.addProductionRule("L -> deref R");
+    cfg.addProductionRule("L -> id");
+    cfg.addProductionRule("R -> L");
+    cfg.setStartSymbol("S");
+    return cfg;
+  }
+
+  /** LR(1), but merging the states with A -> c • and B -> c • conflicts. */
+  private static Cfg lr1Cfg() throws ParseException {
+    Cfg cfg = new Cfg();
+    cfg.setTerminals(new String[] {"a", "b", "c", "d", "e"});
+    cfg.setNonterminals(new String[] {"S", "A", "B"});
+    cfg.addProductionRule("S -> a A d");
+    cfg.addProductionRule("S -> b B d");
+    cfg.addProductionRule("S -> a B e");
+    cfg.addProductionRule("S -> b A e");
+    cfg.addProductionRule("A -> c");
+    cfg.addProductionRule("B -> c");
+    cfg.setStartSymbol("S");
+    return cfg;
+  }
+
+  private static void crossCheck(Cfg cfg, String w, boolean compareTrees)
+      throws ParseException {
+    CfgTestUtils.assertSameAsEarley(cfg, w,
+        CfgToLrKRulesConverter.cfgToLalrRules(cfg, w), compareTrees);
+  }
+}
@@ -0,0 +1,159 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.Deduction;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.shiftreduce.CfgLrKTable;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToLrKRulesConverter;
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+
+public class CfgLrKTableTest {
+  private static final Logger log = LogManager.getLogger();
+
+  @Test public void testSameAsEarley() throws ParseException {
+    for (int k = 1; k <= 2; k++) {
+      for (String w : new String[] {"a b", "a a b b", "a a b", "b a"}) {
+        crossCheck(TestGrammarLibrary.anBnCfg(), k, w, true);
+      }
+      for (String w : new String[] {"a b c b a", "a c b", "c"}) {
+        crossCheck(TestGrammarLibrary.wwRCfg(), k, w, true);
+      }
+      for (String w : new String[] {"the apple", "John", "the John"}) {
+        crossCheck(TestGrammarLibrary.lrCfg(), k, w, true);
+      }
+      for (String w : new String[] {"a b", "a a a b b b", "a b b"}) {
+        crossCheck(TestGrammarLibrary.anBnEpsilonCfg(), k, w, true);
+      }
+      for (String w : new String[] {"( a 0 + b 1 ) * a + b * ( a + a * b )",
+          "a + + b", "( a"}) {
+        crossCheck(TestGrammarLibrary.eftCfg(), k, w, false);
+      }
+    }
+    crossCheck(TestGrammarLibrary.lrCfg(), 0, "the apple", true);
+  }
+
+  @Test public void testLr0RejectsPrefix() throws ParseException {
+    Cfg cfg = new Cfg();
+    cfg.setTerminals(new String[] {"a", "b"});
+    cfg.setNonterminals(new String[] {"S"});
+    cfg.addProductionRule("S -> a b");
+    cfg.setStartSymbol("S");
+    for (String w : new String[] {"a", "a b", "a b b"}) {
+      crossCheck(cfg, 0, w, true);
+    }
+  }
+
+  @Test public void testConflicts() {
+    assertNull(CfgToLrKRulesConverter
+        .compileLrKRules(TestGrammarLibrary.eftCfg(), 0));
+    assertEquals(0,
+        CfgToLrKRulesConverter.computeTable(TestGrammarLibrary.eftCfg(), 1)
+            .getConflictCount());
+  }
+
+  @Test public void testLargeGrammar() throws ParseException {
+    Cfg cfg = commandsCfg(700);
+    long start = System.nanoTime();
+    CfgLrKTable table = CfgToLrKRulesConverter.computeTable(cfg, 1);
+    log.info("LR(1) table of " + cfg.getProductionRules().size()
+        + " rules with " + table.getStateCount() + " states in "
+        + (System.nanoTime() - start) / 1000000 + " ms");
+    assertEquals(0, table.getConflictCount());
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(CfgToLrKRulesConverter
+        .cfgToLrKRules(cfg, "kw699 x x x end", 1), false));
+  }
+
+  @Test public void testCache() throws IOException {
+    File directory = Files.createTempDirectory("lrcache").toFile();
+    try {
+      CfgToLrKRulesConverter.setTableCacheDirectory(directory);
+      CfgLrKTable computed =
+          CfgToLrKRulesConverter.computeTable(TestGrammarLibrary.eftCfg(), 1);
+      File[] files = directory.listFiles();
+      assertNotNull(files);
+      assertEquals(1, files.length);
+      CfgLrKTable cached =
+          CfgToLrKRulesConverter.computeTable(TestGrammarLibrary.eftCfg(), 1);
+      assertSameTable(computed, cached);
+      try (FileWriter writer = new FileWriter(files[0])) {
+        writer.write("no table");
+      }
+      assertSameTable(computed,
+          CfgToLrKRulesConverter.computeTable(TestGrammarLibrary.eftCfg(), 1));
+      assertEquals(1, directory.listFiles().length);
+    } finally {
+      CfgToLrKRulesConverter.setTableCacheDirectory(null);
+      for (File file : directory.listFiles()) {
+        assertTrue(file.delete());
+      }
+      assertTrue(directory.delete());
+    }
+  }
+
+  private static void assertSameTable(CfgLrKTable expected,
+      CfgLrKTable actual) {
+    assertEquals(expected.getStateCount(), actual.getStateCount());
+    assertEquals(expected.getTableSize(), actual.getTableSize());
+    String[] wSplit = "( a 0 + b ) * a".split(" ");
+    int[] expectedLookaheads = expected.getLookaheadIds(wSplit);
+    int[] actualLookaheads = actual.getLookaheadIds(wSplit);
+    for (int state = 0; state < expected.getStateCount(); state++) {
+      for (int i = 0; i <= wSplit.length; i++) {
+        assertEquals(expected.getAction(state, expectedLookaheads[i]),
+            actual.getAction(state, actualLookaheads[i]));
+      }
+      for (String symbol : new String[] {"E", "T", "F", "I", "a", "("}) {
+        assertEquals(expected.getTransition(state, symbol),
+            actual.getTransition(state, symbol));
+      }
+    }
+  }
+
+  /** S -> C_i, C_i -> kw_i A_i end, A_i -> x A_i | ε for each command i. */
+  private static Cfg commandsCfg(int commands) throws ParseException {
+    Cfg cfg = new Cfg();
+    List<String> nonterminals = new ArrayList<>();
+    List<String> terminals = new ArrayList<>();
+    nonterminals.add("S");
+    terminals.add("x");
+    terminals.add("end");
+    for (int i = 0; i < commands; i++) {
+      nonterminals.add("C" + i);
+      nonterminals.add("A" + i);
+      terminals.add("kw" + i);
+    }
+    cfg.setNonterminals(nonterminals.toArray(new String[0]));
+    cfg.setTerminals(terminals.toArray(new String[0]));
+    for (int i = 0; i < commands; i++) {
+      cfg.addProductionRule("S -> C" + i);
+      cfg.addProductionRule("C" + i + " -> kw" + i + " A" + i + " end");
+      cfg.addProductionRule("A" + i + " -> x A" + i);
+      cfg.addProductionRule("A" + i + " -> ε");
+    }
+    cfg.setStartSymbol("S");
+    return cfg;
+  }
+
+  private static void crossCheck(Cfg cfg, int k, String w,
+      boolean compareTrees) throws ParseException {
+    CfgTestUtils.assertSameAsEarley(cfg, w,
+        CfgToLrKRulesConverter.cfgToLrKRules(cfg, w, k), compareTrees);
+  }
+}
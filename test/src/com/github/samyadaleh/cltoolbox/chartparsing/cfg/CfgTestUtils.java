@@ -0,0 +1,54 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.Deduction;
+import com.github.samyadaleh.cltoolbox.chartparsing.ParsingSchema;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.earley.CfgEarleyParser;
+import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
+import com.github.samyadaleh.cltoolbox.common.tag.Tree;
+
+/** Comparisons of the results of different cfg parsers. */
+final class CfgTestUtils {
+
+  private CfgTestUtils() {
+  }
+
+  /**
+   * Returns the sorted trees without ε leaves, not every parser adds them for
+   * rules that were completed right after they were predicted.
+   */
+  static List<String> treeStrings(List<Tree> trees) {
+    List<String> strings = new ArrayList<>();
+    for (Tree tree : trees) {
+      strings.add(tree.toString().replace("(ε )", ""));
+    }
+    Collections.sort(strings);
+    return strings;
+  }
+
+  /**
+   * Parses w with the schema and checks that it is recognized like by the
+   * Earley parser and, if compareTrees, that the trees are the same.
+   */
+  static void assertSameAsEarley(Cfg cfg, String w, ParsingSchema schema,
+      boolean compareTrees) throws ParseException {
+    assertNotNull(schema);
+    Deduction deduction = new Deduction();
+    // trees can't hold the brackets of eft
+    deduction.setRecognizeOnly(!compareTrees);
+    boolean recognized = deduction.doParse(schema, false);
+    CfgEarleyParser earley = new CfgEarleyParser(cfg);
+    assertEquals(w, earley.recognize(w), recognized);
+    if (compareTrees) {
+      assertEquals(w, treeStrings(earley.parse(w).getDerivedTrees()),
+          treeStrings(deduction.getDerivedTrees()));
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.cfg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.Deduction;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.PcfgCykViterbiChart;
+import com.github.samyadaleh.cltoolbox.chartparsing.cfg.cyk.PcfgCykViterbiParser;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.pcfg.PcfgToCykRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ChartItemInterface;
+import com.github.samyadaleh.cltoolbox.chartparsing.item.ProbabilisticChartItemInterface;
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+import com.github.samyadaleh.cltoolbox.common.cfg.Pcfg;
+import com.github.samyadaleh.cltoolbox.common.tag.Tree;
+
+public class PcfgCykViterbiParserTest {
+
+  @Test public void testSameAsDeduction() throws ParseException {
+    crossCheck(TestGrammarLibrary.niceUglyCarPcfg(), "red nice ugly car", true);
+    crossCheck(TestGrammarLibrary.niceUglyCarPcfg(), "nice car ugly bike",
+        true);
+    // B -> B B gives bracketings of equal weight, either tree is best
+    crossCheck(TestGrammarLibrary.banPcfg(), "b a a a", false);
+    Random random = new Random(7);
+    Pcfg pcfg = randomCnfPcfg(random, 12, 5, 80);
+    for (int s = 0; s < 20; s++) {
+      StringBuilder w = new StringBuilder("t0");
+      for (int i = 1; i < 3 + s % 8; i++) {
+        w.append(" t").append(random.nextInt(5));
+      }
+      crossCheck(pcfg, w.toString(), true);
+    }
+  }
+
+  @Test public void testNotRecognized() throws ParseException {
+    PcfgCykViterbiChart chart =
+        new PcfgCykViterbiParser(TestGrammarLibrary.banPcfg()).parse("a b");
+    assertFalse(chart.isRecognized());
+    assertNull(chart.getBestTree());
+  }
+
+  private static void crossCheck(Pcfg pcfg, String w, boolean compareTrees)
+      throws ParseException {
+    // best-first deduction stops at the goal, only its weight is final
+    Deduction bestFirst = new Deduction();
+    bestFirst.setReplace('l');
+    boolean recognized = bestFirst
+        .doParse(PcfgToCykRulesConverter.pcfgToCykRules(pcfg, w), false);
+    PcfgCykViterbiChart chart = new PcfgCykViterbiParser(pcfg).parse(w);
+    assertEquals(recognized, chart.isRecognized());
+    if (recognized) {
+      String[] goalForm = new String[] {pcfg.getStartSymbol(), "0",
+          String.valueOf(w.split(" ").length)};
+      for (ChartItemInterface item : bestFirst.getChart()) {
+        if (Arrays.equals(goalForm, item.getItemForm())) {
+          assertEquals(
+              ((ProbabilisticChartItemInterface) item).getProbability(),
+              chart.getWeight(), 1e-9);
+        }
+      }
+    }
+    // with alternatives the deduction explores all items
+    Deduction deduction = new Deduction();
+    deduction.setReplace('l');
+    deduction.setKeepAlternatives(true);
+    deduction.doParse(PcfgToCykRulesConverter.pcfgToCykRules(pcfg, w), false);
+    List<ChartItemInterface> items = deduction.getChart();
+    assertEquals(items.size(), chart.getItemCount());
+    for (ChartItemInterface item : items) {
+      String[] itemForm = item.getItemForm();
+      assertEquals(((ProbabilisticChartItemInterface) item).getProbability(),
+          chart.getWeight(itemForm[0], Integer.parseInt(itemForm[1]),
+              Integer.parseInt(itemForm[2])), 1e-9);
+    }
+    if (recognized && compareTrees) {
+      List<Tree> trees = deduction.getKBestTrees(1);
+      assertEquals(trees.get(0).toString(), chart.getBestTree().toString());
+    }
+  }
+
+  private static Pcfg randomCnfPcfg(Random random, int nonterminals,
+      int terminals, int binaryRules) {
+    List<String[]> rules = new ArrayList<>();
+    for (int i = 0; i < nonterminals; i++) {
+      for (int t = 0; t < terminals; t++) {
+        if (random.nextInt(3) == 0 || i == 0 && t == 0) {
+          rules.add(new String[] {"N" + i, "t" + t,
+              String.valueOf(0.05 + random.nextDouble() * 0.9)});
+        }
+      }
+    }
+    for (int r = 0; r < binaryRules; r++) {
+      String[] rule = new String[] {"N" + random.nextInt(nonterminals),
+          "N" + random.nextInt(nonterminals) + " N" + random
+              .nextInt(nonterminals),
+          String.valueOf(0.05 + random.nextDouble() * 0.9)};
+      boolean duplicate = false;
+      for (String[] known : rules) {
+        duplicate |= known[0].equals(rule[0]) && known[1].equals(rule[1]);
+      }
+      if (!duplicate) {
+        rules.add(rule);
+      }
+    }
+    Pcfg pcfg = new Pcfg();
+    String[] nts = new String[nonterminals];
+    for (int i = 0; i < nonterminals; i++) {
+      nts[i] = "N" + i;
+    }
+    String[] ts = new String[terminals];
+    for (int t = 0; t < terminals; t++) {
+      ts[t] = "t" + t;
+    }
+    pcfg.setNonterminals(nts);
+    pcfg.setTerminals(ts);
+    pcfg.setStartSymbol("N0");
+    pcfg.setProductionRules(rules.toArray(new String[0][]));
+    return pcfg;
+  }
+}
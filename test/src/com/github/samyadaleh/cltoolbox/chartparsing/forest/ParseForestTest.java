@@ -0,0 +1,91 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.forest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.text.ParseException;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.Deduction;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToEarleyRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.lcfrs.LcfrsToCykRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.pcfg.PcfgToCykRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.tag.TagToEarleyRulesConverter;
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+
+public class ParseForestTest {
+
+  @Test public void testAmbiguousSrcg() throws ParseException {
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(LcfrsToCykRulesConverter
+        .srcgToCykGeneralRules(TestGrammarLibrary.longStringsSrcg(),
+            "a a b b a c b b a c"), false));
+    ParseForest forest = deduction.getParseForest();
+    assertEquals(1, forest.getRoots().size());
+    assertEquals(9, forest.getNodeCount());
+    assertEquals(10, forest.getEdgeCount());
+    assertEquals(BigInteger.valueOf(2), forest.countDerivations());
+    int root = forest.getRoots().get(0);
+    assertEquals("[S, (<0,10>)]", forest.getItem(root).toString());
+    Hyperedge edge = forest.getIncomingEdges(root).get(0);
+    assertEquals(2, edge.getTails().length);
+    for (int tail : edge.getTails()) {
+      int edges = forest.getIncomingEdges(tail).size();
+      assertEquals(BigInteger.valueOf(edges), forest.countDerivations(tail));
+    }
+    assertTrue(forest.toString().startsWith("roots " + root + "\n"));
+    assertTrue(forest.toString()
+        .contains(" : complete B(X V,W Y) -> B(X,Y) B(V,W)\n"));
+  }
+
+  @Test public void testKBestDerivations() throws ParseException {
+    Deduction deduction = new Deduction();
+    deduction.setReplace('l');
+    deduction.setKeepAlternatives(true);
+    assertTrue(deduction.doParse(PcfgToCykRulesConverter
+        .pcfgToCykRules(TestGrammarLibrary.niceUglyCarPcfg(),
+            "red camping car house bike green"), false));
+    ParseForest forest = deduction.getParseForest();
+    assertEquals(BigInteger.valueOf(84), forest.countDerivations());
+    List<Derivation> derivations =
+        new KBestExtractor(forest, true).getKBest(100);
+    assertEquals(84, derivations.size());
+    for (int i = 1; i < derivations.size(); i++) {
+      assertTrue(derivations.get(i - 1).getWeight()
+          <= derivations.get(i).getWeight());
+    }
+    assertEquals(10, new KBestExtractor(forest, true).getKBest(10).size());
+  }
+
+  @Test public void testCyclicForest() throws ParseException {
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(TagToEarleyRulesConverter
+        .tagToEarleyRules(TestGrammarLibrary.anCBTag(), "a c b"), false));
+    assertEquals(BigInteger.ONE,
+        deduction.getParseForest().countDerivations());
+  }
+
+  @Test public void testCountIndependentOfOrder() throws ParseException {
+    Deduction deduction = new Deduction();
+    assertTrue(deduction.doParse(CfgToEarleyRulesConverter
+        .cfgToEarleyRules(TestGrammarLibrary.unitCycleCfg(), "a"), false));
+    ParseForest forest = deduction.getParseForest();
+    // predicted items have several antecedents, there are more derivations
+    // than trees
+    assertEquals(BigInteger.valueOf(42), forest.countDerivations());
+    for (int root : forest.getRoots()) {
+      assertEquals(BigInteger.valueOf(21), forest.countDerivations(root));
+    }
+  }
+
+  @Test public void testRecognizeOnly() throws ParseException {
+    Deduction deduction = new Deduction();
+    deduction.setRecognizeOnly(true);
+    assertTrue(deduction.doParse(TagToEarleyRulesConverter
+        .tagToEarleyRules(TestGrammarLibrary.anCBTag(), "a c b"), false));
+    assertEquals(0, deduction.getParseForest().getNodeCount());
+  }
+}
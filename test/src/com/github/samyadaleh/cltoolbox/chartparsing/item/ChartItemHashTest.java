@@ -0,0 +1,124 @@
+package com.github.samyadaleh.cltoolbox.chartparsing.item;
+
+import static org.junit.Assert.assertTrue;
+
+import java.text.ParseException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.Deduction;
+import com.github.samyadaleh.cltoolbox.chartparsing.ParsingSchema;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToCykRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToEarleyPassiveRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToEarleyRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToLeftCornerChartRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToLeftCornerRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToLrKRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToShiftReduceRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToTopDownRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.cfg.CfgToUngerRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.lcfrs.LcfrsToCykRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.lcfrs.LcfrsToEarleyRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.pcfg.PcfgToAstarRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.pcfg.PcfgToCykRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.tag.TagToCykRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.tag.TagToEarleyPrefixValidRulesConverter;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.tag.TagToEarleyRulesConverter;
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+
+/**
+ * Collision benchmark of the item hash codes on the charts of all parsing
+ * algorithms, compared to the former hash that summed up weighted characters.
+ */
+public class ChartItemHashTest {
+  private static final Logger log = LogManager.getLogger();
+
+  @Test public void testHashCollisions() throws ParseException {
+    String cfgW = "a a a a a a b b b b b b";
+    String tagW = "a a a c b b b";
+    String srcgW = "a a a b b b";
+    String carW = "red nice ugly car red nice ugly car";
+    ParsingSchema[] schemas = new ParsingSchema[] {
+        CfgToTopDownRulesConverter
+            .cfgToTopDownRules(TestGrammarLibrary.anBnCfg(), cfgW),
+        CfgToShiftReduceRulesConverter
+            .cfgToShiftReduceRules(TestGrammarLibrary.anBnCfg(), cfgW),
+        CfgToEarleyRulesConverter
+            .cfgToEarleyRules(TestGrammarLibrary.anBnCfg(), cfgW),
+        CfgToEarleyPassiveRulesConverter
+            .cfgToEarleyPassiveRules(TestGrammarLibrary.anBnCfg(), cfgW),
+        CfgToLeftCornerRulesConverter
+            .cfgToLeftCornerRules(TestGrammarLibrary.anBnCfg(), cfgW),
+        CfgToLeftCornerChartRulesConverter
+            .cfgToLeftCornerChartRules(TestGrammarLibrary.anBnCfg(), cfgW),
+        CfgToUngerRulesConverter
+            .cfgToUngerRules(TestGrammarLibrary.anBnCfg(), "a a a b b b"),
+        CfgToLrKRulesConverter
+            .cfgToLrKRules(TestGrammarLibrary.anBnCfg(), cfgW, 1),
+        CfgToCykRulesConverter
+            .cfgToCykRules(TestGrammarLibrary.anbnCnfCfg(), cfgW),
+        CfgToCykRulesConverter
+            .cfgToCykExtendedRules(TestGrammarLibrary.anbnC2fCfg(), cfgW),
+        CfgToCykRulesConverter
+            .cfgToCykGeneralRules(TestGrammarLibrary.anBnCfg(), cfgW),
+        PcfgToCykRulesConverter
+            .pcfgToCykRules(TestGrammarLibrary.niceUglyCarPcfg(), carW),
+        PcfgToAstarRulesConverter
+            .pcfgToAstarRules(TestGrammarLibrary.niceUglyCarPcfg(), carW),
+        TagToCykRulesConverter
+            .tagToCykExtendedRules(TestGrammarLibrary.anCBTag(), tagW),
+        TagToCykRulesConverter
+            .tagToCykGeneralRules(TestGrammarLibrary.anCBTag(), tagW),
+        TagToEarleyRulesConverter
+            .tagToEarleyRules(TestGrammarLibrary.anCBTag(), tagW),
+        TagToEarleyPrefixValidRulesConverter
+            .tagToEarleyPrefixValidRules(TestGrammarLibrary.anCBTag(), tagW),
+        LcfrsToCykRulesConverter
+            .srcgToCykExtendedRules(TestGrammarLibrary.anBnSrcg(), srcgW),
+        LcfrsToCykRulesConverter
+            .srcgToCykGeneralRules(TestGrammarLibrary.anBnSrcg(), srcgW),
+        LcfrsToEarleyRulesConverter
+            .srcgToEarleyRules(TestGrammarLibrary.anBnSrcg(), srcgW)};
+    int items = 0;
+    int collisions = 0;
+    int formerCollisions = 0;
+    for (int i = 0; i < schemas.length; i++) {
+      Deduction deduction = new Deduction();
+      deduction.setLazyTrees(true);
+      deduction.doParse(schemas[i], false);
+      Set<Integer> hashes = new HashSet<>();
+      Set<Integer> formerHashes = new HashSet<>();
+      for (ChartItemInterface item : deduction.getChart()) {
+        hashes.add(item.hashCode());
+        formerHashes.add(formerHashCode(item.getItemForm()));
+      }
+      int size = deduction.getChart().size();
+      log.info("schema " + i + ": " + size + " items, "
+          + (size - hashes.size()) + " collisions, formerly "
+          + (size - formerHashes.size()));
+      items += size;
+      collisions += size - hashes.size();
+      formerCollisions += size - formerHashes.size();
+    }
+    log.info(items + " items, " + collisions + " collisions, formerly "
+        + formerCollisions);
+    assertTrue(collisions * 1000 <= items);
+    assertTrue(collisions < formerCollisions);
+  }
+
+  private static int formerHashCode(String[] itemForm) {
+    int hashCode = 0;
+    int i = 2;
+    for (String element : itemForm) {
+      for (char chara : element.toCharArray()) {
+        hashCode += (int) chara * i;
+        i += 2;
+      }
+    }
+    return hashCode;
+  }
+}
@@ -0,0 +1,50 @@
+package com.github.samyadaleh.cltoolbox.cli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.chartparsing.CorpusParser;
+import com.github.samyadaleh.cltoolbox.chartparsing.converter.GrammarToDeductionRulesConverter;
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+
+public class CorpusRunnerTest {
+
+  @Test public void testRecordsInInputOrder() throws IOException {
+    StringBuilder corpus = new StringBuilder();
+    for (int i = 1; i <= 30; i++) {
+      for (int j = 0; j < i % 5 + 1; j++) {
+        corpus.append("a ");
+      }
+      corpus.append(i % 7 == 0 ? "b" : "b b b b b b".substring(0, i % 5 * 2 + 1))
+          .append("\n");
+      if (i % 10 == 0) {
+        corpus.append("\n");
+      }
+    }
+    CorpusParser parser = new CorpusParser(GrammarToDeductionRulesConverter
+        .compile(TestGrammarLibrary.anBnCfg(), "cfg-earley"));
+    StringWriter out = new StringWriter();
+    new CorpusRunner(parser, 3)
+        .run(new BufferedReader(new StringReader(corpus.toString())), out);
+    String[] records = out.toString().split("\n");
+    assertEquals(30, records.length);
+    int line = 0;
+    for (int i = 1; i <= 30; i++) {
+      line++;
+      String record = records[i - 1];
+      assertTrue(record.startsWith("{\"line\":" + line + ","));
+      assertTrue(record.contains("\"recognized\":" + (i % 7 != 0)));
+      if (i % 10 == 0) {
+        line++;
+      }
+    }
+    assertEquals("\"a \\\"b\\\"\\n\"", CorpusRunner.quote("a \"b\"\n"));
+  }
+}
@@ -17,8 +17,9 @@ import com.github.samyadaleh.cltoolbox.cli.Main;
   @Parameters public static Collection<String[]> browsers() {
     return Arrays.asList(
         new String[][] {{"cfg-neverheardofthis"}, {"cfg-topdown"},
-            {"cfg-shiftreduce"}, {"cfg-lr-0"}, {"cfg-lr-1"}, {"cfg-earley"},
-            {"cfg-passive"}, {"cfg-leftcorner"}, {"cfg-leftcorner-chart"},
+            {"cfg-shiftreduce"}, {"cfg-lr-0"}, {"cfg-lr-1"}, {"cfg-lalr-1"},
+            {"cfg-earley"}, {"cfg-passive"}, {"cfg-leftcorner"},
+            {"cfg-leftcorner-chart"},
             {"cfg-cyk"}, {"cfg-cyk-extended"}, {"cfg-cyk-general"},
             {"cfg-unger"}, {"pcfg-astar"}, {"pcfg-cyk"}, {"tag-earley"},
             {"tag-cyk-extended"}, {"tag-cyk-general"},
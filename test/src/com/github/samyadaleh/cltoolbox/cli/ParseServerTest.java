@@ -0,0 +1,73 @@
+package com.github.samyadaleh.cltoolbox.cli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.common.AbstractNTSGrammar;
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+
+public class ParseServerTest {
+
+  @Test public void testRequests() throws Exception {
+    Map<String, AbstractNTSGrammar> grammars = new LinkedHashMap<>();
+    grammars.put("anbn", TestGrammarLibrary.anBnCfg());
+    grammars.put("car", TestGrammarLibrary.niceUglyCarPcfg());
+    ParseServer server = new ParseServer(grammars, false, false, 2);
+    int port = server.start(0);
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        BufferedReader in = new BufferedReader(new InputStreamReader(
+            socket.getInputStream(), StandardCharsets.UTF_8));
+        Writer out = new OutputStreamWriter(socket.getOutputStream(),
+            StandardCharsets.UTF_8)) {
+      assertEquals("PONG", request(in, out, "PING"));
+      String record = request(in, out, "PARSE anbn cfg-earley a a b b");
+      assertTrue(record.startsWith("{\"line\":2,"));
+      assertTrue(record.contains("\"recognized\":true,\"tree\":\"("));
+      record = request(in, out, "RECOGNIZE anbn cfg-earley a a b");
+      assertTrue(record.contains("\"recognized\":false,\"tree\":null"));
+      record = request(in, out, "PARSE anbn cfg-topdown a b");
+      assertTrue(record.contains("\"recognized\":true"));
+      record = request(in, out, "PARSE car pcfg-astar red nice ugly car");
+      assertTrue(record.contains("\"recognized\":true"));
+      assertTrue(request(in, out, "PARSE foo cfg-earley a b")
+          .startsWith("{\"error\":\"Unknown grammar foo"));
+      assertTrue(request(in, out, "PARSE anbn cfg-earley")
+          .startsWith("{\"error\":"));
+      assertTrue(request(in, out, "HELLO").startsWith("{\"error\":"));
+      // the failed compilation is kept as well
+      for (int i = 0; i < 2; i++) {
+        assertTrue(request(in, out, "PARSE anbn cfg-cyk a b")
+            .startsWith("{\"error\":\"Can't parse grammar anbn"));
+      }
+      String stats = request(in, out, "STATS");
+      assertTrue(stats.startsWith("{\"requests\":8,\"errors\":5,"
+          + "\"connections\":1,\"grammars\":2,\"compiled\":4,"));
+      out.write("QUIT\n");
+      out.flush();
+      assertNull(in.readLine());
+    } finally {
+      server.close();
+    }
+  }
+
+  private static String request(BufferedReader in, Writer out, String line)
+      throws IOException {
+    out.write(line + "\n");
+    out.flush();
+    return in.readLine();
+  }
+}
@@ -18,7 +18,11 @@ public class ArrayUtilsTest {
     ChartItemInterface item2 = new DeductionChartItem("a", ".1", "la", "1", "-", "-", "3");
     ChartItemInterface item3 = new DeductionChartItem("a", ".1", "la", "1", "-", "-", "3", "0");
     assertTrue(!item1.equals(item2));
-    assertEquals(item1, item3);
+    assertTrue(!item1.equals(item3));
+    assertTrue(ArrayUtils.match(item1.getItemForm(), item3.getItemForm()));
+    assertTrue(!ArrayUtils.match(item1.getItemForm(), item2.getItemForm()));
+    assertEquals(item3, new DeductionChartItem("a", ".1", "la", "1", "-", "-",
+        "3", "0"));
   }
 
   @Test public void testListContainsItem() {
@@ -27,8 +31,10 @@ public class ArrayUtilsTest {
 
     List<ChartItemInterface> testchart = new ArrayList<>();
     testchart.add(item2);
-    assertTrue(testchart.contains(item1));
-    assertEquals(0, testchart.indexOf(item1));
+    assertTrue(!testchart.contains(item1));
+    assertTrue(testchart.contains(
+        new DeductionChartItem("a", ".1", "la", "1", "-", "-", "3", "0")));
+    assertEquals(0, testchart.indexOf(item2));
   }
 
 }
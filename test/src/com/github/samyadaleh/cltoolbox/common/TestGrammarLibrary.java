@@ -484,4 +484,26 @@ public class TestGrammarLibrary {
       return null;
     }
   }
+
+  /**
+   * A and B derive each other, without the cycle S derives a in 4 ways.
+   */
+  public static Cfg unitCycleCfg() {
+    Cfg cfg = new Cfg();
+    cfg.setTerminals(new String[] {"a"});
+    cfg.setNonterminals(new String[] {"S", "A", "B"});
+    try {
+      cfg.addProductionRule("S -> A");
+      cfg.addProductionRule("S -> B");
+      cfg.addProductionRule("A -> B");
+      cfg.addProductionRule("A -> a");
+      cfg.addProductionRule("B -> A");
+      cfg.addProductionRule("B -> a");
+      cfg.setStartSymbol("S");
+      return cfg;
+    } catch (ParseException e) {
+      log.error(e.getMessage(), e);
+      return null;
+    }
+  }
 }
@@ -2,12 +2,17 @@ package com.github.samyadaleh.cltoolbox.common.cfg;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.text.ParseException;
 
 import org.junit.Test;
 
 import com.github.samyadaleh.cltoolbox.common.cfg.Cfg;
 import com.github.samyadaleh.cltoolbox.common.cfg.Pcfg;
+import com.github.samyadaleh.cltoolbox.common.parser.PcfgGrammarParser;
+import com.github.samyadaleh.cltoolbox.common.parser.PcfgGrammarWriter;
 
 public class PcfgTest {
   @Test public void testCreatePcfgFromCfg() throws ParseException {
@@ -27,4 +32,19 @@ public class PcfgTest {
         + "0.2 : S -> d}\n",
       pcfg.toString());
   }
+
+  @Test public void testWriteAndParsePcfg()
+    throws IOException, ParseException {
+    Pcfg pcfg = new Pcfg();
+    pcfg.setNonterminals(new String[] {"S", "A"});
+    pcfg.setTerminals(new String[] {"a"});
+    pcfg.setStartSymbol("S");
+    pcfg.setProductionRules(new String[][] {{"S", "A A", "0.3333333333333333"},
+      {"S", "a", "0.6666666666666667"}, {"A", "a", "1.0E-5"}});
+    StringWriter writer = new StringWriter();
+    PcfgGrammarWriter.writePcfg(pcfg, writer);
+    Pcfg parsed =
+      PcfgGrammarParser.parsePcfgReader(new StringReader(writer.toString()));
+    assertEquals(pcfg.toString(), parsed.toString());
+  }
 }
@@ -0,0 +1,147 @@
+package com.github.samyadaleh.cltoolbox.common.cfg.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.samyadaleh.cltoolbox.common.TestGrammarLibrary;
+import com.github.samyadaleh.cltoolbox.common.cfg.Pcfg;
+
+public class InsideOutsideTest {
+
+  @Test public void testUnambiguousCounts() {
+    InsideOutside insideOutside =
+        new InsideOutside(TestGrammarLibrary.banPcfg());
+    ExpectedCounts counts = insideOutside.expectedCounts("b a");
+    // S -> A B, A -> b, A -> a, B -> B B, B -> a
+    assertCounts(new double[] {1, 1, 0, 0, 1}, counts);
+    assertEquals(Math.log(0.7 * 0.4), counts.getLogLikelihood(), 1e-9);
+    assertEquals(1, counts.getSentences());
+  }
+
+  @Test public void testAmbiguousCounts() {
+    InsideOutside insideOutside =
+        new InsideOutside(TestGrammarLibrary.banPcfg());
+    // both bracketings of a a a use B -> B B twice
+    ExpectedCounts counts = insideOutside.expectedCounts("b a a a");
+    assertCounts(new double[] {1, 1, 0, 2, 3}, counts);
+    assertEquals(Math.log(2 * 0.7 * 0.6 * 0.6 * 0.4 * 0.4 * 0.4),
+        counts.getLogLikelihood(), 1e-9);
+    ExpectedCounts skipped = insideOutside.expectedCounts("a b");
+    assertEquals(0, skipped.getSentences());
+    assertEquals(1, skipped.getSkipped());
+  }
+
+  @Test public void testLongSentenceDoesNotUnderflow() {
+    InsideOutside insideOutside =
+        new InsideOutside(TestGrammarLibrary.banPcfg());
+    StringBuilder w = new StringBuilder("b");
+    for (int i = 0; i < 400; i++) {
+      w.append(" a");
+    }
+    ExpectedCounts counts = insideOutside.expectedCounts(w.toString());
+    assertEquals(1, counts.getSentences());
+    assertEquals(399, counts.getRuleCount(3), 1e-6);
+    assertEquals(400, counts.getRuleCount(4), 1e-6);
+  }
+
+  @Test public void testCertainBinaryRuleDoesNotUnderflow() {
+    Pcfg pcfg = new Pcfg();
+    pcfg.setNonterminals(new String[] {"S", "A", "Z"});
+    pcfg.setTerminals(new String[] {"a", "b"});
+    pcfg.setStartSymbol("S");
+    // Z is not used, its binary rule has probability 1
+    pcfg.setProductionRules(new String[][] {{"S", "A S", "0.01"},
+        {"S", "b", "0.99"}, {"Z", "A A", "1.0"}, {"A", "a", "1.0"}});
+    StringBuilder w = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      w.append("a ");
+    }
+    ExpectedCounts counts =
+        new InsideOutside(pcfg).expectedCounts(w.append("b").toString());
+    assertEquals(1, counts.getSentences());
+    assertEquals(0, counts.getSkipped());
+    assertEquals(200 * Math.log(0.01) + Math.log(0.99),
+        counts.getLogLikelihood(), 1e-6);
+    assertCounts(new double[] {200, 1, 0, 200}, counts);
+  }
+
+  @Test public void testParallelCountsEqualSequential() {
+    Pcfg pcfg = TestGrammarLibrary.niceUglyCarPcfg();
+    List<String> corpus = randomCorpus(pcfg, new Random(3), 500);
+    InsideOutside insideOutside = new InsideOutside(pcfg);
+    ExpectedCounts sequential =
+        insideOutside.expectedCounts(corpus.iterator(), 1);
+    ExpectedCounts parallel =
+        insideOutside.expectedCounts(corpus.iterator(), 4);
+    assertEquals(sequential.getSentences(), parallel.getSentences());
+    assertEquals(sequential.getLogLikelihood(), parallel.getLogLikelihood(),
+        1e-6);
+    for (int r = 0; r < pcfg.getProductionRules().size(); r++) {
+      assertEquals(sequential.getRuleCount(r), parallel.getRuleCount(r),
+          1e-6);
+    }
+  }
+
+  @Test public void testEmDoesNotDecreaseLikelihood() {
+    Pcfg pcfg = TestGrammarLibrary.niceUglyCarPcfg();
+    List<String> corpus = randomCorpus(pcfg, new Random(5), 200);
+    double last = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < 5; i++) {
+      InsideOutside insideOutside = new InsideOutside(pcfg);
+      ExpectedCounts counts =
+          insideOutside.expectedCounts(corpus.iterator(), 2);
+      assertTrue(counts.getLogLikelihood() >= last - 1e-9);
+      last = counts.getLogLikelihood();
+      pcfg = insideOutside.reestimate(counts);
+    }
+    double[] lhsSums = new double[2];
+    for (int r = 0; r < pcfg.getProductionRules().size(); r++) {
+      lhsSums[pcfg.getProductionRules().get(r).getLhs().equals("N") ? 0 : 1] +=
+          pcfg.getProductionRules().get(r).getP();
+    }
+    assertEquals(1, lhsSums[0], 1e-9);
+    assertEquals(1, lhsSums[1], 1e-9);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsNonCnf() {
+    Pcfg pcfg = new Pcfg();
+    pcfg.setNonterminals(new String[] {"S"});
+    pcfg.setTerminals(new String[] {"a"});
+    pcfg.setStartSymbol("S");
+    pcfg.setProductionRules(
+        new String[][] {{"S", "S a", "0.5"}, {"S", "a", "0.5"}});
+    new InsideOutside(pcfg);
+  }
+
+  private static void assertCounts(double[] expected, ExpectedCounts counts) {
+    for (int r = 0; r < expected.length; r++) {
+      assertEquals(expected[r], counts.getRuleCount(r), 1e-9);
+    }
+  }
+
+  /** Sentences of random tokens, with blank lines and extra whitespace. */
+  private static List<String> randomCorpus(Pcfg pcfg, Random random,
+      int size) {
+    String[] terminals = pcfg.getTerminals();
+    List<String> corpus = new ArrayList<>();
+    for (int s = 0; s < size; s++) {
+      StringBuilder w = new StringBuilder();
+      for (int i = 0; i < 1 + random.nextInt(6); i++) {
+        w.append(i > 0 && random.nextInt(10) == 0 ? "  " : " ")
+            .append(terminals[random.nextInt(terminals.length)]);
+      }
+      corpus.add(w.toString());
+      if (random.nextInt(20) == 0) {
+        corpus.add("");
+      }
+    }
+    return corpus;
+  }
+}